@@ -116,4 +116,9 @@ public List<String> getTagTypes(String tagTypePattern) throws Exception {
     public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, long lastActivationTimeInMillis) throws Exception {
         return null;
     }
+
+    @Override
+    public RangerServiceVersions waitForChanges(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception {
+        throw new RangerChangeNotificationNotSupportedException("change notification is not supported by " + getClass().getName());
+    }
 }
@@ -24,7 +24,9 @@
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
+import org.apache.ranger.plugin.util.RangerChangeNotificationNotSupportedException;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.plugin.util.RangerUserStore;
@@ -64,4 +66,11 @@ public interface RangerAdminClient {
 
 	RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, long lastActivationTimeInMillis) throws Exception;
 
+	/**
+	 * Waits, for up to timeoutMs, until Ranger Admin has a version newer than one of the non-null versions in lastKnownVersions.
+	 * @return the versions known to Ranger Admin; null if none changed within timeoutMs
+	 * @throws RangerChangeNotificationNotSupportedException if this client or Ranger Admin doesn't support change notification
+	 */
+	RangerServiceVersions waitForChanges(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception;
+
 }
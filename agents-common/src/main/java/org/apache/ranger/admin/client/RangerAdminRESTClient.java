@@ -55,6 +55,7 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 	private RangerRESTUtils  restUtils   = new RangerRESTUtils();
 	private String 		     supportsPolicyDeltas;
 	private String 		     supportsTagDeltas;
+	private String 		     supportsUserStoreDeltas;
 	private final String     pluginCapabilities = Long.toHexString(new RangerPluginCapability().getPluginCapabilities());
 
 	public static <T> GenericType<List<T>> getGenericType(final T clazz) {
@@ -99,6 +100,7 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
 		int	 restClientReadTimeOutMs	= config.getInt(propertyPrefix + ".policy.rest.client.read.timeoutMs", 30 * 1000);
 		supportsPolicyDeltas            = config.get(propertyPrefix + ".policy.rest.supports.policy.deltas", "false");
 		supportsTagDeltas               = config.get(propertyPrefix + ".tag.rest.supports.tag.deltas", "false");
+		supportsUserStoreDeltas         = config.get(propertyPrefix + ".userstore.rest.supports.userstore.deltas", "false");
 
         if (!StringUtil.isEmpty(tmpUrl)) {
             url = tmpUrl.trim();
@@ -112,6 +114,9 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
 		if (!"true".equalsIgnoreCase(supportsTagDeltas)) {
 			supportsTagDeltas = "false";
 		}
+		if (!"true".equalsIgnoreCase(supportsUserStoreDeltas)) {
+			supportsUserStoreDeltas = "false";
+		}
 
 		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs, config);
 
@@ -931,6 +936,7 @@ public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lon
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS, supportsUserStoreDeltas);
 
 		if (isSecureMode) {
 			if (LOG.isDebugEnabled()) {
@@ -996,4 +1002,70 @@ public ClientResponse run() {
 		return ret;
 	}
 
+	@Override
+	public RangerServiceVersions waitForChanges(final RangerServiceVersions lastKnownVersions, final long timeoutMs) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerAdminRESTClient.waitForChanges(" + lastKnownVersions + ", " + timeoutMs + ")");
+		}
+
+		final RangerServiceVersions ret;
+		final UserGroupInformation  user         = MiscUtil.getUGILoginUser();
+		final boolean               isSecureMode = user != null && UserGroupInformation.isSecurityEnabled();
+		final String                relativeURL  = (isSecureMode ? RangerRESTUtils.REST_URL_SECURE_WAIT_FOR_CHANGES : RangerRESTUtils.REST_URL_WAIT_FOR_CHANGES) + serviceNameUrlParam;
+		// leave time for Ranger Admin to respond after the wait times out
+		final Integer               readTimeOutMs = (int) Math.min(Integer.MAX_VALUE, timeoutMs + restClient.getRestClientReadTimeOutMs());
+		final Map<String, String>   queryParams   = new HashMap<String, String>();
+		final ClientResponse        response;
+
+		addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, lastKnownVersions.getPolicyVersion());
+		addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_TAG_VERSION, lastKnownVersions.getTagVersion());
+		addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_ROLE_VERSION, lastKnownVersions.getRoleVersion());
+		addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_USERSTORE_VERSION, lastKnownVersions.getUserStoreVersion());
+		queryParams.put(RangerRESTUtils.REST_PARAM_WAIT_TIMEOUT_MS, Long.toString(timeoutMs));
+		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+
+		if (isSecureMode) {
+			PrivilegedAction<ClientResponse> action = new PrivilegedAction<ClientResponse>() {
+				public ClientResponse run() {
+					ClientResponse clientRes = null;
+					try {
+						clientRes = restClient.get(relativeURL, queryParams, readTimeOutMs);
+					} catch (Exception e) {
+						LOG.error("Failed to get response, Error is : " + e.getMessage());
+					}
+					return clientRes;
+				}
+			};
+			response = user.doAs(action);
+		} else {
+			response = restClient.get(relativeURL, queryParams, readTimeOutMs);
+		}
+
+		if (response == null) {
+			throw new Exception("waitForChanges(serviceName=" + serviceName + "): received NULL response. secureMode=" + isSecureMode + ", user=" + user);
+		} else if (response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+			ret = null;
+		} else if (response.getStatus() == HttpServletResponse.SC_OK) {
+			ret = response.getEntity(RangerServiceVersions.class);
+		} else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
+			// Ranger Admin doesn't have the change-notification endpoint
+			throw new RangerChangeNotificationNotSupportedException("change notification is not supported by Ranger Admin. serviceName=" + serviceName);
+		} else {
+			RESTResponse resp = RESTResponse.fromClientResponse(response);
+
+			throw new Exception("waitForChanges(serviceName=" + serviceName + ") failed. secureMode=" + isSecureMode + ", user=" + user + ", response=" + resp);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerAdminRESTClient.waitForChanges(" + lastKnownVersions + ", " + timeoutMs + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private static void addVersionParam(Map<String, String> queryParams, String name, Long version) {
+		if (version != null) {
+			queryParams.put(name, Long.toString(version));
+		}
+	}
 }
@@ -36,6 +36,7 @@ public RangerChainedPluginConfig(String serviceType, String serviceName, String
         copyProperty(sourcePluginConfig, ".policy.rest.read.timeoutMs", 30 * 1000);
         copyProperty(sourcePluginConfig, ".policy.rest.supports.policy.deltas");
         copyProperty(sourcePluginConfig, ".tag.rest.supports.tag.deltas");
+        copyProperty(sourcePluginConfig, ".userstore.rest.supports.userstore.deltas");
     }
 
     protected void copyProperty(RangerPluginConfig sourcePluginConfig, String propertySuffix) {
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scripts of condition evaluators compiled once per script text, shared by all policies using the same script engine.
+ * Scripts that fail to compile are remembered as well, so that they are not compiled (and logged) again on every access.
+ */
+public class RangerCompiledScriptCache {
+	private static final Log LOG = LogFactory.getLog(RangerCompiledScriptCache.class);
+
+	private static final int MAX_COMPILED_SCRIPTS = 1024;
+
+	private static final Map<String, RangerCompiledScriptCache> instances = new HashMap<>();
+
+	private static final CompiledScript COMPILE_FAILED = new CompiledScript() {
+		@Override
+		public Object eval(ScriptContext context) throws ScriptException {
+			throw new ScriptException("script failed to compile");
+		}
+
+		@Override
+		public ScriptEngine getEngine() {
+			return null;
+		}
+	};
+
+	private final ScriptEngine                scriptEngine;
+	private final Map<String, CompiledScript> compiledScripts;
+
+	private RangerCompiledScriptCache(final ScriptEngine scriptEngine) {
+		this.scriptEngine    = scriptEngine;
+		this.compiledScripts = Collections.synchronizedMap(new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+				return size() > MAX_COMPILED_SCRIPTS;
+			}
+		});
+	}
+
+	/**
+	 * @return the cache for the given engine name; engines loaded by different class-loaders get different caches
+	 */
+	public static RangerCompiledScriptCache getInstance(String engineName, ScriptEngine scriptEngine) {
+		if (!(scriptEngine instanceof Compilable)) {
+			return null;
+		}
+
+		String key = engineName + "@" + System.identityHashCode(scriptEngine.getClass().getClassLoader());
+
+		synchronized (instances) {
+			RangerCompiledScriptCache ret = instances.get(key);
+
+			if (ret == null) {
+				ret = new RangerCompiledScriptCache(scriptEngine);
+
+				instances.put(key, ret);
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * @return compiled script, or null if the script could not be compiled
+	 */
+	public CompiledScript getCompiledScript(String script) {
+		CompiledScript ret = compiledScripts.get(script);
+
+		if (ret == null) {
+			try {
+				ret = ((Compilable) scriptEngine).compile(script);
+			} catch (ScriptException excp) {
+				LOG.error("RangerCompiledScriptCache.getCompiledScript(): failed to compile script={" + script + "}, exception=" + excp);
+
+				ret = COMPILE_FAILED;
+			}
+
+			compiledScripts.put(script, ret);
+		}
+
+		return ret == COMPILE_FAILED ? null : ret;
+	}
+
+	/**
+	 * Evaluates the compiled script with the given variables, in new bindings: globals set by a script must not be
+	 * visible to other scripts or to later evaluations, nor keep the variables of earlier requests reachable.
+	 */
+	public Object eval(CompiledScript compiledScript, Map<String, Object> variables) throws ScriptException {
+		Bindings bindings = scriptEngine.createBindings();
+
+		bindings.putAll(variables);
+
+		return compiledScript.eval(bindings);
+	}
+}
@@ -30,6 +30,7 @@
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerCidrTrie;
 
 /**
  * Credits: Large parts of this file have been lifted as is from org.apache.ranger.pdp.knox.URLBasedAuthDB.  Credits for those are due to Dilli Arumugam.
@@ -39,6 +40,7 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerIpMatcher.class);
 	private List<String> _exactIps = new ArrayList<>();
 	private List<String> _wildCardIps = new ArrayList<>();
+	private RangerCidrTrie _cidrs = new RangerCidrTrie();
 	private boolean _allowAny;
 	
 	@Override
@@ -61,6 +63,10 @@ public void init() {
 			LOG.debug("init: wildcard value found.  Will match always.");
 		} else {
 			for (String ip : condition.getValues()) {
+				if (ip.indexOf('/') != -1 && _cidrs.add(ip)) { // CIDR range, like 10.1.0.0/16 or 2001:db8::/32
+					continue;
+				}
+
 				String digestedIp = digestPolicyIp(ip);
 				if (digestedIp.isEmpty()) {
 					LOG.debug("init: digested ip was empty! Will match always");
@@ -74,7 +80,7 @@ public void init() {
 		}
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "]");
+			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "], has-cidrs[" + !_cidrs.isEmpty() + "]");
 		}
 	}
 
@@ -92,7 +98,7 @@ public boolean isMatched(final RangerAccessRequest request) {
 			if (requestIp == null) {
 				LOG.debug("isMatched: couldn't get ip address from request.  Ok.  Implicitly matched!");
 			} else {
-				ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+				ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp) || isCidrMatched(requestIp);
 			}
 		}
 		
@@ -146,15 +152,17 @@ boolean isWildcardMatched(final List<String> ips, final String requestIp) {
 		}
 
 		boolean matchFound = false;
+		boolean isIpv4 = requestIp.contains(".");
+		String lowerCaseRequestIp = requestIp.toLowerCase();
 		Iterator<String> iterator = ips.iterator();
 		while (iterator.hasNext() && !matchFound) {
 			String ip = iterator.next();
-			if (requestIp.contains(".") && requestIp.startsWith(ip)) {
+			if (isIpv4 && requestIp.startsWith(ip)) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Wildcard Policy IP[" + ip + "] matches request IPv4[" + requestIp + "].");
 				}
 				matchFound = true;
-			} else if (requestIp.toLowerCase().startsWith(ip)) {
+			} else if (lowerCaseRequestIp.startsWith(ip)) {
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Wildcard Policy IP[" + ip + "] matches request IPv6[" + requestIp + "].");
 					}
@@ -188,6 +196,15 @@ boolean isExactlyMatched(final List<String> ips, final String requestIp) {
 		return matchFound;
 	}
 	
+	boolean isCidrMatched(final String requestIp) {
+		boolean matchFound = !_cidrs.isEmpty() && _cidrs.contains(requestIp);
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerIpMatcher.isCidrMatched(" + requestIp + "): " + matchFound);
+		}
+		return matchFound;
+	}
+
 	/**
 	 * Extracts and returns the ip address from the request.  Returns null if one can't be obtained out of the request.
 	 * @param request
@@ -29,18 +29,23 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
 import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerScriptConditionEvaluator.class);
 
-	private ScriptEngine scriptEngine;
+	private ScriptEngine              scriptEngine;
+	private RangerCompiledScriptCache compiledScriptCache;
+	private volatile CompiledScript   compiledScript;
+	private volatile String           compiledScriptText;
 
 	@Override
 	public void init() {
@@ -115,6 +120,14 @@ public void init() {
 			LOG.error("failed to initialize condition '" + conditionType + "': script engine '" + engineName + "' was not created");
 		} else {
 			LOG.info("ScriptEngine for engineName=[" + engineName + "] is successfully created");
+
+			compiledScriptCache = RangerCompiledScriptCache.getInstance(engineName, scriptEngine);
+
+			String script = getScript();
+
+			if (StringUtils.isNotBlank(script)) {
+				getCompiledScript(script);
+			}
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -141,24 +154,42 @@ public boolean isMatched(RangerAccessRequest request) {
 				RangerTagForEval             currentTag = context.getCurrentTag();
 				Map<String, String>          tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.emptyMap();
 
-				Bindings bindings = scriptEngine.createBindings();
+				Map<String, Object> variables = new HashMap<>();
 
-				bindings.put("ctx", context);
-				bindings.put("tag", currentTag);
-				bindings.put("tagAttr", tagAttribs);
+				variables.put("ctx", context);
+				variables.put("tag", currentTag);
+				variables.put("tagAttr", tagAttribs);
 
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={" + script + "}");
 				}
 				try {
-
-					Object ret = scriptEngine.eval(script, bindings);
-
-					if (ret == null) {
-						ret = context.getResult();
-					}
-					if (ret instanceof Boolean) {
-						result = (Boolean) ret;
+					CompiledScript compiledScript = getCompiledScript(script);
+
+					if (compiledScript == null && compiledScriptCache != null) {
+						// the script failed to compile; the error was logged once, by compiledScriptCache
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("RangerScriptConditionEvaluator.isMatched(): script failed to compile, ignoring condition");
+						}
+					} else {
+						Object ret;
+
+						if (compiledScript != null) {
+							ret = compiledScriptCache.eval(compiledScript, variables);
+						} else {
+							Bindings bindings = scriptEngine.createBindings();
+
+							bindings.putAll(variables);
+
+							ret = scriptEngine.eval(script, bindings);
+						}
+
+						if (ret == null) {
+							ret = context.getResult();
+						}
+						if (ret instanceof Boolean) {
+							result = (Boolean) ret;
+						}
 					}
 
 				} catch (NullPointerException nullp) {
@@ -186,6 +217,23 @@ public boolean isMatched(RangerAccessRequest request) {
 
 	}
 
+	private CompiledScript getCompiledScript(String script) {
+		CompiledScript ret = null;
+
+		if (compiledScriptCache != null) {
+			ret = compiledScript;
+
+			if (ret == null || !StringUtils.equals(script, compiledScriptText)) {
+				ret = compiledScriptCache.getCompiledScript(script);
+
+				compiledScript     = ret;
+				compiledScriptText = script;
+			}
+		}
+
+		return ret;
+	}
+
 	protected String getScript() {
 		String ret = null;
 
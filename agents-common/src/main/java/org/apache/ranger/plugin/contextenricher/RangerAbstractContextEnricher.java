@@ -172,6 +172,10 @@ public RangerAuthContext getAuthContext() {
 		return pluginContext != null ? pluginContext.getAuthContext() : null;
 	}
 
+	public RangerPluginContext getPluginContext() {
+		return pluginContext;
+	}
+
 	final public void setPluginContext(RangerPluginContext pluginContext) {
 		this.pluginContext = pluginContext;
 	}
@@ -34,10 +34,12 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
 import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.util.DownloadTrigger;
+import org.apache.ranger.plugin.util.ChangeWatcher;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
@@ -61,7 +63,13 @@
 import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private static final Log LOG = LogFactory.getLog(RangerTagEnricher.class);
@@ -80,9 +88,11 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private boolean                            disableTrieLookupPrefilter;
 	private EnrichedServiceTags                enrichedServiceTags;
 	private boolean                            disableCacheIfServiceNotFound = true;
+	private int                                builderThreadCount = 1;
 
 	private final BlockingQueue<DownloadTrigger> tagDownloadQueue = new LinkedBlockingQueue<>();
 	private Timer                              tagDownloadTimer;
+	private ChangeWatcher                      changeWatcher;
 
 	@Override
 	public void init() {
@@ -119,6 +129,7 @@ public void init() {
 			if (tagRetriever != null) {
 				String propertyPrefix    = "ranger.plugin." + serviceDef.getName();
 				disableCacheIfServiceNotFound = getBooleanConfig(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+				builderThreadCount = Math.max(1, getIntConfig(propertyPrefix + ".tag.builder.thread.count", 1));
 				String cacheDir      = getConfig(propertyPrefix + ".policy.cache.dir", null);
 				String cacheFilename = String.format("%s_%s_tag.json", appId, serviceName);
 
@@ -143,10 +154,19 @@ public void init() {
 				tagRefresher.setDaemon(true);
 				tagRefresher.startRefresher();
 
+				RangerPluginContext pluginContext = getPluginContext();
+
+				// tags from other retrievers don't have their versions in Ranger Admin
+				if (pluginContext != null && pluginContext.getChangeWatcher() != null && tagRetriever instanceof RangerAdminTagRetriever) {
+					changeWatcher = pluginContext.getChangeWatcher();
+
+					changeWatcher.register(ChangeWatcher.ChangeType.TAG, tagRefresher::getLastKnownVersion, tagDownloadQueue);
+				}
+
 				tagDownloadTimer = new Timer("policyDownloadTimer", true);
 
 				try {
-					tagDownloadTimer.schedule(new DownloaderTask(tagDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+					tagDownloadTimer.schedule(new DownloaderTask(tagDownloadQueue, changeWatcher), pollingIntervalMs, pollingIntervalMs);
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Scheduled tagDownloadRefresher to download tags every " + pollingIntervalMs + " milliseconds");
 					}
@@ -214,9 +234,10 @@ public void enrich(RangerAccessRequest request, Object dataStore) {
 	 */
 
 	static public class ResourceHierarchies {
-		private final Map<Collection<String>, Boolean> accessHierarchies    = new HashMap<>();
-		private final Map<Collection<String>, Boolean> dataMaskHierarchies  = new HashMap<>();
-		private final Map<Collection<String>, Boolean> rowFilterHierarchies = new HashMap<>();
+		// concurrent, as matchers are created from multiple threads when tag.builder.thread.count > 1
+		private final Map<Collection<String>, Boolean> accessHierarchies    = new ConcurrentHashMap<>();
+		private final Map<Collection<String>, Boolean> dataMaskHierarchies  = new ConcurrentHashMap<>();
+		private final Map<Collection<String>, Boolean> rowFilterHierarchies = new ConcurrentHashMap<>();
 
 		Boolean isValidHierarchy(int policyType, Collection<String> resourceKeys) {
 			switch (policyType) {
@@ -331,6 +352,13 @@ public boolean preCleanup() {
 			tagDownloadTimer.cancel();
 		}
 
+		ChangeWatcher changeWatcher = this.changeWatcher;
+		this.changeWatcher = null;
+
+		if (changeWatcher != null) {
+			changeWatcher.unregister(tagDownloadQueue);
+		}
+
 		RangerTagRefresher tagRefresher = this.tagRefresher;
 		this.tagRefresher = null;
 
@@ -365,39 +393,166 @@ private void processServiceTags(ServiceTags serviceTags) {
 			enrichedServiceTags = null;
 		} else {
 
-			RangerServiceDefHelper serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
-			ResourceHierarchies    hierarchies      = new ResourceHierarchies();
+			RangerServiceDefHelper      serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
+			ResourceHierarchies         hierarchies      = new ResourceHierarchies();
+			List<RangerServiceResource> serviceResources = serviceTags.getServiceResources();
+			ExecutorService             executor         = createBuilderExecutor(serviceResources.size());
 
-			List<RangerServiceResourceMatcher> resourceMatchers = new ArrayList<>();
-			List<RangerServiceResource>        serviceResources = serviceTags.getServiceResources();
+			try {
+				List<RangerServiceResourceMatcher> resourceMatchers = executor != null ? createResourceMatchers(serviceResources, serviceDefHelper, hierarchies, executor)
+				                                                                       : createResourceMatchers(serviceResources, serviceDefHelper, hierarchies);
 
-			for (RangerServiceResource serviceResource : serviceResources) {
-				RangerServiceResourceMatcher serviceResourceMatcher = createRangerServiceResourceMatcher(serviceResource, serviceDefHelper, hierarchies);
-				if (serviceResourceMatcher != null) {
-					resourceMatchers.add(serviceResourceMatcher);
+				isInError = resourceMatchers == null;
+
+				if (isInError) {
+					serviceTags.setTagVersion(-1L);
+					LOG.error("Error in processing tag-deltas. Will continue to use old tags");
 				} else {
-					LOG.error("Could not create service-resource-matcher for service-resource:[" + serviceResource + "]");
-					isInError = true;
-					break;
+					Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
+
+					if (!disableTrieLookupPrefilter) {
+						serviceResourceTrie = executor != null ? createResourceTries(resourceMatchers, executor) : null;
+
+						if (serviceResourceTrie == null) {
+							serviceResourceTrie = createResourceTries(resourceMatchers);
+						}
+					}
+					enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie);
+				}
+			} finally {
+				if (executor != null) {
+					executor.shutdownNow();
 				}
 			}
+		}
+	}
 
-			if (isInError) {
-				serviceTags.setTagVersion(-1L);
-				LOG.error("Error in processing tag-deltas. Will continue to use old tags");
+	private List<RangerServiceResourceMatcher> createResourceMatchers(List<RangerServiceResource> serviceResources, RangerServiceDefHelper serviceDefHelper, ResourceHierarchies hierarchies) {
+		List<RangerServiceResourceMatcher> ret = new ArrayList<>(serviceResources.size());
+
+		for (RangerServiceResource serviceResource : serviceResources) {
+			RangerServiceResourceMatcher serviceResourceMatcher = createRangerServiceResourceMatcher(serviceResource, serviceDefHelper, hierarchies);
+			if (serviceResourceMatcher != null) {
+				ret.add(serviceResourceMatcher);
 			} else {
-				Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
+				LOG.error("Could not create service-resource-matcher for service-resource:[" + serviceResource + "]");
+				ret = null;
+				break;
+			}
+		}
 
-				if (!disableTrieLookupPrefilter) {
-					serviceResourceTrie = new HashMap<>();
+		return ret;
+	}
 
-					for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-						serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie<>(resourceDef, resourceMatchers));
-					}
+	/*
+	 * Creates matchers for consecutive slices of serviceResources in the executor; the slices are joined in their order, so
+	 * that the matchers are in the same order as with the single-threaded creation.
+	 */
+	private List<RangerServiceResourceMatcher> createResourceMatchers(List<RangerServiceResource> serviceResources, RangerServiceDefHelper serviceDefHelper, ResourceHierarchies hierarchies, ExecutorService executor) {
+		RangerPerfTracer perf = null;
+
+		if (RangerPerfTracer.isPerfTraceEnabled(PERF_SET_SERVICETAGS_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_SET_SERVICETAGS_LOG, "RangerTagEnricher.createResourceMatchers(serviceResourceCount=" + serviceResources.size() + ",builderThreadCount=" + builderThreadCount + ")");
+		}
+
+		List<RangerServiceResourceMatcher>               ret        = new ArrayList<>(serviceResources.size());
+		List<Future<List<RangerServiceResourceMatcher>>> slices     = new ArrayList<>();
+		int                                              sliceCount = builderThreadCount * 4; // more slices than threads, to even out slices that take longer
+		int                                              sliceSize  = (serviceResources.size() + sliceCount - 1) / sliceCount;
+
+		for (int fromIndex = 0; fromIndex < serviceResources.size(); fromIndex += sliceSize) {
+			final List<RangerServiceResource> slice = serviceResources.subList(fromIndex, Math.min(fromIndex + sliceSize, serviceResources.size()));
+
+			slices.add(executor.submit(() -> createResourceMatchers(slice, serviceDefHelper, hierarchies)));
+		}
+
+		try {
+			for (Future<List<RangerServiceResourceMatcher>> slice : slices) {
+				List<RangerServiceResourceMatcher> matchers = slice.get();
+
+				if (matchers == null) {
+					ret = null;
+					break;
 				}
-				enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie);
+
+				ret.addAll(matchers);
+			}
+		} catch (InterruptedException | ExecutionException excp) {
+			LOG.error("Failed to create service-resource-matchers", excp);
+
+			ret = null;
+		}
+
+		RangerPerfTracer.logAlways(perf);
+
+		return ret;
+	}
+
+	private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> createResourceTries(List<RangerServiceResourceMatcher> resourceMatchers) {
+		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> ret = new HashMap<>();
+
+		for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+			ret.put(resourceDef.getName(), new RangerResourceTrie<>(resourceDef, resourceMatchers));
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Builds the trie of each resource-def in the executor
+	 *
+	 * @return null if building any of the tries failed; caller then builds them in the current thread
+	 */
+	private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> createResourceTries(List<RangerServiceResourceMatcher> resourceMatchers, ExecutorService executor) {
+		RangerPerfTracer perf = null;
+
+		if (RangerPerfTracer.isPerfTraceEnabled(PERF_SET_SERVICETAGS_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_SET_SERVICETAGS_LOG, "RangerTagEnricher.createResourceTries(serviceResourceCount=" + resourceMatchers.size() + ",builderThreadCount=" + builderThreadCount + ")");
+		}
+
+		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>>         ret   = new HashMap<>();
+		Map<String, Future<RangerResourceTrie<RangerServiceResourceMatcher>>> tries = new HashMap<>();
+
+		for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+			tries.put(resourceDef.getName(), executor.submit(() -> new RangerResourceTrie<>(resourceDef, resourceMatchers)));
+		}
+
+		try {
+			for (Map.Entry<String, Future<RangerResourceTrie<RangerServiceResourceMatcher>>> entry : tries.entrySet()) {
+				ret.put(entry.getKey(), entry.getValue().get());
 			}
+		} catch (InterruptedException | ExecutionException excp) {
+			LOG.error("Failed to build resource-tries using " + builderThreadCount + " threads. Building using a single thread", excp);
+
+			ret = null;
 		}
+
+		RangerPerfTracer.logAlways(perf);
+
+		return ret;
+	}
+
+	/*
+	 * @return null when matchers and tries are to be built in the current thread
+	 */
+	private ExecutorService createBuilderExecutor(int serviceResourceCount) {
+		final ExecutorService ret;
+
+		if (builderThreadCount > 1 && serviceResourceCount > 1) {
+			final AtomicInteger threadIndex = new AtomicInteger();
+
+			ret = Executors.newFixedThreadPool(builderThreadCount, runnable -> {
+				Thread thread = new Thread(runnable, "RangerTagEnricher(serviceName=" + serviceName + ")-builder-" + threadIndex.incrementAndGet());
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+		} else {
+			ret = null;
+		}
+
+		return ret;
 	}
 
 	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags) {
@@ -678,6 +833,8 @@ private List<RangerServiceResourceMatcher> getEvaluators(RangerAccessResource re
 
 			if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_OP_LOG)) {
 				perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerTagEnricher.getEvaluators(resource=" + resource.getAsString() + ")");
+			} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+				perf = RangerPerfTracer.getPerfStatsTracer(PERF_TRIE_OP_LOG, "RangerTagEnricher.getEvaluators");
 			}
 
 			Set<String>                             resourceKeys = resource.getKeys();
@@ -819,7 +976,7 @@ static class RangerTagRefresher extends Thread {
 
 		private final RangerTagRetriever tagRetriever;
 		private final RangerTagEnricher tagEnricher;
-		private long lastKnownVersion;
+		private volatile long lastKnownVersion;
 		private final BlockingQueue<DownloadTrigger> tagDownloadQueue;
 		private long lastActivationTimeInMillis;
 
@@ -841,6 +998,10 @@ static class RangerTagRefresher extends Thread {
 			setName("RangerTagRefresher(serviceName=" + tagRetriever.getServiceName() + ")-" + getId());
 		}
 
+		public long getLastKnownVersion() {
+			return lastKnownVersion;
+		}
+
 		public long getLastActivationTimeInMillis() {
 			return lastActivationTimeInMillis;
 		}
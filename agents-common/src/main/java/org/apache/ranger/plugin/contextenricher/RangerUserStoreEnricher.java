@@ -23,7 +23,9 @@
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.ChangeWatcher;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.RangerUserStore;
@@ -50,6 +52,7 @@ public class RangerUserStoreEnricher extends RangerAbstractContextEnricher {
 
     private final BlockingQueue<DownloadTrigger>     userStoreDownloadQueue = new LinkedBlockingQueue<>();
     private Timer                                    userStoreDownloadTimer;
+    private ChangeWatcher                            changeWatcher;
 
     @Override
     public void init() {
@@ -110,10 +113,18 @@ public void init() {
                 userStoreRefresher.setDaemon(true);
                 userStoreRefresher.startRefresher();
 
+                RangerPluginContext pluginContext = getPluginContext();
+
+                if (pluginContext != null && pluginContext.getChangeWatcher() != null && userStoreRetriever instanceof RangerAdminUserStoreRetriever) {
+                    changeWatcher = pluginContext.getChangeWatcher();
+
+                    changeWatcher.register(ChangeWatcher.ChangeType.USERSTORE, userStoreRefresher::getLastKnownVersion, userStoreDownloadQueue);
+                }
+
                 userStoreDownloadTimer = new Timer("userStoreDownloadTimer", true);
 
                 try {
-                    userStoreDownloadTimer.schedule(new DownloaderTask(userStoreDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+                    userStoreDownloadTimer.schedule(new DownloaderTask(userStoreDownloadQueue, changeWatcher), pollingIntervalMs, pollingIntervalMs);
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Scheduled userStoreDownloadRefresher to download userstore every " + pollingIntervalMs + " milliseconds");
                     }
@@ -217,6 +228,11 @@ public boolean preCleanup() {
             userStoreDownloadTimer = null;
         }
 
+        if (changeWatcher != null) {
+            changeWatcher.unregister(userStoreDownloadQueue);
+            changeWatcher = null;
+        }
+
         if (userStoreRefresher != null) {
             userStoreRefresher.cleanup();
             userStoreRefresher = null;
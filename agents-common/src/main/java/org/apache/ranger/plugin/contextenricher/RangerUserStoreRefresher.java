@@ -31,6 +31,7 @@
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 
@@ -52,7 +53,7 @@ public class RangerUserStoreRefresher extends Thread {
 
     private final RangerUserStoreRetriever userStoreRetriever;
     private final RangerUserStoreEnricher userStoreEnricher;
-    private long lastKnownVersion;
+    private volatile long lastKnownVersion;
     private final BlockingQueue<DownloadTrigger> userStoreDownloadQueue;
     private long lastActivationTimeInMillis;
 
@@ -78,6 +79,10 @@ public RangerUserStoreRefresher(RangerUserStoreRetriever userStoreRetriever, Ran
         setName("RangerUserStoreRefresher(serviceName=" + userStoreRetriever.getServiceName() + ")-" + getId());
     }
 
+    public long getLastKnownVersion() {
+        return lastKnownVersion;
+    }
+
     public long getLastActivationTimeInMillis() {
         return lastActivationTimeInMillis;
     }
@@ -130,6 +135,10 @@ public RangerUserStore populateUserStoreInfo() throws InterruptedException {
             try {
                 rangerUserStore = userStoreRetriever.retrieveUserStoreInfo(lastKnownVersion, lastActivationTimeInMillis);
 
+                if (rangerUserStore != null && rangerUserStore.getIsDelta()) {
+                    rangerUserStore = applyDelta(rangerUserStore);
+                }
+
                 if (rangerUserStore == null) {
                     if (!hasProvidedUserStoreToReceiver) {
                         rangerUserStore = loadFromCache();
@@ -250,6 +259,37 @@ public void stopRefresher() {
     }
 
 
+    private RangerUserStore applyDelta(RangerUserStore delta) throws Exception {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerUserStoreRefresher.applyDelta(lastKnownVersion=" + lastKnownVersion + ", deltaVersion=" + delta.getUserStoreVersion() + ")");
+        }
+
+        RangerUserStore ret     = null;
+        RangerUserStore current = userStoreEnricher.getRangerUserStore();
+
+        if (current != null && current.getUserStoreVersion() != null && current.getUserStoreVersion() == lastKnownVersion) {
+            ret = RangerUserStoreDeltaUtil.applyDelta(current, delta);
+        }
+
+        if (ret == null) {
+            LOG.warn("RangerUserStoreRefresher.applyDelta(): received delta for version " + lastKnownVersion + ", but enricher has version " + (current != null ? current.getUserStoreVersion() : null) + ". Downloading complete userstore");
+
+            ret = userStoreRetriever.retrieveUserStoreInfo(-1L, lastActivationTimeInMillis);
+
+            if (ret != null && ret.getIsDelta()) {
+                LOG.error("RangerUserStoreRefresher.applyDelta(): received delta when complete userstore was requested. Ignoring");
+
+                ret = null;
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerUserStoreRefresher.applyDelta(lastKnownVersion=" + lastKnownVersion + "): newVersion=" + (ret != null ? ret.getUserStoreVersion() : null));
+        }
+
+        return ret;
+    }
+
     private RangerUserStore loadFromCache() {
         RangerUserStore rangerUserStore = null;
 
@@ -34,6 +34,8 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 
 	private final long fromIPAddress;
 	private final long toIPAddress;
+	private final String fromIPv6Address;
+	private final String toIPv6Address;
 	private final String[] locationData;
 	private int hash;
 
@@ -71,12 +73,31 @@ public static RangerGeolocationData create(String fields[], int index, boolean u
 		return data;
 	}
 
-	private RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
+	RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
 		this.fromIPAddress = fromIPAddress;
 		this.toIPAddress = toIPAddress;
+		this.fromIPv6Address = null;
+		this.toIPv6Address = null;
 		this.locationData = locationData;
 	}
 
+	// IPv6 ranges don't fit in the long from/to fields; their addresses are kept in text form
+	RangerGeolocationData(final String fromIPv6Address, final String toIPv6Address, final String[] locationData) {
+		this.fromIPAddress = 0L;
+		this.toIPAddress = 0L;
+		this.fromIPv6Address = fromIPv6Address;
+		this.toIPv6Address = toIPv6Address;
+		this.locationData = locationData;
+	}
+
+	public String getFromAddress() {
+		return fromIPv6Address != null ? fromIPv6Address : RangerGeolocationData.unsignedIntToIPAddress(fromIPAddress);
+	}
+
+	public String getToAddress() {
+		return toIPv6Address != null ? toIPv6Address : RangerGeolocationData.unsignedIntToIPAddress(toIPAddress);
+	}
+
 	public String[] getLocationData() {
 		return locationData;
 	}
@@ -88,6 +109,12 @@ public int compareTo(final RangerGeolocationData other) {
 			ret = Long.compare(fromIPAddress, other.fromIPAddress);
 			if (ret == 0) {
 				ret = Long.compare(toIPAddress, other.toIPAddress);
+				if (ret == 0) {
+					ret = stringCompareTo(fromIPv6Address, other.fromIPv6Address);
+				}
+				if (ret == 0) {
+					ret = stringCompareTo(toIPv6Address, other.toIPv6Address);
+				}
 				if (ret == 0) {
 					ret = Integer.compare(locationData.length, other.locationData.length);
 					for (int i = 0; ret == 0 && i < locationData.length; i++) {
@@ -111,7 +138,7 @@ public boolean equals(Object other) {
 	@Override
 	public int hashCode() {
 		if (hash == 0) {
-			hash = Objects.hash(fromIPAddress, toIPAddress, locationData);
+			hash = Objects.hash(fromIPAddress, toIPAddress, fromIPv6Address, toIPv6Address, locationData);
 		}
 		return hash;
 	}
@@ -208,9 +235,9 @@ public String toString() {
 	private StringBuilder toString(StringBuilder sb) {
 		sb.append("{")
 				.append("from=")
-				.append(RangerGeolocationData.unsignedIntToIPAddress(fromIPAddress))
+				.append(getFromAddress())
 				.append(", to=")
-				.append(RangerGeolocationData.unsignedIntToIPAddress(toIPAddress))
+				.append(getToAddress())
 				.append(", location={");
 			for (String data : locationData) {
 				sb.append(data).append(", ");
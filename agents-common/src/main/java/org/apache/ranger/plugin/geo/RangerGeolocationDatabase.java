@@ -28,6 +28,8 @@ public class RangerGeolocationDatabase {
 
 	private BinarySearchTree<RangerGeolocationData, Long> data = new BinarySearchTree<>();
 
+	private volatile RangerGeolocationIndex index;
+
 	private GeolocationMetadata metadata = new GeolocationMetadata();
 
 	public String getValue(final RangerGeolocationData geolocationData, final String attributeName) {
@@ -55,8 +57,14 @@ public String getValue(final RangerGeolocationData geolocationData, final String
 	public RangerGeolocationData find(final String ipAddressStr) {
 		RangerGeolocationData ret = null;
 
-		if (StringUtils.isNotBlank(ipAddressStr) && RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
-			ret = data.find(RangerGeolocationData.ipAddressToLong(ipAddressStr));
+		if (StringUtils.isNotBlank(ipAddressStr)) {
+			RangerGeolocationIndex index = this.index;
+
+			if (index != null) {
+				ret = index.find(ipAddressStr);
+			} else if (RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
+				ret = data.find(RangerGeolocationData.ipAddressToLong(ipAddressStr));
+			}
 		}
 		return ret;
 	}
@@ -75,15 +83,20 @@ public void optimize() {
 
 	public void setData(final BinarySearchTree<RangerGeolocationData, Long> dataArg) { data = dataArg != null ? dataArg : new BinarySearchTree<RangerGeolocationData, Long>();}
 
+	public void setIndex(final RangerGeolocationIndex indexArg) { index = indexArg; }
+
 	public void setMetadata(final GeolocationMetadata metadataArg) { metadata = metadataArg != null ? metadataArg : new GeolocationMetadata();}
 
 	public GeolocationMetadata getMetadata() { return metadata; }
 
 	public BinarySearchTree<RangerGeolocationData, Long> getData() { return data; }
 
+	public RangerGeolocationIndex getIndex() { return index; }
+
 	public void dump(ValuePrinter<RangerGeolocationData> processor) {
 
 		BinarySearchTree<RangerGeolocationData, Long> geoDatabase = getData();
+		RangerGeolocationIndex geoIndex = getIndex();
 		GeolocationMetadata metadata = getMetadata();
 		processor.build();
 
@@ -91,7 +104,11 @@ public void dump(ValuePrinter<RangerGeolocationData> processor) {
 		processor.print(metadata.toString());
 
 		processor.print("#================== Dump of geoDatabase - START ==================");
-		geoDatabase.preOrderTraverseTree(processor);
+		if (geoIndex != null) {
+			geoIndex.traverse(processor);
+		} else {
+			geoDatabase.preOrderTraverseTree(processor);
+		}
 		processor.print("#================== Dump of geoDatabase - END   ==================");
 
 		processor.close();
@@ -0,0 +1,521 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.util.RangerCidrTrie;
+
+import java.math.BigInteger;
+import java.net.Inet6Address;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only index of geolocation ranges, held in sorted primitive arrays instead of a tree of objects.
+ *
+ * IPv4 ranges are kept as arrays of start and end addresses, searched with Arrays.binarySearch(). IPv6 ranges
+ * are kept as the high and low 64 bits of start and end addresses, compared as unsigned values. Location fields
+ * are dictionary-encoded: each range refers to one of the distinct location tuples, and tuples share the
+ * instances of equal field values. When ranges overlap, the range with the largest start that contains the
+ * address is returned.
+ */
+public class RangerGeolocationIndex {
+	private static final Log LOG = LogFactory.getLog(RangerGeolocationIndex.class);
+
+	private static final int        IPV4_ADDRESS_LEN = 4;
+	private static final int        IPV6_ADDRESS_LEN = 16;
+	private static final long       IPV4_MAX_VALUE   = 0xFFFFFFFFL;
+	private static final BigInteger IPV6_MAX_VALUE   = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+
+	private final long[]     ipv4Starts;
+	private final long[]     ipv4Ends;
+	private final int[]      ipv4LocationIds;
+	private final long[]     ipv4MaxEnds; // null, unless ranges overlap
+	private final long[]     ipv6StartsHigh;
+	private final long[]     ipv6StartsLow;
+	private final long[]     ipv6EndsHigh;
+	private final long[]     ipv6EndsLow;
+	private final int[]      ipv6LocationIds;
+	private final long[]     ipv6MaxEndsHigh; // null, unless ranges overlap
+	private final long[]     ipv6MaxEndsLow;
+	private final String[][] locations;
+
+	private RangerGeolocationIndex(Builder builder) {
+		ipv4Starts      = Arrays.copyOf(builder.ipv4Starts, builder.ipv4Count);
+		ipv4Ends        = Arrays.copyOf(builder.ipv4Ends, builder.ipv4Count);
+		ipv4LocationIds = Arrays.copyOf(builder.ipv4LocationIds, builder.ipv4Count);
+		ipv6StartsHigh  = Arrays.copyOf(builder.ipv6StartsHigh, builder.ipv6Count);
+		ipv6StartsLow   = Arrays.copyOf(builder.ipv6StartsLow, builder.ipv6Count);
+		ipv6EndsHigh    = Arrays.copyOf(builder.ipv6EndsHigh, builder.ipv6Count);
+		ipv6EndsLow     = Arrays.copyOf(builder.ipv6EndsLow, builder.ipv6Count);
+		ipv6LocationIds = Arrays.copyOf(builder.ipv6LocationIds, builder.ipv6Count);
+		locations       = builder.locations.toArray(new String[builder.locations.size()][]);
+
+		if (!builder.isIpv4Sorted) {
+			sortIpv4();
+		}
+
+		if (!builder.isIpv6Sorted) {
+			sortIpv6();
+		}
+
+		ipv4MaxEnds = hasIpv4Overlaps() ? getIpv4MaxEnds() : null;
+
+		if (hasIpv6Overlaps()) {
+			ipv6MaxEndsHigh = new long[ipv6EndsHigh.length];
+			ipv6MaxEndsLow  = new long[ipv6EndsLow.length];
+
+			setIpv6MaxEnds();
+		} else {
+			ipv6MaxEndsHigh = null;
+			ipv6MaxEndsLow  = null;
+		}
+	}
+
+	public RangerGeolocationData find(final String ipAddress) {
+		RangerGeolocationData ret       = null;
+		byte[]                addrBytes = RangerCidrTrie.toAddressBytes(ipAddress);
+
+		if (addrBytes != null) {
+			if (addrBytes.length == IPV4_ADDRESS_LEN) {
+				ret = findIpv4(getLong(addrBytes, 0, IPV4_ADDRESS_LEN));
+			} else {
+				ret = findIpv6(getLong(addrBytes, 0, 8), getLong(addrBytes, 8, 8));
+			}
+		} else if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerGeolocationIndex.find() - Invalid address " + ipAddress);
+		}
+
+		return ret;
+	}
+
+	public int getIpv4RangeCount() {
+		return ipv4Starts.length;
+	}
+
+	public int getIpv6RangeCount() {
+		return ipv6StartsHigh.length;
+	}
+
+	public int getLocationCount() {
+		return locations.length;
+	}
+
+	public void traverse(final ValueProcessor<RangerGeolocationData> processor) {
+		for (int i = 0; i < ipv4Starts.length; i++) {
+			processor.process(new RangerGeolocationData(ipv4Starts[i], ipv4Ends[i], locations[ipv4LocationIds[i]]));
+		}
+
+		for (int i = 0; i < ipv6StartsHigh.length; i++) {
+			processor.process(createIpv6Data(i));
+		}
+	}
+
+	private RangerGeolocationData findIpv4(final long ip) {
+		int idx = Arrays.binarySearch(ipv4Starts, ip);
+
+		if (idx < 0) {
+			idx = -idx - 2; // the range with the largest start below ip
+		}
+
+		if (idx >= 0 && ipv4Ends[idx] < ip && ipv4MaxEnds != null) {
+			// a range with a smaller start can still contain ip
+			while (idx >= 0 && ipv4MaxEnds[idx] >= ip && ipv4Ends[idx] < ip) {
+				idx--;
+			}
+		}
+
+		return idx >= 0 && ipv4Ends[idx] >= ip ? new RangerGeolocationData(ipv4Starts[idx], ipv4Ends[idx], locations[ipv4LocationIds[idx]]) : null;
+	}
+
+	private RangerGeolocationData findIpv6(final long ipHigh, final long ipLow) {
+		int low  = 0;
+		int high = ipv6StartsHigh.length - 1;
+		int idx  = -1; // the range with the largest start not above ip
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (compareUnsigned(ipv6StartsHigh[mid], ipv6StartsLow[mid], ipHigh, ipLow) <= 0) {
+				idx = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		if (idx >= 0 && ipv6MaxEndsHigh != null && compareUnsigned(ipv6EndsHigh[idx], ipv6EndsLow[idx], ipHigh, ipLow) < 0) {
+			// a range with a smaller start can still contain ip
+			while (idx >= 0 && compareUnsigned(ipv6MaxEndsHigh[idx], ipv6MaxEndsLow[idx], ipHigh, ipLow) >= 0 && compareUnsigned(ipv6EndsHigh[idx], ipv6EndsLow[idx], ipHigh, ipLow) < 0) {
+				idx--;
+			}
+		}
+
+		return idx >= 0 && compareUnsigned(ipv6EndsHigh[idx], ipv6EndsLow[idx], ipHigh, ipLow) >= 0 ? createIpv6Data(idx) : null;
+	}
+
+	private RangerGeolocationData createIpv6Data(int idx) {
+		return new RangerGeolocationData(toIpv6Address(ipv6StartsHigh[idx], ipv6StartsLow[idx]), toIpv6Address(ipv6EndsHigh[idx], ipv6EndsLow[idx]), locations[ipv6LocationIds[idx]]);
+	}
+
+	private void sortIpv4() {
+		// start (with the sign bit flipped, for unsigned order) in the high word, original position in the low word
+		long[] keys = new long[ipv4Starts.length];
+
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = ((ipv4Starts[i] ^ 0x80000000L) << 32) | i;
+		}
+
+		Arrays.sort(keys);
+
+		long[] starts      = ipv4Starts.clone();
+		long[] ends        = ipv4Ends.clone();
+		int[]  locationIds = ipv4LocationIds.clone();
+
+		for (int i = 0; i < keys.length; i++) {
+			int from = (int) keys[i];
+
+			ipv4Starts[i]      = starts[from];
+			ipv4Ends[i]        = ends[from];
+			ipv4LocationIds[i] = locationIds[from];
+		}
+	}
+
+	private void sortIpv6() {
+		Integer[] order = new Integer[ipv6StartsHigh.length];
+
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		final long[] startsHigh = ipv6StartsHigh.clone();
+		final long[] startsLow  = ipv6StartsLow.clone();
+
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return compareUnsigned(startsHigh[o1], startsLow[o1], startsHigh[o2], startsLow[o2]);
+			}
+		});
+
+		long[] endsHigh    = ipv6EndsHigh.clone();
+		long[] endsLow     = ipv6EndsLow.clone();
+		int[]  locationIds = ipv6LocationIds.clone();
+
+		for (int i = 0; i < order.length; i++) {
+			int from = order[i];
+
+			ipv6StartsHigh[i]  = startsHigh[from];
+			ipv6StartsLow[i]   = startsLow[from];
+			ipv6EndsHigh[i]    = endsHigh[from];
+			ipv6EndsLow[i]     = endsLow[from];
+			ipv6LocationIds[i] = locationIds[from];
+		}
+	}
+
+	private boolean hasIpv4Overlaps() {
+		long maxEnd = -1L;
+
+		for (int i = 0; i < ipv4Starts.length; i++) {
+			if (ipv4Starts[i] <= maxEnd) {
+				return true;
+			}
+
+			maxEnd = Math.max(maxEnd, ipv4Ends[i]);
+		}
+
+		return false;
+	}
+
+	private boolean hasIpv6Overlaps() {
+		for (int i = 1, maxEnd = 0; i < ipv6StartsHigh.length; i++) {
+			if (compareUnsigned(ipv6StartsHigh[i], ipv6StartsLow[i], ipv6EndsHigh[maxEnd], ipv6EndsLow[maxEnd]) <= 0) {
+				return true;
+			}
+
+			if (compareUnsigned(ipv6EndsHigh[i], ipv6EndsLow[i], ipv6EndsHigh[maxEnd], ipv6EndsLow[maxEnd]) > 0) {
+				maxEnd = i;
+			}
+		}
+
+		return false;
+	}
+
+	// largest end among the ranges up to each position; lets find() step back to an earlier range that contains the address
+	private long[] getIpv4MaxEnds() {
+		long[] ret = new long[ipv4Ends.length];
+
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = i > 0 ? Math.max(ret[i - 1], ipv4Ends[i]) : ipv4Ends[i];
+		}
+
+		return ret;
+	}
+
+	private void setIpv6MaxEnds() {
+		for (int i = 0; i < ipv6EndsHigh.length; i++) {
+			if (i > 0 && compareUnsigned(ipv6MaxEndsHigh[i - 1], ipv6MaxEndsLow[i - 1], ipv6EndsHigh[i], ipv6EndsLow[i]) > 0) {
+				ipv6MaxEndsHigh[i] = ipv6MaxEndsHigh[i - 1];
+				ipv6MaxEndsLow[i]  = ipv6MaxEndsLow[i - 1];
+			} else {
+				ipv6MaxEndsHigh[i] = ipv6EndsHigh[i];
+				ipv6MaxEndsLow[i]  = ipv6EndsLow[i];
+			}
+		}
+	}
+
+	private static int compareUnsigned(long high1, long low1, long high2, long low2) {
+		int ret = Long.compareUnsigned(high1, high2);
+
+		return ret != 0 ? ret : Long.compareUnsigned(low1, low2);
+	}
+
+	private static String toIpv6Address(long high, long low) {
+		byte[] bytes = new byte[IPV6_ADDRESS_LEN];
+
+		for (int i = 0; i < 8; i++) {
+			bytes[i]     = (byte) (high >>> (56 - 8 * i));
+			bytes[i + 8] = (byte) (low >>> (56 - 8 * i));
+		}
+
+		try {
+			// Inet6Address keeps IPv4-mapped addresses in IPv6 form, unlike InetAddress.getByAddress()
+			return Inet6Address.getByAddress(null, bytes, -1).getHostAddress();
+		} catch (UnknownHostException excp) {
+			// not expected, as the address is always 16 bytes long
+			return new BigInteger(1, bytes).toString();
+		}
+	}
+
+	private static long getLong(byte[] bytes, int offset, int length) {
+		long ret = 0L;
+
+		for (int i = offset; i < offset + length; i++) {
+			ret = (ret << 8) | (bytes[i] & 0xFF);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Collects ranges in a single sequential pass over the input. Ranges are expected in ascending order of
+	 * start address, as geolocation databases are distributed; otherwise they are sorted once in build().
+	 */
+	public static class Builder {
+		private static final int INITIAL_CAPACITY = 1024;
+
+		private final Map<String, String>        values      = new HashMap<>();
+		private final Map<List<String>, Integer> locationIds = new HashMap<>();
+		private final List<String[]>             locations   = new ArrayList<>();
+
+		private long[]  ipv4Starts      = new long[INITIAL_CAPACITY];
+		private long[]  ipv4Ends        = new long[INITIAL_CAPACITY];
+		private int[]   ipv4LocationIds = new int[INITIAL_CAPACITY];
+		private int     ipv4Count       = 0;
+		private boolean isIpv4Sorted    = true;
+		private long[]  ipv6StartsHigh  = new long[0];
+		private long[]  ipv6StartsLow   = new long[0];
+		private long[]  ipv6EndsHigh    = new long[0];
+		private long[]  ipv6EndsLow     = new long[0];
+		private int[]   ipv6LocationIds = new int[0];
+		private int     ipv6Count       = 0;
+		private boolean isIpv6Sorted    = true;
+
+		/**
+		 * @param fields start address, end address, followed by location fields - as in RangerGeolocationData.create()
+		 * @param useDotFormat true if addresses are literals (like 10.1.0.0 or 2001:db8::), false if they are unsigned integers
+		 * @return false if the fields don't specify a valid range
+		 */
+		public boolean add(final String[] fields, final boolean useDotFormat) {
+			if (fields == null || fields.length < 3) {
+				return false;
+			}
+
+			byte[] start = useDotFormat ? RangerCidrTrie.toAddressBytes(fields[0]) : toAddressBytes(fields[0]);
+			byte[] end   = useDotFormat ? RangerCidrTrie.toAddressBytes(fields[1]) : toAddressBytes(fields[1]);
+
+			if (start == null || end == null) {
+				return false;
+			}
+
+			if (start.length != end.length) {
+				if (useDotFormat) {
+					return false;
+				}
+
+				start = toIpv6AddressBytes(start); // numeric ranges that span from IPv4 into IPv6 values
+				end   = toIpv6AddressBytes(end);
+			}
+
+			if (start.length == IPV4_ADDRESS_LEN) {
+				long startIp = getLong(start, 0, IPV4_ADDRESS_LEN);
+				long endIp   = getLong(end, 0, IPV4_ADDRESS_LEN);
+
+				if (endIp < startIp) {
+					return false;
+				}
+
+				addIpv4(startIp, endIp, getLocationId(fields));
+			} else {
+				long startHigh = getLong(start, 0, 8);
+				long startLow  = getLong(start, 8, 8);
+				long endHigh   = getLong(end, 0, 8);
+				long endLow    = getLong(end, 8, 8);
+
+				if (compareUnsigned(endHigh, endLow, startHigh, startLow) < 0) {
+					return false;
+				}
+
+				addIpv6(startHigh, startLow, endHigh, endLow, getLocationId(fields));
+			}
+
+			return true;
+		}
+
+		public RangerGeolocationIndex build() {
+			RangerGeolocationIndex ret = new RangerGeolocationIndex(this);
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerGeolocationIndex.Builder.build() - ipv4Ranges=" + ret.getIpv4RangeCount() + ", ipv6Ranges=" + ret.getIpv6RangeCount() + ", locations=" + ret.getLocationCount() + ", distinctValues=" + values.size());
+			}
+
+			return ret;
+		}
+
+		private void addIpv4(long startIp, long endIp, int locationId) {
+			if (ipv4Count == ipv4Starts.length) {
+				int newCapacity = ipv4Count * 2;
+
+				ipv4Starts      = Arrays.copyOf(ipv4Starts, newCapacity);
+				ipv4Ends        = Arrays.copyOf(ipv4Ends, newCapacity);
+				ipv4LocationIds = Arrays.copyOf(ipv4LocationIds, newCapacity);
+			}
+
+			if (ipv4Count > 0 && ipv4Starts[ipv4Count - 1] > startIp) {
+				isIpv4Sorted = false;
+			}
+
+			ipv4Starts[ipv4Count]      = startIp;
+			ipv4Ends[ipv4Count]        = endIp;
+			ipv4LocationIds[ipv4Count] = locationId;
+			ipv4Count++;
+		}
+
+		private void addIpv6(long startHigh, long startLow, long endHigh, long endLow, int locationId) {
+			if (ipv6Count == ipv6StartsHigh.length) {
+				int newCapacity = Math.max(ipv6Count * 2, INITIAL_CAPACITY);
+
+				ipv6StartsHigh  = Arrays.copyOf(ipv6StartsHigh, newCapacity);
+				ipv6StartsLow   = Arrays.copyOf(ipv6StartsLow, newCapacity);
+				ipv6EndsHigh    = Arrays.copyOf(ipv6EndsHigh, newCapacity);
+				ipv6EndsLow     = Arrays.copyOf(ipv6EndsLow, newCapacity);
+				ipv6LocationIds = Arrays.copyOf(ipv6LocationIds, newCapacity);
+			}
+
+			if (ipv6Count > 0 && compareUnsigned(ipv6StartsHigh[ipv6Count - 1], ipv6StartsLow[ipv6Count - 1], startHigh, startLow) > 0) {
+				isIpv6Sorted = false;
+			}
+
+			ipv6StartsHigh[ipv6Count]  = startHigh;
+			ipv6StartsLow[ipv6Count]   = startLow;
+			ipv6EndsHigh[ipv6Count]    = endHigh;
+			ipv6EndsLow[ipv6Count]     = endLow;
+			ipv6LocationIds[ipv6Count] = locationId;
+			ipv6Count++;
+		}
+
+		private int getLocationId(String[] fields) {
+			String[] location = new String[fields.length - 2];
+
+			for (int i = 2; i < fields.length; i++) {
+				String value  = fields[i];
+				String shared = values.get(value);
+
+				if (shared == null) {
+					shared = value;
+
+					values.put(shared, shared);
+				}
+
+				location[i - 2] = shared;
+			}
+
+			List<String> key = Arrays.asList(location);
+			Integer      ret = locationIds.get(key);
+
+			if (ret == null) {
+				ret = locations.size();
+
+				locations.add(location);
+				locationIds.put(key, ret);
+			}
+
+			return ret;
+		}
+
+		// unsigned integer form of an IPv4 or IPv6 address
+		private static byte[] toAddressBytes(String value) {
+			if (!StringUtils.isNumeric(value) || value.isEmpty()) {
+				return null;
+			}
+
+			if (value.length() < 19) {
+				long ip = Long.parseLong(value);
+
+				if (ip <= IPV4_MAX_VALUE) {
+					return new byte[] { (byte) (ip >>> 24), (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip };
+				}
+			}
+
+			BigInteger ip = new BigInteger(value);
+
+			if (ip.compareTo(IPV6_MAX_VALUE) > 0) {
+				return null;
+			}
+
+			byte[] bytes = ip.toByteArray(); // big-endian, possibly with a leading sign byte
+			byte[] ret   = new byte[IPV6_ADDRESS_LEN];
+			int    len   = Math.min(bytes.length, IPV6_ADDRESS_LEN);
+
+			System.arraycopy(bytes, bytes.length - len, ret, IPV6_ADDRESS_LEN - len, len);
+
+			return ret;
+		}
+
+		private static byte[] toIpv6AddressBytes(byte[] addrBytes) {
+			if (addrBytes.length == IPV6_ADDRESS_LEN) {
+				return addrBytes;
+			}
+
+			byte[] ret = new byte[IPV6_ADDRESS_LEN];
+
+			System.arraycopy(addrBytes, 0, ret, IPV6_ADDRESS_LEN - addrBytes.length, addrBytes.length);
+
+			return ret;
+		}
+	}
+}
@@ -21,6 +21,8 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -53,15 +55,20 @@ public class PolicyEngine {
     private static final Log PERF_POLICYENGINE_INIT_LOG       = RangerPerfTracer.getPerfLogger("policyengine.init");
     private static final Log PERF_POLICYENGINE_REBALANCE_LOG  = RangerPerfTracer.getPerfLogger("policyengine.rebalance");
 
-    private final RangerPolicyRepository              policyRepository;
-    private final RangerPolicyRepository              tagPolicyRepository;
-    private final List<RangerContextEnricher>         allContextEnrichers;
-    private final RangerPluginContext                 pluginContext;
-    private final Map<String, RangerPolicyRepository> zonePolicyRepositories = new HashMap<>();
-    private final Map<String, RangerResourceTrie>     resourceZoneTrie = new HashMap<>();
-    private final Map<String, String>                 zoneTagServiceMap = new HashMap<>();
-    private       boolean                             useForwardedIPAddress;
-    private       String[]                            trustedProxyAddresses;
+    private static final int    RANGER_POLICYENGINE_ZONE_CACHE_SIZE = 64 * 1024;
+    private static final String ZONE_CACHE_KEY_ANY_VALUE            = "*";
+
+    private final RangerPolicyRepository                policyRepository;
+    private final RangerPolicyRepository                tagPolicyRepository;
+    private final List<RangerContextEnricher>           allContextEnrichers;
+    private final RangerPluginContext                   pluginContext;
+    private final Map<String, RangerPolicyRepository>   zonePolicyRepositories = new HashMap<>();
+    private final Map<String, RangerResourceTrie>       resourceZoneTrie = new HashMap<>();
+    private final Map<String, String>                   zoneTagServiceMap = new HashMap<>();
+    private final Set<String>                           zoneResourceDefNames = new HashSet<>();
+    private       Map<Map<String, Object>, Set<String>> zoneMatchCache;
+    private       boolean                               useForwardedIPAddress;
+    private       String[]                              trustedProxyAddresses;
 
     public boolean getUseForwardedIPAddress() {
         return useForwardedIPAddress;
@@ -159,6 +166,10 @@ Map<String, RangerResourceTrie> getResourceZoneTrie() {
         return resourceZoneTrie;
     }
 
+    int getZoneMatchCacheSize() {
+        return zoneMatchCache != null ? zoneMatchCache.size() : 0;
+    }
+
     public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginContext, RangerRoles roles) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> PolicyEngine(" + ", " + servicePolicies + ", " + pluginContext + ")");
@@ -408,6 +419,11 @@ public void preCleanup(boolean isForced) {
         }
     }
 
+    /*
+     * Zones matched by a resource don't change for a policy-version, so the result is cached in zoneMatchCache. Values of
+     * resource-defs that are not in resources of any zone are not examined by zone matchers; they are left out of the
+     * cache-key, so that e.g. all columns of a table share the entry of the table when zones are defined on tables.
+     */
     private Set<String> getMatchedZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> PolicyEngine.getMatchedZonesForResourceAndChildren(" + resource + ", " + accessResource + ")");
@@ -415,6 +431,58 @@ private Set<String> getMatchedZonesForResourceAndChildren(Map<String, ?> resourc
 
         Set<String> ret = null;
 
+        if (MapUtils.isNotEmpty(this.resourceZoneTrie)) {
+            Map<String, Object> cacheKey     = zoneMatchCache != null ? getZoneMatchCacheKey(resource) : null;
+            Set<String>         cachedResult  = cacheKey != null ? zoneMatchCache.get(cacheKey) : null;
+
+            if (cachedResult != null) {
+                ret = cachedResult.isEmpty() ? null : cachedResult;
+            } else {
+                ret = findMatchedZonesForResourceAndChildren(resource, accessResource);
+
+                if (ret != null) {
+                    ret = Collections.unmodifiableSet(ret);
+                }
+
+                if (cacheKey != null) {
+                    zoneMatchCache.put(cacheKey, ret != null ? ret : Collections.<String>emptySet());
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== PolicyEngine.getMatchedZonesForResourceAndChildren(" + resource + ", " + accessResource + ") : " + ret);
+        }
+
+        return ret;
+    }
+
+    private Map<String, Object> getZoneMatchCacheKey(Map<String, ?> resource) {
+        Map<String, Object> ret = new HashMap<>(resource.size());
+
+        for (Map.Entry<String, ?> entry : resource.entrySet()) {
+            String resourceDefName = entry.getKey();
+            Object value           = entry.getValue();
+
+            if (value != null && !zoneResourceDefNames.contains(resourceDefName)) {
+                value = ZONE_CACHE_KEY_ANY_VALUE;
+            } else if (value instanceof Collection) { // copy, as the caller could modify the collection after the lookup
+                value = new ArrayList<>((Collection<?>) value);
+            }
+
+            ret.put(resourceDefName, value);
+        }
+
+        return ret;
+    }
+
+    private Set<String> findMatchedZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> PolicyEngine.findMatchedZonesForResourceAndChildren(" + resource + ", " + accessResource + ")");
+        }
+
+        Set<String> ret = null;
+
         if (MapUtils.isNotEmpty(this.resourceZoneTrie)) {
             List<Set<RangerZoneResourceMatcher>> zoneMatchersList = null;
             Set<RangerZoneResourceMatcher>       smallestList     = null;
@@ -512,7 +580,7 @@ private Set<String> getMatchedZonesForResourceAndChildren(Map<String, ?> resourc
         }
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("<== PolicyEngine.getMatchedZonesForResourceAndChildren(" + resource + ", " + accessResource + ") : " + ret);
+            LOG.debug("<== PolicyEngine.findMatchedZonesForResourceAndChildren(" + resource + ", " + accessResource + ") : " + ret);
         }
 
         return ret;
@@ -690,6 +758,7 @@ private void buildZoneTrie(ServicePolicies servicePolicies) {
                         policyResource.setIsRecursive(EmbeddedServiceDefsUtil.isRecursiveEnabled(serviceDef, resourceDefName));
                         policyResource.setValues(resourceValues);
                         policyResources.put(resourceDefName, policyResource);
+                        zoneResourceDefNames.add(resourceDefName);
                     }
 
                     matchers.add(new RangerZoneResourceMatcher(zoneName, policyResources, serviceDef));
@@ -715,6 +784,11 @@ private void buildZoneTrie(ServicePolicies servicePolicies) {
             for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
                 resourceZoneTrie.put(resourceDef.getName(), new RangerResourceTrie<>(resourceDef, matchers));
             }
+
+            String propertyName  = "ranger.plugin." + servicePolicies.getServiceName() + ".policyengine.zonecachesize";
+            int    zoneCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_ZONE_CACHE_SIZE);
+
+            zoneMatchCache = zoneCacheSize > 0 ? Collections.synchronizedMap(new CacheMap<Map<String, Object>, Set<String>>(zoneCacheSize)) : null;
         }
 
         if (LOG.isDebugEnabled()) {
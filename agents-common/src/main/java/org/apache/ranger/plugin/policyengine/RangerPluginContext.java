@@ -22,11 +22,13 @@
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerAuthContextListener;
+import org.apache.ranger.plugin.util.ChangeWatcher;
 
 public class RangerPluginContext {
 	private final RangerPluginConfig        config;
 	private       RangerAuthContext         authContext;
 	private       RangerAuthContextListener authContextListener;
+	private       ChangeWatcher             changeWatcher;
 
 
 	public RangerPluginContext(RangerPluginConfig config) {
@@ -47,6 +49,10 @@ public String getClusterType() {
 
 	public void setAuthContext(RangerAuthContext authContext) { this.authContext = authContext; }
 
+	public ChangeWatcher getChangeWatcher() { return changeWatcher; }
+
+	public void setChangeWatcher(ChangeWatcher changeWatcher) { this.changeWatcher = changeWatcher; }
+
 	public void setAuthContextListener(RangerAuthContextListener authContextListener) { this.authContextListener = authContextListener; }
 
 	public void notifyAuthContextChanged() {
@@ -103,6 +103,8 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.evaluatePolicies(requestHashCode=" + requestHashCode + ")");
 
 			LOG.info("RangerPolicyEngineImpl.evaluatePolicies(" + requestHashCode + ", " + request + ")");
+		} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.evaluatePolicies");
 		}
 
 		requestProcessor.preProcess(request);
@@ -116,6 +118,8 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
 				String requestHashCode = Integer.toHexString(System.identityHashCode(request)) + "_" + policyType;
 
 				perfAuditTracer = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_AUDIT_LOG, "RangerPolicyEngine.processAudit(requestHashCode=" + requestHashCode + ")");
+			} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+				perfAuditTracer = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYENGINE_AUDIT_LOG, "RangerPolicyEngine.processAudit");
 			}
 
 			resultProcessor.processResult(ret);
@@ -172,6 +176,8 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request) {
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_GET_ACLS_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_GET_ACLS_LOG, "RangerPolicyEngine.getResourceACLs(requestHashCode=" + request.getResource().getAsString() + ")");
+		} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYENGINE_GET_ACLS_LOG, "RangerPolicyEngine.getResourceACLs");
 		}
 
 		requestProcessor.preProcess(request);
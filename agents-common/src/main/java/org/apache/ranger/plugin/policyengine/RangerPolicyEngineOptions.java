@@ -34,6 +34,8 @@ public class RangerPolicyEngineOptions {
 	public boolean enableTagEnricherWithLocalRefresher = false;
 	public boolean disableAccessEvaluationWithPolicyACLSummary = true;
 	public boolean optimizeTrieForRetrieval = false;
+	public boolean enableLazyPolicyEvaluatorInit = false;
+	public boolean enablePolicyEvaluatorWarmUp = false;
 
 	private RangerServiceDefHelper serviceDefHelper;
 
@@ -49,6 +51,8 @@ public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other) {
 		this.enableTagEnricherWithLocalRefresher = other.enableTagEnricherWithLocalRefresher;
 		this.disableAccessEvaluationWithPolicyACLSummary = other.disableAccessEvaluationWithPolicyACLSummary;
 		this.optimizeTrieForRetrieval = other.optimizeTrieForRetrieval;
+		this.enableLazyPolicyEvaluatorInit = other.enableLazyPolicyEvaluatorInit;
+		this.enablePolicyEvaluatorWarmUp = other.enablePolicyEvaluatorWarmUp;
 		this.serviceDefHelper = null;
 	}
 
@@ -67,6 +71,8 @@ public void configureForPlugin(Configuration conf, String propertyPrefix) {
 		enableTagEnricherWithLocalRefresher = false;
 		disableAccessEvaluationWithPolicyACLSummary = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.access.evaluation.with.policy.acl.summary", true);
 		optimizeTrieForRetrieval = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.retrieval", false);
+		enableLazyPolicyEvaluatorInit = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.lazy.policy.evaluator.init", false);
+		enablePolicyEvaluatorWarmUp = enableLazyPolicyEvaluatorInit && conf.getBoolean(propertyPrefix + ".policyengine.option.enable.policy.evaluator.warmup", false);
 
 	}
 
@@ -136,7 +142,9 @@ public boolean equals(Object other) {
 					&& this.cacheAuditResults == that.cacheAuditResults
 					&& this.evaluateDelegateAdminOnly == that.evaluateDelegateAdminOnly
 					&& this.enableTagEnricherWithLocalRefresher == that.enableTagEnricherWithLocalRefresher
-					&& this.optimizeTrieForRetrieval == that.optimizeTrieForRetrieval;
+					&& this.optimizeTrieForRetrieval == that.optimizeTrieForRetrieval
+					&& this.enableLazyPolicyEvaluatorInit == that.enableLazyPolicyEvaluatorInit
+					&& this.enablePolicyEvaluatorWarmUp == that.enablePolicyEvaluatorWarmUp;
 		}
 		return ret;
 	}
@@ -160,6 +168,10 @@ public int hashCode() {
 		ret *= 2;
 		ret += optimizeTrieForRetrieval ? 1 : 0;
 		ret *= 2;
+		ret += enableLazyPolicyEvaluatorInit ? 1 : 0;
+		ret *= 2;
+		ret += enablePolicyEvaluatorWarmUp ? 1 : 0;
+		ret *= 2;
 		return ret;
 	}
 
@@ -174,6 +186,8 @@ public String toString() {
 				", enableTagEnricherWithLocalRefresher: " + enableTagEnricherWithLocalRefresher +
 				", disableTrieLookupPrefilter: " + disableTrieLookupPrefilter +
 				", optimizeTrieForRetrieval: " + optimizeTrieForRetrieval +
+				", enableLazyPolicyEvaluatorInit: " + enableLazyPolicyEvaluatorInit +
+				", enablePolicyEvaluatorWarmUp: " + enablePolicyEvaluatorWarmUp +
 				", cacheAuditResult: " + cacheAuditResults +
 				" }";
 
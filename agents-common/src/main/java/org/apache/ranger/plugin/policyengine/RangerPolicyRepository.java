@@ -34,6 +34,7 @@
 import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
 import org.apache.ranger.plugin.policyevaluator.RangerAbstractPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerCachedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerDefaultPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
@@ -51,12 +52,25 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RangerPolicyRepository {
     private static final Log LOG = LogFactory.getLog(RangerPolicyRepository.class);
 
-    private static final Log PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
-    private static final Log PERF_TRIE_OP_LOG              = RangerPerfTracer.getPerfLogger("resourcetrie.retrieval");
+    private static final Log PERF_CONTEXTENRICHER_INIT_LOG   = RangerPerfTracer.getPerfLogger("contextenricher.init");
+    private static final Log PERF_TRIE_OP_LOG                = RangerPerfTracer.getPerfLogger("resourcetrie.retrieval");
+    private static final Log PERF_POLICYEVALUATOR_WARMUP_LOG = RangerPerfTracer.getPerfLogger("policyevaluator.warmup");
+
+    // warm-up of all repositories is done by one background thread, in the order the repositories are built
+    private static final ExecutorService POLICY_EVALUATOR_WARMUP_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PolicyEvaluatorWarmUp");
+
+        thread.setDaemon(true);
+
+        return thread;
+    });
 
     enum AuditModeEnum {
         AUDIT_ALL, AUDIT_NONE, AUDIT_DEFAULT
@@ -84,8 +98,13 @@ enum AuditModeEnum {
     private       Map<Long, RangerPolicyEvaluator>  policyEvaluatorsMap;
     private       boolean                           isContextEnrichersShared = false;
     private       boolean                           isPreCleaned             = false;
+    private volatile Future<?>                      policyEvaluatorsWarmUp   = null;
+    private volatile boolean                        isWarmUpCancelled        = false;
 
     RangerPolicyRepository(final RangerPolicyRepository other, final List<RangerPolicyDelta> deltas, long policyVersion) {
+        // evaluators and tries of policy-types not updated by deltas are shared with other, as these are not modified after construction
+        final boolean[] isPolicyTypeUpdated = getUpdatedPolicyTypes(other, deltas);
+
         this.serviceName               = other.serviceName;
         this.zoneName                  = other.zoneName;
         this.appId                     = other.appId;
@@ -93,43 +112,17 @@ enum AuditModeEnum {
         this.pluginContext             = other.pluginContext;
         this.serviceDef                = other.serviceDef;
         this.policies                  = new ArrayList<>(other.policies);
-        this.policyEvaluators          = new ArrayList<>(other.policyEvaluators);
-        this.dataMaskPolicyEvaluators  = new ArrayList<>(other.dataMaskPolicyEvaluators);
-        this.rowFilterPolicyEvaluators = new ArrayList<>(other.rowFilterPolicyEvaluators);
+        this.policyEvaluators          = isPolicyTypeUpdated[RangerPolicy.POLICY_TYPE_ACCESS] ? new ArrayList<>(other.policyEvaluators) : other.policyEvaluators;
+        this.dataMaskPolicyEvaluators  = isPolicyTypeUpdated[RangerPolicy.POLICY_TYPE_DATAMASK] ? new ArrayList<>(other.dataMaskPolicyEvaluators) : other.dataMaskPolicyEvaluators;
+        this.rowFilterPolicyEvaluators = isPolicyTypeUpdated[RangerPolicy.POLICY_TYPE_ROWFILTER] ? new ArrayList<>(other.rowFilterPolicyEvaluators) : other.rowFilterPolicyEvaluators;
         this.auditModeEnum             = other.auditModeEnum;
         this.componentServiceName      = other.componentServiceName;
         this.componentServiceDef       = other.componentServiceDef;
         this.policyEvaluatorsMap       = new HashMap<>(other.policyEvaluatorsMap);
 
-        if (other.policyResourceTrie != null) {
-            this.policyResourceTrie = new HashMap<>();
-
-            for (Map.Entry<String, RangerResourceTrie> entry : other.policyResourceTrie.entrySet()) {
-                policyResourceTrie.put(entry.getKey(), new RangerResourceTrie(entry.getValue()));
-            }
-        } else {
-            this.policyResourceTrie = null;
-        }
-
-        if (other.dataMaskResourceTrie != null) {
-            this.dataMaskResourceTrie = new HashMap<>();
-
-            for (Map.Entry<String, RangerResourceTrie> entry : other.dataMaskResourceTrie.entrySet()) {
-                dataMaskResourceTrie.put(entry.getKey(), new RangerResourceTrie(entry.getValue()));
-            }
-        } else {
-            this.dataMaskResourceTrie = null;
-        }
-
-        if (other.rowFilterResourceTrie != null) {
-            this.rowFilterResourceTrie = new HashMap<>();
-
-            for (Map.Entry<String, RangerResourceTrie> entry : other.rowFilterResourceTrie.entrySet()) {
-                rowFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie(entry.getValue()));
-            }
-        } else {
-            this.rowFilterResourceTrie = null;
-        }
+        this.policyResourceTrie    = copyResourceTrieMap(other.policyResourceTrie, isPolicyTypeUpdated[RangerPolicy.POLICY_TYPE_ACCESS]);
+        this.dataMaskResourceTrie  = copyResourceTrieMap(other.dataMaskResourceTrie, isPolicyTypeUpdated[RangerPolicy.POLICY_TYPE_DATAMASK]);
+        this.rowFilterResourceTrie = copyResourceTrieMap(other.rowFilterResourceTrie, isPolicyTypeUpdated[RangerPolicy.POLICY_TYPE_ROWFILTER]);
 
         if (other.accessAuditCache != null) {
             int auditResultCacheSize = other.accessAuditCache.size();
@@ -450,6 +443,8 @@ void preCleanup(boolean isForced) {
             LOG.debug("==> preCleanup(isForced=" + isForced + " )");
             LOG.debug("Repository holds [" + (CollectionUtils.isEmpty(this.contextEnrichers) ? 0 : this.contextEnrichers.size()) + "] enrichers. isPreCleaned=" + isPreCleaned);
         }
+        cancelPolicyEvaluatorsWarmUp();
+
         if (!isPreCleaned) {
             if (CollectionUtils.isNotEmpty(this.contextEnrichers) && (!isContextEnrichersShared || isForced)) {
                 isPreCleaned = true;
@@ -706,6 +701,8 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
 
         if(RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_OP_LOG)) {
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerPolicyRepository.getLikelyMatchEvaluators(resource=" + resource.getAsString() + ")");
+        } else if (RangerPerfTracer.isPerfStatsEnabled()) {
+            perf = RangerPerfTracer.getPerfStatsTracer(PERF_TRIE_OP_LOG, "RangerPolicyRepository.getLikelyMatchEvaluators");
         }
 
         Set<String>                 resourceKeys = resource == null ? null : resource.getKeys();
@@ -990,6 +987,71 @@ private void init(RangerPolicyEngineOptions options) {
                 LOG.debug("rowFilter policy evaluation order: #" + (++order) + " - policy id=" + policy.getId() + "; name=" + policy.getName() + "; evalOrder=" + policyEvaluator.getEvalOrder());
             }
         }
+
+        if (options.enableLazyPolicyEvaluatorInit && options.enablePolicyEvaluatorWarmUp) {
+            startPolicyEvaluatorsWarmUp();
+        }
+    }
+
+    // creates policy-item evaluators of lazily initialized policy evaluators in a background thread, in evaluation order
+    private void startPolicyEvaluatorsWarmUp() {
+        final List<RangerPolicyEvaluator> evaluators = new ArrayList<>(policyEvaluators.size() + dataMaskPolicyEvaluators.size() + rowFilterPolicyEvaluators.size());
+
+        evaluators.addAll(policyEvaluators);
+        evaluators.addAll(dataMaskPolicyEvaluators);
+        evaluators.addAll(rowFilterPolicyEvaluators);
+
+        if (evaluators.isEmpty()) {
+            return;
+        }
+
+        policyEvaluatorsWarmUp = POLICY_EVALUATOR_WARMUP_EXECUTOR.submit(() -> {
+            if (isWarmUpCancelled) {
+                return;
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("==> RangerPolicyRepository.warmUpPolicyEvaluators(serviceName=" + serviceName + ", zoneName=" + zoneName + ", evaluatorCount=" + evaluators.size() + ")");
+            }
+
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYEVALUATOR_WARMUP_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICYEVALUATOR_WARMUP_LOG, "RangerPolicyRepository.warmUpPolicyEvaluators(serviceName=" + serviceName + ", zoneName=" + zoneName + ", evaluatorCount=" + evaluators.size() + ")");
+            }
+
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                if (isWarmUpCancelled) { // remaining evaluators, if used, are initialized on first use
+                    break;
+                }
+
+                if (evaluator instanceof RangerDefaultPolicyEvaluator) {
+                    try {
+                        ((RangerDefaultPolicyEvaluator) evaluator).ensurePolicyItemEvaluators();
+                    } catch (Exception excp) { // will be retried on first use of the evaluator
+                        LOG.error("RangerPolicyRepository.warmUpPolicyEvaluators(): failed to initialize evaluator for policy id=" + evaluator.getId(), excp);
+                    }
+                }
+            }
+
+            RangerPerfTracer.log(perf);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("<== RangerPolicyRepository.warmUpPolicyEvaluators(serviceName=" + serviceName + ", zoneName=" + zoneName + ", evaluatorCount=" + evaluators.size() + ")");
+            }
+        });
+    }
+
+    private void cancelPolicyEvaluatorsWarmUp() {
+        Future<?> warmUp = policyEvaluatorsWarmUp;
+
+        isWarmUpCancelled = true;
+
+        if (warmUp != null) {
+            warmUp.cancel(false);
+
+            policyEvaluatorsWarmUp = null;
+        }
     }
 
     private List<RangerContextEnricher> buildContextEnrichers(RangerPolicyEngineOptions  options) {
@@ -1186,6 +1248,55 @@ private Map<String, RangerResourceTrie> createResourceTrieMap(List<RangerPolicyE
         return ret;
     }
 
+    private static boolean[] getUpdatedPolicyTypes(RangerPolicyRepository other, List<RangerPolicyDelta> deltas) {
+        boolean[] ret = new boolean[RangerPolicy.POLICY_TYPES.length];
+
+        for (RangerPolicyDelta delta : deltas) {
+            if (!delta.getServiceType().equals(other.serviceDef.getName())) {
+                continue;
+            }
+
+            setPolicyTypeUpdated(ret, delta.getPolicyType());
+
+            if (delta.getPolicy() != null) {
+                setPolicyTypeUpdated(ret, delta.getPolicy().getPolicyType());
+            }
+
+            RangerPolicyEvaluator evaluator = other.getPolicyEvaluator(delta.getPolicyId());
+
+            if (evaluator != null) {
+                setPolicyTypeUpdated(ret, evaluator.getPolicy().getPolicyType());
+            }
+        }
+
+        return ret;
+    }
+
+    private static void setPolicyTypeUpdated(boolean[] isPolicyTypeUpdated, Integer policyType) {
+        int index = policyType == null ? RangerPolicy.POLICY_TYPE_ACCESS : policyType;
+
+        if (index >= 0 && index < isPolicyTypeUpdated.length) {
+            isPolicyTypeUpdated[index] = true;
+        }
+    }
+
+    private static Map<String, RangerResourceTrie> copyResourceTrieMap(Map<String, RangerResourceTrie> other, boolean isUpdated) {
+        final Map<String, RangerResourceTrie> ret;
+
+        if (other == null || !isUpdated) {
+            ret = other;
+        } else {
+            ret = new HashMap<>();
+
+            for (Map.Entry<String, RangerResourceTrie> entry : other.entrySet()) {
+                // the copy shares unchanged subtrees with the source trie
+                ret.put(entry.getKey(), new RangerResourceTrie(entry.getValue()));
+            }
+        }
+
+        return ret;
+    }
+
     private void updateTrie(Map<String, RangerResourceTrie> trieMap, Integer policyDeltaType, RangerPolicyEvaluator oldEvaluator, RangerPolicyEvaluator newEvaluator) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyRepository.updateTrie(policyDeltaType=" + policyDeltaType + "): ");
@@ -57,6 +57,7 @@
     private final String wildcardChars;
     private final TrieNode<T> root;
     private final boolean isOptimizedForRetrieval;
+    private final TrieNodeOwner nodeOwner;
 
     public RangerResourceTrie(RangerServiceDef.RangerResourceDef resourceDef, List<T> evaluators) {
         this(resourceDef, evaluators, true, null);
@@ -74,7 +75,11 @@ public RangerResourceTrie(RangerResourceTrie<T> other) {
         this.optWildcard = other.optWildcard;
         this.wildcardChars = other.wildcardChars;
         this.isOptimizedForRetrieval = false;
-        this.root = copyTrieSubtree(other.root, null);
+        this.nodeOwner = new TrieNodeOwner(optIgnoreCase);
+        this.root = new TrieNode<>(other.root.getStr(), nodeOwner);
+
+        // subtrees are shared with other, and are copied only when updated in this trie; hence other must not be updated after this
+        this.root.copyFrom(other.root, null);
 
         RangerPerfTracer.logAlways(perf);
 
@@ -131,6 +136,7 @@ public RangerResourceTrie(RangerResourceTrie<T> other) {
         this.optWildcard   = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
         this.wildcardChars = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : "" + tokenReplaceSpecialChars;
         this.isOptimizedForRetrieval = isOptimizedForRetrieval;
+        this.nodeOwner     = new TrieNodeOwner(optIgnoreCase);
 
         TrieNode<T> tmpRoot = buildTrie(resourceDef, evaluators, builderThreadCount);
 
@@ -186,11 +192,11 @@ public void add(RangerPolicyResource resource, T evaluator) {
 
         if (resource == null) {
             if (evaluator.isAncestorOf(resourceDef)) {
-                root.addWildcardEvaluator(evaluator);
+                addWildcardEvaluator(root, null, evaluator);
             }
         } else {
             if (resource.getIsExcludes()) {
-                root.addWildcardEvaluator(evaluator);
+                addWildcardEvaluator(root, null, evaluator);
             } else {
                 if (CollectionUtils.isNotEmpty(resource.getValues())) {
                     for (String value : resource.getValues()) {
@@ -218,13 +224,16 @@ public void delete(RangerPolicyResource resource, T evaluator) {
 
         boolean isRemoved = false;
         if (resource.getIsExcludes()) {
-            isRemoved = root.removeWildcardEvaluator(evaluator);
+            if (root.hasWildcardEvaluator(evaluator)) {
+                root.ownSubtree();
+            }
+            isRemoved = root.removeWildcardEvaluator(evaluator, null);
         }
         if (!isRemoved) {
             for (String value : resource.getValues()) {
                 TrieNode<T> node = getNodeForResource(value);
-                if (node != null) {
-                    node.removeEvaluatorFromSubtree(evaluator);
+                if (node != null && node.hasEvaluator(evaluator)) {
+                    removeEvaluatorFromSubtree(value, evaluator);
                 }
             }
         }
@@ -238,67 +247,21 @@ public void delete(RangerPolicyResource resource, T evaluator) {
     }
 
     public void wrapUpUpdate() {
-        if (root != null) {
-            root.wrapUpUpdate();
-        }
-    }
-
-    TrieNode<T> getRoot() {
-        return root;
-    }
-
-    private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T> parent) {
-        if (TRACE_LOG.isTraceEnabled()) {
-            StringBuilder sb = new StringBuilder();
-            source.toString(sb);
-            TRACE_LOG.trace("==> copyTrieSubtree(" + sb + ")");
-        }
-        TrieNode<T> dest = new TrieNode<>(source.str);
-        if (parent != null) {
-            parent.addChild(dest);
-        }
-
-        synchronized (source.children) {
-            dest.isSetup = source.isSetup;
-            dest.isSharingParentWildcardEvaluators = source.isSharingParentWildcardEvaluators;
+        if (root != null && isOptimizedForRetrieval) {
+            RangerPerfTracer postSetupPerf = null;
 
-            if (source.isSharingParentWildcardEvaluators) {
-                if (dest.getParent() != null) {
-                    dest.wildcardEvaluators = dest.getParent().getWildcardEvaluators();
-                } else {
-                    dest.wildcardEvaluators = null;
-                }
-            } else {
-                if (source.wildcardEvaluators != null) {
-                    dest.wildcardEvaluators = new HashSet<>(source.wildcardEvaluators);
-                } else {
-                    dest.wildcardEvaluators = null;
-                }
-            }
-            if (source.evaluators != null) {
-                if (source.evaluators == source.wildcardEvaluators) {
-                    dest.evaluators = dest.wildcardEvaluators;
-                } else {
-                    dest.evaluators = new HashSet<>(source.evaluators);
-                }
-            } else {
-                dest.evaluators = null;
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
+                postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
             }
-        }
-
-        Map<Character, TrieNode<T>> children = source.getChildren();
-        for (Map.Entry<Character, TrieNode<T>> entry : children.entrySet()) {
-            copyTrieSubtree(entry.getValue(), dest);
-        }
 
-        if (TRACE_LOG.isTraceEnabled()) {
-            StringBuilder sourceAsString = new StringBuilder(), destAsString = new StringBuilder();
-            source.toString(sourceAsString);
-            dest.toString(destAsString);
+            root.postSetup(null);
 
-            TRACE_LOG.trace("<== copyTrieSubtree(" + sourceAsString + ") : " + destAsString);
+            RangerPerfTracer.logAlways(postSetupPerf);
         }
-        return dest;
+    }
+
+    TrieNode<T> getRoot() {
+        return root;
     }
 
     private TrieNode<T> buildTrie(RangerServiceDef.RangerResourceDef resourceDef, List<T> evaluators, int builderThreadCount) {
@@ -312,7 +275,7 @@ private TrieNode<T> buildTrie(RangerServiceDef.RangerResourceDef resourceDef, Li
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(resourceDef=" + resourceDef.getName() + ")");
         }
 
-        TrieNode<T>                           ret                 = new TrieNode<>(null);
+        TrieNode<T>                           ret                 = new TrieNode<>(null, nodeOwner);
         final boolean                         isMultiThreaded = builderThreadCount > 1;
         final List<ResourceTrieBuilderThread> builderThreads;
         final Map<Character, Integer>         builderThreadMap;
@@ -339,19 +302,19 @@ private TrieNode<T> buildTrie(RangerServiceDef.RangerResourceDef resourceDef, Li
 
             if (policyResource == null) {
                 if (evaluator.isAncestorOf(resourceDef)) {
-                    ret.addWildcardEvaluator(evaluator);
+                    ret.addWildcardEvaluator(evaluator, null);
                 }
 
                 continue;
             }
 
             if (policyResource.getIsExcludes()) {
-                ret.addWildcardEvaluator(evaluator);
+                ret.addWildcardEvaluator(evaluator, null);
             } else {
                 RangerResourceMatcher resourceMatcher = evaluator.getResourceMatcher(resourceName);
 
                 if (resourceMatcher != null && (resourceMatcher.isMatchAny())) {
-                    ret.addWildcardEvaluator(evaluator);
+                    ret.addWildcardEvaluator(evaluator, null);
                 } else {
                     if (CollectionUtils.isNotEmpty(policyResource.getValues())) {
                         for (String resource : policyResource.getValues()) {
@@ -438,11 +401,11 @@ private int getMaxDepth() {
     }
 
     private Character getLookupChar(char ch) {
-        return optIgnoreCase ? Character.toLowerCase(ch) : ch;
+        return nodeOwner.getLookupChar(ch);
     }
 
     private Character getLookupChar(String str, int index) {
-        return getLookupChar(str.charAt(index));
+        return nodeOwner.getLookupChar(str, index);
     }
 
     private int insert(TrieNode<T> currentRoot, String resource, boolean isRecursive, T evaluator, Map<Character, Integer> builderThreadMap, List<ResourceTrieBuilderThread> builderThreads, int lastUsedThreadIndex) throws InterruptedException {
@@ -460,7 +423,7 @@ private int insert(TrieNode<T> currentRoot, String resource, boolean isRecursive
 
             builderThreads.get(index).add(resource, isRecursive, evaluator);
         } else {
-            currentRoot.addWildcardEvaluator(evaluator);
+            currentRoot.addWildcardEvaluator(evaluator, null);
         }
 
         return ret;
@@ -477,13 +440,74 @@ private void insert(TrieNode<T> currentRoot, String resource, boolean isRecursiv
         }
 
         if(isWildcard || isRecursive) {
-            curr.addWildcardEvaluator(evaluator);
+            addWildcardEvaluator(curr, curr.isSetup ? getParentNode(currentRoot, prefix, curr) : null, evaluator);
         } else {
             curr.addEvaluator(evaluator);
         }
 
     }
 
+    // as wildcard-evaluators of a node are merged into every node of its subtree during setup, the entire subtree must be owned by this trie before the update
+    private void addWildcardEvaluator(TrieNode<T> node, TrieNode<T> parent, T evaluator) {
+        if (!node.hasWildcardEvaluator(evaluator)) {
+            node.ownSubtree();
+            node.addWildcardEvaluator(evaluator, parent == null ? null : parent.getWildcardEvaluators());
+        }
+    }
+
+    private void removeEvaluatorFromSubtree(String resource, T evaluator) {
+        TrieNode<T> parent = null;
+        TrieNode<T> curr   = root;
+        final int   len    = resource.length();
+        int         i      = 0;
+
+        // same lookup as getNodeForResource(), but copying shared nodes in the path to the node
+        while (i < len) {
+            final Character   ch    = getLookupChar(resource, i);
+            final TrieNode<T> child = curr.getChild(ch);
+
+            if (child == null) {
+                break;
+            }
+
+            final String childStr = child.getStr();
+
+            if (!resource.regionMatches(optIgnoreCase, i, childStr, 0, childStr.length())) {
+                break;
+            }
+
+            parent = curr;
+            curr   = curr.getOwnedChild(ch);
+            i += childStr.length();
+        }
+
+        if (curr.hasWildcardEvaluator(evaluator)) {
+            curr.ownSubtree();
+        }
+
+        curr.removeEvaluatorFromSubtree(evaluator, parent == null ? null : parent.getWildcardEvaluators());
+    }
+
+    private TrieNode<T> getParentNode(TrieNode<T> currentRoot, String resource, TrieNode<T> node) {
+        TrieNode<T> ret  = null;
+        TrieNode<T> curr = currentRoot;
+        int         i    = 0;
+
+        while (curr != node && i < resource.length()) {
+            final TrieNode<T> child = curr.getChild(getLookupChar(resource, i));
+
+            if (child == null) {
+                break;
+            }
+
+            ret  = curr;
+            curr = child;
+            i += child.getStr().length();
+        }
+
+        return curr == node ? ret : null;
+    }
+
     private String getNonWildcardPrefix(String str) {
 
         int minIndex = str.length();
@@ -684,7 +708,7 @@ public String toString() {
             }
         }
 
-        private final   TrieNode<T>             thisRoot  = new TrieNode<>(null);
+        private final   TrieNode<T>             thisRoot  = new TrieNode<>(null, nodeOwner);
         private final   BlockingQueue<WorkItem> workQueue = new LinkedBlockingQueue<>();
 
         ResourceTrieBuilderThread() {
@@ -740,17 +764,40 @@ static class TrieData {
         int wildcardEvaluatorListRefCount;
     }
 
-    class TrieNode<U extends T> {
+    /*
+        Identifies the trie that created a node. Nodes are shared between copies of a trie (see RangerResourceTrie(other)),
+        and a node can be updated only by the trie that created it. Nodes refer to this token instead of the trie, so that
+        a shared node does not keep the trie that created it - and the nodes that trie replaced since - reachable.
+     */
+    static final class TrieNodeOwner {
+        private final boolean optIgnoreCase;
+
+        TrieNodeOwner(boolean optIgnoreCase) {
+            this.optIgnoreCase = optIgnoreCase;
+        }
+
+        Character getLookupChar(char ch) {
+            return optIgnoreCase ? Character.toLowerCase(ch) : ch;
+        }
+
+        Character getLookupChar(String str, int index) {
+            return getLookupChar(str.charAt(index));
+        }
+    }
+
+    static class TrieNode<U extends RangerPolicyResourceEvaluator> {
+        private final    TrieNodeOwner               owner;
         private          String                      str;
-        private          TrieNode<U>                 parent;
         private final    Map<Character, TrieNode<U>> children = new HashMap<>();
         private          Set<U>                      evaluators;
         private          Set<U>                      wildcardEvaluators;
         private          boolean                     isSharingParentWildcardEvaluators;
+        private          boolean                     hasSharedDescendants = false;
         private volatile boolean                     isSetup = false;
 
-        TrieNode(String str) {
-            this.str = str;
+        TrieNode(String str, TrieNodeOwner owner) {
+            this.str   = str;
+            this.owner = owner;
         }
 
         String getStr() {
@@ -761,14 +808,6 @@ void setStr(String str) {
             this.str = str;
         }
 
-        TrieNode<U> getParent() {
-            return parent;
-        }
-
-        void setParent(TrieNode<U> parent) {
-            this.parent = parent;
-        }
-
         Map<Character, TrieNode<U>> getChildren() {
             return children;
         }
@@ -785,6 +824,71 @@ TrieNode<U> getChild(Character ch) {
             return children.get(ch);
         }
 
+        boolean hasEvaluator(U evaluator) {
+            return (evaluators != null && evaluators.contains(evaluator)) || hasWildcardEvaluator(evaluator);
+        }
+
+        boolean hasWildcardEvaluator(U evaluator) {
+            return wildcardEvaluators != null && wildcardEvaluators.contains(evaluator);
+        }
+
+        // returns the child, after replacing it with a copy if it is shared with another trie
+        TrieNode<U> getOwnedChild(Character ch) {
+            TrieNode<U> ret = children.get(ch);
+
+            if (ret != null && ret.owner != owner) {
+                TrieNode<U> copy = new TrieNode<>(ret.getStr(), owner);
+
+                copy.copyFrom(ret, wildcardEvaluators);
+                children.put(ch, copy);
+
+                ret = copy;
+            }
+
+            return ret;
+        }
+
+        void ownSubtree() {
+            if (hasSharedDescendants) {
+                for (Character ch : children.keySet()) {
+                    getOwnedChild(ch).ownSubtree();
+                }
+
+                hasSharedDescendants = false;
+            }
+        }
+
+        // shallow copy: children of source are shared with this node
+        void copyFrom(TrieNode<U> source, Set<U> parentWildcardEvaluators) {
+            synchronized (source.children) {
+                this.isSetup = source.isSetup;
+                this.isSharingParentWildcardEvaluators = source.isSharingParentWildcardEvaluators;
+
+                if (source.isSharingParentWildcardEvaluators) {
+                    this.wildcardEvaluators = parentWildcardEvaluators;
+                } else {
+                    if (source.wildcardEvaluators != null) {
+                        this.wildcardEvaluators = new HashSet<>(source.wildcardEvaluators);
+                    } else {
+                        this.wildcardEvaluators = null;
+                    }
+                }
+                if (source.evaluators != null) {
+                    if (source.evaluators == source.wildcardEvaluators) {
+                        this.evaluators = this.wildcardEvaluators;
+                    } else {
+                        this.evaluators = new HashSet<>(source.evaluators);
+                    }
+                } else {
+                    this.evaluators = null;
+                }
+
+                this.children.putAll(source.children);
+            }
+
+            this.hasSharedDescendants = !children.isEmpty();
+        }
+
         void populateTrieData(RangerResourceTrie.TrieData trieData) {
             trieData.nodeCount++;
 
@@ -838,22 +942,22 @@ int getMaxDepth() {
         TrieNode<U> getOrCreateChild(String str) {
             int len = str.length();
 
-            TrieNode<U> child = children.get(getLookupChar(str, 0));
+            TrieNode<U> child = getOwnedChild(owner.getLookupChar(str, 0));
 
             if (child == null) {
-                child = new TrieNode<>(str);
+                child = new TrieNode<>(str, owner);
                 addChild(child);
             } else {
                 final String childStr = child.getStr();
                 final int childStrLen = childStr.length();
 
-                final boolean isExactMatch = optIgnoreCase ? StringUtils.equalsIgnoreCase(childStr, str) : StringUtils.equals(childStr, str);
+                final boolean isExactMatch = owner.optIgnoreCase ? StringUtils.equalsIgnoreCase(childStr, str) : StringUtils.equals(childStr, str);
 
                 if (!isExactMatch) {
                     final int numOfCharactersToMatch = Math.min(childStrLen, len);
                     int index = 1;
                     for (; index < numOfCharactersToMatch; index++) {
-                        if (getLookupChar(childStr, index) != getLookupChar(str, index)) {
+                        if (owner.getLookupChar(childStr, index) != owner.getLookupChar(str, index)) {
                             break;
                         }
                     }
@@ -861,10 +965,15 @@ TrieNode<U> getOrCreateChild(String str) {
                         // Matched all
                         if (childStrLen > len) {
                             // Existing node has longer string, need to break up this node
-                            TrieNode<U> newChild = new TrieNode<>(str);
+                            TrieNode<U> newChild = new TrieNode<>(str, owner);
                             this.addChild(newChild);
                             child.setStr(childStr.substring(index));
                             newChild.addChild(child);
+                            newChild.hasSharedDescendants = child.hasSharedDescendants;
+                            if (child.isSetup) {
+                                // keep the new node consistent with its subtree, so that a later undoSetup() reaches the subtree
+                                newChild.setup(wildcardEvaluators);
+                            }
                             child = newChild;
                         } else {
                             // This is a longer string, build a child with leftover string
@@ -873,10 +982,14 @@ TrieNode<U> getOrCreateChild(String str) {
                     } else {
                         // Partial match for both; both have leftovers
                         String matchedPart = str.substring(0, index);
-                        TrieNode<U> newChild = new TrieNode<>(matchedPart);
+                        TrieNode<U> newChild = new TrieNode<>(matchedPart, owner);
                         this.addChild(newChild);
                         child.setStr(childStr.substring(index));
                         newChild.addChild(child);
+                        newChild.hasSharedDescendants = child.hasSharedDescendants;
+                        if (child.isSetup) {
+                            newChild.setup(wildcardEvaluators);
+                        }
                         child = newChild.getOrCreateChild(str.substring(index));
                     }
                 }
@@ -886,25 +999,29 @@ TrieNode<U> getOrCreateChild(String str) {
         }
 
         private void addChild(TrieNode<U> child) {
-            children.put(getLookupChar(child.getStr(), 0), child);
-            child.setParent(this);
+            children.put(owner.getLookupChar(child.getStr(), 0), child);
         }
 
         void addEvaluator(U evaluator) {
             if (evaluators == null) {
                 evaluators = new HashSet<>();
+            } else if (evaluators == wildcardEvaluators) {
+                // after setup, evaluators can be the same set as wildcardEvaluators - which in turn can be shared with parent
+                evaluators = new HashSet<>(wildcardEvaluators);
             }
             evaluators.add(evaluator);
         }
 
-        void addWildcardEvaluator(U evaluator) {
-            if (wildcardEvaluators == null) {
-                wildcardEvaluators = new HashSet<>();
-            }
+        void addWildcardEvaluator(U evaluator, Set<U> parentWildcardEvaluators) {
+            if (wildcardEvaluators == null || !wildcardEvaluators.contains(evaluator)) {
+                // undo setup before the update, as wildcardEvaluators of a node that is setup can be shared with parent
+                undoSetup(parentWildcardEvaluators);
+
+                if (wildcardEvaluators == null) {
+                    wildcardEvaluators = new HashSet<>();
+                }
 
-            if (!wildcardEvaluators.contains(evaluator)) {
                 wildcardEvaluators.add(evaluator);
-                undoSetup();
             }
         }
 
@@ -917,9 +1034,9 @@ void removeEvaluator(U evaluator) {
             }
         }
 
-        boolean removeWildcardEvaluator(U evaluator) {
+        boolean removeWildcardEvaluator(U evaluator, Set<U> parentWildcardEvaluators) {
             if (CollectionUtils.isNotEmpty(wildcardEvaluators) && wildcardEvaluators.contains(evaluator)) {
-                undoSetup();
+                undoSetup(parentWildcardEvaluators);
                 if (CollectionUtils.isNotEmpty(wildcardEvaluators)) {
                     wildcardEvaluators.remove(evaluator);
                     if (CollectionUtils.isEmpty(wildcardEvaluators)) {
@@ -932,35 +1049,30 @@ boolean removeWildcardEvaluator(U evaluator) {
             }
         }
 
-        void undoSetup() {
+        void undoSetup(Set<U> parentWildcardEvaluators) {
             if (isSetup) {
                 for (TrieNode<U> child : children.values()) {
-                    child.undoSetup();
+                    child.undoSetup(wildcardEvaluators);
                 }
                 if (evaluators != null) {
                     if (evaluators == wildcardEvaluators) {
                         evaluators = null;
-                    } else {
-                        if (wildcardEvaluators != null) {
-                            evaluators.removeAll(wildcardEvaluators);
-
-                            if (CollectionUtils.isEmpty(evaluators)) {
-                                evaluators = null;
-                            }
-
-                            if (isSharingParentWildcardEvaluators) {
-                                wildcardEvaluators = null;
-                            } else {
-                                Set<U> parentWildcardEvaluators = getParent() == null ? null : getParent().getWildcardEvaluators();
+                    } else if (wildcardEvaluators != null) {
+                        evaluators.removeAll(wildcardEvaluators);
 
-                                if (parentWildcardEvaluators != null) {
-                                    wildcardEvaluators.removeAll(parentWildcardEvaluators);
+                        if (CollectionUtils.isEmpty(evaluators)) {
+                            evaluators = null;
+                        }
+                    }
+                }
+                if (wildcardEvaluators != null) {
+                    if (isSharingParentWildcardEvaluators) {
+                        wildcardEvaluators = null;
+                    } else if (parentWildcardEvaluators != null) {
+                        wildcardEvaluators.removeAll(parentWildcardEvaluators);
 
-                                    if (CollectionUtils.isEmpty(wildcardEvaluators)) {
-                                        wildcardEvaluators = null;
-                                    }
-                                }
-                            }
+                        if (CollectionUtils.isEmpty(wildcardEvaluators)) {
+                            wildcardEvaluators = null;
                         }
                     }
                 }
@@ -969,20 +1081,6 @@ void undoSetup() {
             }
         }
 
-        void wrapUpUpdate() {
-            if (isOptimizedForRetrieval) {
-                RangerPerfTracer postSetupPerf = null;
-
-                if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
-                    postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
-                }
-
-                postSetup(null);
-
-                RangerPerfTracer.logAlways(postSetupPerf);
-            }
-        }
-
         void postSetup(Set<U> parentWildcardEvaluators) {
 
             setup(parentWildcardEvaluators);
@@ -1004,7 +1102,14 @@ void setupIfNeeded(TrieNode<U> parent) {
                     setupNeeded = !isSetup;
 
                     if (setupNeeded) {
-                        setup(parent == null ? null : parent.getWildcardEvaluators());
+                        Set<U> parentWildcardEvaluators = parent == null ? null : parent.getWildcardEvaluators();
+
+                        if (parentWildcardEvaluators != null && parent.owner != owner) {
+                            // this node is shared with the trie it was copied from: must not refer to parent's evaluators, which can be updated in parent's trie
+                            parentWildcardEvaluators = new HashSet<>(parentWildcardEvaluators);
+                        }
+
+                        setup(parentWildcardEvaluators);
                         if (TRACE_LOG.isTraceEnabled()) {
                             StringBuilder sb = new StringBuilder();
                             this.toString(sb);
@@ -1023,7 +1128,7 @@ void setup(Set<U> parentWildcardEvaluators) {
                         this.wildcardEvaluators = parentWildcardEvaluators;
                     } else {
                         for (U evaluator : parentWildcardEvaluators) {
-                            addWildcardEvaluator(evaluator);
+                            addWildcardEvaluator(evaluator, parentWildcardEvaluators);
                         }
                     }
                 }
@@ -1044,10 +1149,10 @@ void setup(Set<U> parentWildcardEvaluators) {
             }
         }
 
-        private void removeEvaluatorFromSubtree(U evaluator) {
-            if (removeWildcardEvaluator(evaluator)) {
+        private void removeEvaluatorFromSubtree(U evaluator, Set<U> parentWildcardEvaluators) {
+            if (removeWildcardEvaluator(evaluator, parentWildcardEvaluators)) {
                 for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    entry.getValue().removeEvaluatorFromSubtree(evaluator);
+                    entry.getValue().removeEvaluatorFromSubtree(evaluator, wildcardEvaluators);
                 }
             }
 
@@ -39,6 +39,7 @@
 import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
 import org.apache.ranger.plugin.model.RangerServiceDef;
@@ -80,6 +81,8 @@ public class RangerDefaultPolicyEvaluator extends RangerAbstractPolicyEvaluator
 	private String perfTag;
 	private PolicyACLSummary aclSummary                 = null;
 	private boolean          useAclSummaryForEvaluation = false;
+	private RangerPolicyEngineOptions lazyInitOptions                   = null;
+	private volatile boolean          isPolicyItemEvaluatorsInitialized = false;
 
 	protected boolean needsDynamicEval() { return resourceMatcher != null && resourceMatcher.getNeedsDynamicEval(); }
 
@@ -134,27 +137,13 @@ public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyE
 		if(policy != null) {
 			validityScheduleEvaluators = createValidityScheduleEvaluators(policy);
 
-			if (!options.disableAccessEvaluationWithPolicyACLSummary) {
-				aclSummary = createPolicyACLSummary();
-			}
-
-			useAclSummaryForEvaluation = aclSummary != null;
-
-			if (useAclSummaryForEvaluation) {
-				allowEvaluators          = Collections.<RangerPolicyItemEvaluator>emptyList();
-				denyEvaluators           = Collections.<RangerPolicyItemEvaluator>emptyList();
-				allowExceptionEvaluators = Collections.<RangerPolicyItemEvaluator>emptyList();
-				denyExceptionEvaluators  = Collections.<RangerPolicyItemEvaluator>emptyList();
+			if (options.enableLazyPolicyEvaluatorInit) {
+				// policy-item and condition evaluators are created on first use; see ensurePolicyItemEvaluators()
+				customConditionsCount = countCustomConditions(policy, serviceDef, options);
+				lazyInitOptions       = options;
 			} else {
-				allowEvaluators          = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW);
-				denyEvaluators           = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY);
-				allowExceptionEvaluators = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS);
-				denyExceptionEvaluators  = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS);
+				initPolicyItemEvaluators(policy, serviceDef, options);
 			}
-
-			dataMaskEvaluators  = createDataMaskPolicyItemEvaluators(policy, serviceDef, options, policy.getDataMaskPolicyItems());
-			rowFilterEvaluators = createRowFilterPolicyItemEvaluators(policy, serviceDef, options, policy.getRowFilterPolicyItems());
-			conditionEvaluators = createRangerPolicyConditionEvaluator(policy, serviceDef, options);
 		} else {
 			validityScheduleEvaluators = Collections.<RangerValidityScheduleEvaluator>emptyList();
 			allowEvaluators            = Collections.<RangerPolicyItemEvaluator>emptyList();
@@ -164,7 +153,69 @@ public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyE
 			dataMaskEvaluators         = Collections.<RangerDataMaskPolicyItemEvaluator>emptyList();
 			rowFilterEvaluators        = Collections.<RangerRowFilterPolicyItemEvaluator>emptyList();
 			conditionEvaluators        = Collections.<RangerConditionEvaluator>emptyList();
+			isPolicyItemEvaluatorsInitialized = true;
+		}
+
+		RangerPerfTracer.log(perf);
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerDefaultPolicyEvaluator.init()");
 		}
+	}
+
+	/*
+		Creates policy-item and condition evaluators of a policy evaluator that was initialized with
+		enableLazyPolicyEvaluatorInit option, if not already created. Called before every use of these
+		evaluators; can also be called to warm-up the evaluator ahead of its first use.
+	*/
+	public void ensurePolicyItemEvaluators() {
+		if (!isPolicyItemEvaluatorsInitialized) {
+			synchronized (this) {
+				if (!isPolicyItemEvaluatorsInitialized) {
+					RangerPerfTracer perf = null;
+
+					if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_INIT_LOG)) {
+						perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_INIT_LOG, "RangerPolicyEvaluator.lazyInit(" + perfTag + ")");
+					}
+
+					initPolicyItemEvaluators(getPolicy(), getServiceDef(), lazyInitOptions);
+
+					lazyInitOptions = null;
+
+					RangerPerfTracer.log(perf);
+				}
+			}
+		}
+	}
+
+	private void initPolicyItemEvaluators(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerDefaultPolicyEvaluator.initPolicyItemEvaluators(" + perfTag + ")");
+		}
+
+		customConditionsCount = 0;
+
+		if (!options.disableAccessEvaluationWithPolicyACLSummary) {
+			aclSummary = createPolicyACLSummary();
+		}
+
+		useAclSummaryForEvaluation = aclSummary != null;
+
+		if (useAclSummaryForEvaluation) {
+			allowEvaluators          = Collections.<RangerPolicyItemEvaluator>emptyList();
+			denyEvaluators           = Collections.<RangerPolicyItemEvaluator>emptyList();
+			allowExceptionEvaluators = Collections.<RangerPolicyItemEvaluator>emptyList();
+			denyExceptionEvaluators  = Collections.<RangerPolicyItemEvaluator>emptyList();
+		} else {
+			allowEvaluators          = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW);
+			denyEvaluators           = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY);
+			allowExceptionEvaluators = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS);
+			denyExceptionEvaluators  = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS);
+		}
+
+		dataMaskEvaluators  = createDataMaskPolicyItemEvaluators(policy, serviceDef, options, policy.getDataMaskPolicyItems());
+		rowFilterEvaluators = createRowFilterPolicyItemEvaluators(policy, serviceDef, options, policy.getRowFilterPolicyItems());
+		conditionEvaluators = createRangerPolicyConditionEvaluator(policy, serviceDef, options);
 
 		RangerPolicyItemEvaluator.EvalOrderComparator comparator = new RangerPolicyItemEvaluator.EvalOrderComparator();
 		Collections.sort(allowEvaluators, comparator);
@@ -177,14 +228,14 @@ public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyE
 		Collections.sort(rowFilterEvaluators);
 		*/
 
-		RangerPerfTracer.log(perf);
+		isPolicyItemEvaluatorsInitialized = true; // volatile write: publishes the evaluators created above
 
 		if (useAclSummaryForEvaluation && (policy.getPolicyType() == null || policy.getPolicyType() == RangerPolicy.POLICY_TYPE_ACCESS)) {
 			LOG.info("PolicyEvaluator for policy:[" + policy.getId() + "] is set up to use ACL Summary to evaluate access");
 		}
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerDefaultPolicyEvaluator.init()");
+			LOG.debug("<== RangerDefaultPolicyEvaluator.initPolicyItemEvaluators(" + perfTag + ")");
 		}
 	}
 
@@ -220,11 +271,15 @@ public void evaluate(RangerAccessRequest request, RangerAccessResult result) {
             LOG.debug("==> RangerDefaultPolicyEvaluator.evaluate(policyId=" + getPolicy().getId() + ", " + request + ", " + result + ")");
         }
 
+		ensurePolicyItemEvaluators();
+
 		RangerPerfTracer perf = null;
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_REQUEST_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_REQUEST_LOG, "RangerPolicyEvaluator.evaluate(requestHashCode=" + Integer.toHexString(System.identityHashCode(request)) + ","
 					+ perfTag + ")");
+		} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICY_REQUEST_LOG, "RangerPolicyEvaluator.evaluate");
 		}
 
         if (request != null && result != null) {
@@ -289,6 +344,8 @@ public boolean isMatch(RangerAccessResource resource, Map<String, Object> evalCo
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_REQUEST_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_REQUEST_LOG, "RangerPolicyEvaluator.isMatch(resource=" + resource.getAsString() + "," + evalContext + "," + perfTag + ")");
+		} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICY_REQUEST_LOG, "RangerPolicyEvaluator.isMatch");
 		}
 
 		if(resourceMatcher != null) {
@@ -388,6 +445,9 @@ public void getResourceAccessInfo(RangerAccessRequest request, RangerResourceAcc
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerDefaultPolicyEvaluator.getResourceAccessInfo(" + request + ", " + result + ")");
 		}
+
+		ensurePolicyItemEvaluators();
+
 		RangerPolicyResourceMatcher.MatchType matchType;
 		if (RangerTagAccessRequest.class.isInstance(request)) {
 			matchType = ((RangerTagAccessRequest) request).getMatchType();
@@ -454,6 +514,8 @@ public void getResourceAccessInfo(RangerAccessRequest request, RangerResourceAcc
 
 	@Override
 	public PolicyACLSummary getPolicyACLSummary() {
+		ensurePolicyItemEvaluators();
+
 		if (aclSummary == null) {
 			boolean forceCreation = true;
 			aclSummary = createPolicyACLSummary(forceCreation);
@@ -724,6 +786,8 @@ protected RangerPolicyItemEvaluator getDeterminingPolicyItem(String user, Set<St
 			LOG.debug("==> RangerDefaultPolicyEvaluator.getDeterminingPolicyItem(" + user + ", " + userGroups + ", " + roles + ", " + owner + ", " + accessType + ")");
 		}
 
+		ensurePolicyItemEvaluators();
+
 		RangerPolicyItemEvaluator ret = null;
 
 		/*
@@ -800,12 +864,16 @@ protected boolean isAccessAllowed(String user, Set<String> userGroups, Set<Strin
 			LOG.debug("==> RangerDefaultPolicyEvaluator.isAccessAllowed(" + user + ", " + userGroups + ", " + roles + ", " +  owner + ", " + accessType + ")");
 		}
 
+		ensurePolicyItemEvaluators();
+
 		boolean ret = false;
 
 		RangerPerfTracer perf = null;
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_REQUEST_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_REQUEST_LOG, "RangerPolicyEvaluator.isAccessAllowed(hashCode=" + Integer.toHexString(System.identityHashCode(this)) + "," + perfTag + ")");
+		} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICY_REQUEST_LOG, "RangerPolicyEvaluator.isAccessAllowed");
 		}
 
 		if (useAclSummaryForEvaluation && (getPolicy().getPolicyType() == null || getPolicy().getPolicyType() == RangerPolicy.POLICY_TYPE_ACCESS)) {
@@ -1086,6 +1154,8 @@ private static boolean hasNonPublicGroupOrConditions(List<RangerPolicyItem> poli
 	}
 
 	protected RangerPolicyItemEvaluator getMatchingPolicyItem(RangerAccessRequest request, RangerAccessResult result) {
+		ensurePolicyItemEvaluators();
+
 		RangerPolicyItemEvaluator ret = null;
 
 		Integer policyType = getPolicy().getPolicyType();
@@ -1284,6 +1354,8 @@ private boolean matchPolicyCustomConditions(RangerAccessRequest request) {
 					}
 
 					perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchPolicyCustomConditions(policyId=" + getId() +  ",policyConditionType=" + conditionType + ")");
+				} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+					perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchPolicyCustomConditions");
 				}
 
 				boolean conditionEvalResult = conditionEvaluator.isMatched(request);
@@ -1323,4 +1395,56 @@ private List<RangerConditionEvaluator> createRangerPolicyConditionEvaluator(Rang
 		return rangerConditionEvaluators;
 	}
 
+	// number of condition evaluators initPolicyItemEvaluators() would create, without creating them; used to compute evalOrder
+	private int countCustomConditions(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
+		int ret = 0;
+
+		if (!options.disableCustomConditions && serviceDef != null && CollectionUtils.isNotEmpty(serviceDef.getPolicyConditions())) {
+			Set<String> conditionNames = new HashSet<>();
+
+			for (RangerServiceDef.RangerPolicyConditionDef conditionDef : serviceDef.getPolicyConditions()) {
+				conditionNames.add(conditionDef.getName());
+			}
+
+			ret += countKnownConditions(policy.getConditions(), conditionNames);
+			ret += countCustomConditions(policy.getPolicyItems(), conditionNames);
+			ret += countCustomConditions(policy.getDataMaskPolicyItems(), conditionNames);
+			ret += countCustomConditions(policy.getRowFilterPolicyItems(), conditionNames);
+
+			if (isPolicyItemTypeEnabled(serviceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY)) {
+				ret += countCustomConditions(policy.getDenyPolicyItems(), conditionNames);
+				ret += countCustomConditions(policy.getAllowExceptions(), conditionNames);
+				ret += countCustomConditions(policy.getDenyExceptions(), conditionNames);
+			}
+		}
+
+		return ret;
+	}
+
+	private static int countCustomConditions(List<? extends RangerPolicyItem> policyItems, Set<String> conditionNames) {
+		int ret = 0;
+
+		if (CollectionUtils.isNotEmpty(policyItems)) {
+			for (RangerPolicyItem policyItem : policyItems) {
+				ret += countKnownConditions(policyItem.getConditions(), conditionNames);
+			}
+		}
+
+		return ret;
+	}
+
+	private static int countKnownConditions(List<RangerPolicyItemCondition> conditions, Set<String> conditionNames) {
+		int ret = 0;
+
+		if (CollectionUtils.isNotEmpty(conditions)) {
+			for (RangerPolicyItemCondition condition : conditions) {
+				if (conditionNames.contains(condition.getType())) {
+					ret++;
+				}
+			}
+		}
+
+		return ret;
+	}
+
 }
@@ -86,6 +86,8 @@ public boolean isMatch(RangerAccessRequest request) {
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYITEM_REQUEST_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYITEM_REQUEST_LOG, "RangerPolicyItemEvaluator.isMatch(resource=" + request.getResource().getAsString()  + ")");
+		} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYITEM_REQUEST_LOG, "RangerPolicyItemEvaluator.isMatch");
 		}
 
 		if(policyItem != null) {
@@ -249,6 +251,8 @@ public boolean matchCustomConditions(RangerAccessRequest request) {
 					}
 
 					perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchCondition(policyId=" + policyId + ",policyItemIndex=" + getPolicyItemIndex() + ",policyConditionType=" + conditionType + ")");
+				} else if (RangerPerfTracer.isPerfStatsEnabled()) {
+					perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchCondition");
 				}
 
 				boolean conditionEvalResult = conditionEvaluator.isMatched(request);
@@ -120,6 +120,10 @@ public String getClusterName() {
 
 	public RangerAuthContext getCurrentRangerAuthContext() { return currentAuthContext; }
 
+	public RangerPolicyEngine getPolicyEngine() { return policyEngine; }
+
+	public RangerPluginContext getPluginContext() { return pluginContext; }
+
 	// For backward compatibility
 	public RangerAuthContext createRangerAuthContext() { return currentAuthContext; }
 
@@ -179,6 +183,10 @@ public void init() {
 			}
 		}
 
+		if (pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".perf.metrics.enabled", false)) {
+			PerfDataRecorder.initialize(null, true);
+		}
+
 		refresher = new PolicyRefresher(this);
 		LOG.info("Created PolicyRefresher Thread(" + refresher.getName() + ")");
 		refresher.setDaemon(true);
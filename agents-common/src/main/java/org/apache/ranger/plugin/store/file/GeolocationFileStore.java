@@ -26,6 +26,7 @@
 import org.apache.ranger.plugin.store.GeolocationStore;
 import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
 import org.apache.ranger.plugin.geo.RangerGeolocationData;
+import org.apache.ranger.plugin.geo.RangerGeolocationIndex;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -174,13 +175,15 @@ RangerGeolocationDatabase build(String dataFileName) {
 
 			database  = new RangerGeolocationDatabase();
 
+			RangerGeolocationIndex.Builder indexBuilder = new RangerGeolocationIndex.Builder();
+
 			String line;
 			int lineNumber = 0;
 			isMetalineProcessed = false;
 
 			while(( line = bufferedReader.readLine()) != null) {
 				lineNumber++;
-				if (!processLine(lineNumber, line, database)) {
+				if (!processLine(lineNumber, line, database, indexBuilder)) {
 					LOG.error("RangerGeolocationDatabaseBuilder.build() - Invalid geo-specification - " + lineNumber + ":" + line);
 					database = null;
 					break;
@@ -189,6 +192,10 @@ RangerGeolocationDatabase build(String dataFileName) {
 
 			bufferedReader.close();
 			bufferedReader = null;
+
+			if (database != null) {
+				database.setIndex(indexBuilder.build());
+			}
 		}
 		catch(FileNotFoundException ex) {
 			LOG.error("RangerGeolocationDatabaseBuilder.build() - Unable to open file '" + dataFileName + "'");
@@ -213,14 +220,10 @@ RangerGeolocationDatabase build(String dataFileName) {
 			LOG.debug("RangerGeolocationDatabaseBuilder.build() - Time taken for reading file = " + (end - start) + " milliseconds");
 		}
 
-		if (database != null) {
-			database.optimize();
-		}
-
 		return database;
 	}
 
-	private boolean processLine(int lineNumber, String line, RangerGeolocationDatabase database) {
+	private boolean processLine(int lineNumber, String line, RangerGeolocationDatabase database, RangerGeolocationIndex.Builder indexBuilder) {
 
 		boolean ret = true;
 
@@ -239,10 +242,7 @@ private boolean processLine(int lineNumber, String line, RangerGeolocationDataba
 						ret = false;
 					}
 				} else {
-					RangerGeolocationData data = RangerGeolocationData.create(fields, lineNumber, useDotFormat);
-					if (data != null) {
-						database.getData().insert(data);
-					} else {
+					if (!indexBuilder.add(fields, useDotFormat)) {
 						LOG.error("GeolocationFileStore.processLine() - Invalid data specification " + lineNumber + ":" + line);
 					}
 				}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.admin.client.RangerAdminClient;
+
+/*
+ * Holds a long-poll request open to Ranger Admin, which returns as soon as a version newer than the one known to the
+ * plugin is available. On such a change, a DownloadTrigger is put on the download queue registered for the type of the
+ * change, so the download happens right away instead of at the next timer tick. While connected, DownloaderTasks
+ * created with this watcher skip their periodic downloads; when the connection fails they resume polling.
+ */
+public class ChangeWatcher extends Thread {
+	private static final Log LOG = LogFactory.getLog(ChangeWatcher.class);
+
+	public enum ChangeType { POLICY, TAG, ROLE, USERSTORE }
+
+	private final String                   serviceName;
+	private final RangerAdminClient        rangerAdmin;
+	private final long                     waitTimeoutMs;
+	private final long                     retryIntervalMs;
+	private final List<Registration>       registrations = new CopyOnWriteArrayList<>();
+	private volatile boolean               isConnected;
+
+	public ChangeWatcher(String serviceName, RangerAdminClient rangerAdmin, long waitTimeoutMs, long retryIntervalMs) {
+		this.serviceName     = serviceName;
+		this.rangerAdmin     = rangerAdmin;
+		this.waitTimeoutMs   = waitTimeoutMs;
+		this.retryIntervalMs = retryIntervalMs;
+
+		setName("ChangeWatcher(serviceName=" + serviceName + ")-" + getId());
+		setDaemon(true);
+	}
+
+	/**
+	 * @param lastKnownVersion returns the version last downloaded from the queue's refresher; -1 if none
+	 */
+	public void register(ChangeType changeType, LongSupplier lastKnownVersion, BlockingQueue<DownloadTrigger> queue) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("ChangeWatcher(serviceName=" + serviceName + ").register(" + changeType + ")");
+		}
+
+		registrations.add(new Registration(changeType, lastKnownVersion, queue));
+	}
+
+	public void unregister(BlockingQueue<DownloadTrigger> queue) {
+		registrations.removeIf(registration -> registration.queue == queue);
+	}
+
+	public boolean isConnected() {
+		return isConnected;
+	}
+
+	/*
+	 * Doesn't wait for the thread to exit, as the pending request to Ranger Admin can't be interrupted; the thread exits
+	 * when the request returns.
+	 */
+	public void stopWatcher() {
+		registrations.clear();
+
+		isConnected = false;
+
+		super.interrupt();
+	}
+
+	@Override
+	public void run() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ChangeWatcher(serviceName=" + serviceName + ").run()");
+		}
+
+		while (!isInterrupted()) {
+			try {
+				RangerServiceVersions lastKnownVersions = getLastKnownVersions();
+				RangerServiceVersions latestVersions    = rangerAdmin.waitForChanges(lastKnownVersions, waitTimeoutMs);
+
+				if (isInterrupted()) {
+					break;
+				}
+
+				isConnected = true;
+
+				if (latestVersions != null && latestVersions.isNewerThan(lastKnownVersions)) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("ChangeWatcher(serviceName=" + serviceName + "): lastKnownVersions=" + lastKnownVersions + ", latestVersions=" + latestVersions);
+					}
+
+					if (!triggerDownloads(latestVersions)) {
+						// download failed or was not done yet; don't ask Ranger Admin again right away, as it would return immediately
+						Thread.sleep(retryIntervalMs);
+					}
+				}
+			} catch (InterruptedException excp) {
+				break;
+			} catch (RangerChangeNotificationNotSupportedException excp) {
+				LOG.warn("ChangeWatcher(serviceName=" + serviceName + "): change notification is not supported. Will continue to poll for changes. " + excp.getMessage());
+
+				break;
+			} catch (Exception excp) {
+				if (isConnected) {
+					LOG.warn("ChangeWatcher(serviceName=" + serviceName + "): failed to wait for changes. Will poll for changes until reconnected", excp);
+				} else if (LOG.isDebugEnabled()) {
+					LOG.debug("ChangeWatcher(serviceName=" + serviceName + "): failed to wait for changes", excp);
+				}
+
+				isConnected = false;
+
+				try {
+					Thread.sleep(retryIntervalMs);
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+		}
+
+		isConnected = false;
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ChangeWatcher(serviceName=" + serviceName + ").run()");
+		}
+	}
+
+	RangerServiceVersions getLastKnownVersions() {
+		RangerServiceVersions ret = new RangerServiceVersions();
+
+		ret.setServiceName(serviceName);
+
+		for (Registration registration : registrations) {
+			long version = registration.lastKnownVersion.getAsLong();
+
+			switch (registration.changeType) {
+				case POLICY:
+					ret.setPolicyVersion(min(ret.getPolicyVersion(), version));
+					break;
+				case TAG:
+					ret.setTagVersion(min(ret.getTagVersion(), version));
+					break;
+				case ROLE:
+					ret.setRoleVersion(min(ret.getRoleVersion(), version));
+					break;
+				case USERSTORE:
+					ret.setUserStoreVersion(min(ret.getUserStoreVersion(), version));
+					break;
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * @return true if every triggered download brought its refresher up to latestVersions
+	 */
+	boolean triggerDownloads(RangerServiceVersions latestVersions) throws InterruptedException {
+		List<Registration>                   changed = new ArrayList<>();
+		List<BlockingQueue<DownloadTrigger>> queues  = new ArrayList<>();
+
+		for (Registration registration : registrations) {
+			Long latestVersion = getVersion(latestVersions, registration.changeType);
+
+			if (latestVersion != null && latestVersion > registration.lastKnownVersion.getAsLong()) {
+				changed.add(registration);
+
+				if (!queues.contains(registration.queue)) { // policies and roles share the queue of PolicyRefresher
+					queues.add(registration.queue);
+				}
+			}
+		}
+
+		for (BlockingQueue<DownloadTrigger> queue : queues) {
+			DownloadTrigger trigger = new DownloadTrigger();
+
+			queue.put(trigger);
+
+			if (!trigger.waitForCompletion(waitTimeoutMs)) {
+				LOG.warn("ChangeWatcher(serviceName=" + serviceName + "): download didn't complete in " + waitTimeoutMs + "ms");
+			}
+		}
+
+		boolean ret = true;
+
+		for (Registration registration : changed) {
+			if (getVersion(latestVersions, registration.changeType) > registration.lastKnownVersion.getAsLong()) {
+				ret = false;
+			}
+		}
+
+		return ret;
+	}
+
+	private static Long getVersion(RangerServiceVersions versions, ChangeType changeType) {
+		switch (changeType) {
+			case POLICY:
+				return versions.getPolicyVersion();
+			case TAG:
+				return versions.getTagVersion();
+			case ROLE:
+				return versions.getRoleVersion();
+			case USERSTORE:
+				return versions.getUserStoreVersion();
+		}
+
+		return null;
+	}
+
+	private static Long min(Long version1, long version2) {
+		return version1 == null ? version2 : Math.min(version1, version2);
+	}
+
+	private static class Registration {
+		final ChangeType                     changeType;
+		final LongSupplier                   lastKnownVersion;
+		final BlockingQueue<DownloadTrigger> queue;
+
+		Registration(ChangeType changeType, LongSupplier lastKnownVersion, BlockingQueue<DownloadTrigger> queue) {
+			this.changeType       = changeType;
+			this.lastKnownVersion = lastKnownVersion;
+			this.queue            = queue;
+		}
+	}
+}
@@ -29,6 +29,26 @@ public synchronized void waitForCompletion() throws InterruptedException {
         isNotified = false;
     }
 
+    /**
+     * @return false if completion was not signalled within timeoutMs
+     */
+    public synchronized boolean waitForCompletion(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        while (!isNotified) {
+            long remainingMs = deadline - System.currentTimeMillis();
+
+            if (remainingMs <= 0) {
+                return false;
+            }
+
+            wait(remainingMs);
+        }
+        isNotified = false;
+
+        return true;
+    }
+
     public synchronized void signalCompletion() {
         isNotified = true;
         notifyAll();
@@ -30,13 +30,30 @@ public final class  DownloaderTask extends TimerTask {
 
     private final DownloadTrigger timerTrigger = new DownloadTrigger();
     private final BlockingQueue<DownloadTrigger> queue;
+    private final ChangeWatcher changeWatcher;
 
     public DownloaderTask(BlockingQueue<DownloadTrigger> queue) {
-        this.queue = queue;
+        this(queue, null);
+    }
+
+    /**
+     * @param changeWatcher if not null, downloads are skipped while it is connected to Ranger Admin, which then triggers them on change
+     */
+    public DownloaderTask(BlockingQueue<DownloadTrigger> queue, ChangeWatcher changeWatcher) {
+        this.queue         = queue;
+        this.changeWatcher = changeWatcher;
     }
 
     @Override
     public void run() {
+        if (changeWatcher != null && changeWatcher.isConnected()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Skipping periodic download, as " + changeWatcher.getName() + " is connected to Ranger Admin");
+            }
+
+            return;
+        }
+
         try {
             queue.put(timerTrigger);
             timerTrigger.waitForCompletion();
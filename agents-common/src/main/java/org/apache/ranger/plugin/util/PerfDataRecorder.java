@@ -25,21 +25,51 @@
 
 import com.google.common.collect.ImmutableMap;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class PerfDataRecorder {
 	private static final Log LOG  = LogFactory.getLog(PerfDataRecorder.class);
 	private static final Log PERF = RangerPerfTracer.getPerfLogger(PerfDataRecorder.class);
 
+	public static final String   JMX_DOMAIN         = "org.apache.ranger";
+	public static final String   JMX_TYPE           = "PerfStatistic";
+	public static final String   PROMETHEUS_METRIC  = "ranger_perf_latency_seconds";
+	public static final int      MAX_TAG_COUNT      = 1000;
+	public static final double[] REPORTED_QUANTILES = { 0.5, 0.99, 0.999 };
+
 	private static volatile PerfDataRecorder instance;
-	private Map<String, PerfStatistic> perfStatistics = new HashMap<>();
+
+	private final ConcurrentMap<String, PerfStatistic> perfStatistics   = new ConcurrentHashMap<>();
+	private final AtomicBoolean                        isTagLimitLogged = new AtomicBoolean(false);
+	private volatile boolean                           isJmxEnabled     = false;
 
 	public static void initialize(List<String> names) {
+		initialize(names, false);
+	}
+
+	/**
+	 * @param isJmxEnabled if true, statistics of each tag are registered as an MXBean named org.apache.ranger:type=PerfStatistic,name=tag
+	 */
+	public static void initialize(List<String> names, boolean isJmxEnabled) {
 		if (instance == null) {
 			synchronized (PerfDataRecorder.class) {
 				if (instance == null) {
@@ -47,6 +77,10 @@ public static void initialize(List<String> names) {
 				}
 			}
 		}
+
+		if (isJmxEnabled) {
+			instance.enableJmx();
+		}
 	}
 
 	public static boolean collectStatistics() {
@@ -67,62 +101,180 @@ public static void clearStatistics() {
 
 	public static void recordStatistic(String tag, long elapsedTime) {
 		if (instance != null) {
-			instance.record(tag, elapsedTime);
+			instance.record(tag, elapsedTime * 1000L);
 		}
 	}
 
-	private void dumpStatistics() {
-		List<String> tags = new ArrayList<>(perfStatistics.keySet());
+	public static void recordStatisticNanos(String tag, long elapsedTimeNanos) {
+		if (instance != null) {
+			instance.record(tag, elapsedTimeNanos);
+		}
+	}
 
-		Collections.sort(tags);
+	/**
+	 * Writes the statistics in Prometheus text exposition format, as a summary with quantiles per tag.
+	 */
+	public static void writePrometheusText(Writer writer) throws IOException {
+		writer.write("# HELP " + PROMETHEUS_METRIC + " Latency of operations traced by RangerPerfTracer\n");
+		writer.write("# TYPE " + PROMETHEUS_METRIC + " summary\n");
 
-		for (String tag : tags) {
-			PerfStatistic perfStatistic = perfStatistics.get(tag);
+		if (instance != null) {
+			for (String tag : instance.getSortedTags()) {
+				PerfStatistic                   perfStatistic = instance.perfStatistics.get(tag);
+				RangerLatencyHistogram.Snapshot snapshot      = perfStatistic.histogram.getSnapshot();
+				String                          label         = "tag=\"" + escapeLabelValue(tag) + "\"";
+
+				for (double quantile : REPORTED_QUANTILES) {
+					writer.write(PROMETHEUS_METRIC + "{" + label + ",quantile=\"" + quantile + "\"} " + toSeconds(snapshot.getValueAtPercentile(quantile * 100)) + "\n");
+				}
+
+				writer.write(PROMETHEUS_METRIC + "_sum{" + label + "} " + toSeconds(perfStatistic.histogram.getTotalNs()) + "\n");
+				writer.write(PROMETHEUS_METRIC + "_count{" + label + "} " + snapshot.getCount() + "\n");
+			}
+		}
+
+		writer.flush();
+	}
+
+	public static String getPrometheusText() {
+		StringWriter ret = new StringWriter();
+
+		try {
+			writePrometheusText(ret);
+		} catch (IOException excp) {
+			LOG.error("PerfDataRecorder.getPrometheusText(): failed", excp); // not expected with StringWriter
+		}
+
+		return ret.toString();
+	}
 
-			long averageTimeSpent = 0L;
+	/**
+	 * Writes the statistics in Prometheus text format to a file, for processes without an HTTP endpoint; like
+	 * node_exporter's textfile collector, readers see either the previous or the new content, never a partial file.
+	 */
+	public static void writePrometheusTextFile(File file) throws IOException {
+		File tmpFile = new File(file.getPath() + ".tmp");
 
-			if (perfStatistic.numberOfInvocations.get() != 0L) {
-				averageTimeSpent = perfStatistic.microSecondsSpent.get()/perfStatistic.numberOfInvocations.get();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+			writePrometheusText(writer);
+		}
+
+		Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return name of the Prometheus text file written alongside the given metrics file: with .json replaced by .prom
+	 */
+	public static String getPrometheusTextFileName(String metricsFileName) {
+		String baseName = metricsFileName.endsWith(".json") ? metricsFileName.substring(0, metricsFileName.length() - ".json".length()) : metricsFileName;
+
+		return baseName + ".prom";
+	}
+
+	private void dumpStatistics() {
+		for (String tag : getSortedTags()) {
+			PerfStatistic perfStatistic = perfStatistics.get(tag);
+
+			if (perfStatistic.getNumberOfInvocations() == 0L) {
+				continue;
 			}
 
+			long averageTimeSpent = perfStatistic.getMicroSecondsSpent() / perfStatistic.getNumberOfInvocations();
+
 			String logMsg = "[" + tag + "]" +
-                             " execCount: " + perfStatistic.numberOfInvocations.get() +
-                             ", totalTimeTaken: " + perfStatistic.microSecondsSpent.get() + " μs" +
-                             ", maxTimeTaken: " + perfStatistic.maxTimeSpent.get() + " μs" +
-                             ", minTimeTaken: " + perfStatistic.minTimeSpent.get() + " μs" +
-                             ", avgTimeTaken: " + averageTimeSpent + " μs";
+                             " execCount: " + perfStatistic.getNumberOfInvocations() +
+                             ", totalTimeTaken: " + perfStatistic.getMicroSecondsSpent() + " μs" +
+                             ", maxTimeTaken: " + perfStatistic.getMaxTimeSpent() + " μs" +
+                             ", minTimeTaken: " + perfStatistic.getMinTimeSpent() + " μs" +
+                             ", avgTimeTaken: " + averageTimeSpent + " μs" +
+                             ", p50: " + perfStatistic.getP50TimeNanos() + " ns" +
+                             ", p99: " + perfStatistic.getP99TimeNanos() + " ns" +
+                             ", p999: " + perfStatistic.getP999TimeNanos() + " ns";
 
 			LOG.info(logMsg);
 			PERF.debug(logMsg);
 		}
 	}
 
+	// statistics are reset rather than removed, so that registered MXBeans remain valid
 	private void clear() {
-		perfStatistics.clear();
+		for (PerfStatistic perfStatistic : perfStatistics.values()) {
+			perfStatistic.histogram.reset();
+		}
 	}
 
-	private void record(String tag, long elapsedTime) {
+	private void record(String tag, long elapsedTimeNanos) {
 		PerfStatistic perfStatistic = perfStatistics.get(tag);
 
 		if (perfStatistic == null) {
-			synchronized (PerfDataRecorder.class) {
-				perfStatistic = perfStatistics.get(tag);
+			if (perfStatistics.size() >= MAX_TAG_COUNT) {
+				if (isTagLimitLogged.compareAndSet(false, true)) {
+					LOG.warn("PerfDataRecorder: number of tags reached the limit " + MAX_TAG_COUNT + "; statistics for new tags, like '" + tag + "', will not be recorded");
+				}
+
+				return;
+			}
+
+			PerfStatistic newStatistic = new PerfStatistic(tag);
+
+			perfStatistic = perfStatistics.putIfAbsent(tag, newStatistic);
 
-				if(perfStatistic == null) {
-					perfStatistic = new PerfStatistic();
-					perfStatistics.put(tag, perfStatistic);
+			if (perfStatistic == null) {
+				perfStatistic = newStatistic;
+
+				if (isJmxEnabled) {
+					registerMBean(newStatistic);
 				}
 			}
 		}
 
-		perfStatistic.addPerfDataItem(elapsedTime);
+		perfStatistic.histogram.record(elapsedTimeNanos);
+	}
+
+	private synchronized void enableJmx() {
+		if (!isJmxEnabled) {
+			isJmxEnabled = true;
+
+			for (PerfStatistic perfStatistic : perfStatistics.values()) {
+				registerMBean(perfStatistic);
+			}
+		}
+	}
+
+	private void registerMBean(PerfStatistic perfStatistic) {
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName  objectName  = new ObjectName(JMX_DOMAIN + ":type=" + JMX_TYPE + ",name=" + ObjectName.quote(perfStatistic.getTag()));
+
+			if (!mbeanServer.isRegistered(objectName)) {
+				mbeanServer.registerMBean(perfStatistic, objectName);
+			}
+		} catch (Exception excp) {
+			LOG.warn("PerfDataRecorder: failed to register MXBean for tag " + perfStatistic.getTag(), excp);
+		}
+	}
+
+	private List<String> getSortedTags() {
+		List<String> ret = new ArrayList<>(perfStatistics.keySet());
+
+		Collections.sort(ret);
+
+		return ret;
+	}
+
+	private static String toSeconds(long nanos) {
+		return Double.toString(nanos / 1e9);
+	}
+
+	private static String escapeLabelValue(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
 	}
 
 	private PerfDataRecorder(List<String> names) {
 		if (CollectionUtils.isNotEmpty(names)) {
 			for (String name : names) {
 				// Create structure
-				perfStatistics.put(name, new PerfStatistic());
+				perfStatistics.put(name, new PerfStatistic(name));
 			}
 		}
 	}
@@ -134,41 +286,79 @@ public static Map<String, PerfStatistic> exposeStatistics() {
 		return ImmutableMap.of();
 	}
 
-	public static class PerfStatistic {
-		private AtomicLong numberOfInvocations = new AtomicLong(0L);
-		private AtomicLong microSecondsSpent = new AtomicLong(0L);
-		private AtomicLong minTimeSpent = new AtomicLong(Long.MAX_VALUE);
-		private AtomicLong maxTimeSpent = new AtomicLong(Long.MIN_VALUE);
+	public interface PerfStatisticMXBean {
+		String getTag();
 
-		void addPerfDataItem(final long timeTaken) {
-			numberOfInvocations.getAndIncrement();
-			microSecondsSpent.getAndAdd(timeTaken);
+		long getNumberOfInvocations();
 
-			long min = minTimeSpent.get();
-			if(timeTaken < min) {
-				minTimeSpent.compareAndSet(min, timeTaken);
-			}
+		long getTotalTimeNanos();
 
-			long max = maxTimeSpent.get();
-			if(timeTaken > max) {
-				maxTimeSpent.compareAndSet(max, timeTaken);
-			}
+		long getMaxTimeNanos();
+
+		long getP50TimeNanos();
+
+		long getP99TimeNanos();
+
+		long getP999TimeNanos();
+	}
+
+	public static class PerfStatistic implements PerfStatisticMXBean {
+		private final String                 tag;
+		private final RangerLatencyHistogram histogram = new RangerLatencyHistogram();
+
+		PerfStatistic(String tag) {
+			this.tag = tag;
+		}
+
+		@Override
+		public String getTag() {
+			return tag;
 		}
 
+		@Override
 		public long getNumberOfInvocations() {
-			return numberOfInvocations.get();
+			return histogram.getCount();
 		}
 
 		public long getMicroSecondsSpent() {
-			return microSecondsSpent.get();
+			return histogram.getTotalNs() / 1000L;
 		}
 
 		public long getMinTimeSpent() {
-			return minTimeSpent.get();
+			return histogram.getCount() == 0L ? Long.MAX_VALUE : histogram.getMinNs() / 1000L;
 		}
 
 		public long getMaxTimeSpent() {
-			return maxTimeSpent.get();
+			return histogram.getCount() == 0L ? Long.MIN_VALUE : histogram.getMaxNs() / 1000L;
+		}
+
+		@Override
+		public long getTotalTimeNanos() {
+			return histogram.getTotalNs();
+		}
+
+		@Override
+		public long getMaxTimeNanos() {
+			return histogram.getCount() == 0L ? 0L : histogram.getMaxNs();
+		}
+
+		@Override
+		public long getP50TimeNanos() {
+			return histogram.getValueAtPercentile(50.0);
+		}
+
+		@Override
+		public long getP99TimeNanos() {
+			return histogram.getValueAtPercentile(99.0);
+		}
+
+		@Override
+		public long getP999TimeNanos() {
+			return histogram.getValueAtPercentile(99.9);
+		}
+
+		public RangerLatencyHistogram getHistogram() {
+			return histogram;
 		}
 	}
 }
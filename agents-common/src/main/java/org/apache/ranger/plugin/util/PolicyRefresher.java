@@ -55,8 +55,9 @@ public class PolicyRefresher extends Thread {
 	private final Gson                           gson;
 	private final boolean                        disableCacheIfServiceNotFound;
 	private final BlockingQueue<DownloadTrigger> policyDownloadQueue = new LinkedBlockingQueue<>();
+	private final ChangeWatcher                  changeWatcher;
 	private       Timer                          policyDownloadTimer;
-	private       long                           lastKnownVersion    = -1L;
+	private volatile long                        lastKnownVersion    = -1L;
 	private       long                           lastActivationTimeInMillis;
 	private       boolean                        policiesSetInPlugin;
 	private       boolean                        serviceDefSetInPlugin;
@@ -96,6 +97,21 @@ public PolicyRefresher(RangerBasePlugin plugIn) {
 		this.rolesProvider                 = new RangerRolesProvider(getServiceType(), appId, getServiceName(), rangerAdmin,  cacheDir, pluginConfig);
 		this.pollingIntervalMs             = pluginConfig.getLong(propertyPrefix + ".policy.pollIntervalMs", 30 * 1000);
 
+		if (pluginConfig.getBoolean(propertyPrefix + ".policy.change.notification.enabled", false)) {
+			long waitTimeoutMs   = pluginConfig.getLong(propertyPrefix + ".policy.change.notification.wait.timeoutMs", 60 * 1000);
+			long retryIntervalMs = pluginConfig.getLong(propertyPrefix + ".policy.change.notification.retry.intervalMs", 10 * 1000);
+
+			this.changeWatcher = new ChangeWatcher(serviceName, rangerAdmin, waitTimeoutMs, retryIntervalMs);
+
+			changeWatcher.register(ChangeWatcher.ChangeType.POLICY, () -> lastKnownVersion, policyDownloadQueue);
+			changeWatcher.register(ChangeWatcher.ChangeType.ROLE, rolesProvider::getLastKnownRoleVersion, policyDownloadQueue);
+		} else {
+			this.changeWatcher = null;
+		}
+
+		// context enrichers, created while loading policies, register their download queues with the watcher
+		plugIn.getPluginContext().setChangeWatcher(changeWatcher);
+
 		setName("PolicyRefresher(serviceName=" + serviceName + ")-" + getId());
 
 		if(LOG.isDebugEnabled()) {
@@ -131,6 +147,13 @@ public RangerAdminClient getRangerAdminClient() {
 		return rangerAdmin;
 	}
 
+	/**
+	 * @return the changeWatcher; null if change notification is not enabled
+	 */
+	public ChangeWatcher getChangeWatcher() {
+		return changeWatcher;
+	}
+
 	public long getLastActivationTimeInMillis() {
 		return lastActivationTimeInMillis;
 	}
@@ -145,10 +168,14 @@ public void startRefresher() {
 
 		super.start();
 
+		if (changeWatcher != null) {
+			changeWatcher.start();
+		}
+
 		policyDownloadTimer = new Timer("policyDownloadTimer", true);
 
 		try {
-			policyDownloadTimer.schedule(new DownloaderTask(policyDownloadQueue), pollingIntervalMs, pollingIntervalMs);
+			policyDownloadTimer.schedule(new DownloaderTask(policyDownloadQueue, changeWatcher), pollingIntervalMs, pollingIntervalMs);
 
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Scheduled policyDownloadRefresher to download policies every " + pollingIntervalMs + " milliseconds");
@@ -172,6 +199,10 @@ public void stopRefresher() {
 			policyDownloadTimer.cancel();
 		}
 
+		if (changeWatcher != null) {
+			changeWatcher.stopWatcher();
+		}
+
 		if (super.isAlive()) {
 			super.interrupt();
 
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+/**
+ * Binary prefix trie of IPv4 and IPv6 CIDR ranges (like 10.1.0.0/16 or 2001:db8::/32). Checking whether
+ * an address falls in any of the ranges takes one walk over the bits of the address, independent of the
+ * number of ranges.
+ */
+public class RangerCidrTrie {
+	private static final int IPV4_BITS = 32;
+	private static final int IPV6_BITS = 128;
+
+	private final Trie ipv4Ranges = new Trie();
+	private final Trie ipv6Ranges = new Trie();
+
+	/**
+	 * @param cidr range in CIDR notation; an address without prefix length is added as a single-address range
+	 * @return false if cidr is not a valid IPv4 or IPv6 range
+	 */
+	public boolean add(String cidr) {
+		if (cidr == null) {
+			return false;
+		}
+
+		int    slashPos  = cidr.indexOf('/');
+		String address   = slashPos == -1 ? cidr : cidr.substring(0, slashPos);
+		byte[] addrBytes = toAddressBytes(address);
+
+		if (addrBytes == null) {
+			return false;
+		}
+
+		int maxBits   = addrBytes.length * 8;
+		int prefixLen = maxBits;
+
+		if (slashPos != -1) {
+			try {
+				prefixLen = Integer.parseInt(cidr.substring(slashPos + 1).trim());
+			} catch (NumberFormatException excp) {
+				return false;
+			}
+
+			if (addrBytes.length == 4 && address.indexOf(':') != -1) { // IPv4-mapped IPv6 address, like ::ffff:10.0.0.0/104
+				prefixLen -= (IPV6_BITS - IPV4_BITS);
+			}
+		}
+
+		if (prefixLen < 0 || prefixLen > maxBits) {
+			return false;
+		}
+
+		(addrBytes.length == 4 ? ipv4Ranges : ipv6Ranges).add(addrBytes, prefixLen);
+
+		return true;
+	}
+
+	public boolean contains(String ip) {
+		byte[] addrBytes = toAddressBytes(ip);
+
+		if (addrBytes == null) {
+			return false;
+		}
+
+		return (addrBytes.length == 4 ? ipv4Ranges : ipv6Ranges).matches(addrBytes);
+	}
+
+	public boolean isEmpty() {
+		return ipv4Ranges.isEmpty() && ipv6Ranges.isEmpty();
+	}
+
+	/**
+	 * Parses an IPv4 or IPv6 address literal, without any name lookup.
+	 * @return 4 bytes for IPv4 (and IPv4-mapped IPv6) addresses, 16 bytes for IPv6 addresses; null if ip is not an address literal
+	 */
+	public static byte[] toAddressBytes(String ip) {
+		if (ip == null) {
+			return null;
+		}
+
+		String addr = ip.trim();
+
+		if (addr.startsWith("[") && addr.endsWith("]")) {
+			addr = addr.substring(1, addr.length() - 1);
+		}
+
+		int zonePos = addr.indexOf('%');
+
+		if (zonePos != -1) {
+			addr = addr.substring(0, zonePos);
+		}
+
+		if (addr.isEmpty()) {
+			return null;
+		}
+
+		if (addr.indexOf(':') == -1) {
+			return toIpv4AddressBytes(addr);
+		}
+
+		for (int i = 0; i < addr.length(); i++) {
+			char c = addr.charAt(i);
+
+			if (!(Character.digit(c, 16) != -1 || c == ':' || c == '.')) {
+				return null;
+			}
+		}
+
+		try {
+			return InetAddress.getByName(addr).getAddress(); // no lookup for literals, which is all that reaches here
+		} catch (UnknownHostException excp) {
+			return null;
+		}
+	}
+
+	private static byte[] toIpv4AddressBytes(String addr) {
+		byte[] ret      = new byte[4];
+		int    octetIdx = 0;
+		int    value    = -1;
+
+		for (int i = 0; i <= addr.length(); i++) {
+			char c = i < addr.length() ? addr.charAt(i) : '.';
+
+			if (c == '.') {
+				if (value == -1 || octetIdx == 4) {
+					return null;
+				}
+
+				ret[octetIdx++] = (byte) value;
+				value           = -1;
+			} else if (c >= '0' && c <= '9') {
+				value = (value == -1 ? 0 : value * 10) + (c - '0');
+
+				if (value > 255) {
+					return null;
+				}
+			} else {
+				return null;
+			}
+		}
+
+		return octetIdx == 4 ? ret : null;
+	}
+
+	/*
+	 * Nodes are stored in arrays: children[2 * node] and children[2 * node + 1] are the indexes of the
+	 * child nodes for bit 0 and bit 1 (0 when absent; node 0 is the root, which is never a child).
+	 */
+	private static final class Trie {
+		private int[]     children   = new int[2 * 64];
+		private boolean[] isRangeEnd = new boolean[64];
+		private int       nodeCount  = 1;
+
+		void add(byte[] addrBytes, int prefixLen) {
+			int node = 0;
+
+			for (int i = 0; i < prefixLen; i++) {
+				if (isRangeEnd[node]) { // a wider range already covers this one
+					return;
+				}
+
+				int childIdx = 2 * node + getBit(addrBytes, i);
+
+				if (children[childIdx] == 0) {
+					int child = newNode(); // might reallocate children; assign only after that
+
+					children[childIdx] = child;
+				}
+
+				node = children[childIdx];
+			}
+
+			isRangeEnd[node] = true;
+		}
+
+		boolean matches(byte[] addrBytes) {
+			int maxBits = addrBytes.length * 8;
+			int node    = 0;
+
+			for (int i = 0; i < maxBits; i++) {
+				if (isRangeEnd[node]) {
+					return true;
+				}
+
+				node = children[2 * node + getBit(addrBytes, i)];
+
+				if (node == 0) {
+					return false;
+				}
+			}
+
+			return isRangeEnd[node];
+		}
+
+		boolean isEmpty() {
+			return nodeCount == 1 && !isRangeEnd[0];
+		}
+
+		private int newNode() {
+			if (nodeCount == isRangeEnd.length) {
+				int newSize = isRangeEnd.length * 2;
+
+				children   = Arrays.copyOf(children, 2 * newSize);
+				isRangeEnd = Arrays.copyOf(isRangeEnd, newSize);
+			}
+
+			return nodeCount++;
+		}
+
+		private static int getBit(byte[] addrBytes, int bitIdx) {
+			return (addrBytes[bitIdx >> 3] >> (7 - (bitIdx & 7))) & 1;
+		}
+	}
+}
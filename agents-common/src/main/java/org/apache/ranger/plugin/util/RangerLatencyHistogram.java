@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with buckets laid out as in HdrHistogram: each power of two is
+ * split into 16 linear sub-buckets, so a recorded value is off by at most 1/16th (6.25%) of its magnitude, from
+ * 1 ns up to about 68 seconds; larger values are counted in the last bucket. Bucket counters are LongAdders, which
+ * stripe updates across cells when threads contend, so recording doesn't serialize concurrent callers.
+ */
+public class RangerLatencyHistogram {
+	private static final int  SUB_BUCKET_BITS  = 4;
+	private static final int  SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int  MAX_EXPONENT     = 36; // 2^36 ns ~ 68 seconds
+	private static final int  BUCKET_COUNT     = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+	private static final long MAX_TRACKED_NS   = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	private final LongAdder[]     buckets = new LongAdder[BUCKET_COUNT];
+	private final LongAdder       count   = new LongAdder();
+	private final LongAdder       totalNs = new LongAdder();
+	private final LongAccumulator minNs   = new LongAccumulator(Math::min, Long.MAX_VALUE);
+	private final LongAccumulator maxNs   = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+	public RangerLatencyHistogram() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	public void record(long elapsedNs) {
+		long value = elapsedNs < 0 ? 0 : elapsedNs;
+
+		buckets[getBucketIndex(value)].increment();
+		count.increment();
+		totalNs.add(value);
+		minNs.accumulate(value);
+		maxNs.accumulate(value);
+	}
+
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+
+		count.reset();
+		totalNs.reset();
+		minNs.reset();
+		maxNs.reset();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotalNs() {
+		return totalNs.sum();
+	}
+
+	public long getMinNs() {
+		return minNs.get();
+	}
+
+	public long getMaxNs() {
+		return maxNs.get();
+	}
+
+	/**
+	 * @param percentile between 0 and 100, like 99.9
+	 * @return the highest value equivalent (within bucket precision) to the value at the given percentile; 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		return getSnapshot().getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * @return a copy of the bucket counts, to compute several percentiles over the same data
+	 */
+	public Snapshot getSnapshot() {
+		long[] counts = new long[BUCKET_COUNT];
+		long   total  = 0;
+
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets[i].sum();
+			total    += counts[i];
+		}
+
+		return new Snapshot(counts, total, maxNs.get());
+	}
+
+	static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		long tracked  = Math.min(value, MAX_TRACKED_NS);
+		int  exponent = 63 - Long.numberOfLeadingZeros(tracked);
+		int  shift    = exponent - SUB_BUCKET_BITS;
+
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((tracked >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+
+	static long getBucketHighestValue(int bucketIndex) {
+		if (bucketIndex < SUB_BUCKET_COUNT * 2) {
+			return bucketIndex;
+		}
+
+		int  shift       = bucketIndex / SUB_BUCKET_COUNT - 1;
+		long subBucket   = bucketIndex % SUB_BUCKET_COUNT;
+		long lowestValue = (SUB_BUCKET_COUNT + subBucket) << shift;
+
+		return lowestValue + (1L << shift) - 1;
+	}
+
+	public static class Snapshot {
+		private final long[] counts;
+		private final long   total;
+		private final long   max;
+
+		Snapshot(long[] counts, long total, long max) {
+			this.counts = counts;
+			this.total  = total;
+			this.max    = max;
+		}
+
+		public long getCount() {
+			return total;
+		}
+
+		public long getValueAtPercentile(double percentile) {
+			if (total == 0) {
+				return 0;
+			}
+
+			long target     = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+			long cumulative = 0;
+
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+
+				if (cumulative >= target) {
+					return Math.min(getBucketHighestValue(i), max);
+				}
+			}
+
+			return max;
+		}
+	}
+}
@@ -22,16 +22,16 @@
 import org.apache.commons.logging.Log;
 
 public class RangerPerfCollectorTracer extends RangerPerfTracer {
-	private final long   startTimeNanos;
-
 	public RangerPerfCollectorTracer(Log logger, String tag, String data) {
 		super(logger, tag, data);
-		startTimeNanos = System.nanoTime();
 	}
 
 	@Override
 	public void log() {
-		// Collect elapsed time in microseconds
-		PerfDataRecorder.recordStatistic(tag, ((System.nanoTime() - startTimeNanos) + 500) / 1000);
+		PerfDataRecorder.recordStatisticNanos(tag, getElapsedTimeNanos());
+
+		if (logger.isDebugEnabled()) {
+			super.log();
+		}
 	}
 }
@@ -28,6 +28,7 @@ public class RangerPerfTracer {
 	protected final String tag;
 	protected final String data;
 	private final long   startTimeMs;
+	private final long   startTimeNanos;
 
 	private static long reportingThresholdMs;
 
@@ -45,6 +46,19 @@ public static boolean isPerfTraceEnabled(Log logger) {
 		return logger.isDebugEnabled();
 	}
 
+	/*
+		true when PerfDataRecorder collects statistics. Request-path callers use this, when isPerfTraceEnabled()
+		is false, to record into the histogram of a constant tag via getPerfStatsTracer(), without building
+		the per-call data string of the debug log.
+	*/
+	public static boolean isPerfStatsEnabled() {
+		return PerfDataRecorder.collectStatistics();
+	}
+
+	public static RangerPerfTracer getPerfStatsTracer(Log logger, String tag) {
+		return PerfDataRecorder.collectStatistics() ? new RangerPerfCollectorTracer(logger, tag, "") : null;
+	}
+
 	public static RangerPerfTracer getPerfTracer(Log logger, String tag) {
 		String data = "";
 		String realTag = "";
@@ -81,6 +95,7 @@ public RangerPerfTracer(Log logger, String tag, String data) {
 		this.tag    = tag;
 		this.data	= data;
 		startTimeMs = System.currentTimeMillis();
+		startTimeNanos = System.nanoTime();
 	}
 
 	public final String getTag() {
@@ -92,7 +107,11 @@ public final long getStartTime() {
 	}
 
 	public final long getElapsedTime() {
-		return System.currentTimeMillis() - startTimeMs;
+		return getElapsedTimeNanos() / 1000000L;
+	}
+
+	public final long getElapsedTimeNanos() {
+		return System.nanoTime() - startTimeNanos;
 	}
 
 	public void log() {
@@ -447,6 +447,13 @@ private void close(InputStream str, String filename) {
 	}
 
 	public ClientResponse get(String relativeUrl, Map<String, String> params) throws Exception {
+		return get(relativeUrl, params, null);
+	}
+
+	/*
+	 * readTimeOutMs, when not null, overrides the read timeout of the client for this request; used for long-polling
+	 */
+	public ClientResponse get(String relativeUrl, Map<String, String> params, Integer readTimeOutMs) throws Exception {
 		ClientResponse finalResponse = null;
 		int startIndex = this.lastKnownActiveUrlIndex;
 		int currentIndex = 0;
@@ -458,6 +465,10 @@ public ClientResponse get(String relativeUrl, Map<String, String> params) throws
 				WebResource webResource = getClient().resource(configuredURLs.get(currentIndex) + relativeUrl);
 				webResource = setQueryParams(webResource, params);
 
+				if (readTimeOutMs != null) {
+					webResource.setProperty(ClientConfig.PROPERTY_READ_TIMEOUT, readTimeOutMs);
+				}
+
 				finalResponse = webResource.accept(RangerRESTUtils.REST_EXPECTED_MIME_TYPE).type(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
 
 				if (finalResponse != null) {
@@ -75,11 +75,17 @@ public class RangerRESTUtils {
 	public static final String REST_PARAM_LAST_KNOWN_USERSTORE_VERSION = "lastKnownUserStoreVersion";
 	public static final String REST_URL_SERVICE_SERCURE_GET_USERSTORE = "/service/xusers/secure/download/";
 
+	public static final String REST_URL_WAIT_FOR_CHANGES        = "/service/plugins/changes/wait/";
+	public static final String REST_URL_SECURE_WAIT_FOR_CHANGES = "/service/plugins/secure/changes/wait/";
+	public static final String REST_PARAM_LAST_KNOWN_TAG_VERSION = "lastKnownTagVersion";
+	public static final String REST_PARAM_WAIT_TIMEOUT_MS        = "waitTimeoutMs";
+
 	private static final int MAX_PLUGIN_ID_LEN = 255;
 	
 	public static final String REST_PARAM_CLUSTER_NAME   = "clusterName";
 	public static final String REST_PARAM_SUPPORTS_POLICY_DELTAS   = "supportsPolicyDeltas";
 	public static final String REST_PARAM_SUPPORTS_TAG_DELTAS      = "supportsTagDeltas";
+	public static final String REST_PARAM_SUPPORTS_USERSTORE_DELTAS = "supportsUserStoreDeltas";
 
 	public static final String REST_PARAM_ZONE_NAME		 = "zoneName";
 	public static final String REST_PARAM_EXEC_USER      = "execUser";
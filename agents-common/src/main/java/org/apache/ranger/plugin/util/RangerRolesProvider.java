@@ -53,7 +53,7 @@ public class RangerRolesProvider {
 	private final boolean           disableCacheIfServiceNotFound;
 
 	private long	lastActivationTimeInMillis;
-	private long    lastKnownRoleVersion = -1L;
+	private volatile long lastKnownRoleVersion = -1L;
 	private boolean rangerUserGroupRolesSetInPlugin;
 	private boolean serviceDefSetInPlugin;
 
@@ -95,6 +95,10 @@ public RangerRolesProvider(String serviceType, String appId, String serviceName,
 		}
 	}
 
+	public long getLastKnownRoleVersion() {
+		return lastKnownRoleVersion;
+	}
+
 	public long getLastActivationTimeInMillis() {
 		return lastActivationTimeInMillis;
 	}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.codehaus.jackson.annotate.JsonAutoDetect;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+
+/*
+ * Versions of the policies, tags, roles and userstore of a service, as exchanged by the change-notification endpoint.
+ * A null version is not watched by the plugin, or not known to Ranger Admin.
+ */
+@JsonAutoDetect(fieldVisibility= JsonAutoDetect.Visibility.ANY)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RangerServiceVersions implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String serviceName;
+    private Long   policyVersion;
+    private Long   tagVersion;
+    private Long   roleVersion;
+    private Long   userStoreVersion;
+
+    public RangerServiceVersions() {
+        this(null, null, null, null, null);
+    }
+
+    public RangerServiceVersions(String serviceName, Long policyVersion, Long tagVersion, Long roleVersion, Long userStoreVersion) {
+        this.serviceName      = serviceName;
+        this.policyVersion    = policyVersion;
+        this.tagVersion       = tagVersion;
+        this.roleVersion      = roleVersion;
+        this.userStoreVersion = userStoreVersion;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public Long getPolicyVersion() {
+        return policyVersion;
+    }
+
+    public void setPolicyVersion(Long policyVersion) {
+        this.policyVersion = policyVersion;
+    }
+
+    public Long getTagVersion() {
+        return tagVersion;
+    }
+
+    public void setTagVersion(Long tagVersion) {
+        this.tagVersion = tagVersion;
+    }
+
+    public Long getRoleVersion() {
+        return roleVersion;
+    }
+
+    public void setRoleVersion(Long roleVersion) {
+        this.roleVersion = roleVersion;
+    }
+
+    public Long getUserStoreVersion() {
+        return userStoreVersion;
+    }
+
+    public void setUserStoreVersion(Long userStoreVersion) {
+        this.userStoreVersion = userStoreVersion;
+    }
+
+    /*
+     * @return true if any version watched in lastKnown is older than the corresponding version in this object
+     */
+    public boolean isNewerThan(RangerServiceVersions lastKnown) {
+        return isNewer(policyVersion, lastKnown.policyVersion) || isNewer(tagVersion, lastKnown.tagVersion) ||
+               isNewer(roleVersion, lastKnown.roleVersion) || isNewer(userStoreVersion, lastKnown.userStoreVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerServiceVersions={serviceName=" + serviceName + ", policyVersion=" + policyVersion + ", tagVersion=" + tagVersion +
+               ", roleVersion=" + roleVersion + ", userStoreVersion=" + userStoreVersion + "}";
+    }
+
+    private static boolean isNewer(Long version, Long lastKnownVersion) {
+        return version != null && lastKnownVersion != null && version > lastKnownVersion;
+    }
+}
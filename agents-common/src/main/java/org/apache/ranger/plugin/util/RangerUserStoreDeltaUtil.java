@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+A user-store delta is a RangerUserStore with isDelta=true, whose maps hold only the users and groups that changed:
+ - userAttrMapping:  user  => all attributes of the user after the change; empty if the user was deleted or has no attributes
+ - groupAttrMapping: group => all attributes of the group after the change; empty if the group was deleted or has no attributes
+ - userGroupMapping: user  => all groups of the user after the change; empty if the user was deleted or is in no group
+Since each entry carries the final state, a delta can be applied more than once, and consecutive deltas merge by overwriting.
+ */
+public class RangerUserStoreDeltaUtil {
+
+    private static final Log LOG = LogFactory.getLog(RangerUserStoreDeltaUtil.class);
+
+    private static final Log PERF_USERSTORE_DELTA_LOG = RangerPerfTracer.getPerfLogger("userstore.delta");
+
+    private RangerUserStoreDeltaUtil() {
+    }
+
+    static public RangerUserStore computeDelta(RangerUserStore oldStore, RangerUserStore newStore) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerUserStoreDeltaUtil.computeDelta(oldVersion=" + (oldStore != null ? oldStore.getUserStoreVersion() : null) + ", newVersion=" + (newStore != null ? newStore.getUserStoreVersion() : null) + ")");
+        }
+
+        RangerUserStore ret = null;
+
+        if (oldStore != null && !oldStore.getIsDelta() && newStore != null && !newStore.getIsDelta()) {
+            ret = new RangerUserStore();
+
+            ret.setIsDelta(Boolean.TRUE);
+            ret.setUserStoreVersion(newStore.getUserStoreVersion());
+            ret.setUserStoreUpdateTime(newStore.getUserStoreUpdateTime());
+            ret.setUserAttrMapping(getChanges(oldStore.getUserAttrMapping(), newStore.getUserAttrMapping(), Collections.<String, String>emptyMap()));
+            ret.setGroupAttrMapping(getChanges(oldStore.getGroupAttrMapping(), newStore.getGroupAttrMapping(), Collections.<String, String>emptyMap()));
+            ret.setUserGroupMapping(getChanges(oldStore.getUserGroupMapping(), newStore.getUserGroupMapping(), Collections.<String>emptySet()));
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerUserStoreDeltaUtil.computeDelta(): changeCount=" + getChangeCount(ret));
+        }
+
+        return ret;
+    }
+
+    /*
+    Returns a delta equivalent to applying olderDelta and then newerDelta
+     */
+    static public RangerUserStore mergeDeltas(RangerUserStore olderDelta, RangerUserStore newerDelta) {
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setIsDelta(Boolean.TRUE);
+        ret.setUserStoreVersion(newerDelta.getUserStoreVersion());
+        ret.setUserStoreUpdateTime(newerDelta.getUserStoreUpdateTime());
+        ret.setUserAttrMapping(merge(olderDelta.getUserAttrMapping(), newerDelta.getUserAttrMapping()));
+        ret.setGroupAttrMapping(merge(olderDelta.getGroupAttrMapping(), newerDelta.getGroupAttrMapping()));
+        ret.setUserGroupMapping(merge(olderDelta.getUserGroupMapping(), newerDelta.getUserGroupMapping()));
+
+        return ret;
+    }
+
+    /*
+    Returns a new RangerUserStore with the delta applied, leaving userStore unchanged. Attribute maps and group sets of
+    users and groups not in the delta are shared with userStore. Returns null if userStore is null or is itself a delta.
+     */
+    static public RangerUserStore applyDelta(RangerUserStore userStore, RangerUserStore delta) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerUserStoreDeltaUtil.applyDelta(version=" + (userStore != null ? userStore.getUserStoreVersion() : null) + ", deltaVersion=" + (delta != null ? delta.getUserStoreVersion() : null) + ")");
+        }
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_USERSTORE_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_USERSTORE_DELTA_LOG, "RangerUserStoreDeltaUtil.applyDelta()");
+        }
+
+        RangerUserStore ret = null;
+
+        if (userStore != null && !userStore.getIsDelta() && delta != null && delta.getIsDelta()) {
+            ret = new RangerUserStore();
+
+            ret.setUserStoreVersion(delta.getUserStoreVersion());
+            ret.setUserStoreUpdateTime(delta.getUserStoreUpdateTime());
+            ret.setUserAttrMapping(apply(userStore.getUserAttrMapping(), delta.getUserAttrMapping()));
+            ret.setGroupAttrMapping(apply(userStore.getGroupAttrMapping(), delta.getGroupAttrMapping()));
+            ret.setUserGroupMapping(apply(userStore.getUserGroupMapping(), delta.getUserGroupMapping()));
+            ret.setUserCloudIdMapping(applyCloudIds(userStore.getUserCloudIdMapping(), userStore.getUserAttrMapping(), delta.getUserAttrMapping()));
+            ret.setGroupCloudIdMapping(applyCloudIds(userStore.getGroupCloudIdMapping(), userStore.getGroupAttrMapping(), delta.getGroupAttrMapping()));
+        } else {
+            LOG.warn("RangerUserStoreDeltaUtil.applyDelta(): cannot apply delta - userStore=" + (userStore != null ? userStore.getUserStoreVersion() : null) + ", delta=" + (delta != null ? delta.getUserStoreVersion() : null));
+        }
+
+        RangerPerfTracer.log(perf);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerUserStoreDeltaUtil.applyDelta(): changeCount=" + getChangeCount(delta));
+        }
+
+        return ret;
+    }
+
+    static public int getChangeCount(RangerUserStore delta) {
+        int ret = 0;
+
+        if (delta != null) {
+            ret += MapUtils.isEmpty(delta.getUserAttrMapping()) ? 0 : delta.getUserAttrMapping().size();
+            ret += MapUtils.isEmpty(delta.getGroupAttrMapping()) ? 0 : delta.getGroupAttrMapping().size();
+            ret += MapUtils.isEmpty(delta.getUserGroupMapping()) ? 0 : delta.getUserGroupMapping().size();
+        }
+
+        return ret;
+    }
+
+    private static <V> Map<String, V> getChanges(Map<String, V> oldMap, Map<String, V> newMap, V removedValue) {
+        Map<String, V> ret = new HashMap<>();
+
+        if (newMap != null) {
+            for (Map.Entry<String, V> entry : newMap.entrySet()) {
+                V oldValue = oldMap != null ? oldMap.get(entry.getKey()) : null;
+
+                if (!Objects.equals(oldValue, entry.getValue())) {
+                    ret.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        if (oldMap != null) {
+            for (String key : oldMap.keySet()) {
+                if (newMap == null || !newMap.containsKey(key)) {
+                    ret.put(key, removedValue);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static <V> Map<String, V> merge(Map<String, V> older, Map<String, V> newer) {
+        Map<String, V> ret = older != null ? new HashMap<>(older) : new HashMap<>();
+
+        if (newer != null) {
+            ret.putAll(newer);
+        }
+
+        return ret;
+    }
+
+    private static <V> Map<String, V> apply(Map<String, V> current, Map<String, V> changes) {
+        Map<String, V> ret = current != null ? new HashMap<>(current) : new HashMap<>();
+
+        if (changes != null) {
+            for (Map.Entry<String, V> entry : changes.entrySet()) {
+                if (isEmpty(entry.getValue())) {
+                    ret.remove(entry.getKey());
+                } else {
+                    ret.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static Map<String, String> applyCloudIds(Map<String, String> cloudIdMapping, Map<String, Map<String, String>> currentAttrs, Map<String, Map<String, String>> changedAttrs) {
+        Map<String, String> ret = cloudIdMapping != null ? new HashMap<>(cloudIdMapping) : new HashMap<>();
+
+        if (changedAttrs != null) {
+            for (Map.Entry<String, Map<String, String>> entry : changedAttrs.entrySet()) {
+                String              name     = entry.getKey();
+                Map<String, String> oldAttrs = currentAttrs != null ? currentAttrs.get(name) : null;
+                String              oldId    = oldAttrs != null ? oldAttrs.get(RangerUserStore.CLOUD_IDENTITY_NAME) : null;
+                String              newId    = entry.getValue() != null ? entry.getValue().get(RangerUserStore.CLOUD_IDENTITY_NAME) : null;
+
+                if (StringUtils.isNotEmpty(oldId) && name.equals(ret.get(oldId))) {
+                    ret.remove(oldId);
+                }
+
+                if (StringUtils.isNotEmpty(newId)) {
+                    ret.put(newId, name);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value == null || (value instanceof Map && ((Map<?, ?>) value).isEmpty()) || (value instanceof Set && ((Set<?>) value).isEmpty());
+    }
+}
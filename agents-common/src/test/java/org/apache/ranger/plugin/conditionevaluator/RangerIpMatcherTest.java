@@ -221,6 +221,30 @@ public void test_integration() {
 		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.20.33.10")));
 	}
 	
+	@Test
+	public void test_cidr() {
+		RangerIpMatcher ipMatcher = createMatcher(new String[]{"10.20.0.0/16", "192.168.1.128/25", "2001:DB8::/32", "172.16.5.5/32", "1.2.3.*", "not-an-ip/8"});
+
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.20.0.1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.20.255.255")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.21.0.1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.200")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("192.168.1.127")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("172.16.5.5")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("172.16.5.6")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8:1::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:0DB8:ffff:ffff::")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db9::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.20")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("host.example.com")));
+		// wildcards continue to work alongside cidr ranges
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("1.2.3.4")));
+
+		ipMatcher = createMatcher(new String[]{"0.0.0.0/0"});
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("8.8.8.8")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("::1")));
+	}
+
 	RangerIpMatcher createMatcher(String[] ipArray) {
 		RangerIpMatcher matcher = new RangerIpMatcher();
 
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class RangerScriptConditionEvaluatorTest {
+	private static final String ENGINE_NAME = "JavaScript";
+
+	private ScriptEngine scriptEngine;
+
+	@Before
+	public void setUp() {
+		scriptEngine = new ScriptEngineManager().getEngineByName(ENGINE_NAME);
+
+		Assume.assumeNotNull(scriptEngine);
+	}
+
+	@Test
+	public void testCompiledScriptMatchesUncachedEvaluation() throws Exception {
+		String[] scripts = new String[] {
+				"ctx.getUser() == 'alice'",
+				"ctx.getUserGroups().contains('finance')",
+				"ctx.result = ctx.getUser() != 'bob';",
+				"tagAttr.isEmpty() && tag == null"
+		};
+
+		for (String script : scripts) {
+			RangerScriptConditionEvaluator evaluator = createEvaluator(script);
+
+			for (String user : Arrays.asList("alice", "bob", "carol")) {
+				RangerAccessRequest request = createRequest(user, "finance");
+
+				Assert.assertEquals("script=" + script + ", user=" + user, evalUncached(script, request), evaluator.isMatched(request));
+				Assert.assertEquals("script=" + script + ", user=" + user, evalUncached(script, request), evaluator.isMatched(request));
+			}
+		}
+	}
+
+	@Test
+	public void testScriptFailingToCompile() {
+		String                         script    = "ctx.getUser( == 'alice'";
+		RangerScriptConditionEvaluator evaluator = createEvaluator(script);
+		RangerCompiledScriptCache      cache     = RangerCompiledScriptCache.getInstance(ENGINE_NAME, scriptEngine);
+
+		Assert.assertNotNull(cache);
+		Assert.assertNull(cache.getCompiledScript(script));
+		Assert.assertNull(cache.getCompiledScript(script));
+
+		// a condition that can't be evaluated doesn't deny access, as when the evaluation fails
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice")));
+		Assert.assertTrue(evaluator.isMatched(createRequest("bob")));
+	}
+
+	@Test
+	public void testScriptsOnSameThreadDoNotShareGlobals() {
+		RangerScriptConditionEvaluator setsGlobal  = createEvaluator("var firstUser = ctx.getUser(); true");
+		RangerScriptConditionEvaluator readsGlobal = createEvaluator("typeof firstUser == 'undefined'");
+		RangerScriptConditionEvaluator keepsGlobal = createEvaluator("if (typeof lastUser == 'undefined') { lastUser = ctx.getUser(); } lastUser == ctx.getUser()");
+
+		Assert.assertTrue(setsGlobal.isMatched(createRequest("alice")));
+		Assert.assertTrue(readsGlobal.isMatched(createRequest("bob")));
+
+		// globals set while evaluating one request must not be visible to the next request
+		Assert.assertTrue(keepsGlobal.isMatched(createRequest("alice")));
+		Assert.assertTrue(keepsGlobal.isMatched(createRequest("bob")));
+	}
+
+	private boolean evalUncached(String script, RangerAccessRequest request) throws Exception {
+		RangerAccessRequest          readOnlyRequest = request.getReadOnlyCopy();
+		RangerScriptExecutionContext context         = new RangerScriptExecutionContext(readOnlyRequest);
+		Bindings                     bindings        = scriptEngine.createBindings();
+
+		bindings.put("ctx", context);
+		bindings.put("tag", context.getCurrentTag());
+		bindings.put("tagAttr", Collections.emptyMap());
+
+		Object ret = scriptEngine.eval(script, bindings);
+
+		if (ret == null) {
+			ret = context.getResult();
+		}
+
+		return !(ret instanceof Boolean) || (Boolean) ret;
+	}
+
+	private RangerScriptConditionEvaluator createEvaluator(String script) {
+		RangerScriptConditionEvaluator evaluator    = new RangerScriptConditionEvaluator();
+		RangerPolicyConditionDef       conditionDef = new RangerPolicyConditionDef();
+
+		conditionDef.setName("expression");
+		conditionDef.setEvaluatorOptions(Collections.singletonMap("engineName", ENGINE_NAME));
+
+		evaluator.setServiceDef(new RangerServiceDef());
+		evaluator.setConditionDef(conditionDef);
+		evaluator.setPolicyItemCondition(new RangerPolicyItemCondition("expression", Collections.singletonList(script)));
+		evaluator.init();
+
+		return evaluator;
+	}
+
+	private RangerAccessRequest createRequest(String user, String... groups) {
+		return new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "read", user, new HashSet<>(Arrays.asList(groups)), Collections.<String>emptySet());
+	}
+}
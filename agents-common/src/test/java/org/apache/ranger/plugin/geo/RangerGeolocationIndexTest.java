@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RangerGeolocationIndexTest {
+
+	@Test
+	public void testIpv4Boundaries() {
+		RangerGeolocationIndex index = build(true,
+				"0.0.0.0", "0.255.255.255", "ZERO",
+				"10.0.0.0", "10.0.0.255", "US",
+				"10.0.1.0", "10.0.1.255", "CA",
+				"192.168.1.7", "192.168.1.7", "HOST",
+				"255.255.255.0", "255.255.255.255", "TOP");
+
+		Assert.assertEquals(5, index.getIpv4RangeCount());
+		Assert.assertEquals(0, index.getIpv6RangeCount());
+
+		assertLocation(index, "0.0.0.0", "ZERO");
+		assertLocation(index, "0.255.255.255", "ZERO");
+		assertLocation(index, "1.0.0.0", null);
+		assertLocation(index, "9.255.255.255", null);
+		assertLocation(index, "10.0.0.0", "US");
+		assertLocation(index, "10.0.0.255", "US");
+		assertLocation(index, "10.0.1.0", "CA");
+		assertLocation(index, "10.0.1.255", "CA");
+		assertLocation(index, "10.0.2.0", null);
+		assertLocation(index, "192.168.1.6", null);
+		assertLocation(index, "192.168.1.7", "HOST");
+		assertLocation(index, "192.168.1.8", null);
+		assertLocation(index, "255.255.254.255", null);
+		assertLocation(index, "255.255.255.0", "TOP");
+		assertLocation(index, "255.255.255.255", "TOP");
+
+		RangerGeolocationData data = index.find("10.0.1.128");
+
+		Assert.assertEquals("10.0.1.0", data.getFromAddress());
+		Assert.assertEquals("10.0.1.255", data.getToAddress());
+	}
+
+	@Test
+	public void testIpv6Boundaries() {
+		RangerGeolocationIndex index = build(true,
+				"::", "::ff", "ZERO",
+				"2001:db8::ffff:ffff:ffff:ffff", "2001:db8:0:1::", "SPLIT",
+				"2001:db8:0:2:8000::", "2001:db8:0:2:ffff:ffff:ffff:ffff", "SIGNED",
+				"ffff:ffff:ffff:ffff:ffff:ffff:ffff:ff00", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", "TOP");
+
+		Assert.assertEquals(0, index.getIpv4RangeCount());
+		Assert.assertEquals(4, index.getIpv6RangeCount());
+
+		assertLocation(index, "::", "ZERO");
+		assertLocation(index, "::ff", "ZERO");
+		assertLocation(index, "::100", null);
+
+		// range that crosses the boundary between the high and the low 64 bits
+		assertLocation(index, "2001:db8::ffff:ffff:ffff:fffe", null);
+		assertLocation(index, "2001:db8::ffff:ffff:ffff:ffff", "SPLIT");
+		assertLocation(index, "2001:db8:0:1::", "SPLIT");
+		assertLocation(index, "2001:db8:0:1::1", null);
+
+		// low 64 bits with the sign bit set must compare as unsigned
+		assertLocation(index, "2001:db8:0:2:7fff:ffff:ffff:ffff", null);
+		assertLocation(index, "2001:db8:0:2:8000::", "SIGNED");
+		assertLocation(index, "2001:db8:0:2:ffff:ffff:ffff:ffff", "SIGNED");
+		assertLocation(index, "2001:db8:0:3::", null);
+
+		assertLocation(index, "ffff:ffff:ffff:ffff:ffff:ffff:ffff:feff", null);
+		assertLocation(index, "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ff00", "TOP");
+		assertLocation(index, "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", "TOP");
+
+		RangerGeolocationData data = index.find("2001:db8::ffff:ffff:ffff:ffff");
+
+		Assert.assertEquals("2001:db8:0:0:ffff:ffff:ffff:ffff", data.getFromAddress());
+		Assert.assertEquals("2001:db8:0:1:0:0:0:0", data.getToAddress());
+	}
+
+	@Test
+	public void testIpv4AndIpv6Together() {
+		RangerGeolocationIndex index = build(true,
+				"10.0.0.0", "10.0.0.255", "V4",
+				"::a00:0", "::a00:ff", "V6");
+
+		assertLocation(index, "10.0.0.1", "V4");
+		assertLocation(index, "::a00:1", "V6");
+		assertLocation(index, "::ffff:a00:1", "V4"); // IPv4-mapped address is looked up as IPv4
+	}
+
+	@Test
+	public void testNumericFormat() {
+		RangerGeolocationIndex index = build(false,
+				"167772160", "167772415", "V4",                                         // 10.0.0.0 - 10.0.0.255
+				"4294967040", "4294967551", "SPAN",                                     // 255.255.255.0 - ::1:0:ff
+				"42540766411282592856903984951653826560", "42540766411282592856903984951653826815", "V6"); // 2001:db8:: - 2001:db8::ff
+
+		Assert.assertEquals(1, index.getIpv4RangeCount());
+		Assert.assertEquals(2, index.getIpv6RangeCount());
+
+		assertLocation(index, "10.0.0.255", "V4");
+		assertLocation(index, "::ffff:ff00", "SPAN");
+		assertLocation(index, "::1:0:ff", "SPAN");
+		assertLocation(index, "::1:0:100", null);
+		assertLocation(index, "2001:db8::", "V6");
+		assertLocation(index, "2001:db8::ff", "V6");
+		assertLocation(index, "2001:db8::100", null);
+	}
+
+	@Test
+	public void testUnsortedRanges() {
+		RangerGeolocationIndex index = build(true,
+				"10.0.2.0", "10.0.2.255", "C",
+				"10.0.0.0", "10.0.0.255", "A",
+				"2001:db8::200", "2001:db8::2ff", "F",
+				"10.0.1.0", "10.0.1.255", "B",
+				"2001:db8::", "2001:db8::ff", "D",
+				"2001:db8::100", "2001:db8::1ff", "E");
+
+		assertLocation(index, "10.0.0.0", "A");
+		assertLocation(index, "10.0.1.255", "B");
+		assertLocation(index, "10.0.2.128", "C");
+		assertLocation(index, "10.0.3.0", null);
+		assertLocation(index, "2001:db8::", "D");
+		assertLocation(index, "2001:db8::1ff", "E");
+		assertLocation(index, "2001:db8::280", "F");
+		assertLocation(index, "2001:db8::300", null);
+
+		List<String> from = new ArrayList<>();
+
+		index.traverse(new ValueProcessor<RangerGeolocationData>() {
+			@Override
+			public RangerGeolocationData process(RangerGeolocationData data) {
+				from.add(data.getFromAddress());
+
+				return data;
+			}
+		});
+
+		Assert.assertEquals("[10.0.0.0, 10.0.1.0, 10.0.2.0, 2001:db8:0:0:0:0:0:0, 2001:db8:0:0:0:0:0:100, 2001:db8:0:0:0:0:0:200]", from.toString());
+	}
+
+	@Test
+	public void testOverlappingRanges() {
+		RangerGeolocationIndex index = build(true,
+				"10.0.0.0", "10.0.255.255", "OUTER",
+				"10.0.5.0", "10.0.5.255", "INNER",
+				"10.0.7.0", "10.0.8.255", "LEFT",
+				"10.0.8.0", "10.0.9.255", "RIGHT",
+				"2001:db8::", "2001:db8::ffff", "OUTER6",
+				"2001:db8::500", "2001:db8::5ff", "INNER6");
+
+		assertLocation(index, "10.0.0.1", "OUTER");
+		assertLocation(index, "10.0.5.1", "INNER");
+		assertLocation(index, "10.0.6.1", "OUTER");
+		assertLocation(index, "10.0.7.1", "LEFT");
+		assertLocation(index, "10.0.8.1", "RIGHT");
+		assertLocation(index, "10.0.9.1", "RIGHT");
+		assertLocation(index, "10.0.10.1", "OUTER");
+		assertLocation(index, "10.1.0.0", null);
+
+		assertLocation(index, "2001:db8::1", "OUTER6");
+		assertLocation(index, "2001:db8::501", "INNER6");
+		assertLocation(index, "2001:db8::601", "OUTER6");
+		assertLocation(index, "2001:db8::1:0", null);
+	}
+
+	@Test
+	public void testInvalidInput() {
+		RangerGeolocationIndex.Builder builder = new RangerGeolocationIndex.Builder();
+
+		Assert.assertFalse(builder.add(new String[] { "10.0.0.0", "10.0.0.255" }, true));
+		Assert.assertFalse(builder.add(new String[] { "10.0.0.255", "10.0.0.0", "REVERSED" }, true));
+		Assert.assertFalse(builder.add(new String[] { "10.0.0.0", "2001:db8::", "MIXED" }, true));
+		Assert.assertFalse(builder.add(new String[] { "10.0.0.256", "10.0.1.0", "BAD" }, true));
+		Assert.assertFalse(builder.add(new String[] { "-1", "10", "NEGATIVE" }, false));
+		Assert.assertFalse(builder.add(new String[] { "0", "340282366920938463463374607431768211456", "TOO_LARGE" }, false));
+		Assert.assertTrue(builder.add(new String[] { "10.0.0.0", "10.0.0.255", "US" }, true));
+
+		RangerGeolocationIndex index = builder.build();
+
+		Assert.assertEquals(1, index.getIpv4RangeCount());
+		Assert.assertEquals(0, index.getIpv6RangeCount());
+
+		assertLocation(index, "10.0.0.1", "US");
+		assertLocation(index, "not-an-address", null);
+		assertLocation(index, "10.0.0", null);
+		assertLocation(index, "", null);
+	}
+
+	private static RangerGeolocationIndex build(boolean useDotFormat, String... values) {
+		RangerGeolocationIndex.Builder builder = new RangerGeolocationIndex.Builder();
+
+		for (int i = 0; i < values.length; i += 3) {
+			Assert.assertTrue(values[i] + " - " + values[i + 1], builder.add(new String[] { values[i], values[i + 1], values[i + 2] }, useDotFormat));
+		}
+
+		return builder.build();
+	}
+
+	private static void assertLocation(RangerGeolocationIndex index, String ipAddress, String expected) {
+		RangerGeolocationData data = index.find(ipAddress);
+
+		if (expected == null) {
+			Assert.assertNull(ipAddress, data);
+		} else {
+			Assert.assertNotNull(ipAddress, data);
+			Assert.assertEquals(ipAddress, expected, data.getLocationData()[0]);
+		}
+	}
+}
@@ -423,6 +423,25 @@ public void testPolicyEngine_PolicyPriority() {
 		runTestsFromResourceFiles(resourceFiles);
 	}
 
+	@Test
+	public void testPolicyEngine_lazyPolicyEvaluatorInit() {
+		String[] resourceFiles = {"/policyengine/test_policyengine_hive.json", "/policyengine/test_policyengine_hive_mask_filter.json",
+		                          "/policyengine/test_policyengine_conditions.json", "/policyengine/test_policyengine_policylevel_conditions.json",
+		                          "/policyengine/test_policyengine_hive_incremental_update.json", "/policyengine/test_policyengine_tag_hive.json"};
+
+		RangerPolicyEngineOptions policyEngineOptions = pluginContext.getConfig().getPolicyEngineOptions();
+
+		policyEngineOptions.enableLazyPolicyEvaluatorInit = true;
+		policyEngineOptions.enablePolicyEvaluatorWarmUp   = true;
+
+		try {
+			runTestsFromResourceFiles(resourceFiles);
+		} finally {
+			policyEngineOptions.enableLazyPolicyEvaluatorInit = false;
+			policyEngineOptions.enablePolicyEvaluatorWarmUp   = false;
+		}
+	}
+
 	private void runTestsFromResourceFiles(String[] resourceNames) {
 		for(String resourceName : resourceNames) {
 			InputStream inStream = this.getClass().getResourceAsStream(resourceName);
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestPolicyEngineZoneMatch {
+	private static RangerServiceDef    serviceDef;
+	private static RangerPluginContext pluginContext;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		serviceDef    = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef("hive");
+		pluginContext = new RangerPluginContext(new RangerPluginConfig("hive", null, "test-zone-match", "cl1", "on-prem", null));
+	}
+
+	@Test
+	public void testMatchedZones() {
+		PolicyEngine policyEngine = createPolicyEngine();
+
+		Assert.assertEquals(Collections.singleton("finance"), getMatchedZones(policyEngine, "finance", "t1", "c1"));
+		Assert.assertEquals(Collections.singleton("sales"), getMatchedZones(policyEngine, "sales", "orders", "c1"));
+		Assert.assertEquals(Collections.singleton("sales"), getMatchedZones(policyEngine, "sales", null, null));
+		Assert.assertEquals(Collections.singleton("hr"), getMatchedZones(policyEngine, "hr", "emp", "ssn"));
+		Assert.assertNull(getMatchedZones(policyEngine, "hr", "emp", "name"));
+		Assert.assertNull(getMatchedZones(policyEngine, "sales", "customers", "c1"));
+		Assert.assertNull(getMatchedZones(policyEngine, "default", "t1", "c1"));
+	}
+
+	@Test
+	public void testCachedMatchedZones() {
+		PolicyEngine policyEngine = createPolicyEngine(createZone("finance", "finance", null, null), createZone("sales", "sales", "orders", null));
+
+		Assert.assertEquals(Collections.singleton("finance"), getMatchedZones(policyEngine, "finance", "t1", "c1"));
+		Assert.assertEquals(1, policyEngine.getZoneMatchCacheSize());
+
+		// column is not in resources of any zone: all columns of the table share the cached entry
+		Assert.assertEquals(Collections.singleton("finance"), getMatchedZones(policyEngine, "finance", "t1", "c2"));
+		Assert.assertEquals(1, policyEngine.getZoneMatchCacheSize());
+
+		Assert.assertNull(getMatchedZones(policyEngine, "default", "t1", "c1"));
+		Assert.assertNull(getMatchedZones(policyEngine, "default", "t1", "c2"));
+		Assert.assertEquals(2, policyEngine.getZoneMatchCacheSize());
+
+		Assert.assertEquals(Collections.singleton("finance"), policyEngine.getMatchedZonesForResourceAndChildren(createResource("finance", "t1", "c1")));
+		Assert.assertEquals(2, policyEngine.getZoneMatchCacheSize());
+	}
+
+	@Test
+	public void testCachedMatchedZonesWithColumnZone() {
+		PolicyEngine policyEngine = createPolicyEngine(createZone("hr", "hr", "emp", "ssn"));
+
+		Assert.assertEquals(Collections.singleton("hr"), getMatchedZones(policyEngine, "hr", "emp", "ssn"));
+		Assert.assertNull(getMatchedZones(policyEngine, "hr", "emp", "name"));
+		Assert.assertEquals(2, policyEngine.getZoneMatchCacheSize());
+	}
+
+	private PolicyEngine createPolicyEngine(ServicePolicies.SecurityZoneInfo... zones) {
+		Map<String, ServicePolicies.SecurityZoneInfo> securityZones = new HashMap<>();
+
+		if (zones.length == 0) {
+			zones = new ServicePolicies.SecurityZoneInfo[] { createZone("finance", "finance", null, null), createZone("sales", "sales", "orders", null), createZone("hr", "hr", "emp", "ssn") };
+		}
+
+		for (ServicePolicies.SecurityZoneInfo zone : zones) {
+			securityZones.put(zone.getZoneName(), zone);
+		}
+
+		ServicePolicies servicePolicies = new ServicePolicies();
+
+		servicePolicies.setServiceName("cl1_hive");
+		servicePolicies.setServiceDef(serviceDef);
+		servicePolicies.setPolicyVersion(1L);
+		servicePolicies.setPolicies(new ArrayList<RangerPolicy>());
+		servicePolicies.setSecurityZones(securityZones);
+
+		return new PolicyEngine(servicePolicies, pluginContext, null);
+	}
+
+	private ServicePolicies.SecurityZoneInfo createZone(String zoneName, String database, String table, String column) {
+		HashMap<String, List<String>> resource = new HashMap<>();
+
+		resource.put("database", Arrays.asList(database));
+
+		if (table != null) {
+			resource.put("table", Arrays.asList(table));
+		}
+
+		if (column != null) {
+			resource.put("column", Arrays.asList(column));
+		}
+
+		ServicePolicies.SecurityZoneInfo ret = new ServicePolicies.SecurityZoneInfo();
+
+		ret.setZoneName(zoneName);
+		ret.setResources(new ArrayList<>(Collections.singletonList(resource)));
+		ret.setPolicies(new ArrayList<RangerPolicy>());
+		ret.setContainsAssociatedTagService(false);
+
+		return ret;
+	}
+
+	private Set<String> getMatchedZones(PolicyEngine policyEngine, String database, String table, String column) {
+		return policyEngine.getMatchedZonesForResourceAndChildren(createResource(database, table, column));
+	}
+
+	private RangerAccessResource createResource(String database, String table, String column) {
+		RangerAccessResourceImpl ret = new RangerAccessResourceImpl();
+
+		ret.setServiceDef(serviceDef);
+		ret.setValue("database", database);
+
+		if (table != null) {
+			ret.setValue("table", table);
+		}
+
+		if (column != null) {
+			ret.setValue("column", column);
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerResourceTrieCopy {
+	private static final String RESOURCE_NAME = "path";
+
+	@Test
+	public void testUpdateOfCopyDoesNotChangeSource() {
+		TestEvaluator finance   = new TestEvaluator(1, "/finance/*");
+		TestEvaluator sales     = new TestEvaluator(2, "/sales/orders");
+		TestEvaluator salesAll  = new TestEvaluator(3, "/sales/*");
+		TestEvaluator hrPayroll = new TestEvaluator(4, "/hr/payroll");
+
+		RangerResourceTrie<TestEvaluator> source = createTrie(finance, sales, hrPayroll);
+
+		// nodes of the source, already set up, are shared with the copy
+		Assert.assertEquals(ids(1), getEvaluatorIds(source, "/finance/q1"));
+		Assert.assertEquals(ids(2), getEvaluatorIds(source, "/sales/orders"));
+
+		RangerResourceTrie<TestEvaluator> copy = new RangerResourceTrie<>(source);
+
+		copy.add(salesAll.getPolicyResource().get(RESOURCE_NAME), salesAll);
+		copy.delete(hrPayroll.getPolicyResource().get(RESOURCE_NAME), hrPayroll);
+
+		Assert.assertEquals(ids(2, 3), getEvaluatorIds(copy, "/sales/orders"));
+		Assert.assertEquals(ids(3), getEvaluatorIds(copy, "/sales/customers"));
+		Assert.assertEquals(ids(), getEvaluatorIds(copy, "/hr/payroll"));
+		Assert.assertEquals(ids(1), getEvaluatorIds(copy, "/finance/q1"));
+
+		Assert.assertEquals(ids(2), getEvaluatorIds(source, "/sales/orders"));
+		Assert.assertEquals(ids(), getEvaluatorIds(source, "/sales/customers"));
+		Assert.assertEquals(ids(4), getEvaluatorIds(source, "/hr/payroll"));
+		Assert.assertEquals(ids(1), getEvaluatorIds(source, "/finance/q1"));
+	}
+
+	@Test
+	public void testCopyOfCopy() {
+		TestEvaluator all     = new TestEvaluator(1, "/*");
+		TestEvaluator finance = new TestEvaluator(2, "/finance/q1");
+		TestEvaluator sales   = new TestEvaluator(3, "/sales/orders");
+
+		RangerResourceTrie<TestEvaluator> v1 = createTrie(all, finance);
+		RangerResourceTrie<TestEvaluator> v2 = new RangerResourceTrie<>(v1);
+
+		v2.add(sales.getPolicyResource().get(RESOURCE_NAME), sales);
+
+		Assert.assertEquals(ids(1, 3), getEvaluatorIds(v2, "/sales/orders"));
+
+		RangerResourceTrie<TestEvaluator> v3 = new RangerResourceTrie<>(v2);
+
+		v3.delete(all.getPolicyResource().get(RESOURCE_NAME), all);
+
+		Assert.assertEquals(ids(3), getEvaluatorIds(v3, "/sales/orders"));
+		Assert.assertEquals(ids(2), getEvaluatorIds(v3, "/finance/q1"));
+		Assert.assertEquals(ids(1, 3), getEvaluatorIds(v2, "/sales/orders"));
+		Assert.assertEquals(ids(1, 2), getEvaluatorIds(v2, "/finance/q1"));
+		Assert.assertEquals(ids(1), getEvaluatorIds(v1, "/sales/orders"));
+		Assert.assertEquals(ids(1, 2), getEvaluatorIds(v1, "/finance/q1"));
+	}
+
+	@Test
+	public void testReplacedNodesAreNotRetained() throws Exception {
+		TestEvaluator finance = new TestEvaluator(1, "/finance/*");
+		TestEvaluator sales   = new TestEvaluator(2, "/sales/orders");
+
+		RangerResourceTrie<TestEvaluator>                       latest   = createTrie(finance, sales);
+		List<WeakReference<RangerResourceTrie<TestEvaluator>>> oldTries = new ArrayList<>();
+		List<WeakReference<Object>>                             oldRoots = new ArrayList<>();
+
+		Assert.assertEquals(ids(1), getEvaluatorIds(latest, "/finance/q1"));
+
+		for (int i = 0; i < 10; i++) {
+			TestEvaluator                     evaluator = new TestEvaluator(100 + i, "/sales/region" + i);
+			RangerResourceTrie<TestEvaluator> copy      = new RangerResourceTrie<>(latest);
+
+			copy.add(evaluator.getPolicyResource().get(RESOURCE_NAME), evaluator);
+
+			Assert.assertEquals(ids(100 + i), getEvaluatorIds(copy, "/sales/region" + i));
+
+			oldTries.add(new WeakReference<>(latest));
+			oldRoots.add(new WeakReference<>(latest.getRoot()));
+
+			latest = copy;
+		}
+
+		// nodes under /finance, created by the first trie, are still shared with the latest copy
+		Assert.assertEquals(ids(1), getEvaluatorIds(latest, "/finance/q1"));
+
+		for (int i = 0; i < 50 && (!isCleared(oldTries) || !isCleared(oldRoots)); i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+
+		Assert.assertTrue("tries replaced by later copies are still reachable", isCleared(oldTries));
+		Assert.assertTrue("nodes replaced by later copies are still reachable", isCleared(oldRoots));
+		Assert.assertEquals(ids(1), getEvaluatorIds(latest, "/finance/q1"));
+	}
+
+	private boolean isCleared(List<? extends WeakReference<?>> refs) {
+		for (WeakReference<?> ref : refs) {
+			if (ref.get() != null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private RangerResourceTrie<TestEvaluator> createTrie(TestEvaluator... evaluators) {
+		RangerResourceDef resourceDef = new RangerResourceDef();
+
+		resourceDef.setName(RESOURCE_NAME);
+
+		return new RangerResourceTrie<>(resourceDef, new ArrayList<>(Arrays.asList(evaluators)), true, null);
+	}
+
+	private Set<Long> getEvaluatorIds(RangerResourceTrie<TestEvaluator> trie, String resource) {
+		Set<Long>          ret        = new TreeSet<>();
+		Set<TestEvaluator> evaluators = trie.getEvaluatorsForResource(resource);
+
+		if (evaluators != null) {
+			for (TestEvaluator evaluator : evaluators) {
+				ret.add(evaluator.getId());
+			}
+		}
+
+		return ret;
+	}
+
+	private Set<Long> ids(long... ids) {
+		Set<Long> ret = new TreeSet<>();
+
+		for (long id : ids) {
+			ret.add(id);
+		}
+
+		return ret;
+	}
+
+	private static class TestEvaluator implements RangerPolicyResourceEvaluator {
+		private final long                              id;
+		private final Map<String, RangerPolicyResource> policyResource;
+
+		TestEvaluator(long id, String value) {
+			List<String> values = Collections.singletonList(value);
+
+			this.id             = id;
+			this.policyResource = Collections.singletonMap(RESOURCE_NAME, new RangerPolicyResource(values, false, false));
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public RangerPolicyResourceMatcher getPolicyResourceMatcher() {
+			return null;
+		}
+
+		@Override
+		public Map<String, RangerPolicyResource> getPolicyResource() {
+			return policyResource;
+		}
+
+		@Override
+		public RangerResourceMatcher getResourceMatcher(String resourceName) {
+			return null;
+		}
+
+		@Override
+		public boolean isAncestorOf(RangerResourceDef resourceDef) {
+			return false;
+		}
+	}
+}
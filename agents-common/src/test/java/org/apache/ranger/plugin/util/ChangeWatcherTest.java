@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ranger.admin.client.AbstractRangerAdminClient;
+import org.junit.Test;
+
+public class ChangeWatcherTest {
+
+    @Test
+    public void testLastKnownVersions() {
+        BlockingQueue<DownloadTrigger> policyQueue = new LinkedBlockingQueue<>();
+        BlockingQueue<DownloadTrigger> tagQueue    = new LinkedBlockingQueue<>();
+        ChangeWatcher                  watcher     = new ChangeWatcher("svc", new TestAdminClient(), 1000, 10);
+
+        watcher.register(ChangeWatcher.ChangeType.POLICY, () -> 5L, policyQueue);
+        watcher.register(ChangeWatcher.ChangeType.ROLE, () -> 2L, policyQueue);
+        watcher.register(ChangeWatcher.ChangeType.TAG, () -> 7L, tagQueue);
+
+        RangerServiceVersions versions = watcher.getLastKnownVersions();
+
+        assertEquals("svc", versions.getServiceName());
+        assertEquals(Long.valueOf(5L), versions.getPolicyVersion());
+        assertEquals(Long.valueOf(2L), versions.getRoleVersion());
+        assertEquals(Long.valueOf(7L), versions.getTagVersion());
+        assertNull(versions.getUserStoreVersion());
+
+        watcher.unregister(tagQueue);
+
+        assertNull(watcher.getLastKnownVersions().getTagVersion());
+    }
+
+    @Test
+    public void testTriggerDownloadOnChange() throws Exception {
+        AtomicLong                     policyVersion = new AtomicLong(1L);
+        BlockingQueue<DownloadTrigger> policyQueue   = new LinkedBlockingQueue<>();
+        TestAdminClient                adminClient   = new TestAdminClient();
+        ChangeWatcher                  watcher       = new ChangeWatcher("svc", adminClient, 1000, 10);
+
+        watcher.register(ChangeWatcher.ChangeType.POLICY, policyVersion::get, policyQueue);
+        watcher.start();
+
+        try {
+            adminClient.latestPolicyVersion.set(3L);
+
+            DownloadTrigger trigger = policyQueue.poll(10, TimeUnit.SECONDS);
+
+            assertTrue(trigger != null);
+            assertTrue(watcher.isConnected());
+
+            policyVersion.set(3L);
+            trigger.signalCompletion();
+
+            // no further download, as the plugin is now up to date
+            assertNull(policyQueue.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            watcher.stopWatcher();
+        }
+    }
+
+    @Test
+    public void testStopOnUnsupported() throws Exception {
+        ChangeWatcher watcher = new ChangeWatcher("svc", new AbstractRangerAdminClient() {}, 1000, 10);
+
+        watcher.register(ChangeWatcher.ChangeType.POLICY, () -> 1L, new LinkedBlockingQueue<>());
+        watcher.start();
+        watcher.join(10 * 1000);
+
+        assertFalse(watcher.isAlive());
+        assertFalse(watcher.isConnected());
+    }
+
+    @Test
+    public void testRetryOnRuntimeException() throws Exception {
+        BlockingQueue<DownloadTrigger> policyQueue = new LinkedBlockingQueue<>();
+        TestAdminClient                adminClient = new TestAdminClient();
+        ChangeWatcher                  watcher     = new ChangeWatcher("svc", adminClient, 1000, 10);
+
+        // only RangerChangeNotificationNotSupportedException stops the watcher; other failures are retried
+        adminClient.failureCount.set(3);
+        adminClient.latestPolicyVersion.set(2L);
+
+        watcher.register(ChangeWatcher.ChangeType.POLICY, () -> 1L, policyQueue);
+        watcher.start();
+
+        try {
+            assertTrue(policyQueue.poll(10, TimeUnit.SECONDS) != null);
+            assertTrue(watcher.isAlive());
+            assertEquals(0, adminClient.failureCount.get());
+        } finally {
+            watcher.stopWatcher();
+        }
+    }
+
+    @Test
+    public void testDownloaderTaskSkipsWhileConnected() throws Exception {
+        BlockingQueue<DownloadTrigger> queue       = new LinkedBlockingQueue<>();
+        TestAdminClient                adminClient = new TestAdminClient();
+        ChangeWatcher                  watcher     = new ChangeWatcher("svc", adminClient, 50, 10);
+
+        watcher.register(ChangeWatcher.ChangeType.POLICY, () -> 1L, queue);
+        watcher.start();
+
+        try {
+            for (int i = 0; i < 100 && !watcher.isConnected(); i++) {
+                Thread.sleep(20);
+            }
+
+            assertTrue(watcher.isConnected());
+
+            new DownloaderTask(queue, watcher).run(); // returns without waiting for a download
+
+            assertTrue(queue.isEmpty());
+        } finally {
+            watcher.stopWatcher();
+        }
+    }
+
+    private static class TestAdminClient extends AbstractRangerAdminClient {
+        final AtomicLong    latestPolicyVersion = new AtomicLong(1L);
+        final AtomicInteger failureCount        = new AtomicInteger();
+
+        @Override
+        public RangerServiceVersions waitForChanges(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception {
+            if (failureCount.get() > 0) {
+                failureCount.decrementAndGet();
+
+                throw new UnsupportedOperationException("simulated failure");
+            }
+
+            long deadline = System.currentTimeMillis() + timeoutMs;
+
+            while (System.currentTimeMillis() < deadline) {
+                RangerServiceVersions latest = new RangerServiceVersions(lastKnownVersions.getServiceName(), latestPolicyVersion.get(), null, null, null);
+
+                if (latest.isNewerThan(lastKnownVersions)) {
+                    return latest;
+                }
+
+                Thread.sleep(10);
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RangerLatencyHistogramTest {
+
+	@Test
+	public void testBucketBoundaries() {
+		for (long value = 0; value < 1000000L; value += 7) {
+			int  bucketIndex  = RangerLatencyHistogram.getBucketIndex(value);
+			long highestValue = RangerLatencyHistogram.getBucketHighestValue(bucketIndex);
+
+			assertTrue("value=" + value, highestValue >= value);
+			assertTrue("value=" + value, highestValue - value <= value / 16);
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		RangerLatencyHistogram histogram = new RangerLatencyHistogram();
+
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L); // 1 microsecond to 1 millisecond
+		}
+
+		assertEquals(1000L, histogram.getCount());
+		assertEquals(1000000L, histogram.getMaxNs());
+		assertWithin(500000L, histogram.getValueAtPercentile(50.0));
+		assertWithin(990000L, histogram.getValueAtPercentile(99.0));
+		assertWithin(999000L, histogram.getValueAtPercentile(99.9));
+		assertEquals(1000000L, histogram.getValueAtPercentile(100.0));
+
+		histogram.reset();
+
+		assertEquals(0L, histogram.getCount());
+		assertEquals(0L, histogram.getValueAtPercentile(99.0));
+	}
+
+	@Test
+	public void testPrometheusText() {
+		PerfDataRecorder.initialize(null);
+		PerfDataRecorder.recordStatisticNanos("RangerPolicyEngine.evaluatePolicies", 25000L);
+
+		String text = PerfDataRecorder.getPrometheusText();
+
+		assertTrue(text, text.contains("# TYPE ranger_perf_latency_seconds summary"));
+		assertTrue(text, text.contains("ranger_perf_latency_seconds{tag=\"RangerPolicyEngine.evaluatePolicies\",quantile=\"0.99\"} 2."));
+		assertTrue(text, text.contains("ranger_perf_latency_seconds_count{tag=\"RangerPolicyEngine.evaluatePolicies\"} 1"));
+		assertEquals("ranger_usersync_metric.prom", PerfDataRecorder.getPrometheusTextFileName("ranger_usersync_metric.json"));
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue("expected=" + expected + ", actual=" + actual, actual >= expected && actual - expected <= expected / 16);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.GroupInfo;
+import org.apache.ranger.plugin.model.UserInfo;
+import org.junit.Test;
+
+public class RangerUserStoreDeltaUtilTest {
+
+    @Test
+    public void testComputeAndApplyDelta() {
+        RangerUserStore v1 = createUserStore(1L,
+                users(new UserInfo("alice", null, attrs("dept", "finance", RangerUserStore.CLOUD_IDENTITY_NAME, "id-alice")),
+                      new UserInfo("bob", null, attrs("dept", "sales"))),
+                groups(new GroupInfo("finance", null, attrs("site", "nyc")), new GroupInfo("sales", null, attrs("site", "sfo"))),
+                userGroups("alice", "finance", "bob", "sales"));
+        RangerUserStore v2 = createUserStore(2L,
+                users(new UserInfo("alice", null, attrs("dept", "finance", RangerUserStore.CLOUD_IDENTITY_NAME, "id-alice2")),
+                      new UserInfo("carol", null, attrs("dept", "hr"))),
+                groups(new GroupInfo("finance", null, attrs("site", "nyc")), new GroupInfo("hr", null, attrs("site", "lon"))),
+                userGroups("alice", "finance", "carol", "hr"));
+
+        RangerUserStore delta = RangerUserStoreDeltaUtil.computeDelta(v1, v2);
+
+        assertTrue(delta.getIsDelta());
+        assertEquals(Long.valueOf(2L), delta.getUserStoreVersion());
+        assertEquals(new HashSet<>(Arrays.asList("alice", "bob", "carol")), delta.getUserAttrMapping().keySet());
+        assertEquals(new HashSet<>(Arrays.asList("sales", "hr")), delta.getGroupAttrMapping().keySet());
+        assertEquals(new HashSet<>(Arrays.asList("bob", "carol")), delta.getUserGroupMapping().keySet());
+
+        RangerUserStore applied = RangerUserStoreDeltaUtil.applyDelta(v1, delta);
+
+        assertStoreEquals(v2, applied);
+        assertEquals(Long.valueOf(1L), v1.getUserStoreVersion());
+        assertTrue(v1.getUserAttrMapping().containsKey("bob"));
+
+        // applying the same delta again must not change the result
+        assertStoreEquals(v2, RangerUserStoreDeltaUtil.applyDelta(applied, delta));
+    }
+
+    @Test
+    public void testMergeDeltas() {
+        RangerUserStore v1 = createUserStore(1L, users(new UserInfo("alice", null, attrs("dept", "finance"))), null, userGroups("alice", "finance"));
+        RangerUserStore v2 = createUserStore(2L, users(new UserInfo("bob", null, attrs("dept", "sales"))), null, userGroups("bob", "sales"));
+        RangerUserStore v3 = createUserStore(3L, users(new UserInfo("alice", null, attrs("dept", "hr")), new UserInfo("bob", null, attrs("dept", "sales"))), null, userGroups("alice", "hr", "bob", "sales"));
+
+        RangerUserStore merged = RangerUserStoreDeltaUtil.mergeDeltas(RangerUserStoreDeltaUtil.computeDelta(v1, v2), RangerUserStoreDeltaUtil.computeDelta(v2, v3));
+
+        assertEquals(Long.valueOf(3L), merged.getUserStoreVersion());
+        assertStoreEquals(v3, RangerUserStoreDeltaUtil.applyDelta(v1, merged));
+    }
+
+    @Test
+    public void testApplyDeltaToDelta() {
+        RangerUserStore v1    = createUserStore(1L, null, null, null);
+        RangerUserStore delta = RangerUserStoreDeltaUtil.computeDelta(v1, v1);
+
+        assertEquals(0, RangerUserStoreDeltaUtil.getChangeCount(delta));
+        assertNull(RangerUserStoreDeltaUtil.applyDelta(delta, delta));
+        assertFalse(RangerUserStoreDeltaUtil.applyDelta(v1, delta).getIsDelta());
+    }
+
+    private static void assertStoreEquals(RangerUserStore expected, RangerUserStore actual) {
+        assertEquals(expected.getUserStoreVersion(), actual.getUserStoreVersion());
+        assertEquals(expected.getUserAttrMapping(), actual.getUserAttrMapping());
+        assertEquals(expected.getGroupAttrMapping(), actual.getGroupAttrMapping());
+        assertEquals(expected.getUserGroupMapping(), actual.getUserGroupMapping());
+        assertEquals(expected.getUserCloudIdMapping(), actual.getUserCloudIdMapping());
+        assertEquals(expected.getGroupCloudIdMapping(), actual.getGroupCloudIdMapping());
+    }
+
+    private static RangerUserStore createUserStore(Long version, Set<UserInfo> users, Set<GroupInfo> groups, Map<String, Set<String>> userGroups) {
+        RangerUserStore ret = new RangerUserStore(version, users, groups, userGroups);
+
+        // maps are left null when there are no users or groups; applyDelta() always returns maps
+        if (ret.getUserAttrMapping() == null) {
+            ret.setUserAttrMapping(new HashMap<>());
+            ret.setUserCloudIdMapping(new HashMap<>());
+        }
+        if (ret.getGroupAttrMapping() == null) {
+            ret.setGroupAttrMapping(new HashMap<>());
+            ret.setGroupCloudIdMapping(new HashMap<>());
+        }
+        if (ret.getUserGroupMapping() == null) {
+            ret.setUserGroupMapping(new HashMap<>());
+        }
+
+        return ret;
+    }
+
+    private static Set<UserInfo> users(UserInfo... users) {
+        return new HashSet<>(Arrays.asList(users));
+    }
+
+    private static Set<GroupInfo> groups(GroupInfo... groups) {
+        return new HashSet<>(Arrays.asList(groups));
+    }
+
+    private static Map<String, String> attrs(String... keyValues) {
+        Map<String, String> ret = new HashMap<>();
+
+        for (int i = 0; i < keyValues.length; i += 2) {
+            ret.put(keyValues[i], keyValues[i + 1]);
+        }
+
+        return ret;
+    }
+
+    private static Map<String, Set<String>> userGroups(String... userGroupPairs) {
+        Map<String, Set<String>> ret = new HashMap<>();
+
+        for (int i = 0; i < userGroupPairs.length; i += 2) {
+            ret.put(userGroupPairs[i], Collections.singleton(userGroupPairs[i + 1]));
+        }
+
+        return ret;
+    }
+}
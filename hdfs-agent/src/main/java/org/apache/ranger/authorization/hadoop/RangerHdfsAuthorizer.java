@@ -28,6 +28,8 @@
 import java.security.SecureRandom;
 import java.util.*;
 
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -55,9 +57,11 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.ServicePolicies;
 
 import com.google.common.collect.Sets;
 
@@ -108,6 +112,10 @@ public void start() {
 			LOG.info(RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP + " is enabled");
 		}
 
+		if (plugin.isSubtreeSummaryAuthEnabled()) {
+			LOG.info(RangerHadoopConstants.RANGER_SUBTREE_SUMMARY_AUTHORIZATION_PROP + " is enabled");
+		}
+
 		access2ActionListMapper.put(FsAction.NONE,          new HashSet<String>());
 		access2ActionListMapper.put(FsAction.ALL,           Sets.newHashSet(READ_ACCCESS_TYPE, WRITE_ACCCESS_TYPE, EXECUTE_ACCCESS_TYPE));
 		access2ActionListMapper.put(FsAction.READ,          Sets.newHashSet(READ_ACCCESS_TYPE));
@@ -392,7 +400,9 @@ public void checkPermission(String fsOwner, String superGroup, UserGroupInformat
 
 					// checkSubAccess
 					if(authzStatus == AuthzStatus.ALLOW && subAccess != null && inode != null && inode.isDirectory()) {
-						Stack<SubAccessData> directories = new Stack<>();
+						Stack<SubAccessData>     directories    = new Stack<>();
+						RangerHdfsSubtreeSummary subtreeSummary = plugin.getSubtreeSummary();
+						Set<String>              subAccessTypes = access2ActionListMapper.get(subAccess);
 
 						for(directories.push(new SubAccessData(inode.asDirectory(), resourcePath)); !directories.isEmpty(); ) {
 							SubAccessData data = directories.pop();
@@ -407,18 +417,30 @@ public void checkPermission(String fsOwner, String superGroup, UserGroupInformat
 									break;
 								}
 
-								AuthzStatus subDirAuthStatus = AuthzStatus.NOT_DETERMINED;
+								AuthzStatus          subDirAuthStatus = AuthzStatus.NOT_DETERMINED;
+								NavigableSet<String> boundaries       = subtreeSummary != null ? subtreeSummary.getBoundaries(data.resourcePath, subAccessTypes) : null;
 
 								boolean optimizeSubAccessAuthEnabled = rangerPlugin.isOptimizeSubAccessAuthEnabled();
 
-								if (optimizeSubAccessAuthEnabled) {
+								if (optimizeSubAccessAuthEnabled || boundaries != null) {
 									subDirAuthStatus = isAccessAllowedForHierarchy(data.dir, dirAttribs, data.resourcePath, subAccess, user, groups, plugin);
 								}
 
 								if (subDirAuthStatus != AuthzStatus.ALLOW) {
 									for(INode child : cList) {
 										if (child.isDirectory()) {
-											directories.push(new SubAccessData(child.asDirectory(), resourcePath + Path.SEPARATOR_CHAR + child.getLocalName()));
+											directories.push(new SubAccessData(child.asDirectory(), getChildPath(data.resourcePath, child)));
+										}
+									}
+								} else if (boundaries != null && !boundaries.isEmpty()) {
+									// descendants off the boundary paths resolve the same as the hierarchy check above; evaluate only the rest
+									for(INode child : cList) {
+										if (child.isDirectory()) {
+											String childPath = getChildPath(data.resourcePath, child);
+
+											if (RangerHdfsSubtreeSummary.isOnBoundaryPath(boundaries, childPath)) {
+												directories.push(new SubAccessData(child.asDirectory(), childPath));
+											}
 										}
 									}
 								}
@@ -697,6 +719,10 @@ private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, S
 			return ret;
 		}
 
+		private String getChildPath(String parentPath, INode child) {
+			return StringUtils.removeEnd(parentPath, Path.SEPARATOR) + Path.SEPARATOR_CHAR + child.getLocalName();
+		}
+
 		private AuthzStatus isAccessAllowedForHierarchy(INode inode, INodeAttributes inodeAttribs, String path, FsAction access, String user, Set<String> groups, RangerHdfsPlugin plugin) {
 			AuthzStatus ret   = null;
 			String  pathOwner = inodeAttribs != null ? inodeAttribs.getUserName() : null;
@@ -769,10 +795,14 @@ class RangerHdfsPlugin extends RangerBasePlugin {
 
 	private final boolean     hadoopAuthEnabled;
 	private final boolean     optimizeSubAccessAuthEnabled;
+	private final boolean     subtreeSummaryAuthEnabled;
 	private final String      randomizedWildcardPathName;
 	private final String      hadoopModuleName;
 	private final Set<String> excludeUsers = new HashSet<>();
 
+	private volatile boolean                  hasSecurityZones = false;
+	private volatile RangerHdfsSubtreeSummary subtreeSummary   = null;
+
 	public RangerHdfsPlugin(Path addlConfigFile) {
 		super("hdfs", "hdfs");
 
@@ -788,6 +818,7 @@ public RangerHdfsPlugin(Path addlConfigFile) {
 
 		this.hadoopAuthEnabled            = config.getBoolean(RangerHadoopConstants.RANGER_ADD_HDFS_PERMISSION_PROP, RangerHadoopConstants.RANGER_ADD_HDFS_PERMISSION_DEFAULT);
 		this.optimizeSubAccessAuthEnabled = config.getBoolean(RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP, RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT);
+		this.subtreeSummaryAuthEnabled    = config.getBoolean(RangerHadoopConstants.RANGER_SUBTREE_SUMMARY_AUTHORIZATION_PROP, RangerHadoopConstants.RANGER_SUBTREE_SUMMARY_AUTHORIZATION_DEFAULT);
 		this.randomizedWildcardPathName   = RangerPathResourceMatcher.WILDCARD_ASTERISK + random + RangerPathResourceMatcher.WILDCARD_ASTERISK;
 		this.hadoopModuleName             = config.get(RangerHadoopConstants.AUDITLOG_HADOOP_MODULE_ACL_NAME_PROP , RangerHadoopConstants.DEFAULT_HADOOP_MODULE_ACL_NAME);
 
@@ -836,11 +867,46 @@ public boolean isHadoopAuthEnabled() {
 	public boolean isOptimizeSubAccessAuthEnabled() {
 		return optimizeSubAccessAuthEnabled;
 	}
+	public boolean isSubtreeSummaryAuthEnabled() {
+		return subtreeSummaryAuthEnabled;
+	}
 	public String getRandomizedWildcardPathName() {
 		return randomizedWildcardPathName;
 	}
 	public String getHadoopModuleName() { return hadoopModuleName; }
 	public Set<String> getExcludedUsers() { return  excludeUsers; }
+
+	@Override
+	public void setPolicies(ServicePolicies policies) {
+		super.setPolicies(policies);
+
+		if (policies != null) {
+			hasSecurityZones = MapUtils.isNotEmpty(policies.getSecurityZones());
+		}
+
+		subtreeSummary = null;
+	}
+
+	// built on first use after each policy change; null when disabled or no policies are loaded yet
+	public RangerHdfsSubtreeSummary getSubtreeSummary() {
+		RangerHdfsSubtreeSummary ret          = null;
+		RangerPolicyEngine       policyEngine = subtreeSummaryAuthEnabled ? getPolicyEngine() : null;
+
+		if (policyEngine != null) {
+			ret = subtreeSummary;
+
+			if (ret == null || ret.getPolicyVersion() != policyEngine.getPolicyVersion()) {
+				// tag and security-zone policies partition paths in ways not visible in resource policies
+				boolean isSummarizable = !hasSecurityZones && CollectionUtils.isEmpty(policyEngine.getTagPolicies());
+
+				ret = new RangerHdfsSubtreeSummary(policyEngine.getPolicyVersion(), policyEngine.getResourcePolicies(), isSummarizable);
+
+				subtreeSummary = ret;
+			}
+		}
+
+		return ret;
+	}
 }
 
 class RangerHdfsResource extends RangerAccessResourceImpl {
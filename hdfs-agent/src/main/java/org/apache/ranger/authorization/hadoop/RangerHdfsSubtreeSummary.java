@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hadoop;
+
+import static org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants.EXECUTE_ACCCESS_TYPE;
+import static org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants.READ_ACCCESS_TYPE;
+import static org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants.WRITE_ACCCESS_TYPE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+
+/**
+ * Summary of the path trie of one policy version, used to authorize recursive operations (like delete
+ * of a directory) without evaluating policies for every directory in the subtree.
+ *
+ * Each path policy is reduced to an anchor: the deepest directory below which it does not distinguish
+ * between paths. For a directory and a set of access types, getBoundaries() returns the anchors strictly
+ * below the directory; descendants that are not on the way to a boundary resolve to the same decision as
+ * any path below the directory. A null return means descendants can't be summarized, for example when a
+ * wildcard, macro or condition in a policy above the directory makes the decision depend on each path.
+ */
+class RangerHdfsSubtreeSummary {
+	private static final Log LOG = LogFactory.getLog(RangerHdfsSubtreeSummary.class);
+
+	private static final char PATH_SEPARATOR_CHAR = '/';
+	private static final char PATH_SEPARATOR_NEXT = PATH_SEPARATOR_CHAR + 1;
+
+	private final long                                policyVersion;
+	private final boolean                             isSummarizable;
+	private final Map<String, NavigableSet<String>>   uniformAnchors = new HashMap<>(); // accessType => anchors of policies that match every path below them alike
+	private final Map<String, NavigableSet<String>>   patternAnchors = new HashMap<>(); // accessType => anchors of policies whose match differs between paths below them
+
+	RangerHdfsSubtreeSummary(long policyVersion, List<RangerPolicy> policies, boolean isSummarizable) {
+		this.policyVersion  = policyVersion;
+		this.isSummarizable = isSummarizable;
+
+		if (isSummarizable && policies != null) {
+			for (RangerPolicy policy : policies) {
+				addPolicy(policy);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerHdfsSubtreeSummary(policyVersion=" + policyVersion + ", isSummarizable=" + isSummarizable + ", uniformAnchors=" + uniformAnchors + ", patternAnchors=" + patternAnchors + ")");
+		}
+	}
+
+	long getPolicyVersion() {
+		return policyVersion;
+	}
+
+	/**
+	 * @return paths strictly below dirPath at which decisions for the given access types may differ from the rest
+	 * of the subtree; empty if every descendant resolves the same way; null if descendants can't be summarized
+	 */
+	NavigableSet<String> getBoundaries(String dirPath, Set<String> accessTypes) {
+		if (!isSummarizable || dirPath == null || CollectionUtils.isEmpty(accessTypes)) {
+			return null;
+		}
+
+		String               path = normalize(dirPath);
+		NavigableSet<String> ret  = new TreeSet<>();
+
+		for (String accessType : accessTypes) {
+			NavigableSet<String> patterns = patternAnchors.get(accessType);
+
+			if (patterns != null) {
+				if (containsSelfOrAncestor(patterns, path)) {
+					ret = null;
+
+					break;
+				}
+
+				ret.addAll(getDescendants(patterns, path));
+			}
+
+			NavigableSet<String> anchors = uniformAnchors.get(accessType);
+
+			if (anchors != null) {
+				ret.addAll(getDescendants(anchors, path));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return true if path is one of the boundaries, or is an ancestor of one of them
+	 */
+	static boolean isOnBoundaryPath(NavigableSet<String> boundaries, String path) {
+		String normalizedPath = normalize(path);
+
+		return boundaries.contains(normalizedPath) || !getDescendants(boundaries, normalizedPath).isEmpty();
+	}
+
+	private void addPolicy(RangerPolicy policy) {
+		if (policy == null || (policy.getIsEnabled() != null && !policy.getIsEnabled()) || policy.getResources() == null) {
+			return;
+		}
+
+		RangerPolicyResource pathResource = policy.getResources().get(RangerHdfsAuthorizer.KEY_RESOURCE_PATH);
+
+		if (pathResource == null || CollectionUtils.isEmpty(pathResource.getValues())) {
+			return;
+		}
+
+		Set<String> accessTypes = getAccessTypes(policy);
+
+		if (accessTypes.isEmpty()) {
+			return;
+		}
+
+		boolean isPolicyPattern = Boolean.TRUE.equals(pathResource.getIsExcludes()) || hasPathDependentEvaluation(policy);
+		boolean isRecursive     = Boolean.TRUE.equals(pathResource.getIsRecursive());
+
+		for (String value : pathResource.getValues()) {
+			if (StringUtils.isEmpty(value)) {
+				continue;
+			}
+
+			String  anchor;
+			boolean isPattern = isPolicyPattern;
+
+			int wildcardPos = StringUtils.indexOfAny(value, "*?{");
+
+			if (wildcardPos == -1) {
+				anchor = normalize(value);
+			} else if (isRecursive && wildcardPos == value.length() - 1 && wildcardPos > 0 && value.charAt(wildcardPos - 1) == PATH_SEPARATOR_CHAR) {
+				anchor = normalize(value.substring(0, wildcardPos)); // "/dir/*" with recursive: matches every path below /dir alike
+			} else {
+				String prefix = value.substring(0, wildcardPos);
+
+				// "/dir/*/x" varies below "/dir"; "/dir/ab*" can match "/dir/abc", so it varies below "/dir" as well
+				anchor    = prefix.endsWith(String.valueOf(PATH_SEPARATOR_CHAR)) || prefix.isEmpty() ? normalize(prefix) : getParent(normalize(prefix));
+				isPattern = true;
+			}
+
+			if (Boolean.TRUE.equals(pathResource.getIsExcludes())) {
+				anchor = String.valueOf(PATH_SEPARATOR_CHAR);
+			}
+
+			for (String accessType : accessTypes) {
+				Map<String, NavigableSet<String>> anchorMap = isPattern ? patternAnchors : uniformAnchors;
+				NavigableSet<String>              anchors   = anchorMap.get(accessType);
+
+				if (anchors == null) {
+					anchors = new TreeSet<>();
+
+					anchorMap.put(accessType, anchors);
+				}
+
+				anchors.add(anchor);
+			}
+		}
+	}
+
+	private static Set<String> getAccessTypes(RangerPolicy policy) {
+		Set<String> ret = new TreeSet<>();
+
+		if (Boolean.TRUE.equals(policy.getIsDenyAllElse())) {
+			ret.add(READ_ACCCESS_TYPE);
+			ret.add(WRITE_ACCCESS_TYPE);
+			ret.add(EXECUTE_ACCCESS_TYPE);
+		}
+
+		for (List<RangerPolicyItem> policyItems : getAllPolicyItems(policy)) {
+			for (RangerPolicyItem policyItem : policyItems) {
+				if (policyItem.getAccesses() != null) {
+					for (RangerPolicyItemAccess access : policyItem.getAccesses()) {
+						if (access != null && access.getType() != null) {
+							ret.add(access.getType());
+						}
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	// conditions, validity-schedules and owner-macros make the decision depend on more than the path
+	private static boolean hasPathDependentEvaluation(RangerPolicy policy) {
+		if (CollectionUtils.isNotEmpty(policy.getConditions()) || CollectionUtils.isNotEmpty(policy.getValiditySchedules())) {
+			return true;
+		}
+
+		for (List<RangerPolicyItem> policyItems : getAllPolicyItems(policy)) {
+			for (RangerPolicyItem policyItem : policyItems) {
+				if (CollectionUtils.isNotEmpty(policyItem.getConditions())) {
+					return true;
+				}
+
+				if (policyItem.getUsers() != null && policyItem.getUsers().contains(RangerPolicyEngine.RESOURCE_OWNER)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static List<List<RangerPolicyItem>> getAllPolicyItems(RangerPolicy policy) {
+		List<List<RangerPolicyItem>> ret = new ArrayList<>();
+
+		if (policy.getPolicyItems() != null) {
+			ret.add(policy.getPolicyItems());
+		}
+		if (policy.getDenyPolicyItems() != null) {
+			ret.add(policy.getDenyPolicyItems());
+		}
+		if (policy.getAllowExceptions() != null) {
+			ret.add(policy.getAllowExceptions());
+		}
+		if (policy.getDenyExceptions() != null) {
+			ret.add(policy.getDenyExceptions());
+		}
+
+		return ret;
+	}
+
+	private static boolean containsSelfOrAncestor(NavigableSet<String> anchors, String path) {
+		for (String current = path; current != null; current = getParent(current)) {
+			if (anchors.contains(current)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static NavigableSet<String> getDescendants(NavigableSet<String> anchors, String path) {
+		if (anchors.isEmpty()) {
+			return Collections.emptyNavigableSet();
+		}
+
+		String from = path.length() == 1 ? path : path + PATH_SEPARATOR_CHAR;
+		String to   = from.substring(0, from.length() - 1) + PATH_SEPARATOR_NEXT;
+
+		return anchors.subSet(from, false, to, false);
+	}
+
+	private static String getParent(String path) {
+		if (path.length() <= 1) {
+			return null;
+		}
+
+		int pos = path.lastIndexOf(PATH_SEPARATOR_CHAR);
+
+		return pos <= 0 ? String.valueOf(PATH_SEPARATOR_CHAR) : path.substring(0, pos);
+	}
+
+	private static String normalize(String path) {
+		String ret = path;
+
+		while (ret.length() > 1 && ret.charAt(ret.length() - 1) == PATH_SEPARATOR_CHAR) {
+			ret = ret.substring(0, ret.length() - 1);
+		}
+
+		if (ret.isEmpty() || ret.charAt(0) != PATH_SEPARATOR_CHAR) {
+			ret = PATH_SEPARATOR_CHAR + ret;
+		}
+
+		return ret;
+	}
+}
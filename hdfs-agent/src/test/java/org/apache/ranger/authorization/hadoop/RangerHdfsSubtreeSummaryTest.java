@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hadoop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RangerHdfsSubtreeSummary}, which decides which parts of a directory tree need per-directory evaluation.
+ */
+public class RangerHdfsSubtreeSummaryTest {
+
+    private static final Set<String> WRITE = Collections.singleton("write");
+
+    @Test
+    public void testUniformAndBoundaries() {
+        List<RangerPolicy> policies = Arrays.asList(
+                createPolicy("/data", true, "write"),
+                createPolicy("/data/finance/restricted", true, "write"),
+                createPolicy("/data/sales/*", true, "write"),
+                createPolicy("/tmp", true, "read"));
+
+        RangerHdfsSubtreeSummary summary = new RangerHdfsSubtreeSummary(1L, policies, true);
+
+        NavigableSet<String> boundaries = summary.getBoundaries("/data", WRITE);
+
+        Assert.assertEquals(Arrays.asList("/data/finance/restricted", "/data/sales"), new ArrayList<>(boundaries));
+        Assert.assertTrue(RangerHdfsSubtreeSummary.isOnBoundaryPath(boundaries, "/data/finance"));
+        Assert.assertTrue(RangerHdfsSubtreeSummary.isOnBoundaryPath(boundaries, "/data/sales"));
+        Assert.assertFalse(RangerHdfsSubtreeSummary.isOnBoundaryPath(boundaries, "/data/hr"));
+        Assert.assertFalse(RangerHdfsSubtreeSummary.isOnBoundaryPath(boundaries, "/data/finance-archive"));
+
+        Assert.assertTrue(summary.getBoundaries("/data/hr", WRITE).isEmpty());
+        Assert.assertTrue(summary.getBoundaries("/data/finance/restricted", WRITE).isEmpty());
+        Assert.assertTrue(summary.getBoundaries("/tmp", WRITE).isEmpty());
+        Assert.assertEquals(Arrays.asList("/data", "/data/finance/restricted", "/data/sales"), new ArrayList<>(summary.getBoundaries("/", WRITE)));
+    }
+
+    @Test
+    public void testNotSummarizable() {
+        List<RangerPolicy> policies = Arrays.asList(
+                createPolicy("/data", true, "write"),
+                createPolicy("/data/*/staging", true, "write"),
+                createPolicy("/home/{USER}", true, "write"));
+
+        RangerHdfsSubtreeSummary summary = new RangerHdfsSubtreeSummary(1L, policies, true);
+
+        Assert.assertNull(summary.getBoundaries("/data", WRITE));
+        Assert.assertNull(summary.getBoundaries("/data/sales", WRITE));
+        Assert.assertNull(summary.getBoundaries("/home/alice", WRITE));
+        Assert.assertTrue(summary.getBoundaries("/data", Collections.singleton("read")).isEmpty());
+        Assert.assertEquals(Arrays.asList("/data", "/home"), new ArrayList<>(summary.getBoundaries("/", WRITE)));
+
+        Assert.assertNull(new RangerHdfsSubtreeSummary(1L, policies, false).getBoundaries("/tmp", WRITE));
+    }
+
+    private static RangerPolicy createPolicy(String path, boolean isRecursive, String accessType) {
+        RangerPolicy     policy     = new RangerPolicy();
+        RangerPolicyItem policyItem = new RangerPolicyItem();
+
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put(RangerHdfsAuthorizer.KEY_RESOURCE_PATH, new RangerPolicyResource(path, false, isRecursive));
+        policy.setResources(resources);
+
+        policyItem.setUsers(Collections.singletonList("alice"));
+        policyItem.setAccesses(Collections.singletonList(new RangerPolicyItemAccess(accessType)));
+        policy.setPolicyItems(Collections.singletonList(policyItem));
+
+        return policy;
+    }
+}
@@ -47,12 +47,15 @@
 import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -124,6 +127,8 @@ private static final class SecretKeyByteEntry {
     private Map<String, Object> keyEntries = new ConcurrentHashMap<>();
     private Map<String, Object> deltaEntries = new ConcurrentHashMap<>();
 
+    private static final int MAX_ALIASES_PER_QUERY = 500;
+
     RangerKeyStore() {
     }
 
@@ -528,109 +533,231 @@ public void engineLoad(InputStream stream, char[] password)
 			}
 
 			keyEntries.clear();
-			if (azureKeyVaultEnabled) {
-				for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
-					String encodedStr = rangerKey.getEncoded();
-					byte[] encodedByte = DatatypeConverter
-							.parseBase64Binary(encodedStr);
-					String alias;
-					SecretKeyByteEntry entry = new SecretKeyByteEntry();
-					alias = rangerKey.getAlias();
-					entry.date = new Date(rangerKey.getCreatedDate());
-					entry.cipher_field = rangerKey.getCipher();
-					entry.bit_length = rangerKey.getBitLength();
-					entry.description = rangerKey.getDescription();
-					entry.version = rangerKey.getVersion();
-					entry.attributes = rangerKey.getAttributes();
-					entry.key = encodedByte;
-					keyEntries.put(alias, entry);
+			loadEntries(rangerKeyDetails, password);
+		}
+	}
+
+	/**
+	 * Brings the key entries in sync with the database by loading only the keys that were added or changed since
+	 * they were last loaded, and dropping the keys deleted from the database. Changes are detected from the alias,
+	 * version and created-date of each key, which are read without the encoded keys.
+	 */
+	public void engineLoadIncremental(char[] password)
+			throws IOException, NoSuchAlgorithmException, CertificateException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> RangerKeyStore.engineLoadIncremental()");
+		}
+
+		synchronized (keyEntries) {
+			List<Object[]> keyVersions = keyEntries.isEmpty() ? null : dbOperationLoadVersions();
+
+			if (keyVersions == null) {
+				engineLoad(null, password);
+				return;
+			}
+
+			Set<String> dbAliases = new HashSet<>();
+			List<String> changedAliases = new ArrayList<>();
+
+			for (Object[] keyVersion : keyVersions) {
+				String alias = (String) keyVersion[0];
+				Number version = (Number) keyVersion[1];
+				Number createdDate = (Number) keyVersion[2];
+
+				dbAliases.add(alias);
+
+				if (!isLoaded(alias, version, createdDate)) {
+					changedAliases.add(alias);
 				}
-			} else {
-				DataInputStream dis;
-				MessageDigest md = null;
-				if (password != null) {
-					md = getKeyedMessageDigest(password);
+			}
+
+			for (String alias : new ArrayList<>(keyEntries.keySet())) {
+				if (!dbAliases.contains(alias) && !deltaEntries.containsKey(alias)) {
+					keyEntries.remove(alias);
 				}
+			}
+
+			for (int i = 0; i < changedAliases.size(); i += MAX_ALIASES_PER_QUERY) {
+				List<XXRangerKeyStore> rangerKeyDetails = dbOperationLoad(changedAliases.subList(i, Math.min(i + MAX_ALIASES_PER_QUERY, changedAliases.size())));
 
-				byte computed[] = {};
-				if (md != null) {
-					computed = md.digest();
+				if (rangerKeyDetails != null) {
+					loadEntries(rangerKeyDetails, password);
 				}
-				for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+			}
 
-					String encoded = rangerKey.getEncoded();
-					byte[] data = DatatypeConverter.parseBase64Binary(encoded);
+			if (logger.isDebugEnabled()) {
+				logger.debug("<== RangerKeyStore.engineLoadIncremental(): keys=" + keyVersions.size() + ", loaded=" + changedAliases.size());
+			}
+		}
+	}
 
-					if (data != null && data.length > 0) {
-						stream = new ByteArrayInputStream(data);
-					} else {
-						logger.error("No Key found for alias "
-								+ rangerKey.getAlias());
-					}
+	/**
+	 * Loads a single key from the database.
+	 *
+	 * @return true if the key exists in the database
+	 */
+	public boolean engineLoadAlias(String alias, char[] password)
+			throws IOException, NoSuchAlgorithmException, CertificateException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> RangerKeyStore.engineLoadAlias(" + alias + ")");
+		}
 
-					if (computed != null) {
-						int counter = 0;
-						for (int i = computed.length - 1; i >= 0; i--) {
-							if (computed[i] != data[data.length - (1 + counter)]) {
-								Throwable t = new UnrecoverableKeyException(
-										"Password verification failed");
-								logger.error(
-										"Keystore was tampered with, or password was incorrect.",
-										t);
-								throw (IOException) new IOException(
-										"Keystore was tampered with, or "
-												+ "password was incorrect")
-										.initCause(t);
-							} else {
-								counter++;
-							}
-						}
-					}
+		synchronized (keyEntries) {
+			List<XXRangerKeyStore> rangerKeyDetails = dbOperationLoad(Collections.singletonList(convertAlias(alias)));
 
-					if (password != null) {
-						dis = new DataInputStream(new DigestInputStream(stream,
-								md));
-					} else {
-						dis = new DataInputStream(stream);
-					}
+			if (rangerKeyDetails == null || rangerKeyDetails.isEmpty()) {
+				return false;
+			}
 
-					ObjectInputStream ois = null;
-					try {
-						String alias;
+			loadEntries(rangerKeyDetails, password);
 
-						SecretKeyEntry entry = new SecretKeyEntry();
+			return true;
+		}
+	}
 
-						// read the alias
-						alias = rangerKey.getAlias();
-
-						// read the (entry creation) date
-						entry.date = new Date(rangerKey.getCreatedDate());
-						entry.cipher_field = rangerKey.getCipher();
-						entry.bit_length = rangerKey.getBitLength();
-						entry.description = rangerKey.getDescription();
-						entry.version = rangerKey.getVersion();
-						entry.attributes = rangerKey.getAttributes();
-						// read the sealed key
-						try {
-							ois = new ObjectInputStream(dis);
-							entry.sealedKey = (SealedObject) ois.readObject();
-						} catch (ClassNotFoundException cnfe) {
-							throw new IOException(cnfe.getMessage());
-						}
-						// Add the entry to the list
-						keyEntries.put(alias, entry);
-					} finally {
-						if (ois != null) {
-							ois.close();
+	private boolean isLoaded(String alias, Number version, Number createdDate) {
+		Object entry = keyEntries.get(alias);
+
+		if (entry instanceof SecretKeyEntry) {
+			SecretKeyEntry keyEntry = (SecretKeyEntry) entry;
+
+			return version != null && createdDate != null && keyEntry.version == version.intValue() && keyEntry.date.getTime() == createdDate.longValue();
+		} else if (entry instanceof SecretKeyByteEntry) {
+			SecretKeyByteEntry keyEntry = (SecretKeyByteEntry) entry;
+
+			return version != null && createdDate != null && keyEntry.version == version.intValue() && keyEntry.date.getTime() == createdDate.longValue();
+		}
+
+		return false;
+	}
+
+	private void loadEntries(List<XXRangerKeyStore> rangerKeyDetails, char[] password)
+			throws IOException, NoSuchAlgorithmException {
+		InputStream stream = null;
+		if (azureKeyVaultEnabled) {
+			for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+				String encodedStr = rangerKey.getEncoded();
+				byte[] encodedByte = DatatypeConverter
+						.parseBase64Binary(encodedStr);
+				String alias;
+				SecretKeyByteEntry entry = new SecretKeyByteEntry();
+				alias = rangerKey.getAlias();
+				entry.date = new Date(rangerKey.getCreatedDate());
+				entry.cipher_field = rangerKey.getCipher();
+				entry.bit_length = rangerKey.getBitLength();
+				entry.description = rangerKey.getDescription();
+				entry.version = rangerKey.getVersion();
+				entry.attributes = rangerKey.getAttributes();
+				entry.key = encodedByte;
+				keyEntries.put(alias, entry);
+			}
+		} else {
+			DataInputStream dis;
+			MessageDigest md = null;
+			if (password != null) {
+				md = getKeyedMessageDigest(password);
+			}
+
+			byte computed[] = {};
+			if (md != null) {
+				computed = md.digest();
+			}
+			for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+
+				String encoded = rangerKey.getEncoded();
+				byte[] data = DatatypeConverter.parseBase64Binary(encoded);
+
+				if (data != null && data.length > 0) {
+					stream = new ByteArrayInputStream(data);
+				} else {
+					logger.error("No Key found for alias "
+							+ rangerKey.getAlias());
+				}
+
+				if (computed != null) {
+					int counter = 0;
+					for (int i = computed.length - 1; i >= 0; i--) {
+						if (computed[i] != data[data.length - (1 + counter)]) {
+							Throwable t = new UnrecoverableKeyException(
+									"Password verification failed");
+							logger.error(
+									"Keystore was tampered with, or password was incorrect.",
+									t);
+							throw (IOException) new IOException(
+									"Keystore was tampered with, or "
+											+ "password was incorrect")
+									.initCause(t);
 						} else {
-							dis.close();
+							counter++;
 						}
 					}
 				}
+
+				if (password != null) {
+					dis = new DataInputStream(new DigestInputStream(stream,
+							md));
+				} else {
+					dis = new DataInputStream(stream);
+				}
+
+				ObjectInputStream ois = null;
+				try {
+					String alias;
+
+					SecretKeyEntry entry = new SecretKeyEntry();
+
+					// read the alias
+					alias = rangerKey.getAlias();
+
+					// read the (entry creation) date
+					entry.date = new Date(rangerKey.getCreatedDate());
+					entry.cipher_field = rangerKey.getCipher();
+					entry.bit_length = rangerKey.getBitLength();
+					entry.description = rangerKey.getDescription();
+					entry.version = rangerKey.getVersion();
+					entry.attributes = rangerKey.getAttributes();
+					// read the sealed key
+					try {
+						ois = new ObjectInputStream(dis);
+						entry.sealedKey = (SealedObject) ois.readObject();
+					} catch (ClassNotFoundException cnfe) {
+						throw new IOException(cnfe.getMessage());
+					}
+					// Add the entry to the list
+					keyEntries.put(alias, entry);
+				} finally {
+					if (ois != null) {
+						ois.close();
+					} else {
+						dis.close();
+					}
+				}
 			}
 		}
 	}
 
+    private List<XXRangerKeyStore> dbOperationLoad(List<String> aliases) {
+        try {
+            if (daoManager != null) {
+                return new RangerKMSDao(daoManager).findByAliases(aliases);
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationLoad(" + aliases + ") error:", e);
+        }
+        return null;
+    }
+
+    private List<Object[]> dbOperationLoadVersions() {
+        try {
+            if (daoManager != null) {
+                return new RangerKMSDao(daoManager).getAllKeyVersions();
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationLoadVersions() error:", e);
+        }
+        return null;
+    }
+
     private List<XXRangerKeyStore> dbOperationLoad() throws IOException {
     	if (logger.isDebugEnabled()) {
             logger.debug("==> RangerKeyStore.dbOperationLoad()");
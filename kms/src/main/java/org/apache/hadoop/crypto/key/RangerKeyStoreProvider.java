@@ -17,6 +17,10 @@
 
 package org.apache.hadoop.crypto.key;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.microsoft.azure.keyvault.KeyVaultClient;
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -31,11 +35,18 @@
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -79,6 +90,12 @@ public class RangerKeyStoreProvider extends KeyProvider {
 	private static final String AZURE_CLIENT_SECRET = "ranger.kms.azure.client.secret";
 	private static final String AZURE_KEYVAULT_CERTIFICATE_PATH = "ranger.kms.azure.keyvault.certificate.path";
 	private static final String AZURE_KEYVAULT_CERTIFICATE_PASSWORD = "ranger.kms.azure.keyvault.certificate.password";
+	private static final String KEY_MATERIAL_CACHE_TTL_MS = "ranger.kms.key.material.cache.ttl.ms";
+	private static final String KEY_MATERIAL_CACHE_MAX_SIZE = "ranger.kms.key.material.cache.max.size";
+	private static final long KEY_MATERIAL_CACHE_TTL_MS_DEFAULT = 10 * 60 * 1000L;
+	private static final long KEY_MATERIAL_CACHE_MAX_SIZE_DEFAULT = 1000L;
+	private static final String MISSING_KEY_CACHE_TTL_MS = "ranger.kms.missing.key.cache.ttl.ms";
+	private static final long MISSING_KEY_CACHE_TTL_MS_DEFAULT = 5 * 1000L;
 	private final RangerKeyStore dbStore;
 	private char[] masterKey;
 	private boolean changed = false;
@@ -86,6 +103,9 @@ public class RangerKeyStoreProvider extends KeyProvider {
 	private DaoManager daoManager;
 	private Lock readLock;
 	private boolean azureKeyVaultEnabled = false;
+	private Cache<String, CachedKeyMaterial> keyMaterialCache;
+	private Cache<String, Boolean> missingKeyCache;
+	private final ConcurrentMap<String, FutureTask<Boolean>> missingKeyLoads = new ConcurrentHashMap<String, FutureTask<Boolean>>();
 
 	public RangerKeyStoreProvider(Configuration conf) throws Throwable {
 		super(conf);
@@ -97,6 +117,13 @@ public RangerKeyStoreProvider(Configuration conf) throws Throwable {
 		getFromJceks(conf, CREDENTIAL_PATH, DB_CREDENTIAL_ALIAS, DB_PASSWORD);
 		getFromJceks(conf, CREDENTIAL_PATH, HSM_PARTITION_PASSWORD_ALIAS,
 				HSM_PARTITION_PASSWORD);
+		keyMaterialCache = createKeyMaterialCache(conf);
+		long missingKeyCacheTtlMs = conf.getLong(MISSING_KEY_CACHE_TTL_MS, MISSING_KEY_CACHE_TTL_MS_DEFAULT);
+		if (missingKeyCacheTtlMs > 0) {
+			missingKeyCache = CacheBuilder.newBuilder()
+					.expireAfterWrite(missingKeyCacheTtlMs, TimeUnit.MILLISECONDS)
+					.maximumSize(KEY_MATERIAL_CACHE_MAX_SIZE_DEFAULT).build();
+		}
 		RangerKMSDB rangerKMSDB = new RangerKMSDB(conf);
 		daoManager = rangerKMSDB.getDaoManager();
 
@@ -290,7 +317,62 @@ private void loadKeys(char[] masterKey) throws NoSuchAlgorithmException,
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> RangerKeyStoreProvider.loadKeys()");
 		}
-		dbStore.engineLoad(null, masterKey);
+		dbStore.engineLoadIncremental(masterKey);
+	}
+
+	/**
+	 * Loads a key missing from the key store. Concurrent lookups of the same key share one database load, and keys
+	 * found missing are remembered for a short while, so repeated lookups of an unknown key don't reach the database.
+	 *
+	 * @return true if the key was found in the database
+	 */
+	private boolean loadMissingKey(final String alias) throws IOException,
+			NoSuchAlgorithmException, CertificateException {
+		if (missingKeyCache != null && missingKeyCache.getIfPresent(alias) != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("RangerKeyStoreProvider.loadMissingKey(" + alias + "): recently found missing");
+			}
+			return false;
+		}
+
+		FutureTask<Boolean> load = new FutureTask<Boolean>(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				boolean found = dbStore.engineLoadAlias(alias, masterKey);
+				if (!found && missingKeyCache != null) {
+					missingKeyCache.put(alias, Boolean.TRUE);
+				}
+				return found;
+			}
+		});
+		FutureTask<Boolean> inProgress = missingKeyLoads.putIfAbsent(alias, load);
+
+		if (inProgress == null) {
+			try {
+				load.run();
+			} finally {
+				missingKeyLoads.remove(alias, load);
+			}
+		} else {
+			load = inProgress;
+		}
+
+		try {
+			return load.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading key " + alias, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof NoSuchAlgorithmException) {
+				throw (NoSuchAlgorithmException) cause;
+			} else if (cause instanceof CertificateException) {
+				throw (CertificateException) cause;
+			}
+			throw new IOException("Can't load key " + alias, cause);
+		}
 	}
 
 	@Override
@@ -347,6 +429,10 @@ KeyVersion innerSetKeyVersion(String name, String versionName,
 		} catch (Exception e) {
 			throw new IOException("Can't store key " + versionName, e);
 		}
+		if (missingKeyCache != null) {
+			missingKeyCache.invalidate(name);
+			missingKeyCache.invalidate(versionName);
+		}
 		changed = true;
 		if (logger.isDebugEnabled()) {
 			logger.debug("<== RangerKeyStoreProvider.innerSetKeyVersion()");
@@ -383,6 +469,7 @@ public void deleteKey(String name) throws IOException {
 					e);
 		}
 		cache.remove(name);
+		invalidateKeyMaterial(name);
 		changed = true;
 	}
 
@@ -449,11 +536,8 @@ public KeyVersion getKeyVersion(String versionName) throws IOException {
 			if (azureKeyVaultEnabled) {
 				byte[] decryptKeyByte = null;
 				try {
-					if (!dbStore.engineContainsAlias(versionName)) {
-						dbStore.engineLoad(null, masterKey);
-						if (!dbStore.engineContainsAlias(versionName)) {
-							return null;
-						}
+					if (!dbStore.engineContainsAlias(versionName) && !loadMissingKey(versionName)) {
+						return null;
 					}
 					try {
 						decryptKeyByte = dbStore
@@ -478,13 +562,15 @@ public KeyVersion getKeyVersion(String versionName) throws IOException {
 							e);
 				}
 			} else {
+				byte[] material = getCachedKeyMaterial(versionName);
+				if (material != null) {
+					return new KeyVersion(getBaseName(versionName),
+							versionName, material);
+				}
 				SecretKeySpec key = null;
 				try {
-					if (!dbStore.engineContainsAlias(versionName)) {
-						dbStore.engineLoad(null, masterKey);
-						if (!dbStore.engineContainsAlias(versionName)) {
-							return null;
-						}
+					if (!dbStore.engineContainsAlias(versionName) && !loadMissingKey(versionName)) {
+						return null;
 					}
 					key = (SecretKeySpec) dbStore.engineGetKey(versionName,
 							masterKey);
@@ -500,8 +586,10 @@ public KeyVersion getKeyVersion(String versionName) throws IOException {
 				if (key == null) {
 					return null;
 				} else {
+					material = key.getEncoded();
+					cacheKeyMaterial(versionName, material);
 					return new KeyVersion(getBaseName(versionName),
-							versionName, key.getEncoded());
+							versionName, material);
 				}
 			}
 		} finally {
@@ -553,11 +641,8 @@ public Metadata getMetadata(String name) throws IOException {
 				return meta;
 			}
 			try {
-				if (!dbStore.engineContainsAlias(name)) {
-					dbStore.engineLoad(null, masterKey);
-					if (!dbStore.engineContainsAlias(name)) {
-						return null;
-					}
+				if (!dbStore.engineContainsAlias(name) && !loadMissingKey(name)) {
+					return null;
 				}
 				if (azureKeyVaultEnabled) {
 					Metadata meta = dbStore.engineGetKeyMetadata(name);
@@ -604,11 +689,93 @@ public KeyVersion rollNewVersion(String name, byte[] material)
 		}
 		int nextVersion = meta.addVersion();
 		String versionName = buildVersionName(name, nextVersion);
+		invalidateKeyMaterial(name);
 		return innerSetKeyVersion(name, versionName, material,
 				meta.getCipher(), meta.getBitLength(), meta.getDescription(),
 				meta.getVersions(), meta.getAttributes());
 	}
 
+	@Override
+	public void invalidateCache(String name) throws IOException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> RangerKeyStoreProvider.invalidateCache(" + name + ")");
+		}
+		cache.remove(name);
+		if (missingKeyCache != null) {
+			missingKeyCache.invalidateAll();
+		}
+		invalidateKeyMaterial(name);
+	}
+
+	private static Cache<String, CachedKeyMaterial> createKeyMaterialCache(Configuration conf) {
+		long ttlMs = conf.getLong(KEY_MATERIAL_CACHE_TTL_MS, KEY_MATERIAL_CACHE_TTL_MS_DEFAULT);
+		long maxSize = conf.getLong(KEY_MATERIAL_CACHE_MAX_SIZE, KEY_MATERIAL_CACHE_MAX_SIZE_DEFAULT);
+
+		if (ttlMs <= 0 || maxSize <= 0) {
+			logger.info("Cache of unsealed key material is disabled");
+			return null;
+		}
+
+		logger.info("Cache of unsealed key material: ttlMs=" + ttlMs + ", maxSize=" + maxSize);
+
+		return CacheBuilder.newBuilder()
+				.expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+				.maximumSize(maxSize)
+				.removalListener(new RemovalListener<String, CachedKeyMaterial>() {
+					@Override
+					public void onRemoval(RemovalNotification<String, CachedKeyMaterial> entry) {
+						entry.getValue().destroy();
+					}
+				}).build();
+	}
+
+	private byte[] getCachedKeyMaterial(String versionName) {
+		CachedKeyMaterial cached = keyMaterialCache != null ? keyMaterialCache.getIfPresent(versionName) : null;
+
+		return cached != null ? cached.copy() : null;
+	}
+
+	private void cacheKeyMaterial(String versionName, byte[] material) {
+		if (keyMaterialCache != null && material != null && material.length > 0) {
+			keyMaterialCache.put(versionName, new CachedKeyMaterial(material));
+		}
+	}
+
+	// removes material of all versions of the given key
+	private void invalidateKeyMaterial(String name) {
+		if (keyMaterialCache != null) {
+			String versionPrefix = name + "@";
+
+			for (String versionName : keyMaterialCache.asMap().keySet()) {
+				if (versionName.startsWith(versionPrefix)) {
+					keyMaterialCache.invalidate(versionName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unsealed material of a key version. The material is zeroed when the entry is removed from the cache; callers
+	 * get copies, so a removal never changes material already handed out.
+	 */
+	private static final class CachedKeyMaterial {
+		private final byte[] material;
+		private boolean destroyed = false;
+
+		CachedKeyMaterial(byte[] material) {
+			this.material = Arrays.copyOf(material, material.length);
+		}
+
+		synchronized byte[] copy() {
+			return destroyed ? null : Arrays.copyOf(material, material.length);
+		}
+
+		synchronized void destroy() {
+			Arrays.fill(material, (byte) 0);
+			destroyed = true;
+		}
+	}
+
 	private static void getFromJceks(Configuration conf, String path,
 			String alias, String key) {
 		if (logger.isDebugEnabled()) {
@@ -637,6 +804,12 @@ private void reloadKeys() throws IOException {
 		}
 		try {
 			cache.clear();
+			if (keyMaterialCache != null) {
+				keyMaterialCache.invalidateAll();
+			}
+			if (missingKeyCache != null) {
+				missingKeyCache.invalidateAll();
+			}
 			loadKeys(masterKey);
 		} catch (NoSuchAlgorithmException e) {
 			throw new IOException("Can't load Keys");
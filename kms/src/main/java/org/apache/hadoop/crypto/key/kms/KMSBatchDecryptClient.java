@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.crypto.key.kms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.security.authorize.AuthorizationException;
+import org.apache.hadoop.security.token.delegation.web.DelegationTokenAuthenticatedURL;
+import org.apache.hadoop.util.KMSUtil;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client for the batch decrypt operation of the KMS
+ * (POST /v1/key/&lt;name&gt;/_decryptbatch). Encrypted keys are grouped by key
+ * name and sent in batches of up to maxBatchSize keys per request, instead of
+ * one request per encrypted key.
+ */
+@InterfaceAudience.Public
+public class KMSBatchDecryptClient {
+  static final Logger LOG = LoggerFactory.getLogger(KMSBatchDecryptClient.class);
+
+  public static final String DECRYPT_BATCH_SUB_RESOURCE = "_decryptbatch";
+
+  public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+
+  private final String kmsUrl;
+  private final int maxBatchSize;
+
+  /**
+   * @param kmsUrl URL of the KMS web application, like http://host:9292/kms
+   */
+  public KMSBatchDecryptClient(String kmsUrl) {
+    this(kmsUrl, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  public KMSBatchDecryptClient(String kmsUrl, int maxBatchSize) {
+    this.kmsUrl = kmsUrl.endsWith("/") ? kmsUrl.substring(0, kmsUrl.length() - 1) : kmsUrl;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * @return decrypted keys, in the order of the given encrypted keys
+   * @throws AuthorizationException if the user is not authorized to decrypt
+   *         the encrypted keys of one of the keys
+   */
+  public List<KeyVersion> decryptEncryptedKeys(List<EncryptedKeyVersion> ekvs)
+      throws IOException {
+    KeyVersion[] ret = new KeyVersion[ekvs.size()];
+    Map<String, List<Integer>> positionsByKey = new LinkedHashMap<String, List<Integer>>();
+
+    for (int i = 0; i < ekvs.size(); i++) {
+      String keyName = ekvs.get(i).getEncryptionKeyName();
+      List<Integer> positions = positionsByKey.get(keyName);
+      if (positions == null) {
+        positions = new ArrayList<Integer>();
+        positionsByKey.put(keyName, positions);
+      }
+      positions.add(i);
+    }
+
+    for (Map.Entry<String, List<Integer>> entry : positionsByKey.entrySet()) {
+      List<Integer> positions = entry.getValue();
+
+      for (int from = 0; from < positions.size(); from += maxBatchSize) {
+        List<Integer> batch = positions.subList(from, Math.min(from + maxBatchSize, positions.size()));
+        List<EncryptedKeyVersion> batchEkvs = new ArrayList<EncryptedKeyVersion>(batch.size());
+        for (Integer position : batch) {
+          batchEkvs.add(ekvs.get(position));
+        }
+
+        List<KeyVersion> decrypted = decryptBatch(entry.getKey(), batchEkvs);
+        if (decrypted.size() != batch.size()) {
+          throw new IOException("Expected " + batch.size() + " decrypted keys for key " + entry.getKey() + ", got " + decrypted.size());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+          ret[batch.get(i)] = decrypted.get(i);
+        }
+      }
+    }
+
+    return Arrays.asList(ret);
+  }
+
+  @SuppressWarnings("rawtypes")
+  private List<KeyVersion> decryptBatch(String keyName, List<EncryptedKeyVersion> ekvs)
+      throws IOException {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Sending {} encrypted keys of key {} for decryption", ekvs.size(), keyName);
+    }
+    List<Map> jsonPayload = new ArrayList<Map>(ekvs.size());
+    for (EncryptedKeyVersion ekv : ekvs) {
+      jsonPayload.add(KMSUtil.toJSON(ekv));
+    }
+
+    final URL url = new URL(kmsUrl + KMSRESTConstants.SERVICE_VERSION + "/" +
+        KMSRESTConstants.KEY_RESOURCE + "/" + URLEncoder.encode(keyName, "UTF-8") +
+        "/" + DECRYPT_BATCH_SUB_RESOURCE);
+
+    HttpURLConnection conn = openConnection(url);
+    try {
+      conn.setRequestMethod("POST");
+      conn.setDoOutput(true);
+      conn.setRequestProperty("Content-Type", "application/json");
+      OutputStream out = conn.getOutputStream();
+      try {
+        JsonUtilsV2.getMapper().writeValue(out, jsonPayload);
+      } finally {
+        out.close();
+      }
+
+      if (conn.getResponseCode() == HttpURLConnection.HTTP_FORBIDDEN) {
+        throw new AuthorizationException("Batch decrypt of key " + keyName +
+            " failed: " + conn.getResponseMessage());
+      }
+      if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Batch decrypt of key " + keyName + " failed: HTTP " +
+            conn.getResponseCode() + " " + conn.getResponseMessage());
+      }
+
+      List<KeyVersion> ret = new ArrayList<KeyVersion>(ekvs.size());
+      InputStream in = conn.getInputStream();
+      try {
+        List response = JsonUtilsV2.getMapper().readValue(in, List.class);
+        for (Object keyVersion : response) {
+          ret.add(KMSUtil.parseJSONKeyVersion((Map) keyVersion));
+        }
+      } finally {
+        in.close();
+      }
+      return ret;
+    } finally {
+      conn.disconnect();
+    }
+  }
+
+  HttpURLConnection openConnection(final URL url) throws IOException {
+    try {
+      return UserGroupInformation.getCurrentUser().doAs(new PrivilegedExceptionAction<HttpURLConnection>() {
+        @Override
+        public HttpURLConnection run() throws Exception {
+          return new DelegationTokenAuthenticatedURL().openConnection(url, new DelegationTokenAuthenticatedURL.Token());
+        }
+      });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+}
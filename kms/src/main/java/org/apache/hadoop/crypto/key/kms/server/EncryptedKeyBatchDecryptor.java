@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.crypto.key.kms.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.crypto.CryptoCodec;
+import org.apache.hadoop.crypto.Decryptor;
+import org.apache.hadoop.crypto.key.KeyProvider;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSClientProvider;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Decrypts a batch of encrypted keys, looking up the material of each encryption key version once for the batch and
+ * sharing one crypto codec, instead of one lookup and codec per encrypted key. The decryption itself is the same as
+ * in {@link KeyProviderCryptoExtension#decryptEncryptedKey(EncryptedKeyVersion)}.
+ */
+@InterfaceAudience.Private
+public final class EncryptedKeyBatchDecryptor {
+
+  private EncryptedKeyBatchDecryptor() {
+  }
+
+  /**
+   * @return decrypted keys, in the order of the given encrypted keys
+   */
+  public static List<KeyVersion> decryptEncryptedKeys(KeyProvider keyProvider,
+      List<EncryptedKeyVersion> ekvs) throws IOException, GeneralSecurityException {
+    List<KeyVersion> ret = new ArrayList<KeyVersion>(ekvs.size());
+
+    if (ekvs.isEmpty()) {
+      return ret;
+    }
+
+    Map<String, KeyVersion> encryptionKeys = new HashMap<String, KeyVersion>();
+
+    try (CryptoCodec cc = CryptoCodec.getInstance(keyProvider.getConf())) {
+      final Decryptor decryptor = cc.createDecryptor();
+
+      for (EncryptedKeyVersion ekv : ekvs) {
+        final String encryptionKeyVersionName = ekv.getEncryptionKeyVersionName();
+        KeyVersion encryptionKey = encryptionKeys.get(encryptionKeyVersionName);
+
+        if (encryptionKey == null) {
+          encryptionKey = keyProvider.getKeyVersion(encryptionKeyVersionName);
+          Preconditions.checkNotNull(encryptionKey,
+              "KeyVersion name '%s' does not exist", encryptionKeyVersionName);
+          encryptionKeys.put(encryptionKeyVersionName, encryptionKey);
+        }
+
+        Preconditions.checkArgument(
+            ekv.getEncryptedKeyVersion().getVersionName().equals(KeyProviderCryptoExtension.EEK),
+            "encryptedKey version name must be '%s', but found '%s'",
+            KeyProviderCryptoExtension.EEK, ekv.getEncryptedKeyVersion().getVersionName());
+
+        ret.add(decryptEncryptedKey(decryptor, encryptionKey, ekv));
+      }
+    }
+
+    return ret;
+  }
+
+  private static KeyVersion decryptEncryptedKey(Decryptor decryptor,
+      KeyVersion encryptionKey, EncryptedKeyVersion ekv) throws IOException {
+    final byte[] iv = EncryptedKeyVersion.deriveIV(ekv.getEncryptedKeyIv());
+    final KeyVersion encryptedKV = ekv.getEncryptedKeyVersion();
+    int keyLen = encryptedKV.getMaterial().length;
+    ByteBuffer bbIn = ByteBuffer.allocateDirect(keyLen);
+    ByteBuffer bbOut = ByteBuffer.allocateDirect(keyLen);
+    decryptor.init(encryptionKey.getMaterial(), iv);
+    bbIn.put(encryptedKV.getMaterial());
+    bbIn.flip();
+    decryptor.decrypt(bbIn, bbOut);
+    bbOut.flip();
+    byte[] decryptedKey = new byte[keyLen];
+    bbOut.get(decryptedKey);
+    return new KMSClientProvider.KMSKeyVersion(encryptionKey.getName(), KeyProviderCryptoExtension.EK, decryptedKey);
+  }
+}
@@ -27,6 +27,7 @@
 import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
 import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
 import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSBatchDecryptClient;
 import org.apache.hadoop.crypto.key.kms.KMSRESTConstants;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -74,9 +75,12 @@ public static enum KMSOp {
     CREATE_KEY, DELETE_KEY, ROLL_NEW_VERSION, INVALIDATE_CACHE,
     GET_KEYS, GET_KEYS_METADATA,
     GET_KEY_VERSIONS, GET_METADATA, GET_KEY_VERSION, GET_CURRENT_KEY,
-    GENERATE_EEK, DECRYPT_EEK, REENCRYPT_EEK, REENCRYPT_EEK_BATCH
+    GENERATE_EEK, DECRYPT_EEK, REENCRYPT_EEK, REENCRYPT_EEK_BATCH,
+    DECRYPT_EEK_BATCH
   }
 
+  public static final String DECRYPT_BATCH_SUB_RESOURCE = KMSBatchDecryptClient.DECRYPT_BATCH_SUB_RESOURCE;
+
   private static final String KEY_NAME_VALIDATION = "[a-z,A-Z,0-9](?!.*--)(?!.*__)(?!.*-_)(?!.*_-)[\\w\\-\\_]*";
 
   private KeyProviderCryptoExtension provider;
@@ -587,6 +591,61 @@ public Void run() throws Exception {
     }
   }
 
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  @POST
+  @Path(KMSRESTConstants.KEY_RESOURCE + "/{name:.*}/" +
+      DECRYPT_BATCH_SUB_RESOURCE)
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response decryptEncryptedKeys(
+      @PathParam("name") final String name,
+      final List<Map> jsonPayload, @Context HttpServletRequest request)
+      throws Exception {
+    try {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Entering decryptEncryptedKeys method.");
+      }
+      final Stopwatch sw = Stopwatch.createStarted();
+      checkNotEmpty(name, "name");
+      checkNotNull(jsonPayload, "jsonPayload");
+      final UserGroupInformation user = HttpUserGroupInformation.get();
+      KMSWebApp.getDecryptEEKBatchCallsMeter().mark();
+      if (jsonPayload.size() > MAX_NUM_PER_BATCH) {
+        LOG.warn("Payload size {} too big for decryptEncryptedKeys from"
+        + " user {}.", jsonPayload.size(), user);
+      }
+      assertAccess(Type.DECRYPT_EEK, user, KMSOp.DECRYPT_EEK_BATCH, name, request.getRemoteAddr());
+      LOG.debug("Batch decrypting {} Encrypted Keys for key name {}", jsonPayload.size(), name);
+      final List<EncryptedKeyVersion> ekvs = KMSUtil.parseJSONEncKeyVersions(name, jsonPayload);
+      Preconditions.checkArgument(ekvs.size() == jsonPayload.size(),"EncryptedKey size mismatch after parsing from json");
+      for (EncryptedKeyVersion ekv : ekvs) {
+        Preconditions.checkArgument(name.equals(ekv.getEncryptionKeyName()),"All EncryptedKeys must be under the given key name " + name);
+      }
+      List<KeyVersion> retKeyVersions = user.doAs(new PrivilegedExceptionAction<List<KeyVersion>>() {
+        @Override
+        public List<KeyVersion> run() throws Exception {
+          if (provider instanceof KeyAuthorizationKeyProvider) {
+            return ((KeyAuthorizationKeyProvider) provider).decryptEncryptedKeys(ekvs);
+          }
+          return EncryptedKeyBatchDecryptor.decryptEncryptedKeys(provider, ekvs);
+        }
+      });
+      List retJSON = new ArrayList<>(retKeyVersions.size());
+      for (KeyVersion retKeyVersion : retKeyVersions) {
+        retJSON.add(KMSUtil.toJSON(retKeyVersion));
+      }
+      kmsAudit.ok(user, KMSOp.DECRYPT_EEK_BATCH, name, "decrypted " + ekvs.size() + " keys");
+      LOG.info("decryptEncryptedKeys {} keys for key {} took {}", jsonPayload.size(), name, sw.stop());
+      if (LOG.isDebugEnabled()) {
+          LOG.debug("Exiting decryptEncryptedKeys method.");
+      }
+      return Response.ok().type(MediaType.APPLICATION_JSON).entity(retJSON).build();
+    } catch (Exception e) {
+      LOG.error("Exception in decryptEncryptedKeys.", e);
+      throw e;
+    }
+  }
+
   @SuppressWarnings("rawtypes")
   @POST
   @Path(KMSRESTConstants.KEY_VERSION_RESOURCE + "/{versionName:.*}/" +
@@ -78,6 +78,13 @@ public class KMSConfiguration {
 
   public static final boolean KEY_AUTHORIZATION_ENABLE_DEFAULT = true;
 
+  // Property to Enable/Disable latency histograms of perf-traced operations,
+  // exposed via JMX and the /prometheus endpoint
+  public static final String PERF_METRICS_ENABLE = CONFIG_PREFIX +
+      "perf.metrics.enable";
+
+  public static final boolean PERF_METRICS_ENABLE_DEFAULT = true;
+
   static Configuration getConfiguration(boolean loadHadoopDefaults,
       String ... resources) {
     Configuration conf = new Configuration(loadHadoopDefaults);
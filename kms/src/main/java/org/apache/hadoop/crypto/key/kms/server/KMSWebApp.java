@@ -32,6 +32,7 @@
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.VersionInfo;
 import org.apache.log4j.PropertyConfigurator;
+import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
@@ -68,6 +69,8 @@ public class KMSWebApp implements ServletContextListener {
       "reencrypt_eek.calls.meter";
   private static final String REENCRYPT_EEK_BATCH_METER = METRICS_PREFIX +
         "reencrypt_eek_batch.calls.meter";
+  private static final String DECRYPT_EEK_BATCH_METER = METRICS_PREFIX +
+        "decrypt_eek_batch.calls.meter";
 
   private static Logger LOG;
   private static MetricRegistry metricRegistry;
@@ -82,6 +85,7 @@ public class KMSWebApp implements ServletContextListener {
   private static Meter decryptEEKCallsMeter;
   private static Meter reencryptEEKCallsMeter;
   private static Meter reencryptEEKBatchCallsMeter;
+  private static Meter decryptEEKBatchCallsMeter;
   private static Meter generateEEKCallsMeter;
   private static Meter invalidCallsMeter;
   private static KMSAudit kmsAudit;
@@ -150,6 +154,8 @@ public void contextInitialized(ServletContextEvent sce) {
           new Meter());
       reencryptEEKBatchCallsMeter = metricRegistry.register(REENCRYPT_EEK_BATCH_METER,
           new Meter());
+      decryptEEKBatchCallsMeter = metricRegistry.register(DECRYPT_EEK_BATCH_METER,
+          new Meter());
       adminCallsMeter = metricRegistry.register(ADMIN_CALLS_METER, new Meter());
       keyCallsMeter = metricRegistry.register(KEY_CALLS_METER, new Meter());
       invalidCallsMeter = metricRegistry.register(INVALID_CALLS_METER,
@@ -161,6 +167,11 @@ public void contextInitialized(ServletContextEvent sce) {
 
       kmsAudit = new KMSAudit(kmsConf);
 
+      if (kmsConf.getBoolean(KMSConfiguration.PERF_METRICS_ENABLE,
+          KMSConfiguration.PERF_METRICS_ENABLE_DEFAULT)) {
+        PerfDataRecorder.initialize(null, true);
+      }
+
 
       // intializing the KeyProvider
       String providerString = kmsConf.get(KMSConfiguration.KEY_PROVIDER_URI);
@@ -296,6 +307,10 @@ public static Meter getReencryptEEKBatchCallsMeter() {
     return reencryptEEKBatchCallsMeter;
   }
 
+  public static Meter getDecryptEEKBatchCallsMeter() {
+    return decryptEEKBatchCallsMeter;
+  }
+
   public static Meter getUnauthorizedCallsMeter() {
     return unauthorizedCallsMeter;
   }
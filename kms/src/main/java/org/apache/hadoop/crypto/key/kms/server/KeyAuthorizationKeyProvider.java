@@ -21,8 +21,10 @@
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -273,6 +275,31 @@ public KeyVersion decryptEncryptedKey(EncryptedKeyVersion encryptedKeyVersion)
 	  }
   }
 
+  /**
+   * Decrypts a batch of encrypted keys, with one access check per key and one
+   * key material lookup per key version.
+   */
+  public List<KeyVersion> decryptEncryptedKeys(List<EncryptedKeyVersion> ekvs)
+          throws IOException, GeneralSecurityException {
+    readLock.lock();
+    try {
+      Set<String> keyNames = new HashSet<String>();
+      Set<String> keyVersionNames = new HashSet<String>();
+      for (EncryptedKeyVersion ekv : ekvs) {
+        if (keyVersionNames.add(ekv.getEncryptionKeyVersionName())) {
+          verifyKeyVersionBelongsToKey(ekv);
+        }
+        keyNames.add(ekv.getEncryptionKeyName());
+      }
+      for (String keyName : keyNames) {
+        doAccessCheck(keyName, KeyOpType.DECRYPT_EEK);
+      }
+      return EncryptedKeyBatchDecryptor.decryptEncryptedKeys(provider, ekvs);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
   @Override
   public KeyVersion getKeyVersion(String versionName) throws IOException {
 	  KeyVersion keyVersion = provider.getKeyVersion(versionName);
@@ -17,6 +17,7 @@
 
 package org.apache.ranger.kms.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.ranger.entity.XXRangerKeyStore;
@@ -39,4 +40,17 @@ public List<XXRangerKeyStore> getAllKeys(){
 		List<XXRangerKeyStore> xxr = super.getAllKeys("XXRangerKeyStore.getAllKeys");
 		return xxr;
 	}
+
+	/**
+	 * @return alias, version and created-date of every key, without the encoded key
+	 */
+	public List<Object[]> getAllKeyVersions(){
+		return getEntityManager().createNamedQuery("XXRangerKeyStore.getAllKeyVersions", Object[].class)
+				.setHint("eclipselink.refresh", "true").getResultList();
+	}
+
+	public List<XXRangerKeyStore> findByAliases(Collection<String> aliases){
+		return getEntityManager().createNamedQuery("XXRangerKeyStore.findByAliases", XXRangerKeyStore.class)
+				.setParameter("aliases", aliases).setHint("eclipselink.refresh", "true").getResultList();
+	}
 }
@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.crypto.key.kms;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProvider;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.UserProvider;
+import org.apache.hadoop.crypto.key.kms.server.KeyAuthorizationKeyProvider;
+import org.apache.hadoop.crypto.key.kms.server.KeyAuthorizationKeyProvider.KeyACLs;
+import org.apache.hadoop.crypto.key.kms.server.KeyAuthorizationKeyProvider.KeyOpType;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.security.authorize.AuthorizationException;
+import org.apache.hadoop.util.KMSUtil;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests KMSBatchDecryptClient against an embedded server that serves the
+ * _decryptbatch operation the way the KMS does: the request is decrypted by
+ * KeyAuthorizationKeyProvider, as the user given by the pseudo authentication
+ * of the request.
+ */
+public class TestKMSBatchDecryptClient {
+
+  private static final String KEY1 = "key1";
+  private static final String KEY2 = "key2";
+
+  private final Map<String, Set<String>> decryptUsers = new HashMap<String, Set<String>>();
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  private KeyProviderCryptoExtension keyProvider;
+  private KeyAuthorizationKeyProvider serverKeyProvider;
+  private HttpServer server;
+  private String kmsUrl;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new Configuration();
+    KeyProvider kp = new UserProvider.Factory().createProvider(new URI("user:///"), conf);
+
+    keyProvider = KeyProviderCryptoExtension.createKeyProviderCryptoExtension(kp);
+
+    KeyProvider.Options options = new KeyProvider.Options(conf);
+    options.setCipher("AES");
+    options.setBitLength(128);
+
+    keyProvider.createKey(KEY1, options);
+    keyProvider.createKey(KEY2, options);
+
+    decryptUsers.put(KEY1, new HashSet<String>(Arrays.asList("alice", "bob")));
+    decryptUsers.put(KEY2, new HashSet<String>(Collections.singletonList("alice")));
+
+    KeyACLs acls = mock(KeyACLs.class);
+    when(acls.isACLPresent(anyString(), any(KeyOpType.class))).thenReturn(true);
+    when(acls.hasAccessToKey(anyString(), any(UserGroupInformation.class), any(KeyOpType.class))).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        Set<String> users = decryptUsers.get((String) args[0]);
+
+        return args[2] == KeyOpType.DECRYPT_EEK && users != null && users.contains(((UserGroupInformation) args[1]).getShortUserName());
+      }
+    });
+
+    serverKeyProvider = new KeyAuthorizationKeyProvider(keyProvider, acls);
+
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/kms", new MiniKMSHandler());
+    server.start();
+
+    kmsUrl = "http://localhost:" + server.getAddress().getPort() + "/kms";
+  }
+
+  @After
+  public void tearDown() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void testBatchDecrypt() throws Exception {
+    List<EncryptedKeyVersion> ekvs = new ArrayList<EncryptedKeyVersion>();
+
+    for (int i = 0; i < 3; i++) {
+      ekvs.add(keyProvider.generateEncryptedKey(KEY1));
+      ekvs.add(keyProvider.generateEncryptedKey(KEY2));
+    }
+
+    keyProvider.rollNewVersion(KEY1);
+
+    for (int i = 0; i < 2; i++) {
+      ekvs.add(keyProvider.generateEncryptedKey(KEY1));
+    }
+
+    List<KeyVersion> decrypted = createClient("alice", 2).decryptEncryptedKeys(ekvs);
+
+    Assert.assertEquals(ekvs.size(), decrypted.size());
+
+    for (int i = 0; i < ekvs.size(); i++) {
+      KeyVersion expected = keyProvider.decryptEncryptedKey(ekvs.get(i));
+
+      Assert.assertEquals(expected.getName(), decrypted.get(i).getName());
+      Assert.assertArrayEquals(expected.getMaterial(), decrypted.get(i).getMaterial());
+    }
+
+    // 5 encrypted keys of key1 and 3 of key2, in batches of 2
+    Assert.assertEquals(5, requestCount.get());
+  }
+
+  @Test
+  public void testAclRejectsIndividualKey() throws Exception {
+    EncryptedKeyVersion key1Ekv = keyProvider.generateEncryptedKey(KEY1);
+    EncryptedKeyVersion key2Ekv = keyProvider.generateEncryptedKey(KEY2);
+
+    KMSBatchDecryptClient client = createClient("bob", KMSBatchDecryptClient.DEFAULT_MAX_BATCH_SIZE);
+
+    List<KeyVersion> decrypted = client.decryptEncryptedKeys(Collections.singletonList(key1Ekv));
+
+    Assert.assertArrayEquals(keyProvider.decryptEncryptedKey(key1Ekv).getMaterial(), decrypted.get(0).getMaterial());
+
+    try {
+      client.decryptEncryptedKeys(Arrays.asList(key1Ekv, key2Ekv));
+      Assert.fail("bob should not be authorized to decrypt keys of " + KEY2);
+    } catch (AuthorizationException excp) {
+      Assert.assertTrue(excp.getMessage(), excp.getMessage().contains(KEY2));
+    }
+
+    try {
+      createClient("eve", KMSBatchDecryptClient.DEFAULT_MAX_BATCH_SIZE).decryptEncryptedKeys(Collections.singletonList(key1Ekv));
+      Assert.fail("eve should not be authorized to decrypt keys of " + KEY1);
+    } catch (AuthorizationException excp) {
+      Assert.assertTrue(excp.getMessage(), excp.getMessage().contains(KEY1));
+    }
+  }
+
+  @Test
+  public void testPartialFailure() throws Exception {
+    EncryptedKeyVersion key1Ekv = keyProvider.generateEncryptedKey(KEY1);
+    EncryptedKeyVersion key2Ekv = keyProvider.generateEncryptedKey(KEY2);
+
+    // claims to be an encrypted key of key1, but was encrypted with a version of key2
+    EncryptedKeyVersion mismatchedEkv = EncryptedKeyVersion.createForDecryption(KEY1,
+        key2Ekv.getEncryptionKeyVersionName(), key2Ekv.getEncryptedKeyIv(),
+        key2Ekv.getEncryptedKeyVersion().getMaterial());
+
+    KMSBatchDecryptClient client = createClient("alice", KMSBatchDecryptClient.DEFAULT_MAX_BATCH_SIZE);
+
+    try {
+      client.decryptEncryptedKeys(Arrays.asList(key2Ekv, key1Ekv, mismatchedEkv));
+      Assert.fail("batch with an encrypted key of another key should fail");
+    } catch (AuthorizationException excp) {
+      Assert.fail("unexpected authorization failure: " + excp);
+    } catch (IOException excp) {
+      Assert.assertTrue(excp.getMessage(), excp.getMessage().contains(KEY1));
+    }
+
+    // the failure of a batch doesn't affect other requests of the same keys
+    List<KeyVersion> decrypted = client.decryptEncryptedKeys(Arrays.asList(key2Ekv, key1Ekv));
+
+    Assert.assertArrayEquals(keyProvider.decryptEncryptedKey(key2Ekv).getMaterial(), decrypted.get(0).getMaterial());
+    Assert.assertArrayEquals(keyProvider.decryptEncryptedKey(key1Ekv).getMaterial(), decrypted.get(1).getMaterial());
+  }
+
+  private KMSBatchDecryptClient createClient(final String user, int maxBatchSize) {
+    return new KMSBatchDecryptClient(kmsUrl, maxBatchSize) {
+      @Override
+      HttpURLConnection openConnection(URL url) throws IOException {
+        // pseudo authentication, as accepted by the KMS with simple authentication
+        return (HttpURLConnection) new URL(url + "?user.name=" + user).openConnection();
+      }
+    };
+  }
+
+  private class MiniKMSHandler implements HttpHandler {
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void handle(HttpExchange exchange) throws IOException {
+      requestCount.incrementAndGet();
+
+      String prefix = "/kms" + KMSRESTConstants.SERVICE_VERSION + "/" + KMSRESTConstants.KEY_RESOURCE + "/";
+      String suffix = "/" + KMSBatchDecryptClient.DECRYPT_BATCH_SUB_RESOURCE;
+      String path = exchange.getRequestURI().getPath();
+      String query = exchange.getRequestURI().getQuery();
+      int status;
+      byte[] body = new byte[0];
+
+      try {
+        if (!"POST".equals(exchange.getRequestMethod()) || !path.startsWith(prefix) || !path.endsWith(suffix) ||
+            query == null || !query.startsWith("user.name=")) {
+          status = HttpURLConnection.HTTP_NOT_FOUND;
+        } else {
+          String name = path.substring(prefix.length(), path.length() - suffix.length());
+          List payload = JsonUtilsV2.getMapper().readValue(exchange.getRequestBody(), List.class);
+          final List<EncryptedKeyVersion> ekvs = KMSUtil.parseJSONEncKeyVersions(name, payload);
+          UserGroupInformation user = UserGroupInformation.createRemoteUser(query.substring("user.name=".length()));
+
+          List<KeyVersion> keyVersions = user.doAs(new PrivilegedExceptionAction<List<KeyVersion>>() {
+            @Override
+            public List<KeyVersion> run() throws Exception {
+              return serverKeyProvider.decryptEncryptedKeys(ekvs);
+            }
+          });
+
+          List<Map> ret = new ArrayList<Map>(keyVersions.size());
+          for (KeyVersion keyVersion : keyVersions) {
+            ret.add(KMSUtil.toJSON(keyVersion));
+          }
+
+          body = JsonUtilsV2.getMapper().writeValueAsBytes(ret);
+          status = HttpURLConnection.HTTP_OK;
+        }
+      } catch (AuthorizationException excp) {
+        status = HttpURLConnection.HTTP_FORBIDDEN;
+      } catch (IllegalArgumentException excp) {
+        status = HttpURLConnection.HTTP_BAD_REQUEST;
+      } catch (Exception excp) {
+        status = HttpURLConnection.HTTP_INTERNAL_ERROR;
+      }
+
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+
+      OutputStream out = exchange.getResponseBody();
+      try {
+        out.write(body);
+      } finally {
+        out.close();
+      }
+    }
+  }
+}
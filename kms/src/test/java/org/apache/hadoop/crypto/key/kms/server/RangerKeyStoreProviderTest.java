@@ -151,4 +151,74 @@ public void testRolloverKey() throws Throwable {
 
     }
 
+    @Test
+    public void testGetKeyVersionFromCache() throws Throwable {
+    	if (!UNRESTRICTED_POLICIES_INSTALLED) {
+    		return;
+    	}
+
+        Path configDir = Paths.get("src/test/resources/kms");
+        System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, configDir.toFile().getAbsolutePath());
+
+        Configuration conf = new Configuration();
+        RangerKeyStoreProvider keyProvider = new RangerKeyStoreProvider(conf);
+
+        Options options = new Options(conf);
+        options.setBitLength(128);
+        options.setCipher("AES");
+        KeyVersion keyVersion = keyProvider.createKey("newkey3", options);
+        keyProvider.flush();
+
+        // the second lookup is served from the cache of unsealed key material
+        KeyVersion first = keyProvider.getKeyVersion("newkey3@0");
+        KeyVersion second = keyProvider.getKeyVersion("newkey3@0");
+        Assert.assertArrayEquals(keyVersion.getMaterial(), first.getMaterial());
+        Assert.assertArrayEquals(keyVersion.getMaterial(), second.getMaterial());
+
+        // material handed out is a copy, unaffected by callers or by invalidation
+        Arrays.fill(second.getMaterial(), (byte) 0);
+        keyProvider.invalidateCache("newkey3");
+        Assert.assertArrayEquals(keyVersion.getMaterial(), first.getMaterial());
+        Assert.assertArrayEquals(keyVersion.getMaterial(), keyProvider.getKeyVersion("newkey3@0").getMaterial());
+
+        keyProvider.deleteKey("newkey3");
+        keyProvider.flush();
+        Assert.assertNull(keyProvider.getKeyVersion("newkey3@0"));
+    }
+
+    @Test
+    public void testIncrementalReload() throws Throwable {
+    	if (!UNRESTRICTED_POLICIES_INSTALLED) {
+    		return;
+    	}
+
+        Path configDir = Paths.get("src/test/resources/kms");
+        System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, configDir.toFile().getAbsolutePath());
+
+        Configuration conf = new Configuration();
+        RangerKeyStoreProvider keyProvider = new RangerKeyStoreProvider(conf);
+        RangerKeyStoreProvider otherProvider = new RangerKeyStoreProvider(conf);
+
+        // unknown keys are not found, and the miss is remembered briefly
+        Assert.assertNull(otherProvider.getKeyVersion("newkey4@0"));
+        Assert.assertNull(otherProvider.getKeyVersion("newkey4@0"));
+
+        Options options = new Options(conf);
+        options.setBitLength(128);
+        options.setCipher("AES");
+        keyProvider.createKey("newkey4", options);
+        keyProvider.flush();
+        keyProvider.rollNewVersion("newkey4");
+        keyProvider.flush();
+
+        // keys added and changed through another provider are picked up on reload
+        Assert.assertTrue(otherProvider.getKeys().contains("newkey4"));
+        Assert.assertEquals(2, otherProvider.getMetadata("newkey4").getVersions());
+        Assert.assertNotNull(otherProvider.getKeyVersion("newkey4@1"));
+
+        keyProvider.deleteKey("newkey4");
+        keyProvider.flush();
+        Assert.assertFalse(otherProvider.getKeys().contains("newkey4"));
+    }
+
 }
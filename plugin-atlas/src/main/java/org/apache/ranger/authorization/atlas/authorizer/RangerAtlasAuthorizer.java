@@ -42,8 +42,11 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.ServicePolicies;
 
 import java.util.*;
 
@@ -56,6 +59,8 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
 
     private static volatile RangerBasePlugin atlasPlugin = null;
 
+    private volatile RangerAtlasEntityGrouper entityGrouper = null;
+
     @Override
     public void init() {
         if (LOG.isDebugEnabled()) {
@@ -287,27 +292,26 @@ public void scrubSearchResults(AtlasSearchResultScrubRequest request) throws Atl
                 perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerAtlasAuthorizer.scrubSearchResults(" + request + ")");
             }
 
-            final AtlasSearchResult result = request.getSearchResult();
+            final AtlasSearchResult       result   = request.getSearchResult();
+            final List<AtlasEntityHeader> entities = new ArrayList<>();
 
             if (CollectionUtils.isNotEmpty(result.getEntities())) {
-                for (AtlasEntityHeader entity : result.getEntities()) {
-                    checkAccessAndScrub(entity, request);
-                }
+                entities.addAll(result.getEntities());
             }
 
             if (CollectionUtils.isNotEmpty(result.getFullTextResult())) {
                 for (AtlasSearchResult.AtlasFullTextResult fullTextResult : result.getFullTextResult()) {
                     if (fullTextResult != null) {
-                        checkAccessAndScrub(fullTextResult.getEntity(), request);
+                        entities.add(fullTextResult.getEntity());
                     }
                 }
             }
 
             if (MapUtils.isNotEmpty(result.getReferredEntities())) {
-                for (AtlasEntityHeader entity : result.getReferredEntities().values()) {
-                    checkAccessAndScrub(entity, request);
-                }
+                entities.addAll(result.getReferredEntities().values());
             }
+
+            checkAccessAndScrub(entities, request);
         } finally {
             RangerPerfTracer.log(perf);
         }
@@ -323,7 +327,24 @@ private RangerServiceDef getServiceDef() {
         return plugin != null ? plugin.getServiceDef() : null;
     }
 
-    private boolean isAccessAllowed(AtlasEntityAccessRequest request, RangerAtlasAuditHandler auditHandler) throws AtlasAuthorizationException {
+    private RangerAtlasEntityGrouper getEntityGrouper() {
+        RangerBasePlugin         plugin       = atlasPlugin;
+        RangerPolicyEngine       policyEngine = plugin != null ? plugin.getPolicyEngine() : null;
+        RangerAtlasEntityGrouper ret          = entityGrouper;
+
+        if (policyEngine == null) {
+            ret = null;
+        } else if (ret == null || ret.getPolicyEngine() != policyEngine) {
+            boolean hasSecurityZones = !(plugin instanceof RangerAtlasPlugin) || ((RangerAtlasPlugin) plugin).hasSecurityZones();
+
+            ret           = new RangerAtlasEntityGrouper(policyEngine, hasSecurityZones);
+            entityGrouper = ret;
+        }
+
+        return ret;
+    }
+
+    private boolean isAccessAllowed(AtlasEntityAccessRequest request, RangerAccessResultProcessor auditHandler) throws AtlasAuthorizationException {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> isAccessAllowed(" + request + ")");
         }
@@ -384,8 +405,8 @@ private boolean isAccessAllowed(AtlasEntityAccessRequest request, RangerAtlasAud
             }
 
         } finally {
-            if(auditHandler != null) {
-                auditHandler.flushAudit();
+            if (auditHandler instanceof RangerAtlasAuditHandler) {
+                ((RangerAtlasAuditHandler) auditHandler).flushAudit();
             }
         }
 
@@ -411,7 +432,7 @@ private boolean checkAccess(RangerAccessRequestImpl request) {
         return ret;
     }
 
-    private boolean checkAccess(RangerAccessRequestImpl request, RangerAtlasAuditHandler auditHandler) {
+    private boolean checkAccess(RangerAccessRequestImpl request, RangerAccessResultProcessor auditHandler) {
         boolean          ret    = false;
         RangerBasePlugin plugin = atlasPlugin;
 
@@ -426,24 +447,111 @@ private boolean checkAccess(RangerAccessRequestImpl request, RangerAtlasAuditHan
         return ret;
     }
 
-    private void checkAccessAndScrub(AtlasEntityHeader entity, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
-        if (entity != null && request != null) {
+    /*
+     * Entities with the same authorization-relevant attributes (see RangerAtlasEntityGrouper) are evaluated once,
+     * and the result is applied to all of them; a single summarized audit is logged for the search result.
+     */
+    private void checkAccessAndScrub(List<AtlasEntityHeader> entities, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
+        if (CollectionUtils.isEmpty(entities) || request == null) {
+            return;
+        }
+
+        final RangerAtlasEntityGrouper     grouper      = getEntityGrouper();
+        final Map<String, Boolean>         groupResults = new HashMap<>();
+        final RangerAtlasScrubAuditHandler auditHandler = new RangerAtlasScrubAuditHandler();
+        int                                allowedCount = 0;
+        int                                deniedCount  = 0;
+
+        for (AtlasEntityHeader entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+
             final AtlasEntityAccessRequest entityAccessRequest = new AtlasEntityAccessRequest(request.getTypeRegistry(), AtlasPrivilege.ENTITY_READ, entity, request.getUser(), request.getUserGroups());
 
             entityAccessRequest.setClientIPAddress(request.getClientIPAddress());
             entityAccessRequest.setForwardedAddresses(request.getForwardedAddresses());
             entityAccessRequest.setRemoteIPAddress(request.getRemoteIPAddress());
 
-            if (!isAccessAllowed(entityAccessRequest, null)) {
+            final String groupKey  = grouper != null ? grouper.getGroupKey(entityAccessRequest) : null;
+            Boolean      isAllowed = groupKey != null ? groupResults.get(groupKey) : null;
+
+            if (isAllowed == null) {
+                isAllowed = isAccessAllowed(entityAccessRequest, auditHandler);
+
+                if (groupKey != null) {
+                    groupResults.put(groupKey, isAllowed);
+                }
+            }
+
+            if (isAllowed) {
+                allowedCount++;
+            } else {
+                deniedCount++;
+
                 scrubEntityHeader(entity);
             }
         }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("checkAccessAndScrub(): entities=" + (allowedCount + deniedCount) + ", groups=" + groupResults.size() + ", allowed=" + allowedCount + ", denied=" + deniedCount);
+        }
+
+        auditHandler.logSummaryAudit(request, allowedCount, deniedCount);
     }
 
     class RangerAtlasPlugin extends RangerBasePlugin {
+        private volatile boolean hasSecurityZones = true;
+
         RangerAtlasPlugin() {
             super("atlas", "atlas");
         }
+
+        @Override
+        public void setPolicies(ServicePolicies policies) {
+            if (policies != null) {
+                // zones are sent with every full download; with deltas, only zones that changed might be sent
+                boolean hasZones = MapUtils.isNotEmpty(policies.getSecurityZones());
+
+                hasSecurityZones = CollectionUtils.isEmpty(policies.getPolicyDeltas()) ? hasZones : (hasSecurityZones || hasZones);
+            }
+
+            super.setPolicies(policies);
+        }
+
+        boolean hasSecurityZones() {
+            return hasSecurityZones;
+        }
+    }
+
+    /*
+     * Collects results of entity-read evaluations for a search result, to log one audit for the search result.
+     * A denied result, if any, is logged in preference to an allowed one.
+     */
+    class RangerAtlasScrubAuditHandler extends RangerDefaultAuditHandler {
+        private AuthzAuditEvent auditEvent = null;
+
+        @Override
+        public void processResult(RangerAccessResult result) {
+            if (result == null || !result.getIsAudited()) {
+                return;
+            }
+
+            if (auditEvent == null || (auditEvent.getAccessResult() == 1 && !result.getIsAllowed())) {
+                auditEvent = super.getAuthzEvents(result);
+            }
+        }
+
+        public void logSummaryAudit(AtlasSearchResultScrubRequest request, int allowedCount, int deniedCount) {
+            if (auditEvent != null) {
+                String queryText = request.getSearchResult() != null ? request.getSearchResult().getQueryText() : null;
+
+                auditEvent.setRequestData((StringUtils.isNotEmpty(queryText) ? queryText + ": " : "") + "allowed=" + allowedCount + ", denied=" + deniedCount);
+                auditEvent.setEventCount(allowedCount + deniedCount);
+
+                logAuthzAudit(auditEvent);
+            }
+        }
     }
 
     class RangerAtlasAuditHandler extends RangerDefaultAuditHandler {
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.atlas.authorizer;
+
+import org.apache.atlas.authorize.AtlasEntityAccessRequest;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.apache.ranger.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_ID;
+import static org.apache.ranger.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_OWNER;
+
+/**
+ * Groups entities of a search result by the attributes that determine the result of an entity-read
+ * authorization: entity type, classifications, owner and the entity-id patterns of policies that match
+ * the entity. Entities in the same group get the same authorization result, so each group needs
+ * to be evaluated only once.
+ *
+ * The entity-id itself becomes part of the group when policies can't be matched by pattern here, like
+ * when tag policies (tags are looked up by entity-id) or security zones are present, or when an entity-id
+ * value in a policy uses macros.
+ */
+class RangerAtlasEntityGrouper {
+    private static final Log LOG = LogFactory.getLog(RangerAtlasEntityGrouper.class);
+
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    private final RangerPolicyEngine policyEngine;
+    private final boolean            isEntityIdInKey;
+    private final List<String>       entityIdPatterns = new ArrayList<>();
+
+    RangerAtlasEntityGrouper(RangerPolicyEngine policyEngine, boolean hasSecurityZones) {
+        this.policyEngine = policyEngine;
+
+        boolean isEntityIdInKey = hasSecurityZones || CollectionUtils.isNotEmpty(policyEngine.getTagPolicies());
+
+        if (!isEntityIdInKey) {
+            Set<String> patterns = new TreeSet<>();
+
+            for (RangerPolicy policy : policyEngine.getResourcePolicies()) {
+                RangerPolicyResource entityIdResource = policy.getResources() != null ? policy.getResources().get(RESOURCE_ENTITY_ID) : null;
+
+                if (entityIdResource == null || entityIdResource.getValues() == null) {
+                    continue;
+                }
+
+                for (String value : entityIdResource.getValues()) {
+                    if (StringUtils.equals(value, "*")) {
+                        continue;
+                    }
+
+                    if (value == null || StringUtils.containsAny(value, "{}\\")) { // macros and escaped wildcards
+                        isEntityIdInKey = true;
+
+                        break;
+                    }
+
+                    patterns.add(value);
+                }
+
+                if (isEntityIdInKey) {
+                    break;
+                }
+            }
+
+            entityIdPatterns.addAll(patterns);
+        }
+
+        this.isEntityIdInKey = isEntityIdInKey;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerAtlasEntityGrouper(policyVersion=" + policyEngine.getPolicyVersion() + ", hasSecurityZones=" + hasSecurityZones + "): isEntityIdInKey=" + isEntityIdInKey + ", entityIdPatterns=" + entityIdPatterns);
+        }
+    }
+
+    RangerPolicyEngine getPolicyEngine() {
+        return policyEngine;
+    }
+
+    String getGroupKey(AtlasEntityAccessRequest request) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(request.getEntityType()).append(KEY_SEPARATOR);
+
+        Collection<String> classifications = request.getEntityClassifications();
+
+        if (classifications != null) {
+            for (String classification : new TreeSet<>(classifications)) {
+                sb.append(classification).append(',');
+            }
+        }
+
+        sb.append(KEY_SEPARATOR);
+
+        if (request.getEntity() != null) {
+            sb.append(request.getEntity().getAttribute(RESOURCE_ENTITY_OWNER));
+        }
+
+        sb.append(KEY_SEPARATOR);
+
+        String entityId = request.getEntityId();
+
+        if (isEntityIdInKey) {
+            sb.append(entityId);
+        } else if (entityId == null) {
+            sb.append('-');
+        } else {
+            // the id matters only through the patterns it matches; match both ways, as the policy might be case-insensitive
+            for (String pattern : entityIdPatterns) {
+                sb.append(FilenameUtils.wildcardMatch(entityId, pattern, IOCase.SENSITIVE) ? '1' : '0');
+                sb.append(FilenameUtils.wildcardMatch(entityId, pattern, IOCase.INSENSITIVE) ? '1' : '0');
+            }
+        }
+
+        return sb.toString();
+    }
+}
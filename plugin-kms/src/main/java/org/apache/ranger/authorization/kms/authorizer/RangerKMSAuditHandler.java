@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kms.authorizer;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Audit handler that aggregates audits of high-frequency KMS operations (like decrypteek and generateeek).
+ * Accesses with the same user, key, access type, result, policy and client IP are collected over a
+ * window and logged as one audit event: eventTime is the time of the first access, eventCount the
+ * number of accesses and eventDurationMS the time between the first and the last access.
+ */
+class RangerKMSAuditHandler extends RangerDefaultAuditHandler {
+	private static final Logger LOG = LoggerFactory.getLogger(RangerKMSAuditHandler.class);
+
+	static final String PROP_AGGREGATION_WINDOW_MS    = "ranger.plugin.kms.audit.aggregation.window.ms";
+	static final String PROP_AGGREGATION_ACCESS_TYPES = "ranger.plugin.kms.audit.aggregation.access.types";
+	static final String PROP_AGGREGATION_MAX_KEYS     = "ranger.plugin.kms.audit.aggregation.max.keys";
+
+	static final long   DEFAULT_AGGREGATION_WINDOW_MS    = 10 * 1000L;
+	static final String DEFAULT_AGGREGATION_ACCESS_TYPES = RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK + "," + RangerKmsAuthorizer.ACCESS_TYPE_GENERATE_EEK;
+	static final int    DEFAULT_AGGREGATION_MAX_KEYS     = 100000;
+
+	private final long                                      windowMs;
+	private final int                                       maxKeys;
+	private final Set<String>                               aggregatedAccessTypes = new HashSet<>();
+	private final ConcurrentHashMap<AuditKey, AuditSummary> summaries             = new ConcurrentHashMap<>();
+	private       ScheduledExecutorService                  flushExecutor;
+
+	RangerKMSAuditHandler(Configuration config) {
+		super(config);
+
+		windowMs = config.getLong(PROP_AGGREGATION_WINDOW_MS, DEFAULT_AGGREGATION_WINDOW_MS);
+		maxKeys  = config.getInt(PROP_AGGREGATION_MAX_KEYS, DEFAULT_AGGREGATION_MAX_KEYS);
+
+		for (String accessType : StringUtils.split(config.get(PROP_AGGREGATION_ACCESS_TYPES, DEFAULT_AGGREGATION_ACCESS_TYPES), ",")) {
+			if (StringUtils.isNotBlank(accessType)) {
+				aggregatedAccessTypes.add(accessType.trim());
+			}
+		}
+
+		LOG.info("RangerKMSAuditHandler: windowMs={}, maxKeys={}, aggregatedAccessTypes={}", windowMs, maxKeys, aggregatedAccessTypes);
+	}
+
+	synchronized void start() {
+		if (windowMs > 0 && flushExecutor == null) {
+			flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "RangerKMSAuditHandler-flush");
+
+					t.setDaemon(true);
+
+					return t;
+				}
+			});
+
+			flushExecutor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						flush();
+					} catch (Throwable excp) {
+						LOG.error("RangerKMSAuditHandler: failed to flush aggregated audits", excp);
+					}
+				}
+			}, windowMs, windowMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	synchronized void stop() {
+		if (flushExecutor != null) {
+			flushExecutor.shutdownNow();
+			flushExecutor = null;
+		}
+
+		flush();
+	}
+
+	@Override
+	public void processResult(RangerAccessResult result) {
+		RangerAccessRequest request = result != null ? result.getAccessRequest() : null;
+
+		if (windowMs <= 0 || request == null || !result.getIsAudited() || !aggregatedAccessTypes.contains(request.getAccessType())) {
+			super.processResult(result);
+
+			return;
+		}
+
+		final AuditKey key        = new AuditKey(request.getUser(), (String) request.getResource().getValue(RangerKMSResource.KEY_NAME), request.getAccessType(), result.getIsAllowed(), result.getPolicyId(), request.getClientIPAddress());
+		final long     accessTime = request.getAccessTime() != null ? request.getAccessTime().getTime() : System.currentTimeMillis();
+
+		if (!summaries.containsKey(key) && summaries.size() >= maxKeys) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerKMSAuditHandler: " + summaries.size() + " aggregated audits pending, logging " + key + " without aggregation");
+			}
+
+			super.processResult(result);
+
+			return;
+		}
+
+		summaries.compute(key, (k, summary) -> {
+			if (summary == null) {
+				summary = new AuditSummary(getAuthzEvents(result), accessTime);
+			} else {
+				summary.add(accessTime);
+			}
+
+			return summary;
+		});
+	}
+
+	/**
+	 * Logs one audit event for each access aggregated since the previous flush
+	 */
+	void flush() {
+		int count = 0;
+
+		for (AuditKey key : summaries.keySet()) {
+			AuditSummary summary = summaries.remove(key); // accesses that arrive after the removal start a new summary
+
+			if (summary != null && summary.event != null) {
+				AuthzAuditEvent event = summary.event;
+
+				event.setEventTime(new Date(summary.firstAccessTime));
+				event.setEventCount(summary.count);
+				event.setEventDurationMS(Math.max(summary.lastAccessTime - summary.firstAccessTime, 1));
+
+				logAuthzAudit(event);
+
+				count++;
+			}
+		}
+
+		if (LOG.isDebugEnabled() && count > 0) {
+			LOG.debug("RangerKMSAuditHandler.flush(): logged " + count + " aggregated audit events");
+		}
+	}
+
+	int getPendingCount() {
+		return summaries.size();
+	}
+
+	private static final class AuditSummary {
+		final AuthzAuditEvent event;
+		final long            firstAccessTime;
+		long                  lastAccessTime;
+		long                  count = 1;
+
+		AuditSummary(AuthzAuditEvent event, long accessTime) {
+			this.event           = event;
+			this.firstAccessTime = accessTime;
+			this.lastAccessTime  = accessTime;
+		}
+
+		void add(long accessTime) {
+			count++;
+
+			if (accessTime > lastAccessTime) {
+				lastAccessTime = accessTime;
+			}
+		}
+	}
+
+	private static final class AuditKey {
+		final String  user;
+		final String  keyName;
+		final String  accessType;
+		final boolean isAllowed;
+		final long    policyId;
+		final String  clientIp;
+		final int     hashCode;
+
+		AuditKey(String user, String keyName, String accessType, boolean isAllowed, long policyId, String clientIp) {
+			this.user       = user;
+			this.keyName    = keyName;
+			this.accessType = accessType;
+			this.isAllowed  = isAllowed;
+			this.policyId   = policyId;
+			this.clientIp   = clientIp;
+			this.hashCode   = Objects.hash(user, keyName, accessType, isAllowed, policyId, clientIp);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof AuditKey)) {
+				return false;
+			}
+
+			AuditKey other = (AuditKey) obj;
+
+			return isAllowed == other.isAllowed && policyId == other.policyId &&
+				   Objects.equals(user, other.user) && Objects.equals(keyName, other.keyName) &&
+				   Objects.equals(accessType, other.accessType) && Objects.equals(clientIp, other.clientIp);
+		}
+
+		@Override
+		public String toString() {
+			return "AuditKey{user=" + user + ", keyName=" + keyName + ", accessType=" + accessType + ", isAllowed=" + isAllowed + ", policyId=" + policyId + ", clientIp=" + clientIp + "}";
+		}
+	}
+}
@@ -43,7 +43,6 @@
 import org.apache.hadoop.security.authorize.AccessControlList;
 import org.apache.hadoop.security.authorize.AuthorizationException;
 import org.apache.ranger.audit.provider.MiscUtil;
-import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -189,6 +188,21 @@ public synchronized void stopReloader() {
 	      executorService.shutdownNow();
 	      executorService = null;
 	    }
+
+	    synchronized(RangerKmsAuthorizer.class) {
+	      RangerKMSPlugin plugin = kmsPlugin;
+
+	      if (plugin != null) {
+	        kmsPlugin = null;
+
+	        // flushes audits aggregated by RangerKMSAuditHandler
+	        plugin.cleanup();
+	      }
+	    }
+	  }
+
+	  static RangerKMSPlugin getKmsPlugin() {
+	    return kmsPlugin;
 	  }
 
 	  /**
@@ -208,6 +222,8 @@ public boolean hasAccess(Type type, UserGroupInformation ugi, String clientIp) {
 
 		  if(RangerPerfTracer.isPerfTraceEnabled(PERF_KMSAUTH_REQUEST_LOG)) {
 			  perf = RangerPerfTracer.getPerfTracer(PERF_KMSAUTH_REQUEST_LOG, "RangerKmsAuthorizer.hasAccess(type=" + type + ")");
+		  } else if (RangerPerfTracer.isPerfStatsEnabled()) {
+			  perf = RangerPerfTracer.getPerfStatsTracer(PERF_KMSAUTH_REQUEST_LOG, "RangerKmsAuthorizer.hasAccess");
 		  }
 			boolean ret = false;
 			RangerKMSPlugin plugin = kmsPlugin;
@@ -338,6 +354,8 @@ private static String getRangerAccessType(KMSACLsType.Type accessType) {
 
 	
 	class RangerKMSPlugin extends RangerBasePlugin {
+		private RangerKMSAuditHandler auditHandler;
+
 		public RangerKMSPlugin() {
 			super("kms", "kms");
 		}
@@ -346,14 +364,29 @@ public RangerKMSPlugin() {
 		public void init() {
 			super.init();
 
-			RangerDefaultAuditHandler auditHandler = new RangerDefaultAuditHandler(getConfig());
+			auditHandler = new RangerKMSAuditHandler(getConfig());
+
+			auditHandler.start();
 
 			super.setResultProcessor(auditHandler);
 		}
+
+		@Override
+		public void cleanup() {
+			super.cleanup();
+
+			if (auditHandler != null) {
+				auditHandler.stop();
+			}
+		}
+
+		RangerKMSAuditHandler getAuditHandler() {
+			return auditHandler;
+		}
 	}
 
 	class RangerKMSResource extends RangerAccessResourceImpl {
-		private static final String KEY_NAME = "keyname";
+		static final String KEY_NAME = "keyname";
 
 		public RangerKMSResource(String keyname) {			
 			setValue(KEY_NAME, keyname != null ? keyname : null);
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kms.authorizer;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for aggregation of audits in RangerKMSAuditHandler.
+ */
+public class RangerKMSAuditHandlerTest {
+
+    @Test
+    public void testAggregateDecryptAudits() {
+        TestAuditHandler     handler = new TestAuditHandler(new Configuration());
+        UserGroupInformation alice   = UserGroupInformation.createUserForTesting("alice", new String[] {"IT"});
+        UserGroupInformation bob     = UserGroupInformation.createUserForTesting("bob", new String[] {"IT"});
+
+        for (int i = 0; i < 100; i++) {
+            handler.processResult(createResult("key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK, alice, 1000L + i, true));
+        }
+        handler.processResult(createResult("key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK, alice, 2000L, false));
+        handler.processResult(createResult("key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK, bob, 2000L, true));
+        handler.processResult(createResult("key1", RangerKmsAuthorizer.ACCESS_TYPE_CREATE, alice, 2000L, true));
+
+        // create is not aggregated
+        Assert.assertEquals(1, handler.events.size());
+        Assert.assertEquals(3, handler.getPendingCount());
+
+        handler.flush();
+
+        Assert.assertEquals(0, handler.getPendingCount());
+        Assert.assertEquals(4, handler.events.size());
+
+        AuthzAuditEvent aliceAllowed = null;
+
+        for (AuthzAuditEvent event : handler.events) {
+            if ("alice".equals(event.getUser()) && event.getAccessResult() == 1 && RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK.equals(event.getAction())) {
+                aliceAllowed = event;
+            } else {
+                Assert.assertEquals(1, event.getEventCount());
+            }
+        }
+
+        Assert.assertNotNull(aliceAllowed);
+        Assert.assertEquals(100, aliceAllowed.getEventCount());
+        Assert.assertEquals(1000L, aliceAllowed.getEventTime().getTime());
+        Assert.assertEquals(99L, aliceAllowed.getEventDurationMS());
+    }
+
+    @Test
+    public void testAggregationDisabled() {
+        Configuration conf = new Configuration();
+
+        conf.setLong(RangerKMSAuditHandler.PROP_AGGREGATION_WINDOW_MS, 0);
+
+        TestAuditHandler     handler = new TestAuditHandler(conf);
+        UserGroupInformation alice   = UserGroupInformation.createUserForTesting("alice", new String[] {"IT"});
+
+        for (int i = 0; i < 10; i++) {
+            handler.processResult(createResult("key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK, alice, 1000L + i, true));
+        }
+
+        Assert.assertEquals(0, handler.getPendingCount());
+        Assert.assertEquals(10, handler.events.size());
+    }
+
+    private static RangerAccessResult createResult(String keyName, String accessType, UserGroupInformation ugi, long accessTime, boolean isAllowed) {
+        RangerKMSAccessRequest request = new RangerKMSAccessRequest(keyName, accessType, ugi, "10.0.0.1");
+
+        request.setAccessTime(new Date(accessTime));
+
+        RangerAccessResult ret = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, "kms", null, request);
+
+        ret.setIsAudited(true);
+        ret.setIsAllowed(isAllowed);
+        ret.setPolicyId(1L);
+
+        return ret;
+    }
+
+    private static class TestAuditHandler extends RangerKMSAuditHandler {
+        final List<AuthzAuditEvent> events = new ArrayList<>();
+
+        TestAuditHandler(Configuration config) {
+            super(config);
+        }
+
+        @Override
+        public void logAuthzAudit(AuthzAuditEvent auditEvent) {
+            events.add(auditEvent);
+        }
+    }
+}
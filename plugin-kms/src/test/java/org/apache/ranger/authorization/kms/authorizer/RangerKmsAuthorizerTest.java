@@ -33,6 +33,8 @@
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.authorize.AuthorizationException;
 import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -426,4 +428,38 @@ public Void run() throws Exception {
 
     }
 
+    @Test
+    public void testStopReloaderFlushesAggregatedAudits() throws Throwable {
+        if (!UNRESTRICTED_POLICIES_INSTALLED) {
+            return;
+        }
+
+        RangerKmsAuthorizer   authorizer   = (RangerKmsAuthorizer) KMSWebApp.getACLs();
+        RangerKMSAuditHandler auditHandler = RangerKmsAuthorizer.getKmsPlugin().getAuditHandler();
+        UserGroupInformation  ugi          = UserGroupInformation.createRemoteUser("bob");
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                RangerKMSAccessRequest request = new RangerKMSAccessRequest("newkey1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK, ugi, "127.0.0.1");
+                RangerAccessResult     result  = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, "kms", null, request);
+
+                result.setIsAudited(true);
+                result.setIsAllowed(true);
+
+                auditHandler.processResult(result);
+            }
+
+            Assert.assertEquals(1, auditHandler.getPendingCount());
+
+            authorizer.stopReloader();
+
+            Assert.assertNull(RangerKmsAuthorizer.getKmsPlugin());
+            Assert.assertEquals(0, auditHandler.getPendingCount());
+        } finally {
+            // restore the plugin for the other tests
+            authorizer.init(null);
+            authorizer.startReloader();
+        }
+    }
+
 }
@@ -33,9 +33,11 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -48,6 +50,7 @@
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -64,14 +67,17 @@
   final public static String RANGER_CONFIG_KEYTAB = "ranger.keytab";
   final public static String RANGER_CONFIG_PRINCIPAL = "ranger.principal";
   final public static String RANGER_CONFIG_USE_UGI = "ranger.use_ugi";
+  final public static String RANGER_CONFIG_FILTER_COLUMNS = "ranger.filter_columns";
   final public static String RANGER_CONFIG_HADOOP_CONFIG = "ranger.hadoop_config";
   final public static String RANGER_PRESTO_DEFAULT_HADOOP_CONF = "presto-ranger-site.xml";
   final public static String RANGER_PRESTO_SERVICETYPE = "presto";
   final public static String RANGER_PRESTO_APPID = "presto";
 
   final private RangerBasePlugin rangerPlugin;
+  private RangerDefaultAuditHandler auditHandler = new RangerDefaultAuditHandler();
 
   private boolean useUgi = false;
+  private boolean filterColumns = false;
 
   public RangerSystemAccessControl(Map<String, String> config) {
     super();
@@ -113,9 +119,13 @@ public RangerSystemAccessControl(Map<String, String> config) {
       useUgi = true;
     }
 
+    if (config.getOrDefault(RANGER_CONFIG_FILTER_COLUMNS, "false").equalsIgnoreCase("true")) {
+      filterColumns = true;
+    }
+
     rangerPlugin = new RangerBasePlugin(RANGER_PRESTO_SERVICETYPE, RANGER_PRESTO_APPID);
     rangerPlugin.init();
-    rangerPlugin.setResultProcessor(new RangerDefaultAuditHandler());
+    rangerPlugin.setResultProcessor(auditHandler);
   }
 
 
@@ -227,10 +237,17 @@ public Optional<ViewExpression> getColumnMask(SystemSecurityContext context, Cat
   @Override
   public Set<String> filterCatalogs(SystemSecurityContext context, Set<String> catalogs) {
     LOG.debug("==> RangerSystemAccessControl.filterCatalogs("+ catalogs + ")");
+    List<String>               catalogList = new ArrayList<>(catalogs);
+    List<RangerPrestoResource> resources   = new ArrayList<>(catalogList.size());
+    for (String catalog: catalogList) {
+      resources.add(createResource(catalog));
+    }
+    // catalogs have no common parent resource to summarize against, so each one is audited as before
+    boolean[] allowed = hasPermission(null, resources, context, PrestoAccessType.SELECT, "filterCatalogs");
     Set<String> filteredCatalogs = new HashSet<>(catalogs.size());
-    for (String catalog: catalogs) {
-      if (hasPermission(createResource(catalog), context, PrestoAccessType.SELECT)) {
-        filteredCatalogs.add(catalog);
+    for (int i = 0; i < allowed.length; i++) {
+      if (allowed[i]) {
+        filteredCatalogs.add(catalogList.get(i));
       }
     }
     return filteredCatalogs;
@@ -239,10 +256,16 @@ public Set<String> filterCatalogs(SystemSecurityContext context, Set<String> cat
   @Override
   public Set<String> filterSchemas(SystemSecurityContext context, String catalogName, Set<String> schemaNames) {
     LOG.debug("==> RangerSystemAccessControl.filterSchemas(" + catalogName + ")");
+    List<String>               schemaList = new ArrayList<>(schemaNames);
+    List<RangerPrestoResource> resources  = new ArrayList<>(schemaList.size());
+    for (String schemaName: schemaList) {
+      resources.add(createResource(catalogName, schemaName));
+    }
+    boolean[] allowed = hasPermission(createResource(catalogName), resources, context, PrestoAccessType.SELECT, "filterSchemas");
     Set<String> filteredSchemaNames = new HashSet<>(schemaNames.size());
-    for (String schemaName: schemaNames) {
-      if (hasPermission(createResource(catalogName, schemaName), context, PrestoAccessType.SELECT)) {
-        filteredSchemaNames.add(schemaName);
+    for (int i = 0; i < allowed.length; i++) {
+      if (allowed[i]) {
+        filteredSchemaNames.add(schemaList.get(i));
       }
     }
     return filteredSchemaNames;
@@ -251,11 +274,20 @@ public Set<String> filterSchemas(SystemSecurityContext context, String catalogNa
   @Override
   public Set<SchemaTableName> filterTables(SystemSecurityContext context, String catalogName, Set<SchemaTableName> tableNames) {
     LOG.debug("==> RangerSystemAccessControl.filterTables(" + catalogName + ")");
+    List<SchemaTableName>      tableList  = new ArrayList<>(tableNames);
+    List<RangerPrestoResource> resources  = new ArrayList<>(tableList.size());
+    Set<String>                schemas    = new HashSet<>();
+    for (SchemaTableName tableName : tableList) {
+      resources.add(createResource(catalogName, tableName.getSchemaName(), tableName.getTableName()));
+      schemas.add(tableName.getSchemaName());
+    }
+    // tables listed from a single schema are audited against the schema, otherwise against the catalog
+    RangerPrestoResource parent  = schemas.size() == 1 ? createResource(catalogName, schemas.iterator().next()) : createResource(catalogName);
+    boolean[]            allowed = hasPermission(parent, resources, context, PrestoAccessType.SELECT, "filterTables");
     Set<SchemaTableName> filteredTableNames = new HashSet<>(tableNames.size());
-    for (SchemaTableName tableName : tableNames) {
-      RangerPrestoResource res = createResource(catalogName, tableName.getSchemaName(), tableName.getTableName());
-      if (hasPermission(res, context, PrestoAccessType.SELECT)) {
-        filteredTableNames.add(tableName);
+    for (int i = 0; i < allowed.length; i++) {
+      if (allowed[i]) {
+        filteredTableNames.add(tableList.get(i));
       }
     }
     return filteredTableNames;
@@ -572,11 +604,30 @@ public void checkCanSelectFromColumns(SystemSecurityContext context, CatalogSche
   }
 
   /**
-   * This is a NOOP, no filtering is applied
+   * This is a NOOP, no filtering is applied, unless enabled by ranger.filter_columns. Columns are then filtered with
+   * the same column level SELECT check as checkCanSelectFromColumns
    */
   @Override
   public List<ColumnMetadata> filterColumns(SystemSecurityContext context, CatalogSchemaTableName table, List<ColumnMetadata> columns) {
-    return columns;
+    if (!filterColumns) {
+      return columns;
+    }
+
+    LOG.debug("==> RangerSystemAccessControl.filterColumns(" + table.toString() + ")");
+    List<RangerPrestoResource> resources = new ArrayList<>(columns.size());
+    for (ColumnMetadata column : columns) {
+      resources.add(createResource(table.getCatalogName(),
+        table.getSchemaTableName().getSchemaName(),
+        table.getSchemaTableName().getTableName(), Optional.of(column.getName())));
+    }
+    boolean[] allowed = hasPermission(createResource(table), resources, context, PrestoAccessType.SELECT, "filterColumns");
+    List<ColumnMetadata> filteredColumns = new ArrayList<>(columns.size());
+    for (int i = 0; i < allowed.length; i++) {
+      if (allowed[i]) {
+        filteredColumns.add(columns.get(i));
+      }
+    }
+    return filteredColumns;
   }
 
   /** QUERY **/
@@ -641,7 +692,22 @@ public void checkCanExecuteProcedure(SystemSecurityContext context, CatalogSchem
 
   /** HELPER FUNCTIONS **/
 
+  void setAuditHandler(RangerDefaultAuditHandler auditHandler) {
+    this.auditHandler = auditHandler;
+
+    rangerPlugin.setResultProcessor(auditHandler);
+  }
+
   private RangerPrestoAccessRequest createAccessRequest(RangerPrestoResource resource, SystemSecurityContext context, PrestoAccessType accessType) {
+    return new RangerPrestoAccessRequest(
+      resource,
+      context.getIdentity().getUser(),
+      getUserGroups(context),
+      accessType
+    );
+  }
+
+  private Set<String> getUserGroups(SystemSecurityContext context) {
     Set<String> userGroups = null;
 
     if (useUgi) {
@@ -656,14 +722,7 @@ private RangerPrestoAccessRequest createAccessRequest(RangerPrestoResource resou
       userGroups = context.getIdentity().getGroups();
     }
 
-    RangerPrestoAccessRequest request = new RangerPrestoAccessRequest(
-      resource,
-      context.getIdentity().getUser(),
-      userGroups,
-      accessType
-    );
-
-    return request;
+    return userGroups;
   }
 
   private boolean hasPermission(RangerPrestoResource resource, SystemSecurityContext context, PrestoAccessType accessType) {
@@ -679,6 +738,97 @@ private boolean hasPermission(RangerPrestoResource resource, SystemSecurityConte
     return ret;
   }
 
+  /**
+   * Evaluates the same access type on a batch of sibling resources, like the tables of a schema. User groups are
+   * resolved once for the batch, requests are evaluated together and a single audit event summarizing the outcome is
+   * logged against the parent resource, instead of one audit event per resource. With a null parent, each resource
+   * is audited on its own.
+   *
+   * The batch doesn't share policy lookups: every request still gets a full evaluation, i.e. a resource trie lookup
+   * and a run of the matched policy evaluators, so the cost stays linear in the number of resources. What is saved
+   * per resource is the group lookup and, with a parent, the audit event.
+   *
+   * @return allowed flags, in the order of resources
+   */
+  private boolean[] hasPermission(RangerPrestoResource parent, List<RangerPrestoResource> resources, SystemSecurityContext context, PrestoAccessType accessType, String action) {
+    boolean[] ret = new boolean[resources.size()];
+
+    if (resources.isEmpty()) {
+      return ret;
+    }
+
+    String      user       = context.getIdentity().getUser();
+    Set<String> userGroups = getUserGroups(context);
+    Date        accessTime = new Date();
+
+    List<RangerAccessRequest> requests = new ArrayList<>(resources.size());
+    for (RangerPrestoResource resource : resources) {
+      RangerPrestoAccessRequest request = new RangerPrestoAccessRequest(resource, user, userGroups, accessType);
+
+      request.setAccessTime(accessTime);
+      request.setAction(action);
+      requests.add(request);
+    }
+
+    Collection<RangerAccessResult> results = rangerPlugin.isAccessAllowed(requests, parent == null ? auditHandler : null);
+
+    if (results != null) {
+      int i = 0;
+      for (RangerAccessResult result : results) {
+        ret[i++] = result != null && result.getIsAllowed();
+      }
+    }
+
+    if (parent != null) {
+      logSummaryAudit(parent, results, accessTime, action);
+    }
+
+    return ret;
+  }
+
+  private void logSummaryAudit(RangerPrestoResource parent, Collection<RangerAccessResult> results, Date accessTime, String action) {
+    if (results == null) {
+      return;
+    }
+
+    RangerAccessResult auditResult  = null;
+    int                allowedCount = 0;
+    int                deniedCount  = 0;
+
+    for (RangerAccessResult result : results) {
+      if (result == null) {
+        continue;
+      }
+
+      if (result.getIsAllowed()) {
+        allowedCount++;
+      } else {
+        deniedCount++;
+      }
+
+      if (result.getIsAudited() && (auditResult == null || (auditResult.getIsAllowed() && !result.getIsAllowed()))) {
+        auditResult = result; // a denied result, when there is one, decides the summary
+      }
+    }
+
+    if (auditResult == null) {
+      return;
+    }
+
+    AuthzAuditEvent auditEvent = auditHandler.getAuthzEvents(auditResult);
+
+    if (auditEvent != null) {
+      parent.setServiceDef(auditResult.getAccessRequest().getResource().getServiceDef());
+
+      auditEvent.setResourcePath(parent.getAsString());
+      auditEvent.setResourceType(parent.getLeafName());
+      auditEvent.setEventTime(accessTime);
+      auditEvent.setRequestData(action + ": allowed=" + allowedCount + ", denied=" + deniedCount);
+
+      auditHandler.logAuthzAudit(auditEvent);
+    }
+  }
+
   private static RangerPrestoResource createUserResource(String userName) {
     RangerPrestoResource res = new RangerPrestoResource();
     res.setValue(RangerPrestoResource.KEY_USER, userName);
@@ -17,10 +17,12 @@
 
 package org.apache.ranger.authorization.presto.authorizer;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import io.prestosql.spi.connector.CatalogSchemaName;
 import io.prestosql.spi.connector.CatalogSchemaRoutineName;
 import io.prestosql.spi.connector.CatalogSchemaTableName;
+import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.security.AccessDeniedException;
 import io.prestosql.spi.security.Identity;
@@ -33,17 +35,22 @@
 
 import io.prestosql.spi.security.ViewExpression;
 import io.prestosql.spi.type.VarcharType;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import javax.security.auth.kerberos.KerberosPrincipal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 public class RangerSystemAccessControlTest {
   static RangerSystemAccessControl accessControlManager = null;
+  static RangerSystemAccessControl columnFilteringAccessControlManager = null;
 
   private static final Identity alice = Identity.ofUser("alice");
   private static final Identity admin = Identity.ofUser("admin");
@@ -60,6 +67,11 @@ public class RangerSystemAccessControlTest {
   private static final CatalogSchemaName aliceSchema = new CatalogSchemaName("alice-catalog", "schema");
   private static final CatalogSchemaTableName aliceTable = new CatalogSchemaTableName("alice-catalog", "schema","table");
   private static final CatalogSchemaTableName aliceView = new CatalogSchemaTableName("alice-catalog", "schema","view");
+  private static final CatalogSchemaTableName aliceColumnsTable = new CatalogSchemaTableName("alice-catalog", "schema","columns");
+  private static final List<ColumnMetadata> aliceColumns = ImmutableList.of(
+    new ColumnMetadata("id", VarcharType.VARCHAR),
+    new ColumnMetadata("name", VarcharType.VARCHAR),
+    new ColumnMetadata("ssn", VarcharType.VARCHAR));
 
   private static final CatalogSchemaRoutineName aliceProcedure = new CatalogSchemaRoutineName("alice-catalog", "schema", "procedure");
   private static final String functionName = new String("function");
@@ -68,6 +80,10 @@ public class RangerSystemAccessControlTest {
   public static void setUpBeforeClass() throws Exception {
     Map<String, String> config = new HashMap<>();
     accessControlManager = new RangerSystemAccessControl(config);
+
+    Map<String, String> columnFilteringConfig = new HashMap<>();
+    columnFilteringConfig.put(RangerSystemAccessControl.RANGER_CONFIG_FILTER_COLUMNS, "true");
+    columnFilteringAccessControlManager = new RangerSystemAccessControl(columnFilteringConfig);
   }
 
   @Test
@@ -132,6 +148,9 @@ public void testTableOperations()
     assertEquals(accessControlManager.filterTables(context(alice), aliceCatalog, aliceTables), aliceTables);
     assertEquals(accessControlManager.filterTables(context(bob), "alice-catalog", aliceTables), ImmutableSet.of());
 
+    Set<SchemaTableName> schemaTables = ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "view"), new SchemaTableName("schema", "other"));
+    assertEquals(accessControlManager.filterTables(context(alice), aliceCatalog, schemaTables), ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "view")));
+
     accessControlManager.checkCanCreateTable(context(alice), aliceTable);
     accessControlManager.checkCanDropTable(context(alice), aliceTable);
     accessControlManager.checkCanSelectFromColumns(context(alice), aliceTable, ImmutableSet.of());
@@ -189,6 +208,62 @@ public void testMisc()
     accessControlManager.checkCanExecuteProcedure(context(alice), aliceProcedure);
   }
 
+  @Test
+  public void testFilterColumns()
+  {
+    // no filtering, unless enabled by ranger.filter_columns
+    assertEquals(accessControlManager.filterColumns(context(alice), aliceColumnsTable, aliceColumns), aliceColumns);
+    assertEquals(accessControlManager.filterColumns(context(bob), aliceColumnsTable, aliceColumns), aliceColumns);
+
+    assertEquals(columnFilteringAccessControlManager.filterColumns(context(alice), aliceColumnsTable, aliceColumns), aliceColumns.subList(0, 2));
+    assertEquals(columnFilteringAccessControlManager.filterColumns(context(bob), aliceColumnsTable, aliceColumns), ImmutableList.of());
+    assertEquals(columnFilteringAccessControlManager.filterColumns(context(alice), aliceColumnsTable, ImmutableList.of()), ImmutableList.of());
+  }
+
+  @Test
+  public void testFilterSummaryAudit()
+  {
+    TestAuditHandler auditHandler = new TestAuditHandler();
+    columnFilteringAccessControlManager.setAuditHandler(auditHandler);
+
+    Set<SchemaTableName> schemaTables = ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "view"), new SchemaTableName("schema", "other"));
+    columnFilteringAccessControlManager.filterTables(context(alice), aliceCatalog, schemaTables);
+
+    // one audit event for all tables, against their schema
+    assertEquals(1, auditHandler.events.size());
+    assertEquals("alice-catalog/schema", auditHandler.events.get(0).getResourcePath());
+    assertEquals("filterTables: allowed=2, denied=1", auditHandler.events.get(0).getRequestData());
+
+    auditHandler.events.clear();
+    columnFilteringAccessControlManager.filterColumns(context(alice), aliceColumnsTable, aliceColumns);
+
+    assertEquals(1, auditHandler.events.size());
+    assertEquals("alice-catalog/schema/columns", auditHandler.events.get(0).getResourcePath());
+    assertEquals("filterColumns: allowed=2, denied=1", auditHandler.events.get(0).getRequestData());
+
+    auditHandler.events.clear();
+    columnFilteringAccessControlManager.filterCatalogs(context(bob), ImmutableSet.of());
+
+    assertEquals(0, auditHandler.events.size());
+
+    // catalogs are audited one by one, each against its own catalog
+    columnFilteringAccessControlManager.filterCatalogs(context(alice), allCatalogs);
+
+    assertFalse(auditHandler.events.isEmpty());
+    for (AuthzAuditEvent event : auditHandler.events) {
+      assertTrue(event.getResourcePath(), allCatalogs.contains(event.getResourcePath()));
+    }
+  }
+
+  private static class TestAuditHandler extends RangerDefaultAuditHandler {
+    final List<AuthzAuditEvent> events = new ArrayList<>();
+
+    @Override
+    public void logAuthzAudit(AuthzAuditEvent auditEvent) {
+      events.add(auditEvent);
+    }
+  }
+
   private SystemSecurityContext context(Identity id) {
     return new SystemSecurityContext(id, Optional.empty());
   }
@@ -31,11 +31,18 @@
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.HashSet;
+import java.util.Objects;
+import java.util.TreeSet;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.audit.provider.MiscUtil;
@@ -48,6 +55,8 @@
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
@@ -104,6 +113,13 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 	public static final String ATTRIBUTE_FILTER_REGEX = "value_filter_regex";
 	public static final String AND_OP_QPARSER = "andQParser";
 	public static final String EXTRA_OPTS = "extra_opts";
+	public static final String FILTER_QUERY_CACHE_SIZE_PROP = "filterQueryCacheSize";
+	public static final int DEFAULT_FILTER_QUERY_CACHE_SIZE = 10000;
+	public static final String TERMS_QUERY_THRESHOLD_PROP = "termsQueryThreshold";
+	public static final int DEFAULT_TERMS_QUERY_THRESHOLD = 10;
+
+	// values with these characters can't be written unquoted in a terms query
+	private static final String TERMS_QUERY_UNSAFE_CHARS = ", {}'\"\\";
 
 	private List<FieldToAttributeMapping> fieldAttributeMappings = new LinkedList<>();
 
@@ -123,6 +139,12 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 	private boolean allowMissingValue;
 	private String qParserName;
 	private boolean attrsEnabled;
+	private int termsQueryThreshold;
+
+	// filter queries of each user, so that repeated queries by a user don't rebuild them
+	private Cache<String, CachedFilterQueries> filterQueryCache;
+	// users with the same attributes or roles share the same filter query strings
+	private final Interner<String> filterQueryInterner = Interners.newWeakInterner();
 
 	private enum MatchType {
 		DISJUNCTIVE,
@@ -148,10 +170,16 @@ public void init(NamedList args) {
 		}
 
 		this.attrsEnabled = params.getBool(ATTRS_ENABLED_PROP, false);
+		this.termsQueryThreshold = params.getInt(TERMS_QUERY_THRESHOLD_PROP, DEFAULT_TERMS_QUERY_THRESHOLD);
+
+		int filterQueryCacheSize = params.getInt(FILTER_QUERY_CACHE_SIZE_PROP, DEFAULT_FILTER_QUERY_CACHE_SIZE);
+
+		this.filterQueryCache = filterQueryCacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(filterQueryCacheSize).<String, CachedFilterQueries>build() : null;
 
 		logger.info("RangerSolrAuthorizer.init(): authField={" + authField + "}, allRolesToken={" + allRolesToken +
 				"}, enabled={" + enabled + "}, matchType={" + matchMode + "}, qParserName={" + qParserName +
-				"}, allowMissingValue={" + allowMissingValue + "}, tokenCountField={" + tokenCountField + "}, attrsEnabled={" + attrsEnabled + "}");
+				"}, allowMissingValue={" + allowMissingValue + "}, tokenCountField={" + tokenCountField + "}, attrsEnabled={" + attrsEnabled +
+				"}, termsQueryThreshold={" + termsQueryThreshold + "}, filterQueryCacheSize={" + filterQueryCacheSize + "}");
 
 		if (attrsEnabled) {
 
@@ -381,17 +409,15 @@ public void prepare(ResponseBuilder rb) throws IOException {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Checking Ldap attributes to be added to the query filter");
 			}
-			if (getUserStoreEnricher() == null || getUserStoreEnricher().getRangerUserStore() == null) {
+			RangerUserStoreEnricher userStoreEnricher = getUserStoreEnricher();
+			RangerUserStore userStore = userStoreEnricher != null ? userStoreEnricher.getRangerUserStore() : null;
+			if (userStore == null) {
 				logger.error("No User store enricher to read the ldap attributes");
 				isDenied = true;
-			}
-			// Ranger UserStore info for user/group attributes
-			Map<String, Map<String, String>> userAttrMapping = getUserStoreEnricher().getRangerUserStore().getUserAttrMapping();
-			if (MapUtils.isNotEmpty(userAttrMapping)) {
+			} else if (MapUtils.isNotEmpty(userStore.getUserAttrMapping())) {
+				// Ranger UserStore info for user/group attributes
 				ModifiableSolrParams newParams = new ModifiableSolrParams(rb.req.getParams());
-				Map<String, String> userAttributes = userAttrMapping.get(userName);
-				for (FieldToAttributeMapping mapping : fieldAttributeMappings) {
-					String filterQuery = buildFilterQueryString(userName, userAttributes, mapping);
+				for (String filterQuery : getFilterQueries(userName, userStore)) {
 					if (logger.isDebugEnabled()) {
 						logger.debug("Adding filter clause : {}" + filterQuery);
 					}
@@ -405,21 +431,16 @@ public void prepare(ResponseBuilder rb) throws IOException {
 				logger.debug("Checking User roles to be added to the query filter");
 			}
 
-			Set<String> roles = getRolesForUser(userName);
-			if (roles != null && !roles.isEmpty()) {
-				String filterQuery;
-				if (matchMode == MatchType.DISJUNCTIVE) {
-					filterQuery = getDisjunctiveFilterQueryStr(roles);
-				} else {
-					filterQuery = getConjunctiveFilterQueryStr(roles);
-				}
+			List<String> filterQueries = getFilterQueries(userName, null);
+			if (!filterQueries.isEmpty()) {
 				ModifiableSolrParams newParams = new ModifiableSolrParams(rb.req.getParams());
-				newParams.add("fq", filterQuery);
-				rb.req.setParams(newParams);
-				if (logger.isDebugEnabled()) {
-					logger.debug("Adding filter query {" + filterQuery + "} for user {" + userName + "} with roles {" + roles + "}");
+				for (String filterQuery : filterQueries) {
+					newParams.add("fq", filterQuery);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Adding filter query {" + filterQuery + "} for user {" + userName + "}");
+					}
 				}
-
+				rb.req.setParams(newParams);
 			} else {
 				isDenied = true;
 			}
@@ -680,18 +701,25 @@ private void addDisjunctiveRawClause(StringBuilder builder, String value) {
 
 	private String getDisjunctiveFilterQueryStr(Set<String> roles) {
 		if (roles != null && !roles.isEmpty()) {
-			StringBuilder builder = new StringBuilder();
-			for (String role : roles) {
-				addDisjunctiveRawClause(builder, role);
-			}
+			Set<String> values = new TreeSet<>(roles);
 			if (allRolesToken != null && !allRolesToken.isEmpty()) {
-				addDisjunctiveRawClause(builder, allRolesToken);
+				values.add(allRolesToken);
+			}
+			if (useTermsQuery(values)) {
+				return "{!terms f=" + authField + "}" + Joiner.on(',').join(values);
+			}
+			StringBuilder builder = new StringBuilder();
+			for (String value : values) {
+				addDisjunctiveRawClause(builder, value);
 			}
 			return builder.toString();
 		}
 		return null;
 	}
 
+	/**
+	 * @param roles roles of the user, in sorted order
+	 */
 	private String getConjunctiveFilterQueryStr(Set<String> roles) {
 		StringBuilder filterQuery = new StringBuilder();
 		filterQuery
@@ -707,9 +735,9 @@ private String getConjunctiveFilterQueryStr(Set<String> roles) {
 		return filterQuery.toString();
 	}
 
-	private Set<String> getRolesForUser(String name) {
+	private Set<String> getRolesForUser(String name, Set<String> groups) {
 		if (solrPlugin.getCurrentRangerAuthContext() != null) {
-			return solrPlugin.getRolesFromUserAndGroups(name, getGroupsForUser(name));
+			return solrPlugin.getRolesFromUserAndGroups(name, groups);
 		}
 		else {
 			logger.info("Current Ranger Auth Context is null!!");
@@ -785,9 +813,71 @@ private <T> T getWithDefault(NamedList args, String key, T defaultValue) {
 		}
 	}
 
-	private String buildFilterQueryString(String userName, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
+	/**
+	 * Returns the document-level filter queries for the user. Filter queries are built with values in sorted
+	 * order, so that users with the same attributes or roles get identical queries and share entries in Solr's
+	 * filterCache. Filter queries of a user are cached until the user store, the roles or the user's groups change.
+	 */
+	private List<String> getFilterQueries(String userName, RangerUserStore userStore) {
+		Set<String> groups = getGroupsForUser(userName);
+		Long userStoreVersion = userStore != null ? userStore.getUserStoreVersion() : null;
+		RangerRoles roles = solrPlugin.getRoles();
+		Long rolesVersion = roles != null ? roles.getRoleVersion() : null;
+
+		CachedFilterQueries cached = filterQueryCache != null ? filterQueryCache.getIfPresent(userName) : null;
+		if (cached != null && cached.isValid(userStoreVersion, rolesVersion, groups)) {
+			return cached.filterQueries;
+		}
+
+		List<String> ret = new ArrayList<>();
+		if (attrsEnabled) {
+			Map<String, String> userAttributes = userStore.getUserAttrMapping().get(userName);
+			for (FieldToAttributeMapping mapping : fieldAttributeMappings) {
+				String filterQuery = buildFilterQueryString(groups, userAttributes, mapping);
+				if (filterQuery != null) {
+					ret.add(filterQueryInterner.intern(filterQuery));
+				}
+			}
+		} else {
+			Set<String> userRoles = getRolesForUser(userName, groups);
+			if (userRoles != null && !userRoles.isEmpty()) {
+				Set<String> sortedRoles = new TreeSet<>(userRoles);
+				String filterQuery;
+				if (matchMode == MatchType.DISJUNCTIVE) {
+					filterQuery = getDisjunctiveFilterQueryStr(sortedRoles);
+				} else {
+					filterQuery = getConjunctiveFilterQueryStr(sortedRoles);
+				}
+				ret.add(filterQueryInterner.intern(filterQuery));
+			}
+		}
+
+		if (filterQueryCache != null) {
+			filterQueryCache.put(userName, new CachedFilterQueries(userStoreVersion, rolesVersion, groups, ret));
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("getFilterQueries(user=" + userName + ", userStoreVersion=" + userStoreVersion + ", rolesVersion=" + rolesVersion + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private boolean useTermsQuery(Collection<String> values) {
+		if (termsQueryThreshold <= 0 || values.size() < termsQueryThreshold) {
+			return false;
+		}
+		for (String value : values) {
+			if (StringUtils.isEmpty(value) || StringUtils.containsAny(value, TERMS_QUERY_UNSAFE_CHARS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String buildFilterQueryString(Set<String> groups, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
 		String fieldName = mapping.getFieldName();
-		Collection<String> attributeValues = getUserAttributesForField(userName, userAttributes, mapping);
+		Collection<String> attributeValues = getUserAttributesForField(groups, userAttributes, mapping);
 		switch (mapping.getFilterType()) {
 			case OR:
 				return buildSimpleORFilterQuery(fieldName, attributeValues, mapping.getAcceptEmpty(), mapping.getAllUsersValue(), mapping.getExtraOpts());
@@ -802,26 +892,35 @@ private String buildFilterQueryString(String userName, Map<String, String> userA
 		}
 	}
 
-	private Collection<String> getUserAttributesForField(String userName, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
-		Set<String> userAttributesSubset = new HashSet<>();
+	private Collection<String> getUserAttributesForField(Set<String> groups, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
+		Set<String> userAttributesSubset = new TreeSet<>();
 		if (CollectionUtils.isNotEmpty(mapping.getAttributes())) {
-			if (mapping.getAttributes().contains("groups")) {
-				userAttributesSubset.addAll(getGroupsForUser(userName));
+			if (mapping.getAttributes().contains("groups") && groups != null) {
+				userAttributesSubset.addAll(groups);
 			}
 		}
 		for (String attributeName : mapping.getAttributes()) {
-			userAttributesSubset.add(userAttributes.get(attributeName));
+			String attributeValue = userAttributes != null ? userAttributes.get(attributeName) : null;
+			if (attributeValue != null) {
+				userAttributesSubset.add(attributeValue);
+			}
 		}
 		return userAttributesSubset;
 	}
 
 	private String buildSimpleORFilterQuery(String fieldName, Collection<String> attributeValues, boolean allowEmptyField, String allUsersValue, String extraOpts) {
 		StringBuilder s = new StringBuilder();
-		for (String attributeValue : attributeValues) {
-			s.append(fieldName).append(":\"").append(attributeValue).append("\" ");
-		}
+		Set<String> values = new TreeSet<>(attributeValues);
 		if (allUsersValue != null && !allUsersValue.equals("")) {
-			s.append(fieldName).append(":\"").append(allUsersValue).append("\" ");
+			values.add(allUsersValue);
+		}
+		if (useTermsQuery(values)) {
+			// requires a space before the clause, so the default lucene query parser will be used
+			s.append(" {!terms f=").append(fieldName).append(" v=").append(Joiner.on(',').join(values)).append("} ");
+		} else {
+			for (String value : values) {
+				s.append(fieldName).append(":\"").append(value).append("\" ");
+			}
 		}
 		if (allowEmptyField) {
 			s.append("(*:* AND -").append(fieldName).append(":*) ");
@@ -891,4 +990,21 @@ private String buildLessThanFilterQuery(String fieldName, Collection<String> att
 		return fieldName + ":[* TO " + value + "]" + extraClause.toString();
 	}
 
+	private static final class CachedFilterQueries {
+		final Long userStoreVersion;
+		final Long rolesVersion;
+		final Set<String> groups;
+		final List<String> filterQueries;
+
+		CachedFilterQueries(Long userStoreVersion, Long rolesVersion, Set<String> groups, List<String> filterQueries) {
+			this.userStoreVersion = userStoreVersion;
+			this.rolesVersion = rolesVersion;
+			this.groups = groups != null ? new HashSet<>(groups) : null;
+			this.filterQueries = filterQueries;
+		}
+
+		boolean isValid(Long userStoreVersion, Long rolesVersion, Set<String> groups) {
+			return Objects.equals(this.userStoreVersion, userStoreVersion) && Objects.equals(this.rolesVersion, rolesVersion) && Objects.equals(this.groups, groups);
+		}
+	}
 }
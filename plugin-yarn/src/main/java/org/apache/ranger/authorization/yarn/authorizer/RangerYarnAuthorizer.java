@@ -21,10 +21,15 @@
 package org.apache.ranger.authorization.yarn.authorizer;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -37,7 +42,6 @@
 import org.apache.hadoop.yarn.security.PrivilegedEntity.EntityType;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
-import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -63,7 +67,8 @@ public class RangerYarnAuthorizer extends YarnAuthorizationProvider {
     private String  yarnModuleName  = RangerHadoopConstants.DEFAULT_YARN_MODULE_ACL_NAME;
 
 	private AccessControlList admins = null;
-	private Map<PrivilegedEntity, Map<AccessType, AccessControlList>> yarnAcl = new HashMap<PrivilegedEntity, Map<AccessType, AccessControlList>>();
+	private volatile Map<PrivilegedEntity, Map<AccessType, AccessControlList>> yarnAcl = new HashMap<PrivilegedEntity, Map<AccessType, AccessControlList>>();
+	private volatile RangerYarnAclIndex yarnAclIndex = new RangerYarnAclIndex(yarnAcl);
 
 	@Override
 	public void init(Configuration conf) {
@@ -188,14 +193,21 @@ public void setAdmins(AccessControlList acl, UserGroupInformation ugi) {
 	}
 
 	@Override
-	public void setPermission(List<Permission> permissions, UserGroupInformation ugi) {
+	public synchronized void setPermission(List<Permission> permissions, UserGroupInformation ugi) {
+		Map<PrivilegedEntity, Map<AccessType, AccessControlList>> newYarnAcl = new HashMap<PrivilegedEntity, Map<AccessType, AccessControlList>>(yarnAcl);
+
 		for (Permission permission : permissions) {
-			setPermission(permission.getTarget(), permission.getAcls(), ugi);
+			setPermission(newYarnAcl, permission.getTarget(), permission.getAcls(), ugi);
 		}
 
+		// rebuild the index once for all permissions, and switch both together
+		RangerYarnAclIndex newYarnAclIndex = new RangerYarnAclIndex(newYarnAcl);
+
+		yarnAcl      = newYarnAcl;
+		yarnAclIndex = newYarnAclIndex;
 	}
 
-	private void setPermission(PrivilegedEntity entity, Map<AccessType, AccessControlList> permission, UserGroupInformation ugi) {
+	private void setPermission(Map<PrivilegedEntity, Map<AccessType, AccessControlList>> yarnAcl, PrivilegedEntity entity, Map<AccessType, AccessControlList> permission, UserGroupInformation ugi) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerYarnAuthorizer.setPermission(" + toString(entity) + ", " + permission + ", " + ugi + ")");
 		}
@@ -212,19 +224,7 @@ public boolean isAllowedByYarnAcl(AccessType accessType, PrivilegedEntity entity
 			LOG.debug("==> RangerYarnAuthorizer.isAllowedByYarnAcl(" + accessType + ", " + toString(entity) + ", " + ugi + ")");
 		}
 
-		boolean ret = false;
-
-		for(Map.Entry<PrivilegedEntity, Map<AccessType, AccessControlList>> e : yarnAcl.entrySet()) {
-			PrivilegedEntity                   aclEntity         = e.getKey();
-			Map<AccessType, AccessControlList> entityPermissions = e.getValue();
-
-			AccessControlList acl = entityPermissions == null ? null : entityPermissions.get(accessType);
-
-			if(acl != null && acl.isUserAllowed(ugi) && isSelfOrChildOf(entity, aclEntity)) {
-			    ret = true;
-		    	break;
-            }
-		}
+		boolean ret = yarnAclIndex.isAllowed(accessType, entity, ugi);
 
 		if(auditHandler != null) {
 			auditHandler.logYarnAclEvent(ret);
@@ -253,31 +253,156 @@ private static String getRangerAccessType(AccessType accessType) {
 		return ret;
 	}
 
-	private boolean isSelfOrChildOf(PrivilegedEntity queue, PrivilegedEntity parentQueue) {
-		boolean ret = queue.equals(parentQueue);
+	private String toString(PrivilegedEntity entity) {
+		if(entity != null) {
+			return "{name=" + entity.getName() + "; type=" + entity.getType() + "}";
+		}
+
+		return "null";
+	}
+}
+
+/**
+ * YARN ACLs indexed by entity name. An entity is allowed by the ACLs of the entity itself and, for queues,
+ * by the ACLs of its ancestor queues; a lookup walks the ancestors of the queue, so its cost depends on the
+ * depth of the queue and not on the number of queues with ACLs.
+ */
+class RangerYarnAclIndex {
+	private final Map<String, List<AclEntry>> aclsByName = new HashMap<>();
 
-		if(!ret && queue.getType() == EntityType.QUEUE) {
-			String queueName       = queue.getName();
-			String parentQueueName = parentQueue.getName();
+	RangerYarnAclIndex(Map<PrivilegedEntity, Map<AccessType, AccessControlList>> yarnAcl) {
+		for (Map.Entry<PrivilegedEntity, Map<AccessType, AccessControlList>> e : yarnAcl.entrySet()) {
+			PrivilegedEntity aclEntity = e.getKey();
 
-			if(queueName.contains(".") && !StringUtil.isEmpty(parentQueueName)) {
-				if(parentQueueName.charAt(parentQueueName.length() - 1) != '.') {
-					parentQueueName += ".";
+			if (aclEntity == null || e.getValue() == null) {
+				continue;
+			}
+
+			List<AclEntry> entries = aclsByName.get(aclEntity.getName());
+
+			if (entries == null) {
+				entries = new ArrayList<>(1);
+
+				aclsByName.put(aclEntity.getName(), entries);
+			}
+
+			entries.add(new AclEntry(aclEntity, e.getValue()));
+		}
+	}
+
+	boolean isAllowed(AccessType accessType, PrivilegedEntity entity, UserGroupInformation ugi) {
+		if (aclsByName.isEmpty()) {
+			return false;
+		}
+
+		String      userName   = ugi.getShortUserName();
+		Set<String> userGroups = null; // looked up only if an ACL has groups
+		String      name       = entity.getName();
+
+		// the entity itself
+		for (AclEntry aclEntry : getAclEntries(name)) {
+			if (aclEntry.entity.equals(entity)) {
+				UserGroupAcl acl = aclEntry.acls.get(accessType);
+
+				if (acl != null) {
+					if (userGroups == null && acl.hasGroups()) {
+						userGroups = getGroups(ugi);
+					}
+
+					if (acl.isAllowed(userName, userGroups)) {
+						return true;
+					}
 				}
+			}
+		}
 
-				ret = queueName.startsWith(parentQueueName);
+		// ancestor queues: "root.a" and "root.a." are parents of "root.a.b"
+		if (entity.getType() == EntityType.QUEUE && name != null) {
+			for (int idx = name.lastIndexOf('.'); idx >= 0; idx = idx > 0 ? name.lastIndexOf('.', idx - 1) : -1) {
+				String parentWithDot = name.substring(0, idx + 1);
+
+				for (String parentName : idx > 0 ? new String[] { name.substring(0, idx), parentWithDot } : new String[] { parentWithDot }) {
+					for (AclEntry aclEntry : getAclEntries(parentName)) {
+						UserGroupAcl acl = aclEntry.acls.get(accessType);
+
+						if (acl != null) {
+							if (userGroups == null && acl.hasGroups()) {
+								userGroups = getGroups(ugi);
+							}
+
+							if (acl.isAllowed(userName, userGroups)) {
+								return true;
+							}
+						}
+					}
+				}
 			}
 		}
 
+		return false;
+	}
+
+	private List<AclEntry> getAclEntries(String name) {
+		List<AclEntry> ret = name != null ? aclsByName.get(name) : null;
+
+		return ret != null ? ret : Collections.<AclEntry>emptyList();
+	}
+
+	private static Set<String> getGroups(UserGroupInformation ugi) {
+		String[] groupNames = ugi.getGroupNames();
+
+		Set<String> ret = new HashSet<>(groupNames.length);
+
+		Collections.addAll(ret, groupNames);
+
 		return ret;
 	}
 
-	private String toString(PrivilegedEntity entity) {
-		if(entity != null) {
-			return "{name=" + entity.getName() + "; type=" + entity.getType() + "}";
+	private static class AclEntry {
+		final PrivilegedEntity              entity;
+		final Map<AccessType, UserGroupAcl> acls = new HashMap<>();
+
+		AclEntry(PrivilegedEntity entity, Map<AccessType, AccessControlList> permissions) {
+			this.entity = entity;
+
+			for (Map.Entry<AccessType, AccessControlList> e : permissions.entrySet()) {
+				if (e.getValue() != null) {
+					acls.put(e.getKey(), new UserGroupAcl(e.getValue()));
+				}
+			}
+		}
+	}
+
+	private static class UserGroupAcl {
+		final boolean     isAllAllowed;
+		final Set<String> users;
+		final Set<String> groups;
+
+		UserGroupAcl(AccessControlList acl) {
+			this.isAllAllowed = acl.isAllAllowed();
+			this.users        = new HashSet<>(acl.getUsers());
+			this.groups       = new HashSet<>(acl.getGroups());
 		}
 
-		return "null";
+		boolean hasGroups() {
+			return !isAllAllowed && !groups.isEmpty();
+		}
+
+		boolean isAllowed(String userName, Collection<String> userGroups) {
+			if (isAllAllowed || users.contains(userName)) {
+				return true;
+			}
+
+			if (userGroups != null) {
+				for (String group : userGroups) {
+					if (groups.contains(group)) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
 	}
 }
 
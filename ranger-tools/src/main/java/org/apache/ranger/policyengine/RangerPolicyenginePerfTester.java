@@ -71,6 +71,10 @@ public static void main(String[] args) {
                 System.exit(1);
             }
 
+            // statistics are cleared after warm-up; report construction of policy-engine and tag-enricher before that
+            LOG.info("Construction statistics:");
+            PerfDataRecorder.printStatistics();
+
             URL[] requestFileURLs = perfTestOptions.getRequestFileURLs();
             int requestFilesCount = requestFileURLs.length;
 
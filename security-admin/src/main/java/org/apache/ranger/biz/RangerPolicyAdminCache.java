@@ -20,16 +20,25 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicyDelta;
@@ -44,10 +53,20 @@
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.ServicePolicies;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 public class RangerPolicyAdminCache {
 	private static final Log LOG = LogFactory.getLog(RangerPolicyAdminCache.class);
 
-	private final Map<String, RangerPolicyAdmin> policyAdminCache = Collections.synchronizedMap(new HashMap<>());
+	private static final String PROP_BUILDER_THREAD_COUNT    = "ranger.admin.policy.admin.cache.builder.threads";
+	private static final int    DEFAULT_BUILDER_THREAD_COUNT = 4;
+
+	// policy-admins are built and swapped in by these threads, so that a rebuild of one service doesn't hold up
+	// callers of other services, nor callers of the same service that already have a policy-admin to use
+	private static volatile ExecutorService builderService = null;
+
+	private final Map<String, RangerPolicyAdmin>         policyAdminCache = new ConcurrentHashMap<>();
+	private final Map<String, Future<RangerPolicyAdmin>> pendingBuilds    = new ConcurrentHashMap<>(); // serviceName => build in progress
 
 	final RangerPolicyAdmin getServicePoliciesAdmin(String serviceName, ServiceStore svcStore, RoleStore roleStore, SecurityZoneStore zoneStore, RangerPolicyEngineOptions options) {
 		RangerPolicyAdmin ret = null;
@@ -60,6 +79,16 @@ final RangerPolicyAdmin getServicePoliciesAdmin(String serviceName, ServiceStore
 
 		ret = policyAdminCache.get(serviceName);
 
+		Future<RangerPolicyAdmin> pendingBuild = pendingBuilds.get(serviceName);
+
+		if (pendingBuild != null) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("policy-admin for service:[" + serviceName + "] is being built. " + (ret != null ? "Returning current policy-admin" : "Waiting for the build to complete"));
+			}
+
+			return ret != null ? ret : waitForBuild(serviceName, pendingBuild);
+		}
+
 		long        policyVersion;
 		long        roleVersion;
 		RangerRoles roles;
@@ -93,7 +122,7 @@ final RangerPolicyAdmin getServicePoliciesAdmin(String serviceName, ServiceStore
 				if (policies.getPolicyVersion() != null && !policies.getPolicyVersion().equals(policyVersion)) {
 					ServicePolicies updatedServicePolicies = getUpdatedServicePolicies(serviceName, policies, svcStore, zoneStore);
 
-					ret = addOrUpdatePolicyAdmin(ret, updatedServicePolicies, roles, options);
+					ret = buildPolicyAdmin(serviceName, ret, updatedServicePolicies, roles, options);
 				} else {
 					LOG.error("policies object is null or its version is null for getPolicyAdmin(" + serviceName + ") !!");
 					LOG.error("Returning old policy admin");
@@ -117,55 +146,141 @@ final RangerPolicyAdmin getServicePoliciesAdmin(String serviceName, ServiceStore
 		return ret;
 	}
 
-	private RangerPolicyAdmin addOrUpdatePolicyAdmin(RangerPolicyAdmin policyAdmin, ServicePolicies policies, RangerRoles roles, RangerPolicyEngineOptions options) {
-		final RangerPolicyAdmin ret;
+	/*
+	 * Starts a build of the policy-admin for the service, unless one is already in progress. Returns the current
+	 * policy-admin if there is one; otherwise waits for the build, as there is nothing else to return.
+	 */
+	private RangerPolicyAdmin buildPolicyAdmin(final String serviceName, final RangerPolicyAdmin current, final ServicePolicies policies, final RangerRoles roles, final RangerPolicyEngineOptions options) {
+		// the entry is removed before the outcome is published, so that a caller woken up by a failed build finds no
+		// build in progress and starts a new one. Only this build can be pending for the service when it completes
+		final FutureTask<RangerPolicyAdmin> build   = new FutureTask<>(() -> {
+			try {
+				return addOrUpdatePolicyAdmin(serviceName, current, policies, roles, options);
+			} finally {
+				pendingBuilds.remove(serviceName);
+			}
+		});
+		Future<RangerPolicyAdmin>           pending = pendingBuilds.putIfAbsent(serviceName, build);
+
+		if (pending == null) {
+			pending = build;
+
+			try {
+				getBuilderService().execute(build);
+			} catch (RejectedExecutionException excp) {
+				LOG.warn("Failed to schedule build of policy-admin for service:[" + serviceName + "]. Building in the calling thread", excp);
+
+				build.run();
+			}
+		} else {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("policy-admin for service:[" + serviceName + "] is already being built");
+			}
+		}
+
+		return current != null ? current : waitForBuild(serviceName, pending);
+	}
+
+	private RangerPolicyAdmin waitForBuild(String serviceName, Future<RangerPolicyAdmin> build) {
+		RangerPolicyAdmin ret = null;
+
+		try {
+			ret = build.get();
+		} catch (InterruptedException excp) {
+			LOG.warn("Interrupted while waiting for build of policy-admin for service:[" + serviceName + "]");
+
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException excp) {
+			LOG.error("Failed to build policy-admin for service:[" + serviceName + "]", excp.getCause());
+		}
+
+		return ret != null ? ret : policyAdminCache.get(serviceName);
+	}
+
+	private RangerPolicyAdmin addOrUpdatePolicyAdmin(String serviceName, RangerPolicyAdmin policyAdmin, ServicePolicies policies, RangerRoles roles, RangerPolicyEngineOptions options) {
+		RangerPolicyAdmin       ret;
 		RangerPolicyAdminImpl   oldPolicyAdmin = (RangerPolicyAdminImpl) policyAdmin;
 
-		synchronized(this) {
-			Boolean hasPolicyDeltas = RangerPolicyDeltaUtil.hasPolicyDeltas(policies);
-			boolean isPolicyEngineShared = false;
-
-			if (hasPolicyDeltas != null) {
-				if (hasPolicyDeltas.equals(Boolean.TRUE)) {
-					if (oldPolicyAdmin != null) {
-						ret = RangerPolicyAdminImpl.getPolicyAdmin(oldPolicyAdmin, policies);
-						if (ret != null) {
-							ret.setRoles(roles);
-							isPolicyEngineShared = true;
-						}
-					} else {
-						LOG.error("Old policy engine is null! Cannot apply deltas without old policy engine!");
-						ret = null;
+		Boolean hasPolicyDeltas = RangerPolicyDeltaUtil.hasPolicyDeltas(policies);
+		boolean isPolicyEngineShared = false;
+
+		if (hasPolicyDeltas != null) {
+			if (hasPolicyDeltas.equals(Boolean.TRUE)) {
+				if (oldPolicyAdmin != null) {
+					ret = RangerPolicyAdminImpl.getPolicyAdmin(oldPolicyAdmin, policies);
+					if (ret != null) {
+						ret.setRoles(roles);
+						isPolicyEngineShared = true;
 					}
 				} else {
-					ret = addPolicyAdmin(policies, roles, options);
+					LOG.error("Old policy engine is null! Cannot apply deltas without old policy engine!");
+					ret = null;
 				}
 			} else {
-				LOG.warn("Provided policies are internally inconsistent!! [" + policies + "]. Please check code that computes policy-deltas! Keeping old policy-engine!");
-				ret = null;
+				ret = addPolicyAdmin(policies, roles, options);
 			}
+		} else {
+			LOG.warn("Provided policies are internally inconsistent!! [" + policies + "]. Please check code that computes policy-deltas! Keeping old policy-engine!");
+			ret = null;
+		}
 
-			if (ret != null) {
-				if (LOG.isDebugEnabled()) {
-					if (oldPolicyAdmin == null) {
-						LOG.debug("Adding policy-engine to cache with serviceName:[" + policies.getServiceName() + "] as key");
-					} else {
-						LOG.debug("Replacing policy-engine in cache with serviceName:[" + policies.getServiceName() + "] as key");
-					}
+		if (ret != null) {
+			if (LOG.isDebugEnabled()) {
+				if (oldPolicyAdmin == null) {
+					LOG.debug("Adding policy-engine to cache with serviceName:[" + serviceName + "] as key");
+				} else {
+					LOG.debug("Replacing policy-engine in cache with serviceName:[" + serviceName + "] as key");
 				}
-				policyAdminCache.put(policies.getServiceName(), ret);
+			}
+
+			// swap only if the policy-admin this build started from is still the current one
+			boolean isSwapped = oldPolicyAdmin == null ? policyAdminCache.putIfAbsent(serviceName, ret) == null : policyAdminCache.replace(serviceName, oldPolicyAdmin, ret);
+
+			if (isSwapped) {
 				if (oldPolicyAdmin != null) {
 					oldPolicyAdmin.releaseResources(!isPolicyEngineShared);
 				}
 			} else {
-				LOG.warn("Could not build new policy-engine. Continuing with the old policy-engine, if any");
+				LOG.warn("policy-admin for service:[" + serviceName + "] was replaced while building from version " + (oldPolicyAdmin != null ? oldPolicyAdmin.getPolicyVersion() : null) + ". Discarding the new policy-engine");
+
+				if (!isPolicyEngineShared) {
+					((RangerPolicyAdminImpl) ret).releaseResources(true);
+				}
+
+				ret = policyAdminCache.get(serviceName);
 			}
+		} else {
+			LOG.warn("Could not build new policy-engine. Continuing with the old policy-engine, if any");
 		}
 
 		return ret != null ? ret : oldPolicyAdmin;
 	}
 
-	private RangerPolicyAdmin addPolicyAdmin(ServicePolicies policies, RangerRoles roles, RangerPolicyEngineOptions options) {
+	ExecutorService getBuilderService() {
+		ExecutorService ret = builderService;
+
+		if (ret == null) {
+			synchronized (RangerPolicyAdminCache.class) {
+				ret = builderService;
+
+				if (ret == null) {
+					int threadCount = RangerAdminConfig.getInstance().getInt(PROP_BUILDER_THREAD_COUNT, DEFAULT_BUILDER_THREAD_COUNT);
+
+					ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					                                                     new ThreadFactoryBuilder().setDaemon(true).setNameFormat("policy-admin-builder-%d").build());
+
+					executor.allowCoreThreadTimeOut(true);
+
+					builderService = executor;
+					ret            = executor;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	RangerPolicyAdmin addPolicyAdmin(ServicePolicies policies, RangerRoles roles, RangerPolicyEngineOptions options) {
 		RangerServiceDef    serviceDef          = policies.getServiceDef();
 		String              serviceType         = (serviceDef != null) ? serviceDef.getName() : "";
 		RangerPluginContext rangerPluginContext = new RangerPluginContext(new RangerPluginConfig(serviceType, null, "ranger-admin", null, null, options));
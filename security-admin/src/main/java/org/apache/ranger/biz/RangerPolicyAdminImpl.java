@@ -92,6 +92,8 @@ public boolean isAccessAllowed(RangerAccessResource resource, String zoneName, S
 
         if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
             perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyAdminImpl.isAccessAllowed(user=" + user + ",accessType=" + accessType + "resource=" + resource.getAsString() + ")");
+        } else if (RangerPerfTracer.isPerfStatsEnabled()) {
+            perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyAdminImpl.isAccessAllowed");
         }
 
         final RangerPolicyRepository matchedRepository = policyEngine.getRepositoryForZone(zoneName);
@@ -133,6 +135,8 @@ public boolean isAccessAllowed(RangerPolicy policy, String user, Set<String> use
 
         if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
             perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.isAccessAllowed(user=" + user + "," + userGroups + ", roles=" + roles + ",accessType=" + accessType + ")");
+        } else if (RangerPerfTracer.isPerfStatsEnabled()) {
+            perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.isAccessAllowed");
         }
 
         final RangerPolicyRepository matchedRepository = policyEngine.getRepositoryForMatchedZone(policy);
@@ -276,6 +280,8 @@ public boolean isAccessAllowedByUnzonedPolicies(Map<String, RangerPolicyResource
 
         if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
             perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.isAccessAllowed(user=" + user + "," + userGroups + ",accessType=" + accessType + ")");
+        } else if (RangerPerfTracer.isPerfStatsEnabled()) {
+            perf = RangerPerfTracer.getPerfStatsTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.isAccessAllowed");
         }
 
         for (RangerPolicyEvaluator evaluator : policyEngine.getPolicyRepository().getPolicyEvaluators()) {
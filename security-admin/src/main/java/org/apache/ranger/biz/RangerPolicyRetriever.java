@@ -20,7 +20,10 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -204,6 +207,61 @@ public List<RangerPolicy> getServicePolicies(final XXService xService) {
 		return ret;
 	}
 
+	/**
+	 * Converts the given policies, which can belong to different services, without loading the other policies of
+	 * their services; used to read policies a page at a time. Returns the policies in ascending order of id.
+	 */
+	public List<RangerPolicy> getPolicies(List<XXPolicy> xPolicies) {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyRetriever.getPolicies(count=" + (xPolicies == null ? 0 : xPolicies.size()) + ")");
+		}
+
+		List<RangerPolicy> ret = new ArrayList<>();
+
+		if(CollectionUtils.isNotEmpty(xPolicies)) {
+			Map<Long, List<XXPolicy>> policiesByService = new LinkedHashMap<>();
+
+			for(XXPolicy xPolicy : xPolicies) {
+				List<XXPolicy> servicePolicies = policiesByService.get(xPolicy.getService());
+
+				if(servicePolicies == null) {
+					servicePolicies = new ArrayList<>();
+
+					policiesByService.put(xPolicy.getService(), servicePolicies);
+				}
+
+				servicePolicies.add(xPolicy);
+			}
+
+			for(Map.Entry<Long, List<XXPolicy>> entry : policiesByService.entrySet()) {
+				XXService xService = getXXService(entry.getKey());
+
+				if(xService != null) {
+					ret.addAll(new RetrieverContext(xService, entry.getValue()).getAllPolicies());
+				} else {
+					if(LOG.isDebugEnabled()) {
+						LOG.debug("RangerPolicyRetriever.getPolicies(): service not found (serviceId=" + entry.getKey() + ")");
+					}
+				}
+			}
+
+			if(policiesByService.size() > 1) {
+				Collections.sort(ret, new Comparator<RangerPolicy>() {
+					@Override
+					public int compare(RangerPolicy p1, RangerPolicy p2) {
+						return p1.getId().compareTo(p2.getId());
+					}
+				});
+			}
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyRetriever.getPolicies(count=" + (xPolicies == null ? 0 : xPolicies.size()) + "): policyCount=" + ret.size());
+		}
+
+		return ret;
+	}
+
 	public RangerPolicy getPolicy(Long policyId) {
 		RangerPolicy ret = null;
 
@@ -499,6 +557,33 @@ class RetrieverContext {
 			}
 		}
 
+		RetrieverContext(XXService xService, List<XXPolicy> xPolicies) {
+			Long                   serviceId    = xService.getId();
+			List<XXPolicyLabelMap> policyLabels = new ArrayList<>();
+
+			lookupCache.setRoleNameMapping(daoMgr.getXXPolicyRefRole().findUpdatedRoleNamesByService(serviceId));
+			lookupCache.setGroupNameMapping(daoMgr.getXXPolicyRefGroup().findUpdatedGroupNamesByService(serviceId));
+			lookupCache.setUserNameMapping(daoMgr.getXXPolicyRefUser().findUpdatedUserNamesByService(serviceId));
+			lookupCache.setAccessNameMapping(daoMgr.getXXPolicyRefAccessType().findUpdatedAccessNamesByService(serviceId));
+			lookupCache.setResourceNameMapping(daoMgr.getXXPolicyRefResource().findUpdatedResourceNamesByService(serviceId));
+			lookupCache.setDataMaskNameMapping(daoMgr.getXXPolicyRefDataMaskType().findUpdatedDataMaskNamesByService(serviceId));
+			lookupCache.setConditionNameMapping(daoMgr.getXXPolicyRefCondition().findUpdatedConditionNamesByService(serviceId));
+
+			// labels in the order of the policies, as getPolicyLabels() expects
+			for (XXPolicy xPolicy : xPolicies) {
+				List<XXPolicyLabelMap> labels = daoMgr.getXXPolicyLabelMap().findByPolicyId(xPolicy.getId());
+
+				if (labels != null) {
+					policyLabels.addAll(labels);
+				}
+			}
+
+			this.service          = xService;
+			this.serviceDef       = daoMgr.getXXServiceDef().getById(xService.getType());
+			this.iterPolicy       = new ArrayList<>(xPolicies).listIterator();
+			this.iterPolicyLabels = policyLabels.listIterator();
+		}
+
 		RetrieverContext(XXPolicy xPolicy, XXService xService) {
 			Long policyId = xPolicy.getId();
 
@@ -19,11 +19,14 @@
 
 package org.apache.ranger.biz;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -35,9 +38,12 @@
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
@@ -52,13 +58,12 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.common.AppConstants;
@@ -87,6 +92,7 @@
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerConstants;
 import org.apache.ranger.common.RangerFactory;
+import org.apache.ranger.common.RangerPolicySearchIndex;
 import org.apache.ranger.common.RangerServicePoliciesCache;
 import org.apache.ranger.common.RangerVersionInfo;
 import org.apache.ranger.common.SearchCriteria;
@@ -95,6 +101,7 @@
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.db.XXAccessTypeDefDao;
 import org.apache.ranger.db.XXAccessTypeDefGrantsDao;
+import org.apache.ranger.db.XXDBBaseDao;
 import org.apache.ranger.db.XXContextEnricherDefDao;
 import org.apache.ranger.db.XXDataMaskTypeDefDao;
 import org.apache.ranger.db.XXEnumDefDao;
@@ -208,6 +215,9 @@
 import com.google.common.base.Joiner;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 @Component
 public class ServiceDBStore extends AbstractServiceStore {
@@ -223,6 +233,9 @@ public class ServiceDBStore extends AbstractServiceStore {
     private static final String POLICY_TYPE_DATAMASK  = "Masking";
     private static final String POLICY_TYPE_ROWFILTER = "Row Level Filter";
 
+	private static final int EXPORT_EXCEL_ROW_ACCESS_WINDOW = 100;
+	private static final int EXPORT_POLICY_PAGE_SIZE        = 500;
+
 	private static       String LOCAL_HOSTNAME;
 	private static final String HOSTNAME       = "Host name";
 	private static final String USER_NAME      = "Exported by";
@@ -2128,6 +2141,15 @@ private boolean validatePolicyItems(List<? extends RangerPolicyItem> policyItems
 
 	@Override
 	public RangerPolicy updatePolicy(RangerPolicy policy) throws Exception {
+		return updatePolicy(policy, null);
+	}
+
+	/*
+	 * Updates the policy as one of many policies changed together, like the policies that a deleted user or group is
+	 * removed from. The policy-version changes are added to versionChanges, to be scheduled once per service by
+	 * scheduleVersionChanges(), instead of being scheduled for this policy alone
+	 */
+	public RangerPolicy updatePolicy(RangerPolicy policy, PolicyVersionChanges versionChanges) throws Exception {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.updatePolicy(" + policy + ")");
 		}
@@ -2187,7 +2209,7 @@ public RangerPolicy updatePolicy(RangerPolicy policy) throws Exception {
 		policyRefUpdater.createNewPolMappingForRefTable(policy, newUpdPolicy, xServiceDef);
 		createOrMapLabels(newUpdPolicy, uniquePolicyLabels);
 		RangerPolicy updPolicy = policyService.getPopulatedViewObject(newUpdPolicy);
-		handlePolicyUpdate(service, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, updPolicy, updateServiceInfoRoleVersion);
+		handlePolicyUpdate(service, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, updPolicy, updateServiceInfoRoleVersion, versionChanges);
 		dataHistService.createObjectDataHistory(updPolicy, RangerDataHistService.ACTION_UPDATE);
 
 		bizUtil.createTrxLog(trxLogList);
@@ -2372,16 +2394,35 @@ public Long getPolicyId(final Long serviceId, final String policyName, final Lon
 	}
 
 
-	public void getPoliciesInExcel(List<RangerPolicy> policies, HttpServletResponse response) throws Exception {
+	/**
+	 * Returns the policies of the given services in ascending order of id, a page at a time. Each page is read from the
+	 * database and filtered as getPolicies(filter) does only when it is requested, so it can be written out before the
+	 * next one is loaded.
+	 */
+	public Iterator<List<RangerPolicy>> getPolicyPages(List<Long> serviceIds, SearchFilter filter) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.getPolicyPages(" + serviceIds + ")");
+		}
+
+		Iterator<List<RangerPolicy>> ret = new PolicyPageIterator(serviceIds, filter);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.getPolicyPages(" + serviceIds + ")");
+		}
+
+		return ret;
+	}
+
+	public void getPoliciesInExcel(Iterator<List<RangerPolicy>> policyPages, HttpServletResponse response) throws Exception {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.getPoliciesInExcel()");
 		}
 		String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-		String excelFileName = "Ranger_Policies_"+timeStamp+".xls";
-		writeExcel(policies, excelFileName, response);
+		String excelFileName = "Ranger_Policies_"+timeStamp+".xlsx";
+		writeExcel(policyPages, excelFileName, response);
 	}
 
-	public void getPoliciesInCSV(List<RangerPolicy> policies,
+	public void getPoliciesInCSV(Iterator<List<RangerPolicy>> policyPages,
 			HttpServletResponse response) throws Exception {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.getPoliciesInCSV()");
@@ -2392,8 +2433,7 @@ public void getPoliciesInCSV(List<RangerPolicy> policies,
 			String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
 			CSVFileName = "Ranger_Policies_" + timeStamp + ".csv";
 			out = response.getOutputStream();
-			StringBuilder sb = writeCSV(policies, CSVFileName, response);
-			IOUtils.write(sb.toString(), out, "UTF-8");
+			writeCSV(policyPages, CSVFileName, response, out);
 		} catch (Exception e) {
 			LOG.error("Error while generating report file " + CSVFileName, e);
 			e.printStackTrace();
@@ -2408,14 +2448,14 @@ public void getPoliciesInCSV(List<RangerPolicy> policies,
 		}
 	}
 	
-	public void getPoliciesInJson(List<RangerPolicy> policies,
+	public void getPoliciesInJson(Iterator<List<RangerPolicy>> policyPages,
 			HttpServletResponse response) throws Exception {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.getPoliciesInJson()");
 		}
 		String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
 		String jsonFileName = "Ranger_Policies_" + timeStamp + ".json";
-		writeJson(policies, jsonFileName, response);
+		writeJson(policyPages, jsonFileName, response);
 	}
 
 	public PList<RangerPolicy> getPaginatedPolicies(SearchFilter filter) throws Exception {
@@ -2539,71 +2579,86 @@ private List<RangerPolicy> getServicePolicies(XXService service, SearchFilter fi
 		final List<RangerPolicy> policies = servicePolicies != null ? servicePolicies.getPolicies() : null;
 
 		if(policies != null && filter != null) {
-			Map<String, String> filterResources = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
-			String resourceMatchScope = filter.getParam(SearchFilter.RESOURCE_MATCH_SCOPE);
+			SearchFilter            searchFilter      = getPolicySearchFilter(filter);
+			RangerPolicySearchIndex searchIndex       = RangerServicePoliciesCache.getInstance().getPolicySearchIndex(service.getName());
+			List<RangerPolicy>      candidatePolicies = null;
 
-			boolean useLegacyResourceSearch = true;
+			if (searchIndex != null && Objects.equals(searchIndex.getPolicyVersion(), servicePolicies.getPolicyVersion())) {
+				candidatePolicies = searchIndex.getCandidatePolicies(searchFilter);
+			}
 
-			Map<String, String> paramsCopy  = new HashMap<>(filter.getParams());
-			SearchFilter       searchFilter = new SearchFilter(paramsCopy);
+			ret = applySearchFilter(candidatePolicies != null ? candidatePolicies : new ArrayList<>(policies), servicePolicies.getServiceDef(), filter, searchFilter);
+		} else {
+			ret = policies;
+		}
 
-			if (MapUtils.isNotEmpty(filterResources) && resourceMatchScope != null) {
-				useLegacyResourceSearch = false;
-				for (Map.Entry<String, String> entry : filterResources.entrySet()) {
-					searchFilter.removeParam(SearchFilter.RESOURCE_PREFIX + entry.getKey());
-				}
-			}
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.getServicePolicies(): count=" + ((ret == null) ? 0 : ret.size()));
+		}
 
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("Using" + (useLegacyResourceSearch ? " old " : " new ") + "way of filtering service-policies");
+		return ret;
+	}
+
+	private SearchFilter getPolicySearchFilter(SearchFilter filter) {
+		Map<String, String> filterResources = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
+		SearchFilter        ret             = new SearchFilter(new HashMap<>(filter.getParams()));
+
+		if (MapUtils.isNotEmpty(filterResources) && filter.getParam(SearchFilter.RESOURCE_MATCH_SCOPE) != null) {
+			for (Map.Entry<String, String> entry : filterResources.entrySet()) {
+				ret.removeParam(SearchFilter.RESOURCE_PREFIX + entry.getKey());
 			}
+		}
 
-			ret = new ArrayList<>(policies);
-			predicateUtil.applyFilter(ret, searchFilter);
+		return ret;
+	}
 
-			if (!useLegacyResourceSearch && CollectionUtils.isNotEmpty(ret)) {
-				RangerPolicyResourceMatcher.MatchScope scope;
+	private List<RangerPolicy> applySearchFilter(List<RangerPolicy> policies, RangerServiceDef serviceDef, SearchFilter filter, SearchFilter searchFilter) {
+		Map<String, String> filterResources    = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
+		String              resourceMatchScope = filter.getParam(SearchFilter.RESOURCE_MATCH_SCOPE);
+		boolean             useLegacyResourceSearch = MapUtils.isEmpty(filterResources) || resourceMatchScope == null;
 
-				if (StringUtils.equalsIgnoreCase(resourceMatchScope, "self")) {
-					scope = RangerPolicyResourceMatcher.MatchScope.SELF;
-				} else if (StringUtils.equalsIgnoreCase(resourceMatchScope, "ancestor")) {
-					scope = RangerPolicyResourceMatcher.MatchScope.ANCESTOR;
-				} else if (StringUtils.equalsIgnoreCase(resourceMatchScope, "self_or_ancestor")) {
-					scope = RangerPolicyResourceMatcher.MatchScope.SELF_OR_ANCESTOR;
-				} else {
-					// DESCENDANT match will never happen
-					scope = RangerPolicyResourceMatcher.MatchScope.SELF_OR_ANCESTOR;
-				}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Using" + (useLegacyResourceSearch ? " old " : " new ") + "way of filtering service-policies");
+		}
 
-				RangerServiceDef serviceDef = servicePolicies.getServiceDef();
+		List<RangerPolicy> ret = policies;
 
-				switch (scope) {
-					case SELF : {
-						serviceDef = RangerServiceDefHelper.getServiceDefForPolicyFiltering(serviceDef);
-						break;
-					}
-					case ANCESTOR : {
-						Map<String, String> updatedFilterResources = RangerServiceDefHelper.getFilterResourcesForAncestorPolicyFiltering(serviceDef, filterResources);
-						if (MapUtils.isNotEmpty(updatedFilterResources)) {
-							for (Map.Entry<String, String> entry : updatedFilterResources.entrySet()) {
-								filterResources.put(entry.getKey(), entry.getValue());
-							}
-							scope = RangerPolicyResourceMatcher.MatchScope.SELF_OR_ANCESTOR;
+		predicateUtil.applyFilter(ret, searchFilter);
+
+		if (!useLegacyResourceSearch && CollectionUtils.isNotEmpty(ret)) {
+			RangerPolicyResourceMatcher.MatchScope scope;
+
+			if (StringUtils.equalsIgnoreCase(resourceMatchScope, "self")) {
+				scope = RangerPolicyResourceMatcher.MatchScope.SELF;
+			} else if (StringUtils.equalsIgnoreCase(resourceMatchScope, "ancestor")) {
+				scope = RangerPolicyResourceMatcher.MatchScope.ANCESTOR;
+			} else if (StringUtils.equalsIgnoreCase(resourceMatchScope, "self_or_ancestor")) {
+				scope = RangerPolicyResourceMatcher.MatchScope.SELF_OR_ANCESTOR;
+			} else {
+				// DESCENDANT match will never happen
+				scope = RangerPolicyResourceMatcher.MatchScope.SELF_OR_ANCESTOR;
+			}
+
+			switch (scope) {
+				case SELF : {
+					serviceDef = RangerServiceDefHelper.getServiceDefForPolicyFiltering(serviceDef);
+					break;
+				}
+				case ANCESTOR : {
+					Map<String, String> updatedFilterResources = RangerServiceDefHelper.getFilterResourcesForAncestorPolicyFiltering(serviceDef, filterResources);
+					if (MapUtils.isNotEmpty(updatedFilterResources)) {
+						for (Map.Entry<String, String> entry : updatedFilterResources.entrySet()) {
+							filterResources.put(entry.getKey(), entry.getValue());
 						}
-						break;
+						scope = RangerPolicyResourceMatcher.MatchScope.SELF_OR_ANCESTOR;
 					}
-					default:
-						break;
+					break;
 				}
-
-				ret = applyResourceFilter(serviceDef, ret, filterResources, searchFilter, scope);
+				default:
+					break;
 			}
-		} else {
-			ret = policies;
-		}
 
-		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== ServiceDBStore.getServicePolicies(): count=" + ((ret == null) ? 0 : ret.size()));
+			ret = applyResourceFilter(serviceDef, ret, filterResources, searchFilter, scope);
 		}
 
 		return ret;
@@ -2942,6 +2997,199 @@ private ServicePolicies getServicePolicies(String serviceName, Long lastKnownVer
 		return ret;
 	}
 
+	private class PolicyPageIterator implements Iterator<List<RangerPolicy>> {
+		private final List<Long>                    serviceIds      = new ArrayList<>();
+		private final Set<String>                   tagServiceNames = new HashSet<>();
+		private final Map<String, RangerServiceDef> serviceDefs     = new HashMap<>();
+		private final List<SearchFilter>            filters         = new ArrayList<>();
+		private final boolean                       fetchAllZonePolicies;
+		private final String                        zoneName;
+		private       Long                          lastPolicyId    = 0L;
+		private       boolean                       isExhausted     = false;
+		private       List<RangerPolicy>            nextPage        = null;
+
+		PolicyPageIterator(List<Long> serviceIds, SearchFilter filter) throws Exception {
+			boolean                     fetchTagPolicies = Boolean.valueOf(filter.getParam(SearchFilter.FETCH_TAG_POLICIES));
+			String                      userName         = filter.getParam(SearchFilter.USER);
+			Set<Long>                   tagServiceIds    = new HashSet<>();
+			Map<Long, RangerServiceDef> serviceDefsById  = new HashMap<>();
+
+			this.fetchAllZonePolicies = Boolean.valueOf(filter.getParam(SearchFilter.FETCH_ZONE_UNZONE_POLICIES));
+			this.zoneName             = filter.getParam(SearchFilter.ZONE_NAME);
+
+			for (Long serviceId : new LinkedHashSet<>(serviceIds)) {
+				XXService xService = daoMgr.getXXService().getById(serviceId);
+
+				if (xService == null) {
+					continue;
+				}
+
+				this.serviceIds.add(serviceId);
+
+				if (!serviceDefsById.containsKey(xService.getType())) {
+					serviceDefsById.put(xService.getType(), getServiceDef(xService.getType()));
+				}
+
+				serviceDefs.put(xService.getName(), serviceDefsById.get(xService.getType()));
+
+				if (fetchTagPolicies && xService.getTagService() != null) {
+					tagServiceIds.add(xService.getTagService());
+				}
+			}
+
+			// as in getPolicies(filter), all policies of the linked tag services are included, with only the zone filter applied
+			for (Long tagServiceId : tagServiceIds) {
+				XXService xTagService = daoMgr.getXXService().getById(tagServiceId);
+
+				if (xTagService != null) {
+					if (!this.serviceIds.contains(tagServiceId)) {
+						this.serviceIds.add(tagServiceId);
+					}
+
+					tagServiceNames.add(xTagService.getName());
+				}
+			}
+
+			// as in searchRangerPolicies(), a user filter also matches the policies of the groups the user belongs to
+			filters.add(filter);
+
+			if (StringUtils.isNotEmpty(userName)) {
+				Set<String> groupNames = daoMgr.getXXGroupUser().findGroupNamesByUserName(userName);
+
+				if (CollectionUtils.isNotEmpty(groupNames)) {
+					for (String groupName : groupNames) {
+						SearchFilter groupFilter = new SearchFilter(new HashMap<>(filter.getParams()));
+
+						groupFilter.removeParam(SearchFilter.USER);
+						groupFilter.setParam(SearchFilter.GROUP, groupName);
+
+						filters.add(groupFilter);
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextPage == null && !isExhausted) {
+				nextPage = loadNextPage();
+			}
+
+			return nextPage != null;
+		}
+
+		@Override
+		public List<RangerPolicy> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			List<RangerPolicy> ret = nextPage;
+
+			nextPage = null;
+
+			return ret;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private List<RangerPolicy> loadNextPage() {
+			List<RangerPolicy> ret = null;
+
+			while (ret == null && !isExhausted) {
+				List<XXPolicy> xPolicies = daoMgr.getXXPolicy().findByServiceIdsAfterId(serviceIds, lastPolicyId, EXPORT_POLICY_PAGE_SIZE);
+
+				if (CollectionUtils.isEmpty(xPolicies)) {
+					isExhausted = true;
+				} else {
+					isExhausted  = xPolicies.size() < EXPORT_POLICY_PAGE_SIZE;
+					lastPolicyId = xPolicies.get(xPolicies.size() - 1).getId();
+
+					List<RangerPolicy> policies = filterPolicies(new RangerPolicyRetriever(daoMgr).getPolicies(xPolicies));
+
+					// the page is converted, so drop its entities: the persistence context must not grow with the export
+					XXDBBaseDao xXDBBaseDao = daoMgr.getXXDBBase();
+					xXDBBaseDao.flush();
+					xXDBBaseDao.clear();
+
+					if (!policies.isEmpty()) {
+						ret = policies;
+					}
+				}
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("PolicyPageIterator.loadNextPage(): lastPolicyId=" + lastPolicyId + ", count=" + (ret == null ? 0 : ret.size()));
+				}
+			}
+
+			return ret;
+		}
+
+		private List<RangerPolicy> filterPolicies(List<RangerPolicy> policies) {
+			Map<String, List<RangerPolicy>> policiesByService = new LinkedHashMap<>();
+			Set<Long>                       matchedIds        = new HashSet<>();
+
+			for (RangerPolicy policy : policies) {
+				List<RangerPolicy> servicePolicies = policiesByService.get(policy.getService());
+
+				if (servicePolicies == null) {
+					servicePolicies = new ArrayList<>();
+
+					policiesByService.put(policy.getService(), servicePolicies);
+				}
+
+				servicePolicies.add(policy);
+			}
+
+			for (Map.Entry<String, List<RangerPolicy>> entry : policiesByService.entrySet()) {
+				boolean isTagService = tagServiceNames.contains(entry.getKey());
+
+				for (SearchFilter filter : filters) {
+					List<RangerPolicy> matched = isTagService ? entry.getValue() : applySearchFilter(new ArrayList<>(entry.getValue()), serviceDefs.get(entry.getKey()), filter, getPolicySearchFilter(filter));
+
+					if (matched != null) {
+						for (RangerPolicy policy : matched) {
+							if (isZoneMatch(policy)) {
+								matchedIds.add(policy.getId());
+							}
+						}
+					}
+
+					if (isTagService) {
+						break;
+					}
+				}
+			}
+
+			List<RangerPolicy> ret = new ArrayList<>(matchedIds.size());
+
+			for (RangerPolicy policy : policies) {
+				if (matchedIds.contains(policy.getId())) {
+					ret.add(policy);
+				}
+			}
+
+			return ret;
+		}
+
+		private boolean isZoneMatch(RangerPolicy policy) {
+			final boolean ret;
+
+			if (fetchAllZonePolicies) {
+				ret = true;
+			} else if (StringUtils.isNotEmpty(zoneName)) {
+				ret = zoneName.equals(policy.getZoneName());
+			} else {
+				ret = StringUtils.isBlank(policy.getZoneName());
+			}
+
+			return ret;
+		}
+	}
+
 	private static class RangerPolicyDeltaComparator implements Comparator<RangerPolicyDelta>, java.io.Serializable {
 		@Override
 		public int compare(RangerPolicyDelta me, RangerPolicyDelta other) {
@@ -3427,12 +3675,20 @@ private Map<String, String> validateRequiredConfigParams(RangerService service,
 	}
 
 	private void handlePolicyUpdate(RangerService service, Integer policyDeltaType, RangerPolicy policy, boolean updateServiceInfoRoleVersion) throws Exception {
-		updatePolicyVersion(service, policyDeltaType, policy, updateServiceInfoRoleVersion);
+		handlePolicyUpdate(service, policyDeltaType, policy, updateServiceInfoRoleVersion, null);
+	}
+
+	private void handlePolicyUpdate(RangerService service, Integer policyDeltaType, RangerPolicy policy, boolean updateServiceInfoRoleVersion, PolicyVersionChanges versionChanges) throws Exception {
+		updatePolicyVersion(service, policyDeltaType, policy, updateServiceInfoRoleVersion, versionChanges);
 	}
 
 	public enum VERSION_TYPE { POLICY_VERSION, TAG_VERSION, POLICY_AND_TAG_VERSION, ROLE_VERSION }
 
 	private void updatePolicyVersion(RangerService service, Integer policyDeltaType, RangerPolicy policy, boolean updateServiceInfoRoleVersion) throws Exception {
+		updatePolicyVersion(service, policyDeltaType, policy, updateServiceInfoRoleVersion, null);
+	}
+
+	private void updatePolicyVersion(RangerService service, Integer policyDeltaType, RangerPolicy policy, boolean updateServiceInfoRoleVersion, PolicyVersionChanges versionChanges) throws Exception {
 		if(service == null || service.getId() == null) {
 			return;
 		}
@@ -3460,22 +3716,40 @@ private void updatePolicyVersion(RangerService service, Integer policyDeltaType,
 					final Long 		    referringServiceId 	  = referringService.getId();
 					final VERSION_TYPE  tagServiceversionType = VERSION_TYPE.POLICY_VERSION;
 
-					Runnable tagServiceVersionUpdater = new ServiceVersionUpdater(daoManager, referringServiceId, tagServiceversionType, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
-					transactionSynchronizationAdapter.executeOnTransactionCommit(tagServiceVersionUpdater);
+					ServiceVersionUpdater tagServiceVersionUpdater = new ServiceVersionUpdater(daoManager, referringServiceId, tagServiceversionType, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
+					scheduleVersionChange(tagServiceVersionUpdater, versionChanges);
 
-					Runnable roleVersionUpdater = new ServiceVersionUpdater(daoManager, referringServiceId, VERSION_TYPE.ROLE_VERSION, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
-					transactionSynchronizationAdapter.executeOnTransactionCommit(roleVersionUpdater);
+					ServiceVersionUpdater roleVersionUpdater = new ServiceVersionUpdater(daoManager, referringServiceId, VERSION_TYPE.ROLE_VERSION, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
+					scheduleVersionChange(roleVersionUpdater, versionChanges);
 				}
 			}
 		}
 		final VERSION_TYPE     versionType = VERSION_TYPE.POLICY_VERSION;
 
-		Runnable serviceVersionUpdater = new ServiceVersionUpdater(daoManager, serviceId, versionType, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
-		transactionSynchronizationAdapter.executeOnTransactionCommit(serviceVersionUpdater);
+		ServiceVersionUpdater serviceVersionUpdater = new ServiceVersionUpdater(daoManager, serviceId, versionType, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
+		scheduleVersionChange(serviceVersionUpdater, versionChanges);
 
 		if (updateServiceInfoRoleVersion) {
-			Runnable roleVersionUpdater = new ServiceVersionUpdater(daoManager, serviceId, VERSION_TYPE.ROLE_VERSION, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
-			transactionSynchronizationAdapter.executeOnTransactionCommit(roleVersionUpdater);
+			ServiceVersionUpdater roleVersionUpdater = new ServiceVersionUpdater(daoManager, serviceId, VERSION_TYPE.ROLE_VERSION, policy != null ? policy.getZoneName() : null, policyDeltaType, policy);
+			scheduleVersionChange(roleVersionUpdater, versionChanges);
+		}
+	}
+
+	private void scheduleVersionChange(ServiceVersionUpdater serviceVersionUpdater, PolicyVersionChanges versionChanges) {
+		if (versionChanges != null) {
+			versionChanges.add(serviceVersionUpdater);
+		} else {
+			transactionSynchronizationAdapter.executeOnTransactionCommit(serviceVersionUpdater);
+		}
+	}
+
+	/*
+	 * Schedules the policy-version changes collected by updatePolicy(policy, versionChanges) to be persisted on commit:
+	 * each version of a service is incremented once, with a change-log record for every policy
+	 */
+	public void scheduleVersionChanges(PolicyVersionChanges versionChanges) {
+		for (ServiceVersionUpdater serviceVersionUpdater : versionChanges.getServiceVersionUpdaters()) {
+			transactionSynchronizationAdapter.executeOnTransactionCommit(serviceVersionUpdater);
 		}
 	}
 
@@ -3667,28 +3941,38 @@ private static void persistChangeLog(XXService service, VERSION_TYPE versionType
 			Integer policyDeltaChange = serviceVersionUpdater.policyDeltaChange;
 
 			if (policyDeltaChange == RangerPolicyDelta.CHANGE_TYPE_RANGER_ADMIN_START || isSupportsPolicyDeltas()) {
-				// Build and save PolicyChangeLog
-				XXPolicyChangeLog policyChangeLog = new XXPolicyChangeLog();
-
-				policyChangeLog.setCreateTime(now);
-				policyChangeLog.setServiceId(service.getId());
-				policyChangeLog.setChangeType(serviceVersionUpdater.policyDeltaChange);
-				policyChangeLog.setPolicyVersion(version);
-				policyChangeLog.setZoneName(serviceVersionUpdater.zoneName);
-
-				RangerPolicy policy = serviceVersionUpdater.policy;
-				if (policy != null) {
-					policyChangeLog.setServiceType(policy.getServiceType());
-					policyChangeLog.setPolicyType(policy.getPolicyType());
-					policyChangeLog.setPolicyId(policy.getId());
+				if (serviceVersionUpdater.policies != null) {
+					// policies changed together share the version
+					for (RangerPolicy policy : serviceVersionUpdater.policies) {
+						persistPolicyChangeLog(service, version, now, policy.getZoneName(), policy, serviceVersionUpdater);
+					}
+				} else {
+					persistPolicyChangeLog(service, version, now, serviceVersionUpdater.zoneName, serviceVersionUpdater.policy, serviceVersionUpdater);
 				}
-
-				serviceVersionUpdater.daoManager.getXXPolicyChangeLog().create(policyChangeLog);
 			}
 		}
 
 	}
 
+	private static void persistPolicyChangeLog(XXService service, Long version, Date now, String zoneName, RangerPolicy policy, ServiceVersionUpdater serviceVersionUpdater) {
+		// Build and save PolicyChangeLog
+		XXPolicyChangeLog policyChangeLog = new XXPolicyChangeLog();
+
+		policyChangeLog.setCreateTime(now);
+		policyChangeLog.setServiceId(service.getId());
+		policyChangeLog.setChangeType(serviceVersionUpdater.policyDeltaChange);
+		policyChangeLog.setPolicyVersion(version);
+		policyChangeLog.setZoneName(zoneName);
+
+		if (policy != null) {
+			policyChangeLog.setServiceType(policy.getServiceType());
+			policyChangeLog.setPolicyType(policy.getPolicyType());
+			policyChangeLog.setPolicyId(policy.getId());
+		}
+
+		serviceVersionUpdater.daoManager.getXXPolicyChangeLog().create(policyChangeLog);
+	}
+
 
 	private Boolean deleteExistingPolicyLabel(RangerPolicy policy) {
 		if (policy == null) {
@@ -3866,16 +4150,20 @@ private boolean isResourceInList(String resource, List<XXResourceDef> xResourceD
 		return false;
 	}
 
-        private void writeExcel(List<RangerPolicy> policies, String excelFileName,
+        private void writeExcel(Iterator<List<RangerPolicy>> policyPages, String excelFileName,
                         HttpServletResponse response) throws IOException {
-		Workbook workbook = null;
+		SXSSFWorkbook workbook = null;
 		OutputStream outStream = null;
 		try {
-			workbook = new HSSFWorkbook();
+			// rows beyond the access window are flushed to a temp file, so heap use doesn't grow with policy count
+			workbook = new SXSSFWorkbook(EXPORT_EXCEL_ROW_ACCESS_WINDOW);
+			workbook.setCompressTempFiles(true);
 			Sheet sheet = workbook.createSheet();
 			createHeaderRow(sheet);
 			int rowCount = 0;
-			if (!CollectionUtils.isEmpty(policies)) {
+			while (policyPages.hasNext()) {
+				List<RangerPolicy> policies = policyPages.next();
+
 				for (RangerPolicy policy : policies) {
 
                                         List<RangerPolicyItem> policyItems = policy
@@ -3958,17 +4246,13 @@ private void writeExcel(List<RangerPolicy> policies, String excelFileName,
                                         }
 				}
 			}
-			ByteArrayOutputStream outByteStream = new ByteArrayOutputStream();
-			workbook.write(outByteStream);
-			byte[] outArray = outByteStream.toByteArray();
-			response.setContentType("application/ms-excel");
-			response.setContentLength(outArray.length);
+			response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 			response.setHeader("Expires:", "0");
                         response.setHeader("Content-Disposition", "attachment; filename="
                                         + excelFileName);
 			response.setStatus(HttpServletResponse.SC_OK);
 			outStream = response.getOutputStream();
-			outStream.write(outArray);
+			workbook.write(outStream);
 			outStream.flush();
 		} catch (IOException ex) {
 			LOG.error("Failed to create report file " + excelFileName, ex);
@@ -3979,22 +4263,32 @@ private void writeExcel(List<RangerPolicy> policies, String excelFileName,
 				outStream.close();
 			}
 			if (workbook != null) {
+				workbook.dispose();
 				workbook.close();
 			}
 		}
 	}
 
-        private StringBuilder writeCSV(List<RangerPolicy> policies,
-                        String cSVFileName, HttpServletResponse response) {
+        private void writeCSV(Iterator<List<RangerPolicy>> policyPages,
+                        String cSVFileName, HttpServletResponse response, OutputStream out) throws IOException {
 		response.setContentType("text/csv");
+                response.setHeader("Content-Disposition", "attachment; filename="
+                                + cSVFileName);
+		response.setStatus(HttpServletResponse.SC_OK);
 
 		final String LINE_SEPARATOR = "\n";
                 final String FILE_HEADER = "ID|Name|Resources|Groups|Users|Accesses|Service Type|Status|Policy Type|Delegate Admin|isRecursive|"
                                 + "isExcludes|Service Name|Description|isAuditEnabled|Policy Conditions|Policy Condition Type|Masking Options|Row Filter Expr|Policy Label Name";
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		// rows are buffered per policy and written out right away, instead of building the whole report in memory
 		StringBuilder csvBuffer = new StringBuilder();
 		csvBuffer.append(FILE_HEADER);
 		csvBuffer.append(LINE_SEPARATOR);
-                if (!CollectionUtils.isEmpty(policies)) {
+		writer.append(csvBuffer);
+		csvBuffer.setLength(0);
+                while (policyPages.hasNext()) {
+                        List<RangerPolicy> policies = policyPages.next();
+
                         for (RangerPolicy policy : policies) {
                                 List<RangerPolicyItem> policyItems = policy.getPolicyItems();
                                 List<RangerRowFilterPolicyItem> rowFilterPolicyItems = policy
@@ -4065,12 +4359,11 @@ private StringBuilder writeCSV(List<RangerPolicy> policies,
                                                                 csvBuffer, POLICY_DENY_INCLUDE);
                                         }
                                 }
+                                writer.append(csvBuffer);
+                                csvBuffer.setLength(0);
                         }
                 }
-                response.setHeader("Content-Disposition", "attachment; filename="
-                                + cSVFileName);
-		response.setStatus(HttpServletResponse.SC_OK);
-		return csvBuffer;
+                writer.flush();
 	}
 
         private void writeCSVForPolicyItems(RangerPolicy policy,
@@ -4317,20 +4610,39 @@ public void putMetaDataInfo(RangerExportPolicyList rangerExportPolicyList){
 		rangerExportPolicyList.setMetaDataInfo(metaDataInfo);
 	}
 	
-	private void writeJson(List<RangerPolicy> policies, String jsonFileName,
+	private void writeJson(Iterator<List<RangerPolicy>> policyPages, String jsonFileName,
 			HttpServletResponse response) throws JSONException, IOException {
 		response.setContentType("text/json");
 		response.setHeader("Content-Disposition", "attachment; filename="+ jsonFileName);
 		ServletOutputStream out = null;
 		RangerExportPolicyList rangerExportPolicyList = new RangerExportPolicyList();
 		putMetaDataInfo(rangerExportPolicyList);
-		rangerExportPolicyList.setPolicies(policies);
+		rangerExportPolicyList.setPolicies(new ArrayList<RangerPolicy>());
 		Gson gson = new GsonBuilder().setPrettyPrinting().create();
-		String json = gson.toJson(rangerExportPolicyList, RangerExportPolicyList.class);
+		// serialize the envelope (metaDataInfo, paging fields) as a tree, and stream policies one at a time in place of the empty list
+		JsonObject exportEnvelope = gson.toJsonTree(rangerExportPolicyList, RangerExportPolicyList.class).getAsJsonObject();
 		try {
 			out = response.getOutputStream();
 			response.setStatus(HttpServletResponse.SC_OK);
-			IOUtils.write(json, out, "UTF-8");
+			JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+			jsonWriter.setIndent("  ");
+			jsonWriter.beginObject();
+			for (Entry<String, JsonElement> field : exportEnvelope.entrySet()) {
+				jsonWriter.name(field.getKey());
+				if ("policies".equals(field.getKey())) {
+					jsonWriter.beginArray();
+					while (policyPages.hasNext()) {
+						for (RangerPolicy policy : policyPages.next()) {
+							gson.toJson(policy, RangerPolicy.class, jsonWriter);
+						}
+					}
+					jsonWriter.endArray();
+				} else {
+					gson.toJson(field.getValue(), jsonWriter);
+				}
+			}
+			jsonWriter.endObject();
+			jsonWriter.flush();
 		} catch (Exception e) {
 			LOG.error("Error while exporting json file " + jsonFileName, e);
 		} finally {
@@ -5405,6 +5717,9 @@ public static class ServiceVersionUpdater implements Runnable {
 		final Long             resourceId;
 		final Long             tagId;
 
+		// policies changed together, each with a change-log record for the same version; null for a single change
+		final List<RangerPolicy> policies;
+
 		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, Integer policyDeltaType) {
 			this(daoManager, serviceId, versionType, null, policyDeltaType, null);
 		}
@@ -5419,6 +5734,20 @@ public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSIO
 			this.tagChangeType = ServiceTags.TagsChangeType.NONE;
 			this.resourceId    = null;
 			this.tagId         = null;
+			this.policies      = null;
+		}
+
+		ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, Integer policyDeltaType, List<RangerPolicy> policies) {
+			this.serviceId   = serviceId;
+			this.daoManager  = daoManager;
+			this.versionType = versionType;
+			this.policyDeltaChange = policyDeltaType;
+			this.zoneName    = null;
+			this.policy      = null;
+			this.tagChangeType = ServiceTags.TagsChangeType.NONE;
+			this.resourceId    = null;
+			this.tagId         = null;
+			this.policies      = policies;
 		}
 
 		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, ServiceTags.TagsChangeType tagChangeType, Long resourceId, Long tagId ) {
@@ -5431,6 +5760,7 @@ public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSIO
 			this.tagChangeType = tagChangeType;
 			this.resourceId    = resourceId;
 			this.tagId         = tagId;
+			this.policies      = null;
 		}
 
 		@Override
@@ -5439,6 +5769,33 @@ public void run() {
 		}
 	}
 
+	/*
+	 * Policy-version changes collected while updating many policies together, merged into one ServiceVersionUpdater
+	 * per service, version type and change type
+	 */
+	public static class PolicyVersionChanges {
+		private final Map<String, ServiceVersionUpdater> serviceVersionUpdaters = new LinkedHashMap<>();
+
+		void add(ServiceVersionUpdater serviceVersionUpdater) {
+			String                key    = serviceVersionUpdater.serviceId + ":" + serviceVersionUpdater.versionType + ":" + serviceVersionUpdater.policyDeltaChange;
+			ServiceVersionUpdater merged = serviceVersionUpdaters.get(key);
+
+			if (merged == null) {
+				merged = new ServiceVersionUpdater(serviceVersionUpdater.daoManager, serviceVersionUpdater.serviceId, serviceVersionUpdater.versionType, serviceVersionUpdater.policyDeltaChange, new ArrayList<RangerPolicy>());
+
+				serviceVersionUpdaters.put(key, merged);
+			}
+
+			if (serviceVersionUpdater.policy != null) {
+				merged.policies.add(serviceVersionUpdater.policy);
+			}
+		}
+
+		Collection<ServiceVersionUpdater> getServiceVersionUpdaters() {
+			return serviceVersionUpdaters.values();
+		}
+	}
+
 	@Override
 	public Map<String, String> getServiceConfigForPlugin(Long serviceId) {
 		Map<String, String> configs = new HashMap<String, String>();
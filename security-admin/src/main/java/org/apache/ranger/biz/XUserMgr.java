@@ -37,9 +37,7 @@
 import org.apache.ranger.entity.XXUserPermission;
 import org.apache.ranger.plugin.model.GroupInfo;
 import org.apache.ranger.plugin.model.RangerPolicy;
-import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
-import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
 import org.apache.ranger.plugin.model.UserInfo;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.security.context.RangerAPIMapping;
@@ -47,17 +45,13 @@
 import org.apache.ranger.view.*;
 import org.apache.log4j.Logger;
 import org.apache.ranger.db.RangerDaoManager;
-import org.apache.ranger.db.XXAuditMapDao;
 import org.apache.ranger.db.XXAuthSessionDao;
 import org.apache.ranger.db.XXGroupDao;
 import org.apache.ranger.db.XXGroupGroupDao;
 import org.apache.ranger.db.XXGroupPermissionDao;
-import org.apache.ranger.db.XXGroupUserDao;
-import org.apache.ranger.db.XXPermMapDao;
 import org.apache.ranger.db.XXPolicyDao;
 import org.apache.ranger.db.XXPortalUserDao;
 import org.apache.ranger.db.XXPortalUserRoleDao;
-import org.apache.ranger.db.XXResourceDao;
 import org.apache.ranger.db.XXUserDao;
 import org.apache.ranger.db.XXUserPermissionDao;
 import org.apache.ranger.entity.XXAuditMap;
@@ -2026,125 +2020,31 @@ public void deleteXGroup(Long id, boolean force) {
 			logger.info("Force delete status="+force+" for group="+vXGroup.getName());
 		}
 
-		SearchCriteria searchCriteria = new SearchCriteria();
-		searchCriteria.addParam("xGroupId", id);
-		VXGroupUserList vxGroupUserList = searchXGroupUsers(searchCriteria);
+		logger.warn("Deleting GROUP : "+vXGroup.getName());
+		if (force) {
+			deleteXGroupCascade(id, xXGroup, vXGroup.getName());
+		} else {
+			SearchCriteria searchCriteria = new SearchCriteria();
+			searchCriteria.addParam("xGroupId", id);
+			VXGroupUserList vxGroupUserList = searchXGroupUsers(searchCriteria);
 
-		searchCriteria = new SearchCriteria();
-		searchCriteria.addParam("groupId", id);
-		VXPermMapList vXPermMapList = searchXPermMaps(searchCriteria);
+			searchCriteria = new SearchCriteria();
+			searchCriteria.addParam("groupId", id);
+			VXPermMapList vXPermMapList = searchXPermMaps(searchCriteria);
 
-		searchCriteria = new SearchCriteria();
-		searchCriteria.addParam("groupId", id);
-		VXAuditMapList vXAuditMapList = searchXAuditMaps(searchCriteria);
+			searchCriteria = new SearchCriteria();
+			searchCriteria.addParam("groupId", id);
+			VXAuditMapList vXAuditMapList = searchXAuditMaps(searchCriteria);
 
-		XXGroupPermissionDao xXGroupPermissionDao=daoManager.getXXGroupPermission();
-		List<XXGroupPermission> xXGroupPermissions=xXGroupPermissionDao.findByGroupId(id);
+			XXGroupPermissionDao xXGroupPermissionDao=daoManager.getXXGroupPermission();
+			List<XXGroupPermission> xXGroupPermissions=xXGroupPermissionDao.findByGroupId(id);
 
-		XXGroupGroupDao xXGroupGroupDao = daoManager.getXXGroupGroup();
-		List<XXGroupGroup> xXGroupGroups = xXGroupGroupDao.findByGroupId(id);
+			XXGroupGroupDao xXGroupGroupDao = daoManager.getXXGroupGroup();
+			List<XXGroupGroup> xXGroupGroups = xXGroupGroupDao.findByGroupId(id);
+
+			XXPolicyDao xXPolicyDao = daoManager.getXXPolicy();
+			List<XXPolicy> xXPolicyList = xXPolicyDao.findByGroupId(id);
 
-		XXPolicyDao xXPolicyDao = daoManager.getXXPolicy();
-		List<XXPolicy> xXPolicyList = xXPolicyDao.findByGroupId(id);
-		logger.warn("Deleting GROUP : "+vXGroup.getName());
-		if (force) {
-			//delete XXGroupUser records of matching group
-			XXGroupUserDao xGroupUserDao = daoManager.getXXGroupUser();
-			XXUserDao xXUserDao = daoManager.getXXUser();
-			XXUser xXUser =null;
-			for (VXGroupUser groupUser : vxGroupUserList.getList()) {
-				if(groupUser!=null){
-					xXUser=xXUserDao.getById(groupUser.getUserId());
-					if(xXUser!=null){
-						logger.warn("Removing user '" + xXUser.getName() + "' from group '" + groupUser.getName() + "'");
-					}
-					xGroupUserDao.remove(groupUser.getId());
-				}
-			}
-			//delete XXPermMap records of matching group
-			XXPermMapDao xXPermMapDao = daoManager.getXXPermMap();
-			XXResourceDao xXResourceDao = daoManager.getXXResource();
-			XXResource xXResource =null;
-			for (VXPermMap vXPermMap : vXPermMapList.getList()) {
-				if(vXPermMap!=null){
-					xXResource=xXResourceDao.getById(vXPermMap.getResourceId());
-					if(xXResource!=null){
-						logger.warn("Deleting '" + AppConstants.getLabelFor_XAPermType(vXPermMap.getPermType()) + "' permission from policy ID='" + vXPermMap.getResourceId() + "' for group '" + vXPermMap.getGroupName() + "'");
-					}
-					xXPermMapDao.remove(vXPermMap.getId());
-				}
-			}
-			//delete XXAuditMap records of matching group
-			XXAuditMapDao xXAuditMapDao = daoManager.getXXAuditMap();
-			for (VXAuditMap vXAuditMap : vXAuditMapList.getList()) {
-				if(vXAuditMap!=null){
-					xXResource=xXResourceDao.getById(vXAuditMap.getResourceId());
-					xXAuditMapDao.remove(vXAuditMap.getId());
-				}
-			}
-			//delete XXGroupGroupDao records of group-group mapping
-			for (XXGroupGroup xXGroupGroup : xXGroupGroups) {
-				if(xXGroupGroup!=null){
-					XXGroup xXGroupParent=xXGroupDao.getById(xXGroupGroup.getParentGroupId());
-					XXGroup xXGroupChild=xXGroupDao.getById(xXGroupGroup.getGroupId());
-					if(xXGroupParent!=null && xXGroupChild!=null){
-						logger.warn("Removing group '" + xXGroupChild.getName() + "' from group '" + xXGroupParent.getName() + "'");
-					}
-					xXGroupGroupDao.remove(xXGroupGroup.getId());
-				}
-			}
-			//delete XXPolicyItemGroupPerm records of group
-			for (XXPolicy xXPolicy : xXPolicyList) {
-				RangerPolicy rangerPolicy = policyService.getPopulatedViewObject(xXPolicy);
-				List<RangerPolicyItem> policyItems = rangerPolicy.getPolicyItems();
-				removeUserGroupReferences(policyItems,null,vXGroup.getName());
-				rangerPolicy.setPolicyItems(policyItems);
-
-				List<RangerPolicyItem> denyPolicyItems = rangerPolicy.getDenyPolicyItems();
-				removeUserGroupReferences(denyPolicyItems,null,vXGroup.getName());
-				rangerPolicy.setDenyPolicyItems(denyPolicyItems);
-
-				List<RangerPolicyItem> allowExceptions = rangerPolicy.getAllowExceptions();
-				removeUserGroupReferences(allowExceptions,null,vXGroup.getName());
-				rangerPolicy.setAllowExceptions(allowExceptions);
-
-				List<RangerPolicyItem> denyExceptions = rangerPolicy.getDenyExceptions();
-				removeUserGroupReferences(denyExceptions,null,vXGroup.getName());
-				rangerPolicy.setDenyExceptions(denyExceptions);
-
-				List<RangerDataMaskPolicyItem> dataMaskItems = rangerPolicy.getDataMaskPolicyItems();
-				removeUserGroupReferences(dataMaskItems,null,vXGroup.getName());
-				rangerPolicy.setDataMaskPolicyItems(dataMaskItems);
-
-				List<RangerRowFilterPolicyItem> rowFilterItems = rangerPolicy.getRowFilterPolicyItems();
-				removeUserGroupReferences(rowFilterItems,null,vXGroup.getName());
-				rangerPolicy.setRowFilterPolicyItems(rowFilterItems);
-
-				try {
-					svcStore.updatePolicy(rangerPolicy);
-				} catch (Throwable excp) {
-					logger.error("updatePolicy(" + rangerPolicy + ") failed", excp);
-					restErrorUtil.createRESTException(excp.getMessage());
-				}
-			}
-			if(CollectionUtils.isNotEmpty(xXGroupPermissions)){
-				for (XXGroupPermission xXGroupPermission : xXGroupPermissions) {
-					if(xXGroupPermission!=null){
-						XXModuleDef xXModuleDef=daoManager.getXXModuleDef().findByModuleId(xXGroupPermission.getModuleId());
-						if(xXModuleDef!=null){
-							logger.warn("Deleting '" + xXModuleDef.getModule() + "' module permission for group '" + xXGroup.getName() + "'");
-						}
-						xXGroupPermissionDao.remove(xXGroupPermission.getId());
-					}
-				}
-			}
-			//delete XXGroup
-			xXGroupDao.remove(id);
-			//Create XXTrxLog
-			List<XXTrxLog> xXTrxLogsXXGroup = xGroupService.getTransactionLog(xGroupService.populateViewBean(xXGroup),
-					"delete");
-			xaBizUtil.createTrxLog(xXTrxLogsXXGroup);
-		} else {
 			boolean hasReferences=false;
 
 			if(vxGroupUserList.getListSize()>0){
@@ -2200,7 +2100,7 @@ private void blockIfZoneGroup(Long grpId) {
 		}
 		}
 
-		public synchronized void deleteXUser(Long id, boolean force) {
+		public void deleteXUser(Long id, boolean force) {
 		checkAdminAccess();
                 xaBizUtil.blockAuditorRoleUser();
 		XXUserDao xXUserDao = daoManager.getXXUser();
@@ -2223,126 +2123,34 @@ public synchronized void deleteXUser(Long id, boolean force) {
 		}
 		restrictSelfAccountDeletion(vXUser.getName().trim());
 		blockIfZoneUser(id);
-		SearchCriteria searchCriteria = new SearchCriteria();
-		searchCriteria.addParam("xUserId", id);
-		VXGroupUserList vxGroupUserList = searchXGroupUsers(searchCriteria);
-
-		searchCriteria = new SearchCriteria();
-		searchCriteria.addParam("userId", id);
-		VXPermMapList vXPermMapList = searchXPermMaps(searchCriteria);
-
-		searchCriteria = new SearchCriteria();
-		searchCriteria.addParam("userId", id);
-		VXAuditMapList vXAuditMapList = searchXAuditMaps(searchCriteria);
-
-		long xXPortalUserId=0;
-		xXPortalUserId=vXPortalUser.getId();
-		XXAuthSessionDao xXAuthSessionDao=daoManager.getXXAuthSession();
-		XXUserPermissionDao xXUserPermissionDao=daoManager.getXXUserPermission();
-		XXPortalUserRoleDao xXPortalUserRoleDao=daoManager.getXXPortalUserRole();
-		List<XXAuthSession> xXAuthSessions=xXAuthSessionDao.getAuthSessionByUserId(xXPortalUserId);
-		List<XXUserPermission> xXUserPermissions=xXUserPermissionDao.findByUserPermissionId(xXPortalUserId);
-		List<XXPortalUserRole> xXPortalUserRoles=xXPortalUserRoleDao.findByUserId(xXPortalUserId);
-
-		XXPolicyDao xXPolicyDao = daoManager.getXXPolicy();
-		List<XXPolicy> xXPolicyList=xXPolicyDao.findByUserId(id);
 		logger.warn("Deleting User : "+vXUser.getName());
 		if (force) {
-			//delete XXGroupUser mapping
-			XXGroupUserDao xGroupUserDao = daoManager.getXXGroupUser();
-			for (VXGroupUser groupUser : vxGroupUserList.getList()) {
-				if(groupUser!=null){
-					logger.warn("Removing user '" + vXUser.getName() + "' from group '" + groupUser.getName() + "'");
-					xGroupUserDao.remove(groupUser.getId());
-				}
-			}
-			//delete XXPermMap records of user
-			XXPermMapDao xXPermMapDao = daoManager.getXXPermMap();
-			for (VXPermMap vXPermMap : vXPermMapList.getList()) {
-				if(vXPermMap!=null){
-					logger.warn("Deleting '" + AppConstants.getLabelFor_XAPermType(vXPermMap.getPermType()) + "' permission from policy ID='" + vXPermMap.getResourceId() + "' for user '" + vXPermMap.getUserName() + "'");
-					xXPermMapDao.remove(vXPermMap.getId());
-				}
-			}
-			//delete XXAuditMap records of user
-			XXAuditMapDao xXAuditMapDao = daoManager.getXXAuditMap();
-			for (VXAuditMap vXAuditMap : vXAuditMapList.getList()) {
-				if(vXAuditMap!=null){
-					xXAuditMapDao.remove(vXAuditMap.getId());
-				}
-			}
-			//delete XXPortalUser references
-			if(vXPortalUser!=null){
-				xPortalUserService.updateXXPortalUserReferences(xXPortalUserId);
-				if(xXAuthSessions!=null && xXAuthSessions.size()>0){
-					logger.warn("Deleting " + xXAuthSessions.size() + " login session records for user '" +  vXPortalUser.getLoginId() + "'");
-				}
-				for (XXAuthSession xXAuthSession : xXAuthSessions) {
-					xXAuthSessionDao.remove(xXAuthSession.getId());
-				}
-				for (XXUserPermission xXUserPermission : xXUserPermissions) {
-					if(xXUserPermission!=null){
-						XXModuleDef xXModuleDef=daoManager.getXXModuleDef().findByModuleId(xXUserPermission.getModuleId());
-						if(xXModuleDef!=null){
-							logger.warn("Deleting '" + xXModuleDef.getModule() + "' module permission for user '" + vXPortalUser.getLoginId() + "'");
-						}
-						xXUserPermissionDao.remove(xXUserPermission.getId());
-					}
-				}
-				for (XXPortalUserRole xXPortalUserRole : xXPortalUserRoles) {
-					if(xXPortalUserRole!=null){
-						logger.warn("Deleting '" + xXPortalUserRole.getUserRole() + "' role for user '" + vXPortalUser.getLoginId() + "'");
-						xXPortalUserRoleDao.remove(xXPortalUserRole.getId());
-					}
-				}
-			}
-			//delete XXPolicyItemUserPerm records of user
-			for(XXPolicy xXPolicy:xXPolicyList){
-				RangerPolicy rangerPolicy = policyService.getPopulatedViewObject(xXPolicy);
-				List<RangerPolicyItem> policyItems = rangerPolicy.getPolicyItems();
-				removeUserGroupReferences(policyItems,vXUser.getName(),null);
-				rangerPolicy.setPolicyItems(policyItems);
-
-				List<RangerPolicyItem> denyPolicyItems = rangerPolicy.getDenyPolicyItems();
-				removeUserGroupReferences(denyPolicyItems,vXUser.getName(),null);
-				rangerPolicy.setDenyPolicyItems(denyPolicyItems);
-
-				List<RangerPolicyItem> allowExceptions = rangerPolicy.getAllowExceptions();
-				removeUserGroupReferences(allowExceptions,vXUser.getName(),null);
-				rangerPolicy.setAllowExceptions(allowExceptions);
-
-				List<RangerPolicyItem> denyExceptions = rangerPolicy.getDenyExceptions();
-				removeUserGroupReferences(denyExceptions,vXUser.getName(),null);
-				rangerPolicy.setDenyExceptions(denyExceptions);
-
-				List<RangerDataMaskPolicyItem> dataMaskItems = rangerPolicy.getDataMaskPolicyItems();
-				removeUserGroupReferences(dataMaskItems,vXUser.getName(),null);
-				rangerPolicy.setDataMaskPolicyItems(dataMaskItems);
-
-				List<RangerRowFilterPolicyItem> rowFilterItems = rangerPolicy.getRowFilterPolicyItems();
-				removeUserGroupReferences(rowFilterItems,vXUser.getName(),null);
-				rangerPolicy.setRowFilterPolicyItems(rowFilterItems);
-
-				try{
-					svcStore.updatePolicy(rangerPolicy);
-				}catch(Throwable excp) {
-					logger.error("updatePolicy(" + rangerPolicy + ") failed", excp);
-					throw restErrorUtil.createRESTException(excp.getMessage());
-				}
-			}
-			//delete XXUser entry of user
-			xXUserDao.remove(id);
-			//delete XXPortal entry of user
-			logger.warn("Deleting Portal User : "+vXPortalUser.getLoginId());
-			xXPortalUserDao.remove(xXPortalUserId);
-			List<XXTrxLog> trxLogList =xUserService.getTransactionLog(xUserService.populateViewBean(xXUser), "delete");
-			xaBizUtil.createTrxLog(trxLogList);
-			if (xXPortalUser != null) {
-				trxLogList=xPortalUserService
-						.getTransactionLog(xPortalUserService.populateViewBean(xXPortalUser), "delete");
-				xaBizUtil.createTrxLog(trxLogList);
-			}
+			deleteXUserCascade(id, xXUser, vXUser.getName(), xXPortalUser, vXPortalUser);
 		} else {
+			SearchCriteria searchCriteria = new SearchCriteria();
+			searchCriteria.addParam("xUserId", id);
+			VXGroupUserList vxGroupUserList = searchXGroupUsers(searchCriteria);
+
+			searchCriteria = new SearchCriteria();
+			searchCriteria.addParam("userId", id);
+			VXPermMapList vXPermMapList = searchXPermMaps(searchCriteria);
+
+			searchCriteria = new SearchCriteria();
+			searchCriteria.addParam("userId", id);
+			VXAuditMapList vXAuditMapList = searchXAuditMaps(searchCriteria);
+
+			long xXPortalUserId=0;
+			xXPortalUserId=vXPortalUser.getId();
+			XXAuthSessionDao xXAuthSessionDao=daoManager.getXXAuthSession();
+			XXUserPermissionDao xXUserPermissionDao=daoManager.getXXUserPermission();
+			XXPortalUserRoleDao xXPortalUserRoleDao=daoManager.getXXPortalUserRole();
+			List<XXAuthSession> xXAuthSessions=xXAuthSessionDao.getAuthSessionByUserId(xXPortalUserId);
+			List<XXUserPermission> xXUserPermissions=xXUserPermissionDao.findByUserPermissionId(xXPortalUserId);
+			List<XXPortalUserRole> xXPortalUserRoles=xXPortalUserRoleDao.findByUserId(xXPortalUserId);
+
+			XXPolicyDao xXPolicyDao = daoManager.getXXPolicy();
+			List<XXPolicy> xXPolicyList=xXPolicyDao.findByUserId(id);
+
 			boolean hasReferences=false;
 
 			if(vxGroupUserList!=null && vxGroupUserList.getListSize()>0){
@@ -2405,6 +2213,127 @@ private void blockIfZoneUser(Long id) {
 		}
 		}
 
+	private void deleteXGroupCascade(Long id, XXGroup xXGroup, String groupName) {
+		removePolicyReferences(daoManager.getXXPolicy().findByGroupId(id), null, groupName);
+
+		int count = daoManager.getXXGroupUser().deleteByGroupId(id);
+		if (count > 0) {
+			logger.warn("Removed " + count + " users from group '" + groupName + "'");
+		}
+		count = daoManager.getXXPermMap().deleteByGroupId(id);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " permissions for group '" + groupName + "'");
+		}
+		daoManager.getXXAuditMap().deleteByGroupId(id);
+		count = daoManager.getXXGroupGroup().deleteByGroupId(id);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " group-group mappings of group '" + groupName + "'");
+		}
+		count = daoManager.getXXGroupPermission().deleteByGroupId(id);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " module permissions for group '" + groupName + "'");
+		}
+
+		//delete XXGroup
+		daoManager.getXXGroup().remove(id);
+		//Create XXTrxLog
+		List<XXTrxLog> xXTrxLogsXXGroup = xGroupService.getTransactionLog(xGroupService.populateViewBean(xXGroup), "delete");
+		xaBizUtil.createTrxLog(xXTrxLogsXXGroup);
+
+		updateUserStoreVersion("deleteXGroup(" + groupName + ")");
+	}
+
+	private void deleteXUserCascade(Long id, XXUser xXUser, String userName, XXPortalUser xXPortalUser, VXPortalUser vXPortalUser) {
+		Long xXPortalUserId = vXPortalUser.getId();
+
+		removePolicyReferences(daoManager.getXXPolicy().findByUserId(id), userName, null);
+
+		int count = daoManager.getXXGroupUser().deleteByUserId(id);
+		if (count > 0) {
+			logger.warn("Removed user '" + userName + "' from " + count + " groups");
+		}
+		count = daoManager.getXXPermMap().deleteByUserId(id);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " permissions for user '" + userName + "'");
+		}
+		daoManager.getXXAuditMap().deleteByUserId(id);
+
+		//delete XXPortalUser references
+		xPortalUserService.updateXXPortalUserReferences(xXPortalUserId);
+		count = daoManager.getXXAuthSession().deleteByUserId(xXPortalUserId);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " login session records for user '" + vXPortalUser.getLoginId() + "'");
+		}
+		count = daoManager.getXXUserPermission().deleteByUserId(xXPortalUserId);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " module permissions for user '" + vXPortalUser.getLoginId() + "'");
+		}
+		count = daoManager.getXXPortalUserRole().deleteByUserId(xXPortalUserId);
+		if (count > 0) {
+			logger.warn("Deleted " + count + " roles for user '" + vXPortalUser.getLoginId() + "'");
+		}
+
+		//delete XXUser entry of user
+		daoManager.getXXUser().remove(id);
+		//delete XXPortal entry of user
+		logger.warn("Deleting Portal User : "+vXPortalUser.getLoginId());
+		daoManager.getXXPortalUser().remove(xXPortalUserId);
+		List<XXTrxLog> trxLogList =xUserService.getTransactionLog(xUserService.populateViewBean(xXUser), "delete");
+		xaBizUtil.createTrxLog(trxLogList);
+		trxLogList=xPortalUserService.getTransactionLog(xPortalUserService.populateViewBean(xXPortalUser), "delete");
+		xaBizUtil.createTrxLog(trxLogList);
+
+		updateUserStoreVersion("deleteXUser(" + userName + ")");
+	}
+
+	/*
+	 * Removes the user or group from the given policies, flushing and clearing the persistence context after every
+	 * batch of policies so that it doesn't grow with the number of policies updated in this transaction. The policy
+	 * version of each affected service is incremented once for all the policies, not once per policy.
+	 */
+	private void removePolicyReferences(List<XXPolicy> xXPolicyList, String userName, String groupName) {
+		if (CollectionUtils.isEmpty(xXPolicyList)) {
+			return;
+		}
+
+		int                                 count          = 0;
+		ServiceDBStore.PolicyVersionChanges versionChanges = new ServiceDBStore.PolicyVersionChanges();
+
+		for (XXPolicy xXPolicy : xXPolicyList) {
+			RangerPolicy rangerPolicy = policyService.getPopulatedViewObject(xXPolicy);
+
+			removeUserGroupReferences(rangerPolicy.getPolicyItems(), userName, groupName);
+			removeUserGroupReferences(rangerPolicy.getDenyPolicyItems(), userName, groupName);
+			removeUserGroupReferences(rangerPolicy.getAllowExceptions(), userName, groupName);
+			removeUserGroupReferences(rangerPolicy.getDenyExceptions(), userName, groupName);
+			removeUserGroupReferences(rangerPolicy.getDataMaskPolicyItems(), userName, groupName);
+			removeUserGroupReferences(rangerPolicy.getRowFilterPolicyItems(), userName, groupName);
+
+			try {
+				svcStore.updatePolicy(rangerPolicy, versionChanges);
+			} catch (Throwable excp) {
+				logger.error("updatePolicy(" + rangerPolicy + ") failed", excp);
+				throw restErrorUtil.createRESTException(excp.getMessage());
+			}
+
+			if (++count % RangerBizUtil.policyBatchSize == 0) {
+				xaBizUtil.bulkModeOnlyFlushAndClear();
+			}
+		}
+
+		svcStore.scheduleVersionChanges(versionChanges);
+
+		logger.warn("Removed " + (userName != null ? "user '" + userName : "group '" + groupName) + "' from " + count + " policies");
+	}
+
+	private void updateUserStoreVersion(String label) {
+		try {
+			daoManager.getXXGlobalState().onGlobalAppDataChange(RANGER_USER_GROUP_GLOBAL_STATE_NAME);
+		} catch (Exception excp) {
+			logger.error(label + ": failed to update user-store version", excp);
+		}
+	}
+
 	private <T extends RangerPolicyItem> void removeUserGroupReferences(List<T> policyItems, String user, String group) {
 		List<T> itemsToRemove = null;
 		for(T policyItem : policyItems) {
@@ -2572,6 +2501,10 @@ public Map<String, Set<String>> getUserGroups() {
 	}
 
 	public RangerUserStore getRangerUserStore(Long lastKnownUserStoreVersion) throws Exception {
+		return getRangerUserStore(lastKnownUserStoreVersion, false);
+	}
+
+	public RangerUserStore getRangerUserStore(Long lastKnownUserStoreVersion, boolean isDeltaSupported) throws Exception {
 		RangerUserStore ret                   = null;
 		Long        rangerUserStoreVersionInDB = getUserStoreVersion();
 
@@ -2580,7 +2513,7 @@ public RangerUserStore getRangerUserStore(Long lastKnownUserStoreVersion) throws
 		}
 
 		if (rangerUserStoreVersionInDB != null) {
-			ret = RangerUserStoreCache.getInstance().getLatestRangerUserStoreOrCached(this, lastKnownUserStoreVersion, rangerUserStoreVersionInDB);
+			ret = RangerUserStoreCache.getInstance().getLatestRangerUserStoreOrCached(this, lastKnownUserStoreVersion, rangerUserStoreVersionInDB, isDeltaSupported);
 		}
 
 		if (logger.isDebugEnabled()) {
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Latest versions of policies, tags and roles of each service, and of the userstore, as seen by this Ranger Admin;
+ * updated by the caches as they read versions from the database. Plugins waiting for a change, via
+ * ChangeNotificationServlet, are notified as soon as a version newer than the one they know is seen.
+ */
+public class RangerChangeNotifier {
+	private static final Log LOG = LogFactory.getLog(RangerChangeNotifier.class);
+
+	private static volatile RangerChangeNotifier sInstance = null;
+
+	private final Map<String, RangerServiceVersions> serviceVersions  = new HashMap<>();
+	private final List<Waiter>                       waiters          = new ArrayList<>();
+	private       Long                               userStoreVersion = null;
+
+	public interface ChangeListener {
+		void onChange(RangerServiceVersions latestVersions);
+	}
+
+	public static RangerChangeNotifier getInstance() {
+		if (sInstance == null) {
+			synchronized (RangerChangeNotifier.class) {
+				if (sInstance == null) {
+					sInstance = new RangerChangeNotifier();
+				}
+			}
+		}
+		return sInstance;
+	}
+
+	RangerChangeNotifier() {
+	}
+
+	public void updatePolicyVersion(String serviceName, Long policyVersion) {
+		updateVersions(serviceName, policyVersion, null, null, null);
+	}
+
+	public void updateTagVersion(String serviceName, Long tagVersion) {
+		updateVersions(serviceName, null, tagVersion, null, null);
+	}
+
+	public void updateRoleVersion(String serviceName, Long roleVersion) {
+		updateVersions(serviceName, null, null, roleVersion, null);
+	}
+
+	public void updateUserStoreVersion(Long userStoreVersion) {
+		updateVersions(null, null, null, null, userStoreVersion);
+	}
+
+	/*
+	 * Versions only move forward: an older version, read by a slower thread or from a lagging database replica, is ignored
+	 */
+	public void updateVersions(String serviceName, Long policyVersion, Long tagVersion, Long roleVersion, Long userStoreVersion) {
+		List<Waiter> toNotify = null;
+
+		synchronized (this) {
+			boolean isUpdated = false;
+
+			if (serviceName != null && (policyVersion != null || tagVersion != null || roleVersion != null)) {
+				RangerServiceVersions versions = serviceVersions.get(serviceName);
+
+				if (versions == null) {
+					versions = new RangerServiceVersions(serviceName, null, null, null, null);
+
+					serviceVersions.put(serviceName, versions);
+				}
+
+				if (isNewer(policyVersion, versions.getPolicyVersion())) {
+					versions.setPolicyVersion(policyVersion);
+					isUpdated = true;
+				}
+
+				if (isNewer(tagVersion, versions.getTagVersion())) {
+					versions.setTagVersion(tagVersion);
+					isUpdated = true;
+				}
+
+				if (isNewer(roleVersion, versions.getRoleVersion())) {
+					versions.setRoleVersion(roleVersion);
+					isUpdated = true;
+				}
+			}
+
+			if (isNewer(userStoreVersion, this.userStoreVersion)) {
+				this.userStoreVersion = userStoreVersion;
+				isUpdated = true;
+			}
+
+			if (isUpdated && !waiters.isEmpty()) {
+				for (Iterator<Waiter> iter = waiters.iterator(); iter.hasNext(); ) {
+					Waiter waiter = iter.next();
+
+					if (waiter.isNotifiedBy(getVersions(waiter.lastKnownVersions.getServiceName()))) {
+						if (toNotify == null) {
+							toNotify = new ArrayList<>();
+						}
+
+						toNotify.add(waiter);
+						iter.remove();
+					}
+				}
+			}
+		}
+
+		if (toNotify != null) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerChangeNotifier.updateVersions(serviceName=" + serviceName + ", policyVersion=" + policyVersion + ", tagVersion=" + tagVersion + ", roleVersion=" + roleVersion + ", userStoreVersion=" + userStoreVersion + "): notifying " + toNotify.size() + " waiters");
+			}
+
+			for (Waiter waiter : toNotify) {
+				waiter.notifyListener();
+			}
+		}
+	}
+
+	/*
+	 * @return a copy of the latest versions of the service; versions not yet seen are null
+	 */
+	public synchronized RangerServiceVersions getVersions(String serviceName) {
+		RangerServiceVersions versions = serviceVersions.get(serviceName);
+		RangerServiceVersions ret      = versions != null ? new RangerServiceVersions(serviceName, versions.getPolicyVersion(), versions.getTagVersion(), versions.getRoleVersion(), null)
+		                                                  : new RangerServiceVersions(serviceName, null, null, null, null);
+
+		ret.setUserStoreVersion(userStoreVersion);
+
+		return ret;
+	}
+
+	public synchronized boolean isKnownService(String serviceName) {
+		return serviceVersions.containsKey(serviceName);
+	}
+
+	/*
+	 * The listener is called once, from the thread that updates a version to one newer than in lastKnownVersions; it is
+	 * called right away from this thread if such a version has already been seen.
+	 */
+	public Waiter addWaiter(RangerServiceVersions lastKnownVersions, ChangeListener listener) {
+		Waiter  ret         = new Waiter(lastKnownVersions, listener);
+		boolean isAvailable;
+
+		synchronized (this) {
+			isAvailable = ret.isNotifiedBy(getVersions(lastKnownVersions.getServiceName()));
+
+			if (!isAvailable) {
+				waiters.add(ret);
+			}
+		}
+
+		if (isAvailable) {
+			ret.notifyListener();
+		}
+
+		return ret;
+	}
+
+	public synchronized void removeWaiter(Waiter waiter) {
+		waiters.remove(waiter);
+	}
+
+	public synchronized int getWaiterCount() {
+		return waiters.size();
+	}
+
+	public synchronized Set<String> getWatchedServiceNames() {
+		Set<String> ret = new HashSet<>();
+
+		for (Waiter waiter : waiters) {
+			ret.add(waiter.lastKnownVersions.getServiceName());
+		}
+
+		return ret;
+	}
+
+	private static boolean isNewer(Long version, Long currentVersion) {
+		return version != null && (currentVersion == null || version > currentVersion);
+	}
+
+	public class Waiter {
+		private final RangerServiceVersions lastKnownVersions;
+		private final ChangeListener        listener;
+
+		Waiter(RangerServiceVersions lastKnownVersions, ChangeListener listener) {
+			this.lastKnownVersions = lastKnownVersions;
+			this.listener          = listener;
+		}
+
+		boolean isNotifiedBy(RangerServiceVersions latestVersions) {
+			return latestVersions.isNewerThan(lastKnownVersions);
+		}
+
+		void notifyListener() {
+			try {
+				listener.onChange(getVersions(lastKnownVersions.getServiceName()));
+			} catch (Exception excp) {
+				LOG.error("RangerChangeNotifier: failed to notify change to waiter for " + lastKnownVersions, excp);
+			}
+		}
+	}
+}
@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.util.SearchFilter;
+
+/**
+ * Inverted index over the policies of one service, mapping users, groups, roles, labels and
+ * resource values to policy ids. Search parameters are resolved against the distinct terms of
+ * the index (which are far fewer than the policy items that mention them), and the posting lists
+ * of the matching terms are intersected to produce candidate policies.
+ *
+ * Candidates computed here follow the same matching rules as AbstractPredicateUtil, so applying
+ * the search predicates on the candidates gives the same result as applying them on all policies.
+ */
+public class RangerPolicySearchIndex {
+	private static final Log LOG = LogFactory.getLog(RangerPolicySearchIndex.class);
+
+	private final Map<Long, RangerPolicy>                policies      = new HashMap<>();
+	private final Map<String, Set<Long>>                 userIndex     = new HashMap<>();
+	private final Map<String, Set<Long>>                 groupIndex    = new HashMap<>();
+	private final Map<String, Set<Long>>                 roleIndex     = new HashMap<>();
+	private final Map<String, Set<Long>>                 labelIndex    = new HashMap<>();
+	private final Map<String, Map<String, Set<Long>>>    resourceIndex = new HashMap<>();
+	private final ReentrantReadWriteLock                 lock          = new ReentrantReadWriteLock();
+	private       Long                                   policyVersion;
+
+	public RangerPolicySearchIndex(List<RangerPolicy> policies, Long policyVersion) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicySearchIndex(policyCount=" + (policies == null ? 0 : policies.size()) + ", policyVersion=" + policyVersion + ")");
+		}
+
+		if (CollectionUtils.isNotEmpty(policies)) {
+			for (RangerPolicy policy : policies) {
+				addPolicy(policy);
+			}
+		}
+
+		this.policyVersion = policyVersion;
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicySearchIndex(policyCount=" + this.policies.size() + ", policyVersion=" + policyVersion + ")");
+		}
+	}
+
+	public Long getPolicyVersion() {
+		lock.readLock().lock();
+
+		try {
+			return policyVersion;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void applyDeltas(List<RangerPolicyDelta> deltas, String serviceType, Long policyVersion) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicySearchIndex.applyDeltas(deltaCount=" + (deltas == null ? 0 : deltas.size()) + ", serviceType=" + serviceType + ", policyVersion=" + policyVersion + ")");
+		}
+
+		lock.writeLock().lock();
+
+		try {
+			if (CollectionUtils.isNotEmpty(deltas)) {
+				for (RangerPolicyDelta delta : deltas) {
+					if (!StringUtils.equals(serviceType, delta.getServiceType())) {
+						continue;
+					}
+
+					int changeType = delta.getChangeType();
+
+					switch (changeType) {
+						case RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE:
+							addPolicy(delta.getPolicy());
+							break;
+						case RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE:
+							removePolicy(delta.getPolicyId());
+							addPolicy(delta.getPolicy());
+							break;
+						case RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE:
+							removePolicy(delta.getPolicyId());
+							break;
+						default:
+							LOG.warn("Found unexpected changeType in policyDelta:[" + delta + "]. Ignoring delta");
+							break;
+					}
+				}
+			}
+
+			this.policyVersion = policyVersion;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicySearchIndex.applyDeltas(deltaCount=" + (deltas == null ? 0 : deltas.size()) + ", serviceType=" + serviceType + ", policyVersion=" + policyVersion + ")");
+		}
+	}
+
+	/**
+	 * @return policies that can match the user, group, role, policy-label and resource parameters
+	 * of the filter, in ascending order of policy-id; null if the filter has none of these parameters
+	 */
+	public List<RangerPolicy> getCandidatePolicies(SearchFilter filter) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicySearchIndex.getCandidatePolicies(" + filter + ")");
+		}
+
+		List<RangerPolicy> ret = null;
+
+		lock.readLock().lock();
+
+		try {
+			Set<Long> candidates = null;
+
+			if (filter != null) {
+				String              userName     = filter.getParam(SearchFilter.USER);
+				String              groupName    = filter.getParam(SearchFilter.GROUP);
+				String              roleName     = filter.getParam(SearchFilter.ROLE);
+				String              policyLabel  = filter.getParam(SearchFilter.POLICY_LABELS_PARTIAL);
+				String              polResource  = filter.getParam(SearchFilter.POL_RESOURCE);
+				Map<String, String> resources    = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
+
+				if (StringUtils.isNotEmpty(userName)) {
+					candidates = intersect(candidates, getPolicyIdsForPartialTerm(userIndex, userName));
+				}
+
+				if (StringUtils.isNotEmpty(groupName)) {
+					candidates = intersect(candidates, getPolicyIdsForPartialTerm(groupIndex, groupName));
+				}
+
+				if (StringUtils.isNotEmpty(roleName)) {
+					Set<Long> policyIds = roleIndex.get(roleName);
+
+					candidates = intersect(candidates, policyIds != null ? policyIds : new HashSet<Long>());
+				}
+
+				if (StringUtils.isNotEmpty(policyLabel)) {
+					candidates = intersect(candidates, getPolicyIdsForPartialTerm(labelIndex, policyLabel));
+				}
+
+				if (StringUtils.isNotEmpty(polResource)) {
+					Set<Long> policyIds = new HashSet<>();
+
+					for (Map<String, Set<Long>> valueIndex : resourceIndex.values()) {
+						policyIds.addAll(getPolicyIdsForPartialTerm(valueIndex, polResource));
+					}
+
+					candidates = intersect(candidates, policyIds);
+				}
+
+				if (MapUtils.isNotEmpty(resources)) {
+					for (Map.Entry<String, String> entry : resources.entrySet()) {
+						candidates = intersect(candidates, getPolicyIdsForResource(entry.getKey(), entry.getValue()));
+					}
+				}
+			}
+
+			if (candidates != null) {
+				ret = new ArrayList<>(candidates.size());
+
+				for (Long policyId : new TreeSet<>(candidates)) {
+					ret.add(policies.get(policyId));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicySearchIndex.getCandidatePolicies(" + filter + "): candidateCount=" + (ret == null ? "all" : ret.size()));
+		}
+
+		return ret;
+	}
+
+	private void addPolicy(RangerPolicy policy) {
+		if (policy == null || policy.getId() == null) {
+			return;
+		}
+
+		Long policyId = policy.getId();
+
+		policies.put(policyId, policy);
+
+		for (RangerPolicyItem policyItem : getAllPolicyItems(policy)) {
+			addTerms(userIndex, policyItem.getUsers(), policyId, true);
+			addTerms(groupIndex, policyItem.getGroups(), policyId, true);
+			addTerms(roleIndex, policyItem.getRoles(), policyId, false);
+		}
+
+		addTerms(labelIndex, policy.getPolicyLabels(), policyId, true);
+
+		if (MapUtils.isNotEmpty(policy.getResources())) {
+			for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+				RangerPolicyResource policyResource = entry.getValue();
+
+				if (policyResource != null) {
+					Map<String, Set<Long>> valueIndex = resourceIndex.get(entry.getKey());
+
+					if (valueIndex == null) {
+						valueIndex = new HashMap<>();
+
+						resourceIndex.put(entry.getKey(), valueIndex);
+					}
+
+					addTerms(valueIndex, policyResource.getValues(), policyId, false);
+				}
+			}
+		}
+	}
+
+	private void removePolicy(Long policyId) {
+		RangerPolicy policy = policyId != null ? policies.remove(policyId) : null;
+
+		if (policy == null) {
+			return;
+		}
+
+		for (RangerPolicyItem policyItem : getAllPolicyItems(policy)) {
+			removeTerms(userIndex, policyItem.getUsers(), policyId, true);
+			removeTerms(groupIndex, policyItem.getGroups(), policyId, true);
+			removeTerms(roleIndex, policyItem.getRoles(), policyId, false);
+		}
+
+		removeTerms(labelIndex, policy.getPolicyLabels(), policyId, true);
+
+		if (MapUtils.isNotEmpty(policy.getResources())) {
+			for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+				RangerPolicyResource   policyResource = entry.getValue();
+				Map<String, Set<Long>> valueIndex     = resourceIndex.get(entry.getKey());
+
+				if (policyResource != null && valueIndex != null) {
+					removeTerms(valueIndex, policyResource.getValues(), policyId, false);
+
+					if (valueIndex.isEmpty()) {
+						resourceIndex.remove(entry.getKey());
+					}
+				}
+			}
+		}
+	}
+
+	private Set<Long> getPolicyIdsForResource(String resourceName, String value) {
+		Set<Long>              ret        = new HashSet<>();
+		Map<String, Set<Long>> valueIndex = resourceIndex.get(resourceName);
+
+		if (valueIndex != null) {
+			for (Map.Entry<String, Set<Long>> entry : valueIndex.entrySet()) {
+				String policyResourceValue = entry.getKey();
+
+				if (policyResourceValue.equals(value) || FilenameUtils.wildcardMatch(value, policyResourceValue)) {
+					ret.addAll(entry.getValue());
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private static Set<Long> getPolicyIdsForPartialTerm(Map<String, Set<Long>> index, String term) {
+		Set<Long> ret = new HashSet<>();
+
+		for (Map.Entry<String, Set<Long>> entry : index.entrySet()) {
+			if (StringUtils.containsIgnoreCase(entry.getKey(), term)) {
+				ret.addAll(entry.getValue());
+			}
+		}
+
+		return ret;
+	}
+
+	private static Set<Long> intersect(Set<Long> candidates, Set<Long> policyIds) {
+		final Set<Long> ret;
+
+		if (candidates == null) {
+			ret = new HashSet<>(policyIds);
+		} else {
+			candidates.retainAll(policyIds);
+
+			ret = candidates;
+		}
+
+		return ret;
+	}
+
+	private static void addTerms(Map<String, Set<Long>> index, List<String> terms, Long policyId, boolean ignoreCase) {
+		if (CollectionUtils.isNotEmpty(terms)) {
+			for (String term : terms) {
+				if (term == null) {
+					continue;
+				}
+
+				String    key       = ignoreCase ? term.toLowerCase() : term;
+				Set<Long> policyIds = index.get(key);
+
+				if (policyIds == null) {
+					policyIds = new HashSet<>();
+
+					index.put(key, policyIds);
+				}
+
+				policyIds.add(policyId);
+			}
+		}
+	}
+
+	private static void removeTerms(Map<String, Set<Long>> index, List<String> terms, Long policyId, boolean ignoreCase) {
+		if (CollectionUtils.isNotEmpty(terms)) {
+			for (String term : terms) {
+				if (term == null) {
+					continue;
+				}
+
+				String    key       = ignoreCase ? term.toLowerCase() : term;
+				Set<Long> policyIds = index.get(key);
+
+				if (policyIds != null) {
+					policyIds.remove(policyId);
+
+					if (policyIds.isEmpty()) {
+						index.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	private static List<RangerPolicyItem> getAllPolicyItems(RangerPolicy policy) {
+		List<RangerPolicyItem> ret = new ArrayList<>();
+
+		addAll(ret, policy.getPolicyItems());
+		addAll(ret, policy.getDenyPolicyItems());
+		addAll(ret, policy.getAllowExceptions());
+		addAll(ret, policy.getDenyExceptions());
+		addAll(ret, policy.getDataMaskPolicyItems());
+		addAll(ret, policy.getRowFilterPolicyItems());
+
+		return ret;
+	}
+
+	private static void addAll(List<RangerPolicyItem> to, List<? extends RangerPolicyItem> from) {
+		if (from != null) {
+			to.addAll(from);
+		}
+	}
+}
@@ -66,6 +66,8 @@ private RangerRoleCache() {
 	public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
 		final RangerRoles ret;
 
+		RangerChangeNotifier.getInstance().updateRoleVersion(serviceName, rangerRoleVersionInDB);
+
 		if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
 			roleCacheWrapper = new RangerRoleCacheWrapper();
 			ret              = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
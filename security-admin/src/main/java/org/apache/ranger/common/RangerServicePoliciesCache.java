@@ -23,6 +23,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
 import org.apache.ranger.plugin.store.ServiceStore;
 
 import org.apache.commons.logging.Log;
@@ -138,9 +139,20 @@ public ServicePolicies getServicePolicies(String serviceName, Long serviceId, Lo
 		return ret;
 	}
 
+	public RangerPolicySearchIndex getPolicySearchIndex(String serviceName) {
+		final ServicePoliciesWrapper servicePoliciesWrapper;
+
+		synchronized (this) {
+			servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+		}
+
+		return servicePoliciesWrapper != null ? servicePoliciesWrapper.getSearchIndex() : null;
+	}
+
 	private class ServicePoliciesWrapper {
 		final Long          serviceId;
 		ServicePolicies     servicePolicies;
+		volatile RangerPolicySearchIndex searchIndex;
 		Date                updateTime            = null;
 		long                longestDbLoadTimeInMs = -1;
 		final ReentrantLock lock = new ReentrantLock();
@@ -175,6 +187,10 @@ Date getUpdateTime() {
 			return updateTime;
 		}
 
+		RangerPolicySearchIndex getSearchIndex() {
+			return searchIndex;
+		}
+
 		ServicePolicies getLatestOrCached(String serviceName, ServiceStore serviceStore, Long lastKnownVersion, boolean needsBackwardCompatibility) throws Exception {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("==> RangerServicePoliciesCache.getLatestOrCached(lastKnownVersion=" + lastKnownVersion + ", " + needsBackwardCompatibility + ")");
@@ -257,6 +273,8 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 			final Long servicePolicyVersionInDb     = serviceStore.getServicePolicyVersion(serviceName);
 			final Long cachedServicePoliciesVersion = servicePolicies != null ? servicePolicies.getPolicyVersion() : -1L;
 
+			RangerChangeNotifier.getInstance().updatePolicyVersion(serviceName, servicePolicyVersionInDb);
+
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("ServicePolicies version in cache[" + cachedServicePoliciesVersion + "], ServicePolicies version in database[" + servicePolicyVersionInDb + "]");
 			}
@@ -289,6 +307,7 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 						}
 						servicePolicies = servicePoliciesFromDb;
 						pruneUnusedAttributes();
+						rebuildSearchIndex();
 					} else if (servicePoliciesFromDb.getPolicyDeltas() == null) {
 						// service-policies are loaded because service/service-def changed
 						if (LOG.isDebugEnabled()) {
@@ -296,6 +315,7 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 						}
 						servicePolicies = servicePoliciesFromDb;
 						pruneUnusedAttributes();
+						rebuildSearchIndex();
 						isCacheReloadedByDQEvent = true;
 					} else { // Previously cached service policies are still valid - no service/service-def change
 						// Rebuild policies cache from original policies and deltas
@@ -313,6 +333,7 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 							isCacheReloadedByDQEvent = true;
 						} else {
 							servicePolicies.setPolicies(newPolicies);
+							updateSearchIndex(servicePoliciesFromDb.getPolicyDeltas());
 
 							// Rebuild tag-policies from original tag-policies and deltas
 							if (servicePoliciesFromDb.getTagPolicies() != null) {
@@ -403,11 +424,24 @@ private void loadCompleteSetOfPolicies(String serviceName, ServiceStore serviceS
 			try {
 				servicePolicies = serviceStore.getServicePolicies(serviceName, -1L);
 				pruneUnusedAttributes();
+				rebuildSearchIndex();
 			} catch (Exception ex) {
 				LOG.warn("Could not get policies from database");
 			}
 		}
 
+		private void rebuildSearchIndex() {
+			searchIndex = servicePolicies != null ? new RangerPolicySearchIndex(servicePolicies.getPolicies(), servicePolicies.getPolicyVersion()) : null;
+		}
+
+		private void updateSearchIndex(List<RangerPolicyDelta> policyDeltas) {
+			if (searchIndex == null || servicePolicies.getServiceDef() == null) {
+				rebuildSearchIndex();
+			} else {
+				searchIndex.applyDeltas(policyDeltas, servicePolicies.getServiceDef().getName(), servicePolicies.getPolicyVersion());
+			}
+		}
+
 		private void pruneUnusedAttributes() {
 			if (servicePolicies != null) {
 				pruneUnusedPolicyAttributes(servicePolicies.getPolicies());
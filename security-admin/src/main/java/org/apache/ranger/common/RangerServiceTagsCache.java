@@ -275,6 +275,8 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
 
 			Long tagVersionInDb = tagStore.getTagVersion(serviceName);
 
+			RangerChangeNotifier.getInstance().updateTagVersion(serviceName, tagVersionInDb);
+
 			if (serviceTags == null || tagVersionInDb == null || !tagVersionInDb.equals(cachedServiceTagsVersion)) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("loading serviceTags from db ... cachedServiceTagsVersion=" + cachedServiceTagsVersion + ", tagVersionInDb=" + tagVersionInDb);
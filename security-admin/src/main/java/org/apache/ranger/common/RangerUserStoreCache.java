@@ -26,6 +26,7 @@
 import org.apache.ranger.plugin.model.GroupInfo;
 import org.apache.ranger.plugin.model.UserInfo;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -35,11 +36,14 @@ public class RangerUserStoreCache {
 	private static final Log LOG = LogFactory.getLog(RangerUserStoreCache.class);
 
 	private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+	private static final int MAX_DELTA_VERSIONS       = 16;
 
 	public static volatile RangerUserStoreCache 	sInstance = null;
 	private final int 								waitTimeInSeconds;
+	private final int 								maxDeltaVersions;
 	private final ReentrantLock 					lock = new ReentrantLock();
-	private RangerUserStore 						rangerUserStore;
+	private final Map<Long, RangerUserStore> 		deltas = new LinkedHashMap<>(); // version => changes from version to delta.getUserStoreVersion()
+	private volatile RangerUserStore 				rangerUserStore;
 
 	public static RangerUserStoreCache getInstance() {
 		if (sInstance == null) {
@@ -53,9 +57,14 @@ public static RangerUserStoreCache getInstance() {
 	}
 
 	private RangerUserStoreCache() {
-		RangerAdminConfig config = RangerAdminConfig.getInstance();
-		waitTimeInSeconds = config.getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
-		this.rangerUserStore = new RangerUserStore();
+		this(RangerAdminConfig.getInstance().getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE),
+			 RangerAdminConfig.getInstance().getInt("ranger.admin.userstore.delta.max.versions", MAX_DELTA_VERSIONS));
+	}
+
+	RangerUserStoreCache(int waitTimeInSeconds, int maxDeltaVersions) {
+		this.waitTimeInSeconds = waitTimeInSeconds;
+		this.maxDeltaVersions  = maxDeltaVersions;
+		this.rangerUserStore   = new RangerUserStore();
 	}
 
 	public RangerUserStore getRangerUserStore() {
@@ -63,14 +72,22 @@ public RangerUserStore getRangerUserStore() {
 	}
 
 	public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr, Long lastKnownUserStoreVersion, Long rangerUserStoreVersionInDB) throws Exception {
+		return getLatestRangerUserStoreOrCached(xUserMgr, lastKnownUserStoreVersion, rangerUserStoreVersionInDB, false);
+	}
+
+	public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr, Long lastKnownUserStoreVersion, Long rangerUserStoreVersionInDB, boolean isDeltaSupported) throws Exception {
 		RangerUserStore ret = null;
 
 		if (lastKnownUserStoreVersion == null || !lastKnownUserStoreVersion.equals(rangerUserStoreVersionInDB)) {
 			ret = getLatestRangerUserStore(xUserMgr, lastKnownUserStoreVersion, rangerUserStoreVersionInDB);
-		} else if (lastKnownUserStoreVersion.equals(rangerUserStoreVersionInDB)) {
-			ret = null;
-		} else {
-			ret = getRangerUserStore();
+
+			if (isDeltaSupported && ret != null && lastKnownUserStoreVersion != null && lastKnownUserStoreVersion > 0) {
+				RangerUserStore delta = getUserStoreDelta(lastKnownUserStoreVersion, ret);
+
+				if (delta != null) {
+					ret = delta;
+				}
+			}
 		}
 
 		return ret;
@@ -83,20 +100,34 @@ public RangerUserStore getLatestRangerUserStore(XUserMgr xUserMgr, Long lastKnow
 			LOG.debug("==> RangerUserStoreCache.getLatestRangerUserStore(lastKnownUserStoreVersion= " + lastKnownUserStoreVersion + " rangerUserStoreVersionInDB= " + rangerUserStoreVersionInDB + ")");
 		}
 
+		RangerChangeNotifier.getInstance().updateUserStoreVersion(rangerUserStoreVersionInDB);
+
 		try {
 			lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
 
 			if (lockResult) {
-				final Set<UserInfo> rangerUsersInDB = xUserMgr.getUsers();
-				final Set<GroupInfo> rangerGroupsInDB = xUserMgr.getGroups();
-				final Map<String, Set<String>> userGroups = xUserMgr.getUserGroups();
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("No. of users from DB = " + rangerUsersInDB.size() + " and no. of groups from DB = " + rangerGroupsInDB.size());
-					LOG.debug("No. of userGroupMappings = " + userGroups.size());
+				RangerUserStore current = rangerUserStore;
+
+				if (current.getUserStoreVersion() != null && current.getUserStoreVersion().equals(rangerUserStoreVersionInDB)) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("RangerUserStore version " + rangerUserStoreVersionInDB + " is already cached");
+					}
+					ret = current;
+				} else {
+					final Set<UserInfo> rangerUsersInDB = xUserMgr.getUsers();
+					final Set<GroupInfo> rangerGroupsInDB = xUserMgr.getGroups();
+					final Map<String, Set<String>> userGroups = xUserMgr.getUserGroups();
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("No. of users from DB = " + rangerUsersInDB.size() + " and no. of groups from DB = " + rangerGroupsInDB.size());
+						LOG.debug("No. of userGroupMappings = " + userGroups.size());
+					}
+
+					ret = new RangerUserStore(rangerUserStoreVersionInDB, rangerUsersInDB, rangerGroupsInDB, userGroups);
+
+					addUserStoreDelta(current, ret);
+
+					rangerUserStore = ret;
 				}
-
-				ret = new RangerUserStore(rangerUserStoreVersionInDB, rangerUsersInDB, rangerGroupsInDB, userGroups);
-				rangerUserStore = ret;
 			} else {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached RangerUserStore");
@@ -116,5 +147,81 @@ public RangerUserStore getLatestRangerUserStore(XUserMgr xUserMgr, Long lastKnow
 		}
 		return ret;
 	}
-}
 
+	/*
+	 * Returns changes from lastKnownUserStoreVersion to latest, merged across the versions in between; null if the changes
+	 * of any version in between are no longer kept, or if they are large enough that sending latest is as cheap.
+	 */
+	private RangerUserStore getUserStoreDelta(Long lastKnownUserStoreVersion, RangerUserStore latest) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerUserStoreCache.getUserStoreDelta(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + ", latestVersion=" + latest.getUserStoreVersion() + ")");
+		}
+
+		RangerUserStore ret           = null;
+		Long            latestVersion = latest.getUserStoreVersion();
+
+		if (latestVersion != null && latestVersion > lastKnownUserStoreVersion) {
+			synchronized (deltas) {
+				for (Long version = lastKnownUserStoreVersion; version < latestVersion; ) {
+					RangerUserStore delta = deltas.get(version);
+
+					if (delta == null) {
+						ret = null;
+
+						break;
+					}
+
+					ret     = ret == null ? delta : RangerUserStoreDeltaUtil.mergeDeltas(ret, delta);
+					version = delta.getUserStoreVersion();
+				}
+			}
+
+			if (ret != null && !latestVersion.equals(ret.getUserStoreVersion())) {
+				ret = null;
+			}
+		}
+
+		if (ret != null) {
+			int changeCount = RangerUserStoreDeltaUtil.getChangeCount(ret);
+			int totalCount  = getSize(latest.getUserAttrMapping()) + getSize(latest.getGroupAttrMapping()) + getSize(latest.getUserGroupMapping());
+
+			if (changeCount > totalCount / 2) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerUserStoreCache.getUserStoreDelta(): " + changeCount + " of " + totalCount + " entries changed; returning complete RangerUserStore");
+				}
+
+				ret = null;
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerUserStoreCache.getUserStoreDelta(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + "): isDelta=" + (ret != null));
+		}
+
+		return ret;
+	}
+
+	private void addUserStoreDelta(RangerUserStore previous, RangerUserStore latest) {
+		Long            previousVersion = previous.getUserStoreVersion();
+		Long            latestVersion   = latest.getUserStoreVersion();
+		boolean         isDeltaValid    = maxDeltaVersions > 0 && previousVersion != null && previousVersion > 0 && latestVersion != null && latestVersion > previousVersion;
+		RangerUserStore delta           = isDeltaValid ? RangerUserStoreDeltaUtil.computeDelta(previous, latest) : null;
+
+		synchronized (deltas) {
+			if (delta == null) {
+				deltas.clear();
+			} else {
+				deltas.put(previousVersion, delta);
+
+				for (Iterator<Long> iter = deltas.keySet().iterator(); deltas.size() > maxDeltaVersions && iter.hasNext(); ) {
+					iter.next();
+					iter.remove();
+				}
+			}
+		}
+	}
+
+	private static int getSize(Map<String, ?> map) {
+		return map == null ? 0 : map.size();
+	}
+}
@@ -54,5 +54,17 @@ public List<XXAuditMap> findByResourceId(Long resourceId) {
 		return new ArrayList<XXAuditMap>();
 	}
 
-}
+	public int deleteByGroupId(Long groupId) {
+		return getEntityManager()
+				.createNamedQuery("XXAuditMap.deleteByGroupId")
+				.setParameter("groupId", groupId)
+				.executeUpdate();
+	}
 
+	public int deleteByUserId(Long userId) {
+		return getEntityManager()
+				.createNamedQuery("XXAuditMap.deleteByUserId")
+				.setParameter("userId", userId)
+				.executeUpdate();
+	}
+}
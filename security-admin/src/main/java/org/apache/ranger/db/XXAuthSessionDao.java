@@ -63,5 +63,11 @@ public List<XXAuthSession> getAuthSessionByUserId(Long userId){
 			return null;
 		}
 	}
-}
 
+	public int deleteByUserId(Long userId) {
+		return getEntityManager()
+				.createNamedQuery("XXAuthSession.deleteByUserId")
+				.setParameter("userId", userId)
+				.executeUpdate();
+	}
+}
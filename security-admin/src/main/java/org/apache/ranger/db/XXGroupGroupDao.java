@@ -47,5 +47,11 @@ public List<XXGroupGroup> findByGroupId(Long groupId) {
 			return new ArrayList<XXGroupGroup>();
 		}
 	}
-}
 
+	public int deleteByGroupId(Long groupId) {
+		return getEntityManager()
+				.createNamedQuery("XXGroupGroup.deleteByGroupId")
+				.setParameter("groupId", groupId)
+				.executeUpdate();
+	}
+}
@@ -130,4 +130,10 @@ public void deleteByModuleId(Long moduleId) {
 		}
 	}
 
+	public int deleteByGroupId(Long groupId) {
+		return getEntityManager()
+				.createNamedQuery("XXGroupPermission.deleteByGroupId")
+				.setParameter("groupId", groupId)
+				.executeUpdate();
+	}
 }
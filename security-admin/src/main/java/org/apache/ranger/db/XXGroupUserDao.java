@@ -134,4 +134,18 @@ public XXGroupUser findByGroupNameAndUserId(String groupName, Long userId) {
 		}
 		return null;
 	}
+
+	public int deleteByGroupId(Long groupId) {
+		return getEntityManager()
+				.createNamedQuery("XXGroupUser.deleteByGroupId")
+				.setParameter("groupId", groupId)
+				.executeUpdate();
+	}
+
+	public int deleteByUserId(Long userId) {
+		return getEntityManager()
+				.createNamedQuery("XXGroupUser.deleteByUserId")
+				.setParameter("userId", userId)
+				.executeUpdate();
+	}
 }
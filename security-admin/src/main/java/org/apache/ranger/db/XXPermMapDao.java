@@ -53,5 +53,18 @@ public List<XXPermMap> findByResourceId(Long resourceId) {
 		}
 		return null;
 	}
-}
 
+	public int deleteByGroupId(Long groupId) {
+		return getEntityManager()
+				.createNamedQuery("XXPermMap.deleteByGroupId")
+				.setParameter("groupId", groupId)
+				.executeUpdate();
+	}
+
+	public int deleteByUserId(Long userId) {
+		return getEntityManager()
+				.createNamedQuery("XXPermMap.deleteByUserId")
+				.setParameter("userId", userId)
+				.executeUpdate();
+	}
+}
@@ -22,6 +22,7 @@
 
 import javax.persistence.NoResultException;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.ListUtils;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXPolicy;
@@ -108,6 +109,24 @@ public List<Long> findPolicyIdsByServiceId(Long serviceId) {
 		return ret;
 	}
 
+	/**
+	 * @return up to maxRows policies of the given services with id above policyId, in ascending order of id
+	 */
+	public List<XXPolicy> findByServiceIdsAfterId(List<Long> serviceIds, Long policyId, int maxRows) {
+		if (CollectionUtils.isEmpty(serviceIds)) {
+			return new ArrayList<XXPolicy>();
+		}
+		try {
+			return getEntityManager()
+					.createNamedQuery("XXPolicy.findByServiceIdsAfterId", tClass)
+					.setParameter("serviceIds", serviceIds)
+					.setParameter("policyId", policyId)
+					.setMaxResults(maxRows).getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<XXPolicy>();
+		}
+	}
+
 	public Long getMaxIdOfXXPolicy() {
 		try {
 			return (Long) getEntityManager().createNamedQuery("XXPolicy.getMaxIdOfXXPolicy").getSingleResult();
@@ -72,4 +72,11 @@ public List<String> findXPortalUserRolebyXPortalUserId(Long userId) {
 			return new ArrayList<String>();
 		}
 	}
+
+	public int deleteByUserId(Long userId) {
+		return getEntityManager()
+				.createNamedQuery("XXPortalUserRole.deleteByUserId")
+				.setParameter("userId", userId)
+				.executeUpdate();
+	}
 }
@@ -131,4 +131,11 @@ public void deleteByModuleId(Long moduleId) {
 			logger.debug("ModuleId not provided.");
 		}
 	}
+
+	public int deleteByUserId(Long userId) {
+		return getEntityManager()
+				.createNamedQuery("XXUserPermission.deleteByUserId")
+				.setParameter("userId", userId)
+				.executeUpdate();
+	}
 }
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.rest;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.biz.RangerBizUtil;
+import org.apache.ranger.biz.RoleDBStore;
+import org.apache.ranger.biz.ServiceDBStore;
+import org.apache.ranger.biz.XUserMgr;
+import org.apache.ranger.common.RangerChangeNotifier;
+import org.apache.ranger.common.ServiceUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.model.RangerService;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/*
+ * Long-poll endpoint for plugins to learn of changes to policies, tags, roles and userstore without polling:
+ *   GET /service/plugins/changes/wait/{serviceName}?lastKnownVersion=..&lastKnownTagVersion=..&lastKnownRoleVersion=..&lastKnownUserStoreVersion=..&waitTimeoutMs=..
+ * returns 200 with RangerServiceVersions as soon as any of the given versions is outdated, or 304 if none changed
+ * within the wait timeout. An asynchronous servlet is used, as Jersey 1.x can't suspend requests; waiting plugins
+ * don't hold a request thread. Versions are fed to RangerChangeNotifier by the caches on this Ranger Admin, and by a
+ * periodic check of the database for services with waiting plugins, which catches changes made on other Ranger Admin
+ * instances.
+ */
+public class ChangeNotificationServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+
+	private static final Log LOG = LogFactory.getLog(ChangeNotificationServlet.class);
+
+	private static final String PROP_MAX_WAIT_TIMEOUT_MS   = "ranger.admin.change.notification.max.wait.timeoutMs";
+	private static final String PROP_DB_CHECK_INTERVAL_MS  = "ranger.admin.change.notification.db.check.intervalMs";
+	private static final long   DEFAULT_MAX_WAIT_TIMEOUT_MS  = 60 * 1000;
+	private static final long   DEFAULT_DB_CHECK_INTERVAL_MS = 5 * 1000;
+
+	private final RangerChangeNotifier notifier     = RangerChangeNotifier.getInstance();
+	private final ObjectMapper         objectMapper = new ObjectMapper();
+
+	private long                maxWaitTimeoutMs;
+	private RangerDaoManager    daoManager;
+	private RangerBizUtil       bizUtil;
+	private ServiceUtil         serviceUtil;
+	private RoleDBStore         roleDBStore;
+	private ServiceDBStore      svcStore;
+	private XUserMgr            xUserMgr;
+	private TransactionTemplate txTemplate;
+	private Timer               dbCheckTimer;
+
+	@Override
+	public void init() throws ServletException {
+		super.init();
+
+		RangerAdminConfig     config             = RangerAdminConfig.getInstance();
+		long                  dbCheckIntervalMs  = config.getLong(PROP_DB_CHECK_INTERVAL_MS, DEFAULT_DB_CHECK_INTERVAL_MS);
+		WebApplicationContext applicationContext = WebApplicationContextUtils.getRequiredWebApplicationContext(getServletContext());
+
+		maxWaitTimeoutMs = config.getLong(PROP_MAX_WAIT_TIMEOUT_MS, DEFAULT_MAX_WAIT_TIMEOUT_MS);
+		daoManager       = applicationContext.getBean(RangerDaoManager.class);
+		bizUtil          = applicationContext.getBean(RangerBizUtil.class);
+		serviceUtil      = applicationContext.getBean(ServiceUtil.class);
+		roleDBStore      = applicationContext.getBean(RoleDBStore.class);
+		svcStore         = applicationContext.getBean(ServiceDBStore.class);
+		xUserMgr         = applicationContext.getBean(XUserMgr.class);
+		txTemplate       = new TransactionTemplate(applicationContext.getBean("transactionManager", PlatformTransactionManager.class));
+
+		txTemplate.setReadOnly(true);
+
+		dbCheckTimer = new Timer("changeNotificationDbCheckTimer", true);
+
+		dbCheckTimer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				Set<String> serviceNames = notifier.getWatchedServiceNames();
+
+				if (!serviceNames.isEmpty()) {
+					loadVersionsFromDb(serviceNames);
+				}
+			}
+		}, dbCheckIntervalMs, dbCheckIntervalMs);
+
+		LOG.info("ChangeNotificationServlet initialized: maxWaitTimeoutMs=" + maxWaitTimeoutMs + ", dbCheckIntervalMs=" + dbCheckIntervalMs);
+	}
+
+	@Override
+	public void destroy() {
+		if (dbCheckTimer != null) {
+			dbCheckTimer.cancel();
+			dbCheckTimer = null;
+		}
+
+		super.destroy();
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		final String serviceName = StringUtils.removeStart(request.getPathInfo(), "/");
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ChangeNotificationServlet.doGet(serviceName=" + serviceName + ", query=" + request.getQueryString() + ")");
+		}
+
+		if (StringUtils.isEmpty(serviceName)) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "serviceName not provided");
+
+			return;
+		}
+
+		if (!isAuthorized(serviceName, request, response)) {
+			return;
+		}
+
+		final RangerServiceVersions lastKnownVersions;
+		final long                  waitTimeoutMs;
+
+		try {
+			lastKnownVersions = new RangerServiceVersions(serviceName,
+			                                              getLongParam(request, RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION),
+			                                              getLongParam(request, RangerRESTUtils.REST_PARAM_LAST_KNOWN_TAG_VERSION),
+			                                              getLongParam(request, RangerRESTUtils.REST_PARAM_LAST_KNOWN_ROLE_VERSION),
+			                                              getLongParam(request, RangerRESTUtils.REST_PARAM_LAST_KNOWN_USERSTORE_VERSION));
+
+			Long requestedTimeoutMs = getLongParam(request, RangerRESTUtils.REST_PARAM_WAIT_TIMEOUT_MS);
+
+			waitTimeoutMs = requestedTimeoutMs == null || requestedTimeoutMs <= 0 ? maxWaitTimeoutMs : Math.min(requestedTimeoutMs, maxWaitTimeoutMs);
+		} catch (NumberFormatException excp) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage());
+
+			return;
+		}
+
+		if (!notifier.isKnownService(serviceName)) { // don't make the first request wait for the periodic database check
+			loadVersionsFromDb(Collections.singleton(serviceName));
+		}
+
+		final AsyncContext                                asyncContext = request.startAsync();
+		final AtomicBoolean                               isResponded  = new AtomicBoolean(false);
+		final AtomicReference<RangerChangeNotifier.Waiter> waiterRef    = new AtomicReference<>();
+
+		asyncContext.setTimeout(waitTimeoutMs);
+
+		// the listener is added before the waiter, which can complete the request right away
+		asyncContext.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				removeWaiter(waiterRef.get());
+
+				if (isResponded.compareAndSet(false, true)) {
+					sendResponse(asyncContext, null);
+				}
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				removeWaiter(waiterRef.get());
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) {
+				removeWaiter(waiterRef.get());
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+
+		RangerChangeNotifier.Waiter waiter = notifier.addWaiter(lastKnownVersions, latestVersions -> {
+			if (isResponded.compareAndSet(false, true)) {
+				sendResponse(asyncContext, latestVersions);
+			}
+		});
+
+		waiterRef.set(waiter);
+
+		if (isResponded.get()) { // timed out before waiterRef was set
+			removeWaiter(waiter);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ChangeNotificationServlet.doGet(serviceName=" + serviceName + "): lastKnownVersions=" + lastKnownVersions + ", waitTimeoutMs=" + waitTimeoutMs);
+		}
+	}
+
+	private boolean isAuthorized(String serviceName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		final boolean isSecure = request.getServletPath().contains("/secure/");
+		boolean       ret      = true;
+
+		if (isSecure) {
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+			if (authentication == null || !authentication.isAuthenticated()) {
+				response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+
+				ret = false;
+			} else {
+				// same checks as for /service/plugins/secure/policies/download
+				try {
+					Boolean isAllowed = txTemplate.execute(status -> isDownloadAllowed(serviceName));
+
+					if (!Boolean.TRUE.equals(isAllowed)) {
+						LOG.error("ChangeNotificationServlet(serviceName=" + serviceName + "): user " + authentication.getName() + " doesn't have permission to download policies");
+
+						response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+
+						ret = false;
+					}
+				} catch (Exception excp) {
+					LOG.warn("ChangeNotificationServlet(serviceName=" + serviceName + "): " + excp.getMessage());
+
+					response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+
+					ret = false;
+				}
+			}
+		} else {
+			// same checks as for /service/plugins/policies/download
+			try {
+				bizUtil.failUnauthenticatedIfNotAllowed();
+
+				Boolean isValid = txTemplate.execute(status -> serviceUtil.isValidateHttpsAuthentication(serviceName, request));
+
+				if (!Boolean.TRUE.equals(isValid)) {
+					response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+
+					ret = false;
+				}
+			} catch (WebApplicationException excp) {
+				response.sendError(excp.getResponse() != null ? excp.getResponse().getStatus() : HttpServletResponse.SC_UNAUTHORIZED);
+
+				ret = false;
+			} catch (Exception excp) {
+				LOG.warn("ChangeNotificationServlet(serviceName=" + serviceName + "): " + excp.getMessage());
+
+				response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+
+				ret = false;
+			}
+		}
+
+		return ret;
+	}
+
+	// key admins for KMS services, admins for other services, or users in the service's download/grant-revoke lists
+	private boolean isDownloadAllowed(String serviceName) {
+		boolean   ret      = false;
+		XXService xService = daoManager.getXXService().findByName(serviceName);
+
+		if (xService != null) {
+			try {
+				XXServiceDef  xServiceDef   = daoManager.getXXServiceDef().getById(xService.getType());
+				boolean       isKms         = xServiceDef != null && StringUtils.equals(xServiceDef.getImplclassname(), EmbeddedServiceDefsUtil.KMS_IMPL_CLASS_NAME);
+				RangerService rangerService = isKms ? svcStore.getServiceByNameForDP(serviceName) : svcStore.getServiceByName(serviceName);
+
+				ret = isKms ? bizUtil.isKeyAdmin() : bizUtil.isAdmin();
+
+				if (!ret && rangerService != null) {
+					ret = bizUtil.isUserAllowed(rangerService, ServiceREST.Allowed_User_List_For_Download) || bizUtil.isUserAllowed(rangerService, ServiceREST.Allowed_User_List_For_Grant_Revoke);
+				}
+			} catch (Exception excp) {
+				throw new RuntimeException(excp);
+			}
+		}
+
+		return ret;
+	}
+
+	private void removeWaiter(RangerChangeNotifier.Waiter waiter) {
+		if (waiter != null) {
+			notifier.removeWaiter(waiter);
+		}
+	}
+
+	private void sendResponse(AsyncContext asyncContext, RangerServiceVersions latestVersions) {
+		HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+		try {
+			if (latestVersions == null) {
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			} else {
+				response.setStatus(HttpServletResponse.SC_OK);
+				response.setContentType(RangerRESTUtils.REST_MIME_TYPE_JSON);
+				response.getWriter().write(objectMapper.writeValueAsString(latestVersions));
+			}
+		} catch (Exception excp) {
+			LOG.warn("ChangeNotificationServlet: failed to send response " + latestVersions, excp);
+		} finally {
+			asyncContext.complete();
+		}
+	}
+
+	private void loadVersionsFromDb(Collection<String> serviceNames) {
+		try {
+			txTemplate.execute(status -> {
+				notifier.updateUserStoreVersion(xUserMgr.getUserStoreVersion());
+
+				for (String serviceName : serviceNames) {
+					XXServiceVersionInfo versionInfo = daoManager.getXXServiceVersionInfo().findByServiceName(serviceName);
+
+					if (versionInfo != null) {
+						notifier.updateVersions(serviceName, versionInfo.getPolicyVersion(), versionInfo.getTagVersion(), roleDBStore.getRoleVersion(serviceName), null);
+					}
+				}
+
+				return null;
+			});
+		} catch (Exception excp) {
+			LOG.error("ChangeNotificationServlet: failed to read versions from database for services " + serviceNames, excp);
+		}
+	}
+
+	private static Long getLongParam(HttpServletRequest request, String name) {
+		String value = request.getParameter(name);
+
+		return StringUtils.isBlank(value) ? null : Long.valueOf(value.trim());
+	}
+}
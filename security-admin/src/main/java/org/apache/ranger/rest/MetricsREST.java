@@ -77,4 +77,21 @@ public RangerMetrics getStatus() {
 
         return new RangerMetrics(jvm);
     }
+
+    @GET
+    @Path("/prometheus")
+    @Produces({ "text/plain; version=0.0.4" })
+    public String getPrometheusMetrics() {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> MetricsREST.getPrometheusMetrics()");
+        }
+
+        String ret = jvmMetricUtil.getPerfMetricsPrometheusText();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== MetricsREST.getPrometheusMetrics(): length=" + ret.length());
+        }
+
+        return ret;
+    }
 }
@@ -25,12 +25,13 @@
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
@@ -2021,16 +2022,10 @@ public void getPoliciesInExcel(@Context HttpServletRequest request,
 			if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
 				perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "ServiceREST.getPoliciesInExcel()");
 			}
-			List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
-			
-			policyLists = getAllFilteredPolicyList(filter, request, policyLists);
-			if (CollectionUtils.isNotEmpty(policyLists)){
-                                for (RangerPolicy rangerPolicy : policyLists) {
-                                        if (rangerPolicy != null) {
-                                                ensureAdminAndAuditAccess(rangerPolicy);
-                                        }
-                                }
-				svcStore.getPoliciesInExcel(policyLists, response);
+			Iterator<List<RangerPolicy>> policyPages = getExportPolicyPages(filter, request);
+
+			if (policyPages.hasNext()) {
+				svcStore.getPoliciesInExcel(policyPages, response);
 			}else{
 				response.setStatus(HttpServletResponse.SC_NO_CONTENT);
 				LOG.error("No policies found to download!");
@@ -2073,17 +2068,10 @@ public void getPoliciesInCsv(@Context HttpServletRequest request, @Context HttpS
 			if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
 				perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "ServiceREST.getPoliciesInCsv()");
 			}
-			List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
-			
-			policyLists = getAllFilteredPolicyList(filter, request, policyLists);
-			if (CollectionUtils.isNotEmpty(policyLists)){
-                                for (RangerPolicy rangerPolicy : policyLists) {
-                                        if (rangerPolicy != null) {
-                                                ensureAdminAndAuditAccess(rangerPolicy);
-                                        }
-                                }
-
-				svcStore.getPoliciesInCSV(policyLists, response);
+			Iterator<List<RangerPolicy>> policyPages = getExportPolicyPages(filter, request);
+
+			if (policyPages.hasNext()) {
+				svcStore.getPoliciesInCSV(policyPages, response);
 			}else{
 				response.setStatus(HttpServletResponse.SC_NO_CONTENT);
 				LOG.error("No policies found to download!");
@@ -2131,18 +2119,11 @@ public void getPoliciesInJson(@Context HttpServletRequest request,
 				checkPoliciesExists = false;
 			}
 
-			List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
-			
-			policyLists = getAllFilteredPolicyList(filter, request, policyLists);
+			Iterator<List<RangerPolicy>> policyPages = getExportPolicyPages(filter, request);
 
-			if (CollectionUtils.isNotEmpty(policyLists)) {
-				for (RangerPolicy rangerPolicy : policyLists) {
-					if (rangerPolicy != null) {
-						ensureAdminAndAuditAccess(rangerPolicy);
-					}
-				}
+			if (policyPages.hasNext()) {
 				bizUtil.blockAuditorRoleUser();
-				svcStore.getPoliciesInJson(policyLists, response);
+				svcStore.getPoliciesInJson(policyPages, response);
 			} else {
 				checkPoliciesExists = true;
 				response.setStatus(HttpServletResponse.SC_NO_CONTENT);
@@ -2644,103 +2625,134 @@ private void processZoneMapping(Map<String, String> zoneMappingMap, List<String>
 		}
 	}
 
-	private List<RangerPolicy> getAllFilteredPolicyList(SearchFilter filter,
-			HttpServletRequest request, List<RangerPolicy> policyLists) {
-		String serviceNames = null;
-		String serviceType = null;
-		List<String> serviceNameList = null;
-		List<String> serviceTypeList = null;
-		List<String> serviceNameInServiceTypeList = new ArrayList<String>();
-		boolean isServiceExists = false;
-		
-		if (request.getParameter(PARAM_SERVICE_NAME) != null){
-			serviceNames = request.getParameter(PARAM_SERVICE_NAME);
-		}
-		if (StringUtils.isNotEmpty(serviceNames)) {
-			serviceNameList = new ArrayList<String>(Arrays.asList(serviceNames.split(",")));
-		}
-		
-		if (request.getParameter(PARAM_SERVICE_TYPE) != null){
-			serviceType = request.getParameter(PARAM_SERVICE_TYPE);
+	/**
+	 * Policies to export, a page at a time: each page is read and filtered only when the writer asks for it, so the
+	 * export doesn't hold every policy in memory.
+	 */
+	private Iterator<List<RangerPolicy>> getExportPolicyPages(SearchFilter filter, HttpServletRequest request) throws Exception {
+		List<Long> serviceIds = getExportServiceIds(filter, request);
+
+		filter.setStartIndex(0);
+		filter.setMaxRows(Integer.MAX_VALUE);
+
+		return new ExportPolicyPageIterator(svcStore.getPolicyPages(serviceIds, filter), request);
+	}
+
+	private List<Long> getExportServiceIds(SearchFilter filter, HttpServletRequest request) {
+		List<String>      serviceNameList = new ArrayList<String>();
+		List<String>      serviceTypeList = new ArrayList<String>();
+		Map<String, Long> servicesOfTypes = new HashMap<String, Long>();
+		List<Long>        ret             = new ArrayList<Long>();
+
+		if (StringUtils.isNotEmpty(request.getParameter(PARAM_SERVICE_NAME))) {
+			for (String serviceName : request.getParameter(PARAM_SERVICE_NAME).split(",")) {
+				serviceNameList.add(serviceName.trim());
+			}
 		}
-		if(StringUtils.isNotEmpty(serviceType)){
-			serviceTypeList = new ArrayList<String>(Arrays.asList(serviceType.split(",")));
+		if (StringUtils.isNotEmpty(request.getParameter(PARAM_SERVICE_TYPE))) {
+			for (String serviceType : request.getParameter(PARAM_SERVICE_TYPE).split(",")) {
+				serviceTypeList.add(serviceType.trim());
+			}
 		}
-		
-		List<RangerPolicy> policyList = new ArrayList<RangerPolicy>();
-		List<RangerPolicy> policyListByServiceName = new ArrayList<RangerPolicy>();
-		
-		if (filter != null) {
-			filter.setStartIndex(0);
-			filter.setMaxRows(Integer.MAX_VALUE);
-			
-			if (!CollectionUtils.isEmpty(serviceTypeList)) {
-				for (String s : serviceTypeList) {
-					filter.removeParam(PARAM_SERVICE_TYPE);
-					if (request.getParameter(PARAM_SERVICE_NAME) != null){
-						filter.removeParam(PARAM_SERVICE_NAME);
-					}
-					filter.setParam(PARAM_SERVICE_TYPE, s.trim());
-					policyList = getPolicies(filter);
-					policyLists.addAll(policyList);
-				}
-				if(!CollectionUtils.sizeIsEmpty(policyLists)){
-					for (RangerPolicy rangerPolicy:policyLists){
-						if (StringUtils.isNotEmpty(rangerPolicy.getService())){
-							serviceNameInServiceTypeList.add(rangerPolicy.getService());
-						}
+
+		for (String serviceType : serviceTypeList) {
+			XXServiceDef xServiceDef = daoManager.getXXServiceDef().findByName(serviceType);
+
+			if (xServiceDef != null) {
+				List<XXService> xServices = daoManager.getXXService().findByServiceDefId(xServiceDef.getId());
+
+				if (xServices != null) {
+					for (XXService xService : xServices) {
+						servicesOfTypes.put(xService.getName(), xService.getId());
 					}
 				}
 			}
-			if (!CollectionUtils.isEmpty(serviceNameList) && !CollectionUtils.isEmpty(serviceTypeList)){
-				isServiceExists = serviceNameInServiceTypeList.containsAll(serviceNameList);
-				if(isServiceExists){
-					for (String s : serviceNameList) {
-						filter.removeParam(PARAM_SERVICE_NAME);
-						filter.removeParam(PARAM_SERVICE_TYPE);
-						filter.setParam(PARAM_SERVICE_NAME, s.trim());
-						policyList = getPolicies(filter);
-						policyListByServiceName.addAll(policyList);
-					}
-					policyLists = policyListByServiceName;
-				}else{
-					policyLists = new ArrayList<RangerPolicy>();
+		}
+
+		if (!serviceNameList.isEmpty() && !serviceTypeList.isEmpty()) {
+			// every named service must be of one of the given types, otherwise nothing is exported
+			if (servicesOfTypes.keySet().containsAll(serviceNameList)) {
+				for (String serviceName : serviceNameList) {
+					ret.add(servicesOfTypes.get(serviceName));
 				}
-			}else if (CollectionUtils.isEmpty(serviceNameList) && CollectionUtils.isEmpty(serviceTypeList)){
-				policyLists = getPolicies(filter);
-			}
-			if (!CollectionUtils.isEmpty(serviceNameList) && CollectionUtils.isEmpty(serviceTypeList)) {
-				for (String s : serviceNameList) {
-					filter.removeParam(PARAM_SERVICE_NAME);
-					filter.setParam(PARAM_SERVICE_NAME, s.trim());
-					policyList = getPolicies(filter);
-					policyLists.addAll(policyList);
+			}
+		} else if (!serviceTypeList.isEmpty()) {
+			ret.addAll(servicesOfTypes.values());
+		} else if (!serviceNameList.isEmpty()) {
+			for (String serviceName : serviceNameList) {
+				XXService xService = daoManager.getXXService().findByName(serviceName);
+
+				if (xService != null) {
+					ret.add(xService.getId());
 				}
 			}
+		} else {
+			ret.addAll(daoManager.getXXService().getAllServiceIds());
 		}
-		if (StringUtils.isNotEmpty(request.getParameter("resourceMatch"))
-				&& "full".equalsIgnoreCase(request.getParameter("resourceMatch"))) {
-			policyLists = serviceUtil.getMatchingPoliciesForResource(request, policyLists);
+
+		// services are selected above; the remaining params filter the policies of each service
+		filter.removeParam(PARAM_SERVICE_NAME);
+		filter.removeParam(PARAM_SERVICE_TYPE);
+
+		return ret;
+	}
+
+	private class ExportPolicyPageIterator implements Iterator<List<RangerPolicy>> {
+		private final Iterator<List<RangerPolicy>> policyPages;
+		private final HttpServletRequest           request;
+		private final boolean                      isFullResourceMatch;
+		private       List<RangerPolicy>           nextPage = null;
+
+		ExportPolicyPageIterator(Iterator<List<RangerPolicy>> policyPages, HttpServletRequest request) {
+			this.policyPages         = policyPages;
+			this.request             = request;
+			this.isFullResourceMatch = "full".equalsIgnoreCase(request.getParameter("resourceMatch"));
 		}
-		Map<Long, RangerPolicy> orderedPolicies = new TreeMap<Long, RangerPolicy>();
-		
-		if (!CollectionUtils.isEmpty(policyLists)) {
-			for (RangerPolicy policy : policyLists) {
-				if (policy != null) {
-					//set createTime & updateTime Time as null since exported policies dont need this
-					policy.setCreateTime(null);
-					policy.setUpdateTime(null);
-					orderedPolicies.put(policy.getId(), policy);
+
+		@Override
+		public boolean hasNext() {
+			while (nextPage == null && policyPages.hasNext()) {
+				List<RangerPolicy> policies = applyAdminAccessFilter(policyPages.next());
+
+				if (isFullResourceMatch) {
+					policies = serviceUtil.getMatchingPoliciesForResource(request, policies);
+				}
+
+				if (CollectionUtils.isNotEmpty(policies)) {
+					for (RangerPolicy policy : policies) {
+						ensureAdminAndAuditAccess(policy);
+
+						//set createTime & updateTime Time as null since exported policies dont need this
+						policy.setCreateTime(null);
+						policy.setUpdateTime(null);
+					}
+
+					nextPage = policies;
 				}
 			}
-			if (!orderedPolicies.isEmpty()) {
-				policyLists.clear();
-				policyLists.addAll(orderedPolicies.values());
+
+			return nextPage != null;
+		}
+
+		@Override
+		public List<RangerPolicy> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
 			}
+
+			List<RangerPolicy> ret = nextPage;
+
+			nextPage = null;
+
+			return ret;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
 		}
-		return policyLists;
 	}
-	
+
 	private void deletePoliciesProvidedInServiceMap(List<String> sourceServices, List<String> destinationServices, String zoneName) throws Exception {
 		int totalDeletedPolicies = 0;
 		if (CollectionUtils.isNotEmpty(sourceServices)
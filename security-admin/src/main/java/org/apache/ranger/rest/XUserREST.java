@@ -1276,10 +1276,11 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
 															 @QueryParam("pluginId") String pluginId,
 															 @DefaultValue("") @QueryParam("clusterName") String clusterName,
 															 @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities,
+															 @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS) Boolean supportsUserStoreDeltas,
 															 @Context HttpServletRequest request) throws Exception {
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> XUserREST.getSecureRangerUserStoreIfUpdated("
-					+ serviceName + ", " + lastKnownUserStoreVersion + ", " + lastActivationTime + ")");
+					+ serviceName + ", " + lastKnownUserStoreVersion + ", " + lastActivationTime + ", " + supportsUserStoreDeltas + ")");
 		}
 		RangerUserStore ret = null;
 		int     httpCode          = HttpServletResponse.SC_OK;
@@ -1317,7 +1318,7 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
 				}
 
 				if (isAllowed) {
-					RangerUserStore rangerUserStore = xUserMgr.getRangerUserStore(lastKnownUserStoreVersion);
+					RangerUserStore rangerUserStore = xUserMgr.getRangerUserStore(lastKnownUserStoreVersion, Boolean.TRUE.equals(supportsUserStoreDeltas));
 					if (rangerUserStore == null) {
 						downloadedVersion = lastKnownUserStoreVersion;
 						httpCode = HttpServletResponse.SC_NOT_MODIFIED;
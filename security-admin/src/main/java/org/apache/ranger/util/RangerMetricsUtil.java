@@ -22,8 +22,12 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.OperatingSystemMXBean;
@@ -44,12 +48,24 @@ public class RangerMetricsUtil {
     private static final OperatingSystemMXBean OS;
     private static final MemoryMXBean MEM_BEAN;
     public static final String NL = System.getProperty("line.separator");
+    public static final String PROP_PERF_METRICS_ENABLED = "ranger.admin.perf.metrics.enabled";
 
     static {
         OS = ManagementFactory.getOperatingSystemMXBean();
         MEM_BEAN = ManagementFactory.getMemoryMXBean();
     }
 
+    @PostConstruct
+    public void init() {
+        if (PropertiesUtil.getBooleanProperty(PROP_PERF_METRICS_ENABLED, true)) {
+            PerfDataRecorder.initialize(null, true);
+        }
+    }
+
+    public String getPerfMetricsPrometheusText() {
+        return PerfDataRecorder.getPrometheusText();
+    }
+
     public Map<String, Object> getValues() {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerJVMMetricUtil.getValues()");
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.store.RoleStore;
+import org.apache.ranger.plugin.store.SecurityZoneStore;
+import org.apache.ranger.plugin.store.ServiceStore;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestRangerPolicyAdminCache {
+	private static final String SERVICE_NAME = "hdfsdev";
+	private static final long   TIMEOUT_MS   = 10000;
+
+	private final ExecutorService           builderService = Executors.newCachedThreadPool();
+	private final ServiceStore              svcStore       = Mockito.mock(ServiceStore.class);
+	private final RoleStore                 roleStore      = Mockito.mock(RoleStore.class);
+	private final SecurityZoneStore         zoneStore      = Mockito.mock(SecurityZoneStore.class);
+	private final RangerPolicyEngineOptions options        = new RangerPolicyEngineOptions();
+	private final AtomicLong                policyVersion  = new AtomicLong(1L);
+
+	// a caller on the thread with this name is held after it has looked up the current policy-admin and the builds in progress
+	private volatile String         pausedCallerName = null;
+	private final    CountDownLatch callerPaused     = new CountDownLatch(1);
+	private final    CountDownLatch resumeCaller     = new CountDownLatch(1);
+
+	@Before
+	public void setUp() throws Exception {
+		Mockito.when(svcStore.getServicePoliciesIfUpdated(Mockito.eq(SERVICE_NAME), Mockito.anyLong(), Mockito.eq(false))).thenAnswer(invocation -> {
+			if (Thread.currentThread().getName().equals(pausedCallerName)) {
+				callerPaused.countDown();
+				resumeCaller.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			}
+
+			Long lastKnownVersion = invocation.getArgument(1);
+
+			return lastKnownVersion == policyVersion.get() ? null : servicePolicies(policyVersion.get());
+		});
+	}
+
+	@After
+	public void tearDown() {
+		builderService.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentCallsStartOneBuild() throws Exception {
+		TestPolicyAdminCache  cache   = new TestPolicyAdminCache();
+		RangerPolicyAdminImpl admin   = policyAdmin(1L);
+		Build                 build   = Build.blocking(admin);
+		List<Thread>          threads = new ArrayList<>();
+		ExecutorService       callers = Executors.newFixedThreadPool(8, runnable -> {
+			Thread thread = new Thread(runnable);
+
+			threads.add(thread);
+
+			return thread;
+		});
+
+		cache.builds.add(build);
+
+		try {
+			List<Future<RangerPolicyAdmin>> results = new ArrayList<>();
+
+			for (int i = 0; i < 8; i++) {
+				results.add(callers.submit(() -> getPolicyAdmin(cache)));
+			}
+
+			Assert.assertTrue(build.started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+			// with no policy-admin to return yet, every caller waits for the one build
+			awaitWaiting(threads, 8);
+
+			build.release.countDown();
+
+			for (Future<RangerPolicyAdmin> result : results) {
+				Assert.assertSame(admin, result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+			}
+
+			Assert.assertEquals(1, cache.buildCount.get());
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testStalePolicyAdminIsReturnedUntilSwap() throws Exception {
+		TestPolicyAdminCache  cache  = new TestPolicyAdminCache();
+		RangerPolicyAdminImpl admin1 = policyAdmin(1L);
+		RangerPolicyAdminImpl admin2 = policyAdmin(2L);
+
+		cache.builds.add(Build.returning(admin1));
+
+		Assert.assertSame(admin1, getPolicyAdmin(cache));
+
+		Build build2 = Build.blocking(admin2);
+
+		cache.builds.add(build2);
+		policyVersion.set(2L);
+
+		Assert.assertSame(admin1, getPolicyAdmin(cache)); // starts the build, doesn't wait for it
+		Assert.assertTrue(build2.started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		Assert.assertSame(admin1, getPolicyAdmin(cache)); // build in progress
+
+		Mockito.verify(admin1, Mockito.never()).releaseResources(Mockito.anyBoolean());
+
+		build2.release.countDown();
+
+		Mockito.verify(admin1, Mockito.timeout(TIMEOUT_MS)).releaseResources(true);
+
+		Assert.assertSame(admin2, getPolicyAdmin(cache));
+		Assert.assertEquals(2, cache.buildCount.get());
+	}
+
+	@Test
+	public void testBuildThatLosesTheRaceIsDiscarded() throws Exception {
+		TestPolicyAdminCache  cache  = new TestPolicyAdminCache();
+		RangerPolicyAdminImpl admin1 = policyAdmin(1L);
+		RangerPolicyAdminImpl winner = policyAdmin(2L);
+		RangerPolicyAdminImpl loser  = policyAdmin(2L);
+
+		cache.builds.add(Build.returning(admin1));
+
+		Assert.assertSame(admin1, getPolicyAdmin(cache));
+
+		policyVersion.set(2L);
+
+		AtomicReference<RangerPolicyAdmin> loserResult = new AtomicReference<>();
+		Thread                             loserCaller = new Thread(() -> loserResult.set(getPolicyAdmin(cache)), "loser-caller");
+
+		pausedCallerName = loserCaller.getName();
+		loserCaller.start();
+
+		// the loser has seen admin1 and no build in progress
+		Assert.assertTrue(callerPaused.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+		cache.builds.add(Build.returning(winner));
+
+		Assert.assertSame(admin1, getPolicyAdmin(cache));
+
+		Mockito.verify(admin1, Mockito.timeout(TIMEOUT_MS)).releaseResources(true);
+
+		Assert.assertSame(winner, getPolicyAdmin(cache));
+
+		// the loser now builds from admin1, which is no longer in the cache
+		cache.builds.add(Build.returning(loser));
+		resumeCaller.countDown();
+		loserCaller.join(TIMEOUT_MS);
+
+		Assert.assertSame(admin1, loserResult.get());
+
+		Mockito.verify(loser, Mockito.timeout(TIMEOUT_MS)).releaseResources(true);
+
+		Assert.assertSame(winner, getPolicyAdmin(cache));
+		Assert.assertEquals(3, cache.buildCount.get());
+
+		Mockito.verify(winner, Mockito.never()).releaseResources(Mockito.anyBoolean());
+	}
+
+	@Test
+	public void testFailedBuildIsRetried() throws Exception {
+		TestPolicyAdminCache  cache = new TestPolicyAdminCache();
+		RangerPolicyAdminImpl admin = policyAdmin(1L);
+
+		cache.builds.add(Build.failing(new IllegalStateException("build failure")));
+
+		Assert.assertNull(getPolicyAdmin(cache));
+
+		cache.builds.add(Build.returning(admin));
+
+		Assert.assertSame(admin, getPolicyAdmin(cache));
+		Assert.assertEquals(2, cache.buildCount.get());
+	}
+
+	private RangerPolicyAdmin getPolicyAdmin(RangerPolicyAdminCache cache) {
+		return cache.getServicePoliciesAdmin(SERVICE_NAME, svcStore, roleStore, zoneStore, options);
+	}
+
+	private static ServicePolicies servicePolicies(long version) {
+		ServicePolicies ret = new ServicePolicies();
+
+		ret.setServiceName(SERVICE_NAME);
+		ret.setPolicyVersion(version);
+		ret.setPolicies(new ArrayList<RangerPolicy>());
+
+		return ret;
+	}
+
+	private static RangerPolicyAdminImpl policyAdmin(long version) {
+		RangerPolicyAdminImpl ret = Mockito.mock(RangerPolicyAdminImpl.class);
+
+		Mockito.when(ret.getPolicyVersion()).thenReturn(version);
+
+		return ret;
+	}
+
+	private static void awaitWaiting(List<Thread> threads, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+		while (true) {
+			int waitingCount = 0;
+
+			for (Thread thread : new ArrayList<>(threads)) {
+				if (thread.getState() == Thread.State.WAITING) {
+					waitingCount++;
+				}
+			}
+
+			if (waitingCount == count) {
+				break;
+			}
+
+			Assert.assertTrue("callers did not block on the build", System.currentTimeMillis() < deadline);
+
+			Thread.sleep(10);
+		}
+	}
+
+	private class TestPolicyAdminCache extends RangerPolicyAdminCache {
+		final AtomicInteger        buildCount = new AtomicInteger();
+		final BlockingQueue<Build> builds     = new LinkedBlockingQueue<>();
+
+		@Override
+		ExecutorService getBuilderService() {
+			return builderService;
+		}
+
+		@Override
+		RangerPolicyAdmin addPolicyAdmin(ServicePolicies policies, RangerRoles roles, RangerPolicyEngineOptions options) {
+			buildCount.incrementAndGet();
+
+			Build build = builds.poll();
+
+			Assert.assertNotNull("unexpected build of policy-admin", build);
+
+			return build.run();
+		}
+	}
+
+	private static class Build {
+		final CountDownLatch    started = new CountDownLatch(1);
+		final CountDownLatch    release;
+		final RangerPolicyAdmin result;
+		final RuntimeException  failure;
+
+		private Build(int releaseCount, RangerPolicyAdmin result, RuntimeException failure) {
+			this.release = new CountDownLatch(releaseCount);
+			this.result  = result;
+			this.failure = failure;
+		}
+
+		static Build returning(RangerPolicyAdmin result) {
+			return new Build(0, result, null);
+		}
+
+		static Build blocking(RangerPolicyAdmin result) {
+			return new Build(1, result, null);
+		}
+
+		static Build failing(RuntimeException failure) {
+			return new Build(0, null, failure);
+		}
+
+		RangerPolicyAdmin run() {
+			started.countDown();
+
+			try {
+				release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException excp) {
+				Thread.currentThread().interrupt();
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+
+			return result;
+		}
+	}
+}
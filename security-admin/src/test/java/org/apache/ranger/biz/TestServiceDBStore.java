@@ -17,13 +17,25 @@
 
 package org.apache.ranger.biz;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.collections.ListUtils;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.ranger.common.ContextUtil;
 import org.apache.ranger.common.JSONUtil;
 import org.apache.ranger.common.RESTErrorUtil;
@@ -76,11 +88,15 @@
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
 @RunWith(MockitoJUnitRunner.class)
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class TestServiceDBStore {
@@ -2561,4 +2577,297 @@ public void test50hasServiceConfigForPluginChanged() throws Exception {
 		xConfMap = xConfMapList.remove(index - 1);
 		Assert.assertFalse(serviceDBStore.hasServiceConfigForPluginChanged(xConfMapList, validConfig));
 	}
+
+	@Test
+	public void test51getPoliciesInCSV() throws Exception {
+		List<RangerPolicy> policies = exportPolicies();
+
+		mockExportServiceLookup();
+
+		String csv = new String(writePolicyPages(policies, 0, "csv"), StandardCharsets.UTF_8);
+
+		// same rows as the single list the export wrote before paging: one per item, allow items before deny items
+		Assert.assertEquals("ID|Name|Resources|Groups|Users|Accesses|Service Type|Status|Policy Type|Delegate Admin|isRecursive|"
+				+ "isExcludes|Service Name|Description|isAuditEnabled|Policy Conditions|Policy Condition Type|Masking Options|Row Filter Expr|Policy Label Name\n"
+				+ exportCsvLine(1, "policy-1", "", "user1", "read", "Policy Allow:Include")
+				+ exportCsvLine(1, "policy-1", "group1#group2", "", "read#write", "Policy Allow:Include")
+				+ exportCsvLine(1, "policy-1", "", "user2", "write", "Policy Deny:Include")
+				+ exportCsvLine(2, "policy-2", "", "", "", "Policy Allow:Include")
+				+ exportCsvLine(3, "policy-3", "", "user3", "execute", "Policy Allow:Include")
+				+ exportCsvLine(3, "policy-3", "", "user4", "execute", "Policy Allow:Exclude"), csv);
+
+		Assert.assertEquals(csv, new String(writePolicyPages(policies, 1, "csv"), StandardCharsets.UTF_8));
+		Assert.assertEquals(csv, new String(writePolicyPages(policies, 2, "csv"), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void test52getPoliciesInExcel() throws Exception {
+		List<RangerPolicy> policies = exportPolicies();
+
+		mockExportServiceLookup();
+
+		List<List<String>> rows = readExcelRows(writePolicyPages(policies, 0, "excel"));
+
+		Assert.assertEquals(7, rows.size());
+		Assert.assertEquals("ID", rows.get(0).get(0));
+		Assert.assertEquals("Policy Condition Type", rows.get(0).get(16));
+
+		assertExcelRow(rows.get(1), "1", "", "user1", "read", "Policy Allow:Include");
+		assertExcelRow(rows.get(2), "1", "group1, group2", "", "read ,write", "Policy Allow:Include");
+		assertExcelRow(rows.get(3), "1", "", "user2", "write", "Policy Deny:Include");
+		assertExcelRow(rows.get(4), "2", "", "", "", "Policy Allow:Include");
+		assertExcelRow(rows.get(5), "3", "", "user3", "execute", "Policy Allow:Include");
+		assertExcelRow(rows.get(6), "3", "", "user4", "execute", "Policy Allow:Exclude");
+
+		Assert.assertEquals(rows, readExcelRows(writePolicyPages(policies, 1, "excel")));
+		Assert.assertEquals(rows, readExcelRows(writePolicyPages(policies, 2, "excel")));
+	}
+
+	@Test
+	public void test53getPoliciesInJson() throws Exception {
+		List<RangerPolicy> policies = exportPolicies();
+		Gson               gson     = new Gson();
+
+		JsonObject json = gson.fromJson(new String(writePolicyPages(policies, 0, "json"), StandardCharsets.UTF_8), JsonObject.class);
+
+		Assert.assertTrue(json.has("metaDataInfo"));
+		// same policies array the whole RangerExportPolicyList was serialized with before paging
+		Assert.assertEquals(gson.toJsonTree(policies), json.get("policies"));
+
+		for (int pageSize = 1; pageSize <= 2; pageSize++) {
+			JsonObject pagedJson = gson.fromJson(new String(writePolicyPages(policies, pageSize, "json"), StandardCharsets.UTF_8), JsonObject.class);
+
+			Assert.assertEquals(json.get("policies"), pagedJson.get("policies"));
+		}
+	}
+
+	@Test
+	public void test54updatePoliciesWithOneVersionChange() throws Exception {
+		setup();
+		XXPolicyDao xPolicyDao = Mockito.mock(XXPolicyDao.class);
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+		XXServiceDef xServiceDef = Mockito.mock(XXServiceDef.class);
+		XXPolicyLabelMapDao xPolicyLabelMapDao = Mockito.mock(XXPolicyLabelMapDao.class);
+		XXServiceVersionInfoDao xServiceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		XXPolicyChangeLogDao xPolicyChangeLogDao = Mockito.mock(XXPolicyChangeLogDao.class);
+		RangerPolicyResourceSignature signature = Mockito.mock(RangerPolicyResourceSignature.class);
+
+		RangerService rangerService = rangerService();
+
+		XXService xService = new XXService();
+		xService.setId(rangerService.getId());
+		xService.setName(rangerService.getName());
+		xService.setType(1L);
+
+		XXServiceVersionInfo serviceVersionInfo = new XXServiceVersionInfo();
+		serviceVersionInfo.setServiceId(rangerService.getId());
+		serviceVersionInfo.setPolicyVersion(5L);
+
+		List<RangerPolicy> policies = new ArrayList<RangerPolicy>();
+
+		Mockito.when(daoManager.getXXPolicy()).thenReturn(xPolicyDao);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(daoManager.getXXPolicyLabelMap()).thenReturn(xPolicyLabelMapDao);
+		Mockito.when(xServiceDao.findByName(rangerPolicy().getService())).thenReturn(xService);
+		Mockito.when(xServiceDao.getById(rangerService.getId())).thenReturn(xService);
+		Mockito.when(bizUtil.hasAccess(xService, null)).thenReturn(true);
+		Mockito.when(svcService.getPopulatedViewObject(xService)).thenReturn(rangerService);
+		Mockito.when(xServiceDefDao.findByName(rangerService.getType())).thenReturn(xServiceDef);
+		Mockito.when(factory.createPolicyResourceSignature(Mockito.any(RangerPolicy.class))).thenReturn(signature);
+		Mockito.when(policyService.update(Mockito.any(RangerPolicy.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		for (long policyId = 1; policyId <= 3; policyId++) {
+			RangerPolicy rangerPolicy = rangerPolicy();
+			XXPolicy     xPolicy      = new XXPolicy();
+
+			rangerPolicy.setId(policyId);
+			rangerPolicy.setName("policy-" + policyId);
+			xPolicy.setId(policyId);
+
+			Mockito.when(xPolicyDao.getById(policyId)).thenReturn(xPolicy);
+			Mockito.when(policyService.getPopulatedViewObject(xPolicy)).thenReturn(rangerPolicy);
+
+			policies.add(rangerPolicy);
+		}
+
+		ServiceDBStore.PolicyVersionChanges versionChanges = new ServiceDBStore.PolicyVersionChanges();
+
+		for (RangerPolicy rangerPolicy : policies) {
+			serviceDBStore.updatePolicy(rangerPolicy, versionChanges);
+		}
+
+		Mockito.verify(transactionSynchronizationAdapter, Mockito.never()).executeOnTransactionCommit(Mockito.any(Runnable.class));
+
+		serviceDBStore.scheduleVersionChanges(versionChanges);
+
+		ArgumentCaptor<Runnable> versionUpdater = ArgumentCaptor.forClass(Runnable.class);
+
+		Mockito.verify(transactionSynchronizationAdapter).executeOnTransactionCommit(versionUpdater.capture());
+
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(xServiceVersionInfoDao);
+		Mockito.when(daoManager.getXXPolicyChangeLog()).thenReturn(xPolicyChangeLogDao);
+		Mockito.when(xServiceVersionInfoDao.findByServiceId(rangerService.getId())).thenReturn(serviceVersionInfo);
+
+		boolean supportsPolicyDeltas = ServiceDBStore.SUPPORTS_POLICY_DELTAS;
+
+		try {
+			ServiceDBStore.SUPPORTS_POLICY_DELTAS = true;
+
+			versionUpdater.getValue().run();
+		} finally {
+			ServiceDBStore.SUPPORTS_POLICY_DELTAS = supportsPolicyDeltas;
+		}
+
+		Mockito.verify(xServiceVersionInfoDao).update(serviceVersionInfo);
+		Assert.assertEquals(Long.valueOf(6L), serviceVersionInfo.getPolicyVersion());
+
+		ArgumentCaptor<XXPolicyChangeLog> changeLogs = ArgumentCaptor.forClass(XXPolicyChangeLog.class);
+
+		Mockito.verify(xPolicyChangeLogDao, Mockito.times(3)).create(changeLogs.capture());
+
+		for (int i = 0; i < policies.size(); i++) {
+			XXPolicyChangeLog changeLog = changeLogs.getAllValues().get(i);
+
+			Assert.assertEquals(policies.get(i).getId(), changeLog.getPolicyId());
+			Assert.assertEquals(Long.valueOf(6L), changeLog.getPolicyVersion());
+		}
+	}
+
+	private List<RangerPolicy> exportPolicies() {
+		RangerPolicy policy1 = exportPolicy(1L, "policy-1");
+		RangerPolicy policy2 = exportPolicy(2L, "policy-2");
+		RangerPolicy policy3 = exportPolicy(3L, "policy-3");
+
+		policy1.getPolicyItems().add(exportPolicyItem(Collections.singletonList("user1"), null, "read"));
+		policy1.getPolicyItems().add(exportPolicyItem(null, Arrays.asList("group1", "group2"), "read", "write"));
+		policy1.getDenyPolicyItems().add(exportPolicyItem(Collections.singletonList("user2"), null, "write"));
+		policy3.getPolicyItems().add(exportPolicyItem(Collections.singletonList("user3"), null, "execute"));
+		policy3.getAllowExceptions().add(exportPolicyItem(Collections.singletonList("user4"), null, "execute"));
+
+		return Arrays.asList(policy1, policy2, policy3);
+	}
+
+	private RangerPolicy exportPolicy(Long id, String name) {
+		Map<String, RangerPolicyResource> resources = new HashMap<String, RangerPolicyResource>();
+
+		resources.put("path", new RangerPolicyResource("/data", false, true));
+
+		RangerPolicy policy = new RangerPolicy();
+		policy.setId(id);
+		policy.setName(name);
+		policy.setService("Hdfs");
+		policy.setDescription("export");
+		policy.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+		policy.setIsEnabled(true);
+		policy.setIsAuditEnabled(true);
+		policy.setResources(resources);
+
+		return policy;
+	}
+
+	private RangerPolicyItem exportPolicyItem(List<String> users, List<String> groups, String... accessTypes) {
+		List<RangerPolicyItemAccess> accesses = new ArrayList<RangerPolicyItemAccess>();
+
+		for (String accessType : accessTypes) {
+			accesses.add(new RangerPolicyItemAccess(accessType));
+		}
+
+		RangerPolicyItem policyItem = new RangerPolicyItem();
+		policyItem.setAccesses(accesses);
+		policyItem.setUsers(users);
+		policyItem.setGroups(groups);
+
+		return policyItem;
+	}
+
+	private void mockExportServiceLookup() {
+		XXServiceDao    xServiceDao    = Mockito.mock(XXServiceDao.class);
+		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+		XXService       xService       = xService();
+		XXServiceDef    xServiceDef    = serviceDef();
+
+		xServiceDef.setName("hdfs");
+
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(xServiceDao.findByName("Hdfs")).thenReturn(xService);
+		Mockito.when(xServiceDefDao.getById(xService.getType())).thenReturn(xServiceDef);
+	}
+
+	// writes the policies in pages of pageSize (0: a single page) and returns what was written to the response
+	private byte[] writePolicyPages(List<RangerPolicy> policies, int pageSize, String format) throws Exception {
+		List<List<RangerPolicy>> pages = new ArrayList<List<RangerPolicy>>();
+
+		if (pageSize == 0) {
+			pages.add(new ArrayList<RangerPolicy>(policies));
+		} else {
+			for (int i = 0; i < policies.size(); i += pageSize) {
+				pages.add(new ArrayList<RangerPolicy>(policies.subList(i, Math.min(i + pageSize, policies.size()))));
+			}
+		}
+
+		final ByteArrayOutputStream out      = new ByteArrayOutputStream();
+		HttpServletResponse         response = Mockito.mock(HttpServletResponse.class);
+
+		Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+			@Override
+			public void write(int b) {
+				out.write(b);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+			}
+		});
+
+		if ("csv".equals(format)) {
+			serviceDBStore.getPoliciesInCSV(pages.iterator(), response);
+		} else if ("excel".equals(format)) {
+			serviceDBStore.getPoliciesInExcel(pages.iterator(), response);
+		} else {
+			serviceDBStore.getPoliciesInJson(pages.iterator(), response);
+		}
+
+		return out.toByteArray();
+	}
+
+	private String exportCsvLine(long id, String name, String groups, String users, String accesses, String conditionType) {
+		return id + "|" + name + "|path=[/data]|" + groups + "|" + users + "|" + accesses + "|hdfs|Enabled|Access|FALSE|path=[true]|path=[false]|Hdfs|export|TRUE||"
+				+ conditionType + "||||\n";
+	}
+
+	private List<List<String>> readExcelRows(byte[] excel) throws Exception {
+		List<List<String>> ret       = new ArrayList<List<String>>();
+		DataFormatter      formatter = new DataFormatter();
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(excel))) {
+			for (Row row : workbook.getSheetAt(0)) {
+				List<String> cells = new ArrayList<String>();
+
+				for (int i = 0; i < row.getLastCellNum(); i++) {
+					cells.add(formatter.formatCellValue(row.getCell(i)));
+				}
+
+				ret.add(cells);
+			}
+		}
+
+		return ret;
+	}
+
+	private void assertExcelRow(List<String> row, String id, String groups, String users, String accesses, String conditionType) {
+		Assert.assertEquals(id, row.get(0));
+		Assert.assertEquals(groups, row.get(3));
+		Assert.assertEquals(users, row.get(4));
+		Assert.assertEquals(accesses, row.get(5));
+		Assert.assertEquals("hdfs", row.get(6));
+		Assert.assertEquals(conditionType, row.get(16));
+	}
 }
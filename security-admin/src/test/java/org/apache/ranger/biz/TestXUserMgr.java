@@ -121,6 +121,7 @@
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -996,74 +997,41 @@ public void test20DeleteXGroup() {
 		boolean force = true;
 		VXGroup vXGroup = vxGroup();
 		XXGroupDao xXGroupDao = Mockito.mock(XXGroupDao.class);
-		XXUserDao xXUserDao = Mockito.mock(XXUserDao.class);
-		VXUser vxUser=vxUser();
-		XXUser xXUser = xxUser(vxUser);
-		Mockito.when(daoManager.getXXUser()).thenReturn(xXUserDao);
-		Mockito.when(xXUserDao.getById(xXUser.getId())).thenReturn(xXUser);
 		XXGroup xXGroup = new XXGroup();
 		Mockito.when(daoManager.getXXGroup()).thenReturn(xXGroupDao);
 		Mockito.when(xXGroupDao.getById(vXGroup.getId())).thenReturn(xXGroup);
 		Mockito.when(xGroupService.populateViewBean(xXGroup)).thenReturn(vXGroup);
-		VXGroupUserList vxGroupUserList = vxGroupUserList();
 		XXGroupUserDao xGroupUserDao = Mockito.mock(XXGroupUserDao.class);
-		Mockito.when(xGroupUserService.searchXGroupUsers((SearchCriteria) Mockito.any())).thenReturn(vxGroupUserList);
 		Mockito.when(daoManager.getXXGroupUser()).thenReturn(xGroupUserDao);
-		VXPermMapList vXPermMapList = new VXPermMapList();
-		VXPermMap vXPermMap1=getVXPermMap();
-		List<VXPermMap> vXPermMaps=new ArrayList<VXPermMap>();
-		vXPermMaps.add(vXPermMap1);
-		vXPermMapList.setVXPermMaps(vXPermMaps);
+		Mockito.when(xGroupUserDao.deleteByGroupId(vXGroup.getId())).thenReturn(1);
 		XXPermMapDao xXPermMapDao = Mockito.mock(XXPermMapDao.class);
-		Mockito.when(xPermMapService.searchXPermMaps((SearchCriteria) Mockito.any())).thenReturn(vXPermMapList);
 		Mockito.when(daoManager.getXXPermMap()).thenReturn(xXPermMapDao);
-		VXAuditMapList vXAuditMapList = new VXAuditMapList();
-		List<VXAuditMap> vXAuditMaps=new ArrayList<VXAuditMap>();
-		VXAuditMap vXAuditMap=getVXAuditMap();
-		vXAuditMaps.add(vXAuditMap);
-		vXAuditMapList.setVXAuditMaps(vXAuditMaps);
 		XXAuditMapDao xXAuditMapDao = Mockito.mock(XXAuditMapDao.class);
-		Mockito.when(xAuditMapService.searchXAuditMaps((SearchCriteria) Mockito.any())).thenReturn(vXAuditMapList);
 		Mockito.when(daoManager.getXXAuditMap()).thenReturn(xXAuditMapDao);
 		XXGroupGroupDao xXGroupGroupDao = Mockito.mock(XXGroupGroupDao.class);
-		List<XXGroupGroup> xXGroupGroups = new ArrayList<XXGroupGroup>();
-		XXGroupGroup xXGroupGroup = xxGroupGroup();
-		xXGroupGroups.add(xXGroupGroup);
 		Mockito.when(daoManager.getXXGroupGroup()).thenReturn(xXGroupGroupDao);
-		Mockito.when(xXGroupGroupDao.findByGroupId(userId)).thenReturn(xXGroupGroups);
 		XXGroupPermissionDao xXGroupPermissionDao= Mockito.mock(XXGroupPermissionDao.class);
 		Mockito.when(daoManager.getXXGroupPermission()).thenReturn(xXGroupPermissionDao);
-		List<XXGroupPermission> xXGroupPermissions=new ArrayList<XXGroupPermission>();
-		XXGroupPermission xGroupPermissionObj = xxGroupPermission();
-		xXGroupPermissions.add(xGroupPermissionObj);
-		Mockito.when(xXGroupPermissionDao.findByGroupId(vXGroup.getId())).thenReturn(xXGroupPermissions);
 		XXPolicyDao xXPolicyDao = Mockito.mock(XXPolicyDao.class);
 		List<XXPolicy> xXPolicyList = new ArrayList<XXPolicy>();
 		XXPolicy xXPolicy=getXXPolicy();
 		xXPolicyList.add(xXPolicy);
 		Mockito.when(daoManager.getXXPolicy()).thenReturn(xXPolicyDao);
 		Mockito.when(xXPolicyDao.findByGroupId(userId)).thenReturn(xXPolicyList);
-		List<XXResource> xResourceList = new ArrayList<XXResource>();
-		XXResource xXResource = new XXResource();
-		xXResource.setId(userId);
-		xXResource.setName("hadoopdev");
-		xXResource.setIsRecursive(AppConstants.BOOL_TRUE);
-		xXResource.setResourceStatus(AppConstants.STATUS_ENABLED);
-		xResourceList.add(xXResource);
-		XXResourceDao xxResourceDao = Mockito.mock(XXResourceDao.class);
-		Mockito.when(daoManager.getXXResource()).thenReturn(xxResourceDao);
-		Mockito.when(xxResourceDao.getById(Mockito.anyLong())).thenReturn(xXResource);
 		RangerPolicy rangerPolicy=rangerPolicy();
 		Mockito.when(policyService.getPopulatedViewObject(xXPolicy)).thenReturn(rangerPolicy);
-		XXModuleDefDao xModuleDefDao = Mockito.mock(XXModuleDefDao.class);
-		Mockito.when(daoManager.getXXModuleDef()).thenReturn(xModuleDefDao);
-		XXModuleDef xModuleDef=xxModuleDef();
-		Mockito.when(xModuleDefDao.findByModuleId(Mockito.anyLong())).thenReturn(xModuleDef);
 		List<XXSecurityZoneRefGroup> zoneSecRefGroup=new ArrayList<XXSecurityZoneRefGroup>();
 	    XXSecurityZoneRefGroupDao zoneSecRefGroupDao=Mockito.mock(XXSecurityZoneRefGroupDao.class);
 	    Mockito.when(daoManager.getXXSecurityZoneRefGroup()).thenReturn(zoneSecRefGroupDao);
 	    Mockito.when(zoneSecRefGroupDao.findByGroupId(userId)).thenReturn(zoneSecRefGroup);
 	    xUserMgr.deleteXGroup(vXGroup.getId(), force);
+		Mockito.verify(xGroupUserDao).deleteByGroupId(vXGroup.getId());
+		Mockito.verify(xXPermMapDao).deleteByGroupId(vXGroup.getId());
+		Mockito.verify(xXAuditMapDao).deleteByGroupId(vXGroup.getId());
+		Mockito.verify(xXGroupGroupDao).deleteByGroupId(vXGroup.getId());
+		Mockito.verify(xXGroupPermissionDao).deleteByGroupId(vXGroup.getId());
+		Mockito.verify(xXGroupDao).remove(vXGroup.getId());
+		Mockito.verify(xGroupUserDao, Mockito.never()).remove(Mockito.anyLong());
 	}
 
 	@Test
@@ -1106,10 +1074,6 @@ public void test21DeleteXUser() {
 		XXPortalUserRole.setId(userId);
 		XXPortalUserRole.setUserId(userId);
 		XXPortalUserRole.setUserRole("ROLE_USER");
-		XXModuleDefDao xModuleDefDao = Mockito.mock(XXModuleDefDao.class);
-		Mockito.when(daoManager.getXXModuleDef()).thenReturn(xModuleDefDao);
-		XXModuleDef xModuleDef=xxModuleDef();
-		Mockito.when(xModuleDefDao.findByModuleId(Mockito.anyLong())).thenReturn(xModuleDef);
 		XXAuthSessionDao xXAuthSessionDao= Mockito.mock(XXAuthSessionDao.class);
 		XXUserPermissionDao xXUserPermissionDao= Mockito.mock(XXUserPermissionDao.class);
 		XXPortalUserRoleDao xXPortalUserRoleDao= Mockito.mock(XXPortalUserRoleDao.class);
@@ -1141,6 +1105,10 @@ public void test21DeleteXUser() {
 	    Mockito.when(daoManager.getXXSecurityZoneRefUser()).thenReturn(zoneSecRefUserDao);
 	    Mockito.when(zoneSecRefUserDao.findByUserId(userId)).thenReturn(zoneSecRefUser);
 		xUserMgr.deleteXUser(vXUser.getId(), force);
+		Mockito.verify(xGroupUserDao).deleteByUserId(vXUser.getId());
+		Mockito.verify(xXAuthSessionDao).deleteByUserId(vXPortalUser.getId());
+		Mockito.verify(xXUserPermissionDao).deleteByUserId(vXPortalUser.getId());
+		Mockito.verify(xXPortalUserRoleDao).deleteByUserId(vXPortalUser.getId());
 		force=false;
 		xUserMgr.deleteXUser(vXUser.getId(), force);
 	}
@@ -3569,4 +3537,53 @@ public void test108RoleUserWillSearchOnlyHisOwnGroupDetails() {
 		Assert.assertEquals(rcvVXGroupList.getList().get(0).getName(),expectedVXGroup.getName());
 	}
 
+	@Test
+	public void test109DeleteXGroupUpdatesPoliciesWithOneVersionChange() throws Exception {
+		setup();
+		boolean force = true;
+		VXGroup vXGroup = vxGroup();
+		XXGroupDao xXGroupDao = Mockito.mock(XXGroupDao.class);
+		XXGroup xXGroup = new XXGroup();
+		Mockito.when(daoManager.getXXGroup()).thenReturn(xXGroupDao);
+		Mockito.when(xXGroupDao.getById(vXGroup.getId())).thenReturn(xXGroup);
+		Mockito.when(xGroupService.populateViewBean(xXGroup)).thenReturn(vXGroup);
+		XXGroupUserDao xGroupUserDao = Mockito.mock(XXGroupUserDao.class);
+		Mockito.when(daoManager.getXXGroupUser()).thenReturn(xGroupUserDao);
+		XXPermMapDao xXPermMapDao = Mockito.mock(XXPermMapDao.class);
+		Mockito.when(daoManager.getXXPermMap()).thenReturn(xXPermMapDao);
+		XXAuditMapDao xXAuditMapDao = Mockito.mock(XXAuditMapDao.class);
+		Mockito.when(daoManager.getXXAuditMap()).thenReturn(xXAuditMapDao);
+		XXGroupGroupDao xXGroupGroupDao = Mockito.mock(XXGroupGroupDao.class);
+		Mockito.when(daoManager.getXXGroupGroup()).thenReturn(xXGroupGroupDao);
+		XXGroupPermissionDao xXGroupPermissionDao= Mockito.mock(XXGroupPermissionDao.class);
+		Mockito.when(daoManager.getXXGroupPermission()).thenReturn(xXGroupPermissionDao);
+		XXPolicyDao xXPolicyDao = Mockito.mock(XXPolicyDao.class);
+		List<XXPolicy> xXPolicyList = new ArrayList<XXPolicy>();
+		for (long policyId = 1; policyId <= 3; policyId++) {
+			XXPolicy xXPolicy = getXXPolicy();
+			xXPolicy.setId(policyId);
+			xXPolicyList.add(xXPolicy);
+			RangerPolicy rangerPolicy = rangerPolicy();
+			rangerPolicy.setId(policyId);
+			Mockito.when(policyService.getPopulatedViewObject(xXPolicy)).thenReturn(rangerPolicy);
+		}
+		Mockito.when(daoManager.getXXPolicy()).thenReturn(xXPolicyDao);
+		Mockito.when(xXPolicyDao.findByGroupId(userId)).thenReturn(xXPolicyList);
+		List<XXSecurityZoneRefGroup> zoneSecRefGroup=new ArrayList<XXSecurityZoneRefGroup>();
+		XXSecurityZoneRefGroupDao zoneSecRefGroupDao=Mockito.mock(XXSecurityZoneRefGroupDao.class);
+		Mockito.when(daoManager.getXXSecurityZoneRefGroup()).thenReturn(zoneSecRefGroupDao);
+		Mockito.when(zoneSecRefGroupDao.findByGroupId(userId)).thenReturn(zoneSecRefGroup);
+		xUserMgr.deleteXGroup(vXGroup.getId(), force);
+
+		// all the policies are updated with the same version changes, which are scheduled once
+		ArgumentCaptor<ServiceDBStore.PolicyVersionChanges> versionChanges = ArgumentCaptor.forClass(ServiceDBStore.PolicyVersionChanges.class);
+		Mockito.verify(svcStore, Mockito.times(3)).updatePolicy(Mockito.any(RangerPolicy.class), versionChanges.capture());
+		Assert.assertNotNull(versionChanges.getValue());
+		for (ServiceDBStore.PolicyVersionChanges changes : versionChanges.getAllValues()) {
+			Assert.assertSame(versionChanges.getValue(), changes);
+		}
+		Mockito.verify(svcStore).scheduleVersionChanges(versionChanges.getValue());
+		Mockito.verify(svcStore, Mockito.never()).updatePolicy(Mockito.any(RangerPolicy.class));
+	}
+
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerChangeNotifier {
+
+	@Test
+	public void testNotifyOnNewerVersion() {
+		RangerChangeNotifier        notifier = new RangerChangeNotifier();
+		List<RangerServiceVersions> notified = new ArrayList<>();
+
+		notifier.updatePolicyVersion("svc1", 5L);
+		notifier.addWaiter(new RangerServiceVersions("svc1", 5L, null, null, null), notified::add);
+
+		Assert.assertTrue(notified.isEmpty());
+		Assert.assertEquals(Collections.singleton("svc1"), notifier.getWatchedServiceNames());
+
+		notifier.updatePolicyVersion("svc2", 9L);
+		notifier.updateTagVersion("svc1", 3L); // tag version is not watched
+		notifier.updatePolicyVersion("svc1", 4L); // older version is ignored
+
+		Assert.assertTrue(notified.isEmpty());
+
+		notifier.updatePolicyVersion("svc1", 6L);
+
+		Assert.assertEquals(1, notified.size());
+		Assert.assertEquals(Long.valueOf(6L), notified.get(0).getPolicyVersion());
+		Assert.assertEquals(Long.valueOf(3L), notified.get(0).getTagVersion());
+		Assert.assertEquals(0, notifier.getWaiterCount());
+
+		notifier.updatePolicyVersion("svc1", 7L);
+
+		Assert.assertEquals(1, notified.size());
+	}
+
+	@Test
+	public void testNotifyImmediatelyIfAlreadyNewer() {
+		RangerChangeNotifier        notifier = new RangerChangeNotifier();
+		List<RangerServiceVersions> notified = new ArrayList<>();
+
+		notifier.updateVersions("svc1", 5L, 2L, 8L, null);
+		notifier.updateUserStoreVersion(11L);
+		notifier.addWaiter(new RangerServiceVersions("svc1", 5L, 2L, 8L, 10L), notified::add);
+
+		Assert.assertEquals(1, notified.size());
+		Assert.assertEquals(Long.valueOf(11L), notified.get(0).getUserStoreVersion());
+		Assert.assertEquals(0, notifier.getWaiterCount());
+	}
+
+	@Test
+	public void testRemoveWaiter() {
+		RangerChangeNotifier        notifier = new RangerChangeNotifier();
+		List<RangerServiceVersions> notified = new ArrayList<>();
+
+		RangerChangeNotifier.Waiter waiter = notifier.addWaiter(new RangerServiceVersions("svc1", null, null, 1L, null), notified::add);
+
+		notifier.removeWaiter(waiter);
+		notifier.updateRoleVersion("svc1", 2L);
+
+		Assert.assertTrue(notified.isEmpty());
+		Assert.assertTrue(notifier.getWatchedServiceNames().isEmpty());
+	}
+}
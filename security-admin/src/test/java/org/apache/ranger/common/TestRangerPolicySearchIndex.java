@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.store.AbstractPredicateUtil;
+import org.apache.ranger.plugin.util.SearchFilter;
+import org.junit.Test;
+
+public class TestRangerPolicySearchIndex {
+
+	@Test
+	public void testSearchByUserGroupRoleAndResource() {
+		RangerPolicySearchIndex index = new RangerPolicySearchIndex(Arrays.asList(
+				createPolicy(1L, "/data/finance", "alice", "finance", "auditor", "pii"),
+				createPolicy(2L, "/data/sales/*", "bob", "sales", null, null),
+				createPolicy(3L, "/tmp", "Alice2", null, null, "PII-restricted")), 10L);
+
+		assertNull(index.getCandidatePolicies(new SearchFilter()));
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.USER, "alice")), 1L, 3L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.GROUP, "SAL")), 2L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.ROLE, "auditor")), 1L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.POLICY_LABELS_PARTIAL, "pii")), 1L, 3L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.POL_RESOURCE, "DATA")), 1L, 2L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.RESOURCE_PREFIX + "path", "/data/sales/q1")), 2L);
+
+		SearchFilter filter = filter(SearchFilter.USER, "alice");
+
+		filter.setParam(SearchFilter.POLICY_LABELS_PARTIAL, "restricted");
+
+		assertIds(index.getCandidatePolicies(filter), 3L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.USER, "carol")));
+	}
+
+	@Test
+	public void testRoleFilterIsAppliedToCandidates() {
+		List<RangerPolicy> policies = Arrays.asList(
+				createPolicy(1L, "/data/finance", "alice", null, "auditor", null),
+				createPolicy(2L, "/data/sales", "bob", null, "auditors", null),
+				createPolicy(3L, "/data/hr", "carol", null, null, null));
+		RangerPolicySearchIndex index     = new RangerPolicySearchIndex(policies, 10L);
+		SearchFilter            filter    = filter(SearchFilter.ROLE, "auditor");
+		List<RangerPolicy>      filtered  = new ArrayList<>(policies);
+		List<RangerPolicy>      candidate = index.getCandidatePolicies(filter);
+
+		new AbstractPredicateUtil().applyFilter(filtered, filter);
+		new AbstractPredicateUtil().applyFilter(candidate, filter);
+
+		assertIds(filtered, 1L);
+		assertIds(candidate, 1L);
+	}
+
+	@Test
+	public void testApplyDeltas() {
+		RangerPolicySearchIndex index = new RangerPolicySearchIndex(new ArrayList<>(Arrays.asList(
+				createPolicy(1L, "/data/finance", "alice", null, null, null),
+				createPolicy(2L, "/data/sales", "bob", null, null, null))), 10L);
+
+		List<RangerPolicyDelta> deltas = Arrays.asList(
+				new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, createPolicy(1L, "/data/finance", "carol", null, null, null)),
+				new RangerPolicyDelta(2L, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, createPolicy(2L, "/data/sales", "bob", null, null, null)),
+				new RangerPolicyDelta(3L, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, createPolicy(3L, "/data/hr", "bob", null, null, null)));
+
+		index.applyDeltas(deltas, "hdfs", 11L);
+
+		assertEquals(Long.valueOf(11L), index.getPolicyVersion());
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.USER, "alice")));
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.USER, "carol")), 1L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.USER, "bob")), 3L);
+		assertIds(index.getCandidatePolicies(filter(SearchFilter.RESOURCE_PREFIX + "path", "/data/sales")));
+	}
+
+	private static SearchFilter filter(String name, String value) {
+		SearchFilter ret = new SearchFilter();
+
+		ret.setParam(name, value);
+
+		return ret;
+	}
+
+	private static void assertIds(List<RangerPolicy> policies, Long... expectedIds) {
+		List<Long> actualIds = new ArrayList<>();
+
+		for (RangerPolicy policy : policies) {
+			actualIds.add(policy.getId());
+		}
+
+		assertEquals(Arrays.asList(expectedIds), actualIds);
+	}
+
+	private static RangerPolicy createPolicy(Long id, String path, String user, String group, String role, String label) {
+		RangerPolicy     policy     = new RangerPolicy();
+		RangerPolicyItem policyItem = new RangerPolicyItem();
+
+		policy.setId(id);
+		policy.setServiceType("hdfs");
+
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("path", new RangerPolicyResource(path));
+		policy.setResources(resources);
+
+		if (user != null) {
+			policyItem.setUsers(Collections.singletonList(user));
+		}
+		if (group != null) {
+			policyItem.setGroups(Collections.singletonList(group));
+		}
+		if (role != null) {
+			policyItem.setRoles(Collections.singletonList(role));
+		}
+
+		policy.setPolicyItems(Collections.singletonList(policyItem));
+
+		if (label != null) {
+			policy.setPolicyLabels(Collections.singletonList(label));
+		}
+
+		return policy;
+	}
+}
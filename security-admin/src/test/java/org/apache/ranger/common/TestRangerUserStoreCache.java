@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.biz.XUserMgr;
+import org.apache.ranger.plugin.model.GroupInfo;
+import org.apache.ranger.plugin.model.UserInfo;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestRangerUserStoreCache {
+	private static final int USER_COUNT         = 10;
+	private static final int GROUP_COUNT        = 5;
+	private static final int MAX_DELTA_VERSIONS = 16;
+
+	private final XUserMgr                 xUserMgr   = Mockito.mock(XUserMgr.class);
+	private final Map<String, Set<String>> userGroups = new HashMap<>();
+	private final RangerUserStoreCache     cache      = new RangerUserStoreCache(10, MAX_DELTA_VERSIONS);
+
+	@Before
+	public void setUp() {
+		for (int i = 0; i < USER_COUNT; i++) {
+			userGroups.put("user" + i, new HashSet<>(Collections.singleton("group" + (i % GROUP_COUNT))));
+		}
+
+		Mockito.when(xUserMgr.getUsers()).thenAnswer(invocation -> getUsers());
+		Mockito.when(xUserMgr.getGroups()).thenAnswer(invocation -> getGroups());
+		Mockito.when(xUserMgr.getUserGroups()).thenAnswer(invocation -> copyUserGroups());
+	}
+
+	@Test
+	public void testDeltaForKnownVersion() throws Exception {
+		RangerUserStore version1 = getUserStore(null, 1L);
+
+		Assert.assertFalse(version1.getIsDelta());
+
+		moveUser("user1", "group2");
+
+		RangerUserStore version2 = getUserStore(null, 2L);
+		RangerUserStore delta    = getUserStore(1L, 2L);
+
+		Assert.assertTrue(delta.getIsDelta());
+		Assert.assertEquals(Long.valueOf(2L), delta.getUserStoreVersion());
+		Assert.assertEquals(Collections.singletonMap("user1", Collections.singleton("group2")), delta.getUserGroupMapping());
+		Assert.assertTrue(delta.getUserAttrMapping().isEmpty());
+		Assert.assertTrue(delta.getGroupAttrMapping().isEmpty());
+		Assert.assertEquals(version2.getUserGroupMapping(), RangerUserStoreDeltaUtil.applyDelta(version1, delta).getUserGroupMapping());
+
+		// deltas are sent only to callers that ask for them
+		RangerUserStore full = cache.getLatestRangerUserStoreOrCached(xUserMgr, 1L, 2L, false);
+
+		Assert.assertFalse(full.getIsDelta());
+		Assert.assertSame(version2, full);
+
+		// nothing to send to a caller that is up to date
+		Assert.assertNull(getUserStore(2L, 2L));
+	}
+
+	@Test
+	public void testUserMovedBetweenGroupsIsInDelta() throws Exception {
+		RangerUserStore version1 = getUserStore(null, 1L);
+
+		moveUser("user1", "group2");
+		getUserStore(null, 2L);
+
+		moveUser("user1", "group3");
+		userGroups.get("user2").add("group4");
+
+		RangerUserStore version3 = getUserStore(null, 3L);
+		RangerUserStore delta    = getUserStore(1L, 3L);
+
+		Assert.assertTrue(delta.getIsDelta());
+		Assert.assertEquals(Long.valueOf(3L), delta.getUserStoreVersion());
+		Assert.assertEquals(2, delta.getUserGroupMapping().size());
+		Assert.assertEquals(Collections.singleton("group3"), delta.getUserGroupMapping().get("user1"));
+		Assert.assertEquals(new HashSet<>(Arrays.asList("group2", "group4")), delta.getUserGroupMapping().get("user2"));
+		Assert.assertEquals(version3.getUserGroupMapping(), RangerUserStoreDeltaUtil.applyDelta(version1, delta).getUserGroupMapping());
+
+		// a user moved back to its groups of the last known version is still sent, with its current groups
+		moveUser("user1", "group1");
+		getUserStore(null, 4L);
+
+		delta = getUserStore(1L, 4L);
+
+		Assert.assertTrue(delta.getIsDelta());
+		Assert.assertEquals(Collections.singleton("group1"), delta.getUserGroupMapping().get("user1"));
+	}
+
+	@Test
+	public void testFullStoreForUnknownVersion() throws Exception {
+		getUserStore(null, 10L);
+
+		moveUser("user1", "group2");
+
+		RangerUserStore version11 = getUserStore(null, 11L);
+
+		// version 5 was never cached
+		RangerUserStore ret = getUserStore(5L, 11L);
+
+		Assert.assertFalse(ret.getIsDelta());
+		Assert.assertSame(version11, ret);
+
+		// nor was a version later than the latest
+		ret = getUserStore(12L, 11L);
+
+		Assert.assertFalse(ret.getIsDelta());
+		Assert.assertSame(version11, ret);
+	}
+
+	@Test
+	public void testFullStoreForEvictedVersion() throws Exception {
+		long latestVersion = MAX_DELTA_VERSIONS + 2;
+
+		getUserStore(null, 1L);
+
+		for (long version = 2; version <= latestVersion; version++) {
+			moveUser("user1", version % 2 == 0 ? "group2" : "group3");
+			getUserStore(null, version);
+		}
+
+		// changes from version 1 were evicted to keep the last MAX_DELTA_VERSIONS
+		RangerUserStore ret = getUserStore(1L, latestVersion);
+
+		Assert.assertFalse(ret.getIsDelta());
+		Assert.assertEquals(Long.valueOf(latestVersion), ret.getUserStoreVersion());
+
+		for (long version = 2; version < latestVersion; version++) {
+			ret = getUserStore(version, latestVersion);
+
+			Assert.assertTrue("version " + version, ret.getIsDelta());
+			Assert.assertEquals(Long.valueOf(latestVersion), ret.getUserStoreVersion());
+			Assert.assertEquals(Collections.singletonMap("user1", Collections.singleton("group2")), ret.getUserGroupMapping());
+		}
+	}
+
+	private RangerUserStore getUserStore(Long lastKnownUserStoreVersion, Long userStoreVersionInDB) throws Exception {
+		return cache.getLatestRangerUserStoreOrCached(xUserMgr, lastKnownUserStoreVersion, userStoreVersionInDB, true);
+	}
+
+	private void moveUser(String userName, String groupName) {
+		userGroups.put(userName, new HashSet<>(Collections.singleton(groupName)));
+	}
+
+	private Map<String, Set<String>> copyUserGroups() {
+		Map<String, Set<String>> ret = new HashMap<>();
+
+		for (Map.Entry<String, Set<String>> entry : userGroups.entrySet()) {
+			ret.put(entry.getKey(), new HashSet<>(entry.getValue()));
+		}
+
+		return ret;
+	}
+
+	private static Set<UserInfo> getUsers() {
+		Set<UserInfo> ret = new HashSet<>();
+
+		for (int i = 0; i < USER_COUNT; i++) {
+			ret.add(new UserInfo("user" + i, null, Collections.singletonMap("dept", "dept" + (i % 2))));
+		}
+
+		return ret;
+	}
+
+	private static Set<GroupInfo> getGroups() {
+		Set<GroupInfo> ret = new HashSet<>();
+
+		for (int i = 0; i < GROUP_COUNT; i++) {
+			ret.add(new GroupInfo("group" + i, null, Collections.singletonMap("site", "site" + i)));
+		}
+
+		return ret;
+	}
+}
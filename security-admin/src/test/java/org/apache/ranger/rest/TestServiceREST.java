@@ -21,9 +21,11 @@
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -118,6 +120,7 @@
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -1554,6 +1557,7 @@ public void test45exportPoliciesInJSON() throws Exception {
 
 		RangerPolicy rangerPolicy = rangerPolicy();
 		rangerPolicyList.add(rangerPolicy);
+		List<Long> serviceIds = Collections.singletonList(rangerPolicy.getId());
 		XXService xService = xService();
 
 		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
@@ -1565,20 +1569,24 @@ public void test45exportPoliciesInJSON() throws Exception {
 		SearchFilter filter = new SearchFilter();
 		filter.setParam("zoneName", "zone1");
 		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
-		Mockito.when(svcStore.getPolicies(filter)).thenReturn(rangerPolicyList);
+		Mockito.when(svcStore.getPolicyPages(serviceIds, filter)).thenReturn(Collections.singletonList(rangerPolicyList).iterator());
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
 		Mockito.when(bizUtil.isKeyAdmin()).thenReturn(false);
 		Mockito.when(bizUtil.getCurrentUserLoginId()).thenReturn("admin");
 		Mockito.when(bizUtil.isAuditAdmin()).thenReturn(false);
 		Mockito.when(bizUtil.isAuditKeyAdmin()).thenReturn(false);
 		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.getAllServiceIds()).thenReturn(serviceIds);
 
 		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
 		Mockito.when(daoManager.getXXService().findByName("HDFS_1-1-20150316062453")).thenReturn(xService);
 		Mockito.when(daoManager.getXXServiceDef().getById(xService.getType())).thenReturn(xServiceDef);
 		serviceREST.getPoliciesInJson(request, response, false);
 
-		Mockito.verify(svcStore).getPoliciesInJson(rangerPolicyList, response);
+		ArgumentCaptor<Iterator> policyPages = ArgumentCaptor.forClass(Iterator.class);
+		Mockito.verify(svcStore).getPoliciesInJson(policyPages.capture(), Mockito.eq(response));
+		Assert.assertEquals(rangerPolicyList, policyPages.getValue().next());
+		Assert.assertFalse(policyPages.getValue().hasNext());
 	}
 
 	@Test
@@ -1589,6 +1597,7 @@ public void test46exportPoliciesInCSV() throws Exception {
 
 		RangerPolicy rangerPolicy = rangerPolicy();
 		rangerPolicyList.add(rangerPolicy);
+		List<Long> serviceIds = Collections.singletonList(rangerPolicy.getId());
 		XXService xService = xService();
 
 		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
@@ -1600,13 +1609,14 @@ public void test46exportPoliciesInCSV() throws Exception {
 		SearchFilter filter = new SearchFilter();
 
 		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
-		Mockito.when(svcStore.getPolicies(filter)).thenReturn(rangerPolicyList);
+		Mockito.when(svcStore.getPolicyPages(serviceIds, filter)).thenReturn(Collections.singletonList(rangerPolicyList).iterator());
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
 		Mockito.when(bizUtil.isKeyAdmin()).thenReturn(false);
 		Mockito.when(bizUtil.getCurrentUserLoginId()).thenReturn("admin");
 		Mockito.when(bizUtil.isAuditAdmin()).thenReturn(false);
 		Mockito.when(bizUtil.isAuditKeyAdmin()).thenReturn(false);
 		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.getAllServiceIds()).thenReturn(serviceIds);
 
 		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
 
@@ -1614,7 +1624,10 @@ public void test46exportPoliciesInCSV() throws Exception {
 		Mockito.when(daoManager.getXXServiceDef().getById(xService.getType())).thenReturn(xServiceDef);
 		serviceREST.getPoliciesInCsv(request, response);
 
-		Mockito.verify(svcStore).getPoliciesInCSV(rangerPolicyList, response);
+		ArgumentCaptor<Iterator> policyPages = ArgumentCaptor.forClass(Iterator.class);
+		Mockito.verify(svcStore).getPoliciesInCSV(policyPages.capture(), Mockito.eq(response));
+		Assert.assertEquals(rangerPolicyList, policyPages.getValue().next());
+		Assert.assertFalse(policyPages.getValue().hasNext());
 	}
 
       /*  @Test
@@ -1643,6 +1656,7 @@ public void test48exportPoliciesInExcel() throws Exception {
 
 		RangerPolicy rangerPolicy = rangerPolicy();
 		rangerPolicyList.add(rangerPolicy);
+		List<Long> serviceIds = Collections.singletonList(rangerPolicy.getId());
 		XXService xService = xService();
 
 		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
@@ -1654,20 +1668,24 @@ public void test48exportPoliciesInExcel() throws Exception {
 		SearchFilter filter = new SearchFilter();
 
 		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
-		Mockito.when(svcStore.getPolicies(filter)).thenReturn(rangerPolicyList);
+		Mockito.when(svcStore.getPolicyPages(serviceIds, filter)).thenReturn(Collections.singletonList(rangerPolicyList).iterator());
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
 		Mockito.when(bizUtil.isKeyAdmin()).thenReturn(false);
 		Mockito.when(bizUtil.getCurrentUserLoginId()).thenReturn("admin");
 		Mockito.when(bizUtil.isAuditAdmin()).thenReturn(false);
 		Mockito.when(bizUtil.isAuditKeyAdmin()).thenReturn(false);
 		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.getAllServiceIds()).thenReturn(serviceIds);
 
 		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
 
 		Mockito.when(daoManager.getXXService().findByName("HDFS_1-1-20150316062453")).thenReturn(xService);
 		Mockito.when(daoManager.getXXServiceDef().getById(xService.getType())).thenReturn(xServiceDef);
 		serviceREST.getPoliciesInExcel(request, response);
-		Mockito.verify(svcStore).getPoliciesInExcel(rangerPolicyList, response);
+		ArgumentCaptor<Iterator> policyPages = ArgumentCaptor.forClass(Iterator.class);
+		Mockito.verify(svcStore).getPoliciesInExcel(policyPages.capture(), Mockito.eq(response));
+		Assert.assertEquals(rangerPolicyList, policyPages.getValue().next());
+		Assert.assertFalse(policyPages.getValue().hasNext());
 	}
 
 
@@ -21,6 +21,7 @@
 import java.io.File;
 
 import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.apache.ranger.plugin.util.RangerMetricsUtil;
 
 public class TagSyncMetricsProducer implements Runnable {
@@ -42,6 +43,8 @@ public void run() {
 			String logFileNameWithPath = config.getTagSyncMetricsFileName();
 			LOG.info("Tagsync metrics frequency :  " + sleepTimeBetweenCycleInMillis +" and metrics file : "+logFileNameWithPath );
 			if (null != logFileNameWithPath) {
+				PerfDataRecorder.initialize(null, true);
+
 				while (!shutdownFlag) {
 					try {
 						if (LOG.isDebugEnabled()) {
@@ -58,6 +61,11 @@ public void run() {
 					} catch (Throwable t) {
 						LOG.error("Failed to write tagsync metrics into file. Error details: ", t);
 					}
+					try {
+						writePerfMetrics(logFileNameWithPath);
+					} catch (Throwable t) {
+						LOG.error("Failed to write tagsync perf metrics into file. Error details: ", t);
+					}
 				}
 			} else {
 				LOG.info("No file directory found for tagsync metrics log ");
@@ -86,4 +94,12 @@ private void writeJVMMetrics(String logFileNameWithPath) throws Throwable {
 		}
 	}
 
+	private void writePerfMetrics(String logFileNameWithPath) throws Throwable {
+		try {
+			PerfDataRecorder.writePrometheusTextFile(new File(PerfDataRecorder.getPrometheusTextFileName(logFileNameWithPath)));
+		} catch (Throwable t) {
+			LOG.error("TagSyncMetricsProducer.writePerfMetrics() failed to write metrics into file. Error details: ", t);
+			throw t;
+		}
+	}
 }
@@ -34,6 +34,7 @@
 import java.util.HashMap;
 import java.util.UUID;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.naming.Context;
 import javax.naming.InvalidNameException;
@@ -43,11 +44,8 @@
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
-import javax.naming.ldap.Control;
 import javax.naming.ldap.InitialLdapContext;
 import javax.naming.ldap.LdapContext;
-import javax.naming.ldap.PagedResultsControl;
-import javax.naming.ldap.PagedResultsResponseControl;
 import javax.naming.ldap.StartTlsRequest;
 import javax.naming.ldap.StartTlsResponse;
 import javax.naming.ldap.LdapName;
@@ -115,8 +113,14 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 	private Set<String> otherGroupAttributes;
 	private int groupHierarchyLevels;
 
-	private LdapContext ldapContext;
-	StartTlsResponse tls;
+	private Map<LdapContext, StartTlsResponse> tlsResponses = new ConcurrentHashMap<LdapContext, StartTlsResponse>();
+	private int searchParallelism;
+	private LdapParallelSearcher searcher;
+	private DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+	private long highestdeltaSyncUserTime;
+	private long highestdeltaSyncGroupTime;
+	private int userCount;
+	private int groupCount;
 
 	private boolean userNameCaseConversionFlag = false;
 	private boolean groupNameCaseConversionFlag = false;
@@ -169,7 +173,6 @@ public LdapDeltaUserGroupBuilder() {
 	public void init() throws Throwable{
 		deltaSyncUserTime = 0;
 		deltaSyncGroupTime = 0;
-		DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
 		deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
 		deltaSyncGroupTimeStamp = dateFormat.format(new Date(0));
 		userNameMap = new HashMap<String, String>();
@@ -187,7 +190,7 @@ public void init() throws Throwable{
 		ugsyncAuditInfo.setLdapSyncSourceInfo(ldapSyncSourceInfo);
 	}
 
-	private void createLdapContext() throws Throwable {
+	private LdapContext newLdapContext() throws Exception {
 		Properties env = new Properties();
 		env.put(Context.INITIAL_CONTEXT_FACTORY,
 				"com.sun.jndi.ldap.LdapCtxFactory");
@@ -222,23 +225,39 @@ private void createLdapContext() throws Throwable {
 			}
 		}
 
-		ldapContext = new InitialLdapContext(env, null);
+		LdapContext ret = new InitialLdapContext(env, null);
 		if (!ldapUrl.startsWith("ldaps")) {
 			if (config.isStartTlsEnabled()) {
-				tls = (StartTlsResponse) ldapContext.extendedOperation(new StartTlsRequest());
+				StartTlsResponse tls = (StartTlsResponse) ret.extendedOperation(new StartTlsRequest());
 				if (config.getSSLTrustStorePath() != null && !config.getSSLTrustStorePath().trim().isEmpty()) {
 					tls.negotiate(CustomSSLSocketFactory.getDefault());
 				} else {
 					tls.negotiate();
 				}
+				tlsResponses.put(ret, tls);
 				LOG.info("Starting TLS session...");
 			}
 		}
 
-		ldapContext.addToEnvironment(Context.SECURITY_PRINCIPAL, ldapBindDn);
-		ldapContext.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
-		ldapContext.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
-		ldapContext.addToEnvironment(Context.REFERRAL, ldapReferral);
+		ret.addToEnvironment(Context.SECURITY_PRINCIPAL, ldapBindDn);
+		ret.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
+		ret.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
+		ret.addToEnvironment(Context.REFERRAL, ldapReferral);
+		return ret;
+	}
+
+	private LdapParallelSearcher newSearcher() {
+		return new LdapParallelSearcher(new LdapParallelSearcher.LdapContextFactory() {
+			@Override
+			public LdapContext createLdapContext() throws Exception {
+				return newLdapContext();
+			}
+
+			@Override
+			public void closeLdapContext(LdapContext ldapContext) throws Exception {
+				LdapDeltaUserGroupBuilder.this.closeLdapContext(ldapContext);
+			}
+		}, searchParallelism, pagedResultsEnabled, pagedResultsSize);
 	}
 
 	private void setConfig() throws Throwable {
@@ -286,6 +305,7 @@ private void setConfig() throws Throwable {
 
     pagedResultsEnabled =   config.isPagedResultsEnabled();
     pagedResultsSize =   config.getPagedResultsSize();
+    searchParallelism = config.getLdapSearchParallelism();
 
     groupSearchBase = config.getGroupSearchBase().split(";");
     groupSearchScope = config.getGroupSearchScope();
@@ -332,6 +352,7 @@ private void setConfig() throws Throwable {
 			+ ",  otherUserAttributes: " + otherUserAttributes
           + ",  pagedResultsEnabled: " + pagedResultsEnabled
           + ",  pagedResultsSize: " + pagedResultsSize
+          + ",  searchParallelism: " + searchParallelism
           + ",  groupSearchEnabled: " + groupSearchEnabled
           + ",  groupSearchBase: " + Arrays.toString(groupSearchBase)
           + ",  groupSearchScope: " + groupSearchScope
@@ -350,13 +371,12 @@ private void setConfig() throws Throwable {
 
 	}
 
-	private void closeLdapContext() throws Throwable {
+	private void closeLdapContext(LdapContext ldapContext) throws Exception {
+		StartTlsResponse tls = tlsResponses.remove(ldapContext);
 		if (tls != null) {
 			tls.close();
 		}
-		if (ldapContext != null) {
-			ldapContext.close();
-		}
+		ldapContext.close();
 	}
 
 	@Override
@@ -367,6 +387,17 @@ public boolean isChanged() {
 
 	@Override
 	public void updateSink(UserGroupSink sink) throws Throwable {
+		// LDAP contexts are pooled for the whole sync cycle
+		searcher = newSearcher();
+		try {
+			updateSinkWithSearcher(sink);
+		} finally {
+			searcher.close();
+			searcher = null;
+		}
+	}
+
+	private void updateSinkWithSearcher(UserGroupSink sink) throws Throwable {
 		LOG.info("LdapDeltaUserGroupBuilder updateSink started");
 		groupUserTable = HashBasedTable.create();
         groupNameMap = new DualHashBidiMap();
@@ -461,483 +492,221 @@ public void updateSink(UserGroupSink sink) throws Throwable {
 		}
 	}
 
-	private void getUsers(UserGroupSink sink) throws Throwable {
-		NamingEnumeration<SearchResult> userSearchResultEnum = null;
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
-			}
-			DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-			if (groupSearchFirstEnabled && groupUserTable.rowKeySet().size() != 0) {
-				// Fix RANGER-1957: Perform full sync when group search is enabled and when there are updates to the groups
-				deltaSyncUserTime = 0;
-				deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
-			}
-
-			extendedUserSearchFilter = "(objectclass=" + userObjectClass + ")(|(uSNChanged>=" + deltaSyncUserTime + ")(modifyTimestamp>=" + deltaSyncUserTimeStamp + "Z))";
+	private void getUsers(final UserGroupSink sink) throws Throwable {
+		if (groupSearchFirstEnabled && groupUserTable.rowKeySet().size() != 0) {
+			// Fix RANGER-1957: Perform full sync when group search is enabled and when there are updates to the groups
+			deltaSyncUserTime = 0;
+			deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
+		}
 
-			if (userSearchFilter != null && !userSearchFilter.trim().isEmpty()) {
-				String customFilter = userSearchFilter.trim();
-				if (!customFilter.startsWith("(")) {
-					customFilter = "(" + customFilter + ")";
-				}
+		extendedUserSearchFilter = "(objectclass=" + userObjectClass + ")(|(uSNChanged>=" + deltaSyncUserTime + ")(modifyTimestamp>=" + deltaSyncUserTimeStamp + "Z))";
 
-				extendedUserSearchFilter = "(&" + extendedUserSearchFilter + customFilter + ")";
-			} else {
-				extendedUserSearchFilter = "(&" + extendedUserSearchFilter + ")";
+		if (userSearchFilter != null && !userSearchFilter.trim().isEmpty()) {
+			String customFilter = userSearchFilter.trim();
+			if (!customFilter.startsWith("(")) {
+				customFilter = "(" + customFilter + ")";
 			}
-			LOG.info("extendedUserSearchFilter = " + extendedUserSearchFilter);
-
-			long highestdeltaSyncUserTime = deltaSyncUserTime;
-
-			// When multiple OUs are configured, go through each OU as the user search base to search for users.
-			for (int ou=0; ou<userSearchBase.length; ou++) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-				int paged = 0;
-				do {
-					userSearchResultEnum = ldapContext
-							.search(userSearchBase[ou], extendedUserSearchFilter,
-									userSearchControls);
-
-					while (userSearchResultEnum.hasMore()) {
-						// searchResults contains all the user entries
-						final SearchResult userEntry = userSearchResultEnum.next();
-
-						if (userEntry == null)  {
-							if (LOG.isInfoEnabled())  {
-								LOG.info("userEntry null, skipping sync for the entry");
-							}
-							continue;
-						}
-						//System.out.println("userEntry = " + userEntry);
-
-						Attributes attributes =   userEntry.getAttributes();
-						if (attributes == null)  {
-							if (LOG.isInfoEnabled())  {
-								LOG.info("attributes  missing for entry " + userEntry.getNameInNamespace() +
-										", skipping sync");
-							}
-							continue;
-						}
-
-						Attribute userNameAttr  = attributes.get(userNameAttribute);
-						if (userNameAttr == null)  {
-							if (LOG.isInfoEnabled())  {
-								LOG.info(userNameAttribute + " missing for entry " + userEntry.getNameInNamespace() +
-										", skipping sync");
-							}
-							continue;
-						}
 
-						String userFullName = (userEntry.getNameInNamespace()).toLowerCase();
-						String userName = (String) userNameAttr.get();
+			extendedUserSearchFilter = "(&" + extendedUserSearchFilter + customFilter + ")";
+		} else {
+			extendedUserSearchFilter = "(&" + extendedUserSearchFilter + ")";
+		}
+		LOG.info("extendedUserSearchFilter = " + extendedUserSearchFilter);
+
+		highestdeltaSyncUserTime = deltaSyncUserTime;
+		userCount = 0;
+
+		// When multiple OUs are configured, go through each OU as the user search base to search for users.
+		searcher.search("LdapDeltaUserGroupBuilder.getUsers()", userSearchBase, extendedUserSearchFilter, null, userSearchControls,
+				userEntry -> processUserEntry(sink, userEntry));
+		LOG.info("LdapDeltaUserGroupBuilder.getUsers() completed with user count: "
+				+ userCount);
+		if (deltaSyncUserTime < highestdeltaSyncUserTime) {
+			// Incrementing highestdeltaSyncUserTime (for AD) in order to avoid search record repetition for next sync cycle.
+			deltaSyncUserTime = highestdeltaSyncUserTime + 1;
+			// Incrementing the highest timestamp value (for Openldap) with 1sec in order to avoid search record repetition for next sync cycle.
+			deltaSyncUserTimeStamp = dateFormat.format(new Date(highestdeltaSyncUserTime + 60l));
+		}
+	}
 
-						if (userName == null || userName.trim().isEmpty())  {
-							if (LOG.isInfoEnabled())  {
-								LOG.info(userNameAttribute + " empty for entry " + userEntry.getNameInNamespace() +
-										", skipping sync");
-							}
-							continue;
-						}
+	private void processUserEntry(UserGroupSink sink, SearchResult userEntry) throws Throwable {
+		Attributes attributes =   userEntry.getAttributes();
+		if (attributes == null)  {
+			if (LOG.isInfoEnabled())  {
+				LOG.info("attributes  missing for entry " + userEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
 
-						Attribute timeStampAttr  = attributes.get("uSNChanged");
-						if (timeStampAttr != null) {
-							String uSNChangedVal = (String) timeStampAttr.get();
-							long currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
-							LOG.info("uSNChangedVal = " + uSNChangedVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
-							if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
-								highestdeltaSyncUserTime = currentDeltaSyncTime;
-							}
-						} else {
-							timeStampAttr = attributes.get("modifytimestamp");
-							if (timeStampAttr != null) {
-								String timeStampVal = (String) timeStampAttr.get();
-								Date parseDate = dateFormat.parse(timeStampVal);
-								long currentDeltaSyncTime = parseDate.getTime();
-								LOG.info("timeStampVal = " + timeStampVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
-								if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
-									highestdeltaSyncUserTime = currentDeltaSyncTime;
-									deltaSyncUserTimeStamp = timeStampVal;
-								}
-							}
-						}
+		Attribute userNameAttr  = attributes.get(userNameAttribute);
+		if (userNameAttr == null)  {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(userNameAttribute + " missing for entry " + userEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
 
-						Map<String, String> userAttrMap = new HashMap<>();
-						Attribute userCloudIdAttr = attributes.get(userCloudIdAttribute);
-						if (userCloudIdAttr != null) {
-							addToAttrMap(userAttrMap, "cloud_id", userCloudIdAttr, config.getUserCloudIdAttributeDataType());
-						}
-						for (String otherUserAttribute : otherUserAttributes) {
-							if (attributes.get(otherUserAttribute) != null) {
-								String attrType = config.getOtherUserAttributeDataType(otherUserAttribute);
-								addToAttrMap(userAttrMap, otherUserAttribute, attributes.get(otherUserAttribute), attrType);
-							}
-						}
+		String userFullName = (userEntry.getNameInNamespace()).toLowerCase();
+		String userName = (String) userNameAttr.get();
 
-						if (!groupSearchFirstEnabled) {
-							String transformUserName = userNameTransform(userName);
-							try {
-								sink.addOrUpdateUser(transformUserName, userAttrMap, null);
-							} catch (Throwable t) {
-								LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-								+ ", for user: " + transformUserName);
-							}
-							//System.out.println("Adding user fullname = " + userFullName + " username = " + transformUserName);
-							if (userNameMap.containsKey(userFullName)) {
-								noOfModifiedUsers++;
-							} else {
-								noOfNewUsers++;
-							}
-							userNameMap.put(userFullName, transformUserName);
-							Set<String> groups = new HashSet<String>();
-
-							// Get all the groups from the group name attribute of the user only when group search is not enabled.
-							if (!groupSearchEnabled) {
-								for (String useGroupNameAttribute : userGroupNameAttributeSet) {
-									Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
-									if (userGroupfAttribute != null) {
-										NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
-										while (groupEnum.hasMore()) {
-											String gName = getShortName((String) groupEnum
-													.next());
-											String transformGroupName = groupNameTransform(gName);
-											groups.add(transformGroupName);
-										}
-									}
-								}
-							}
+		if (userName == null || userName.trim().isEmpty())  {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(userNameAttribute + " empty for entry " + userEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
 
-							List<String> groupList = new ArrayList<String>(groups);
-							try {
-								sink.addOrUpdateUser(transformUserName, userAttrMap, groupList);
+		Attribute timeStampAttr  = attributes.get("uSNChanged");
+		if (timeStampAttr != null) {
+			String uSNChangedVal = (String) timeStampAttr.get();
+			long currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
+			LOG.info("uSNChangedVal = " + uSNChangedVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
+			if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
+				highestdeltaSyncUserTime = currentDeltaSyncTime;
+			}
+		} else {
+			timeStampAttr = attributes.get("modifytimestamp");
+			if (timeStampAttr != null) {
+				String timeStampVal = (String) timeStampAttr.get();
+				Date parseDate = dateFormat.parse(timeStampVal);
+				long currentDeltaSyncTime = parseDate.getTime();
+				LOG.info("timeStampVal = " + timeStampVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
+				if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
+					highestdeltaSyncUserTime = currentDeltaSyncTime;
+					deltaSyncUserTimeStamp = timeStampVal;
+				}
+			}
+		}
 
-							} catch (Throwable t) {
-								LOG.error("sink.addOrUpdateUserGroups failed with exception: " + t.getMessage()
-								+ ", for user: " + transformUserName + " and groups: " + groupList);
-							}
-                            counter++;
-						} else {
-							// If the user from the search result is present in the group user table,
-							// then addorupdate user to ranger admin.
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("Chekcing if the user " + userFullName + " is part of the retrieved groups");
-							}
-							if ((groupUserTable.containsColumn(userFullName) || groupUserTable.containsColumn(userName))) {
-								if (!userNameMap.containsKey(userFullName)) {
-									String transformUserName = userNameTransform(userName);
-									try {
-										sink.addOrUpdateUser(transformUserName, userAttrMap, null);
-									} catch (Throwable t) {
-										LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-												+ ", for user: " + transformUserName);
-									}
-									userNameMap.put(userFullName, transformUserName);
-									//Also update the username in the groupUserTable with the one from username attribute.
-									Map<String, String> userMap = groupUserTable.column(userFullName);
-									for (Map.Entry<String, String> entry : userMap.entrySet()) {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("Updating groupUserTable " + entry.getValue() + " with: " + transformUserName + " for " + entry.getKey());
-										}
-										groupUserTable.put(entry.getKey(), userFullName, transformUserName);
-									}
-									counter++;
-									noOfNewUsers++;
-								} else {
-									noOfModifiedUsers++;
-								}
-							}
+		Map<String, String> userAttrMap = new HashMap<>();
+		Attribute userCloudIdAttr = attributes.get(userCloudIdAttribute);
+		if (userCloudIdAttr != null) {
+			addToAttrMap(userAttrMap, "cloud_id", userCloudIdAttr, config.getUserCloudIdAttributeDataType());
+		}
+		for (String otherUserAttribute : otherUserAttributes) {
+			if (attributes.get(otherUserAttribute) != null) {
+				String attrType = config.getOtherUserAttributeDataType(otherUserAttribute);
+				addToAttrMap(userAttrMap, otherUserAttribute, attributes.get(otherUserAttribute), attrType);
+			}
+		}
 
+		if (!groupSearchFirstEnabled) {
+			String transformUserName = userNameTransform(userName);
+			try {
+				sink.addOrUpdateUser(transformUserName, userAttrMap, null);
+			} catch (Throwable t) {
+				LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+				+ ", for user: " + transformUserName);
+			}
+			//System.out.println("Adding user fullname = " + userFullName + " username = " + transformUserName);
+			if (userNameMap.containsKey(userFullName)) {
+				noOfModifiedUsers++;
+			} else {
+				noOfNewUsers++;
+			}
+			userNameMap.put(userFullName, transformUserName);
+			Set<String> groups = new HashSet<String>();
+
+			// Get all the groups from the group name attribute of the user only when group search is not enabled.
+			if (!groupSearchEnabled) {
+				for (String useGroupNameAttribute : userGroupNameAttributeSet) {
+					Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
+					if (userGroupfAttribute != null) {
+						NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
+						while (groupEnum.hasMore()) {
+							String gName = getShortName((String) groupEnum
+									.next());
+							String transformGroupName = groupNameTransform(gName);
+							groups.add(transformGroupName);
 						}
-
-                        if (counter <= 2000) {
-                            if (LOG.isInfoEnabled()) {
-                                LOG.info("Updating user count: " + counter
-                                        + ", userName: " + userName);
-                            }
-                            if ( counter == 2000 ) {
-                                LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
-                            }
-                        } else {
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("Updating user count: " + counter
-                                        + ", userName: " + userName);
-                            } else  {
-                                if ( counter % 100 == 0) {
-                                    LOG.info("Synced " + counter + " users till now");
-                                }
-                            }
-                        }
-
 					}
+				}
+			}
 
-					// Examine the paged results control response
-					Control[] controls = ldapContext.getResponseControls();
-					if (controls != null) {
-						for (int i = 0; i < controls.length; i++) {
-							if (controls[i] instanceof PagedResultsResponseControl) {
-								PagedResultsResponseControl prrc =
-										(PagedResultsResponseControl)controls[i];
-								total = prrc.getResultSize();
-								if (total != 0) {
-									if (LOG.isDebugEnabled()) {
-										LOG.debug("END-OF-PAGE total : " + total);
-									}
-								} else {
-									if (LOG.isDebugEnabled()) {
-										LOG.debug("END-OF-PAGE total : unknown");
-									}
-								}
-								cookie = prrc.getCookie();
-							}
-						}
-					} else {
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("No controls were sent from the server");
-						}
+			List<String> groupList = new ArrayList<String>(groups);
+			try {
+				sink.addOrUpdateUser(transformUserName, userAttrMap, groupList);
+
+			} catch (Throwable t) {
+				LOG.error("sink.addOrUpdateUserGroups failed with exception: " + t.getMessage()
+				+ ", for user: " + transformUserName + " and groups: " + groupList);
+			}
+            userCount++;
+		} else {
+			// If the user from the search result is present in the group user table,
+			// then addorupdate user to ranger admin.
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Chekcing if the user " + userFullName + " is part of the retrieved groups");
+			}
+			if ((groupUserTable.containsColumn(userFullName) || groupUserTable.containsColumn(userName))) {
+				if (!userNameMap.containsKey(userFullName)) {
+					String transformUserName = userNameTransform(userName);
+					try {
+						sink.addOrUpdateUser(transformUserName, userAttrMap, null);
+					} catch (Throwable t) {
+						LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+								+ ", for user: " + transformUserName);
 					}
-					// Re-activate paged results
-					if (pagedResultsEnabled)   {
+					userNameMap.put(userFullName, transformUserName);
+					//Also update the username in the groupUserTable with the one from username attribute.
+					Map<String, String> userMap = groupUserTable.column(userFullName);
+					for (Map.Entry<String, String> entry : userMap.entrySet()) {
 						if (LOG.isDebugEnabled()) {
-							LOG.debug(String.format("Fetched paged results round: %s", ++paged));
+							LOG.debug("Updating groupUserTable " + entry.getValue() + " with: " + transformUserName + " for " + entry.getKey());
 						}
-						ldapContext.setRequestControls(new Control[]{
-								new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
+						groupUserTable.put(entry.getKey(), userFullName, transformUserName);
 					}
-				} while (cookie != null);
-				LOG.info("LdapDeltaUserGroupBuilder.getUsers() completed with user count: "
-						+ counter);
-				} catch (Exception t) {
-					LOG.error("LdapDeltaUserGroupBuilder.getUsers() failed with exception: ", t);
-					LOG.info("LdapDeltaUserGroupBuilder.getUsers() user count: "
-							+ counter);
+					userCount++;
+					noOfNewUsers++;
+				} else {
+					noOfModifiedUsers++;
 				}
 			}
-			if (deltaSyncUserTime < highestdeltaSyncUserTime) {
-				// Incrementing highestdeltaSyncUserTime (for AD) in order to avoid search record repetition for next sync cycle.
-				deltaSyncUserTime = highestdeltaSyncUserTime + 1;
-				// Incrementing the highest timestamp value (for Openldap) with 1sec in order to avoid search record repetition for next sync cycle.
-				deltaSyncUserTimeStamp = dateFormat.format(new Date(highestdeltaSyncUserTime + 60l));
-			}
-		} finally {
-			if (userSearchResultEnum != null) {
-				userSearchResultEnum.close();
-			}
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
-			}
-			closeLdapContext();
+
 		}
+
+        if (userCount <= 2000) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Updating user count: " + userCount
+                        + ", userName: " + userName);
+            }
+            if ( userCount == 2000 ) {
+                LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
+            }
+        } else {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Updating user count: " + userCount
+                        + ", userName: " + userName);
+            } else  {
+                if ( userCount % 100 == 0) {
+                    LOG.info("Synced " + userCount + " users till now");
+                }
+            }
+        }
 	}
 
-	private void getGroups(UserGroupSink sink) throws Throwable {
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-        DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-        long highestdeltaSyncGroupTime = deltaSyncGroupTime;
-		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
-			}
-			extendedGroupSearchFilter = "(objectclass=" + groupObjectClass + ")";
-			if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
-				String customFilter = groupSearchFilter.trim();
-				if (!customFilter.startsWith("(")) {
-					customFilter = "(" + customFilter + ")";
-				}
-				extendedGroupSearchFilter = extendedGroupSearchFilter + customFilter;
+	private void getGroups(final UserGroupSink sink) throws Throwable {
+		highestdeltaSyncGroupTime = deltaSyncGroupTime;
+		extendedGroupSearchFilter = "(objectclass=" + groupObjectClass + ")";
+		if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
+			String customFilter = groupSearchFilter.trim();
+			if (!customFilter.startsWith("(")) {
+				customFilter = "(" + customFilter + ")";
 			}
+			extendedGroupSearchFilter = extendedGroupSearchFilter + customFilter;
+		}
 
-			extendedAllGroupsSearchFilter = "(&"  + extendedGroupSearchFilter + "(|(uSNChanged>=" + deltaSyncGroupTime + ")(modifyTimestamp>=" + deltaSyncGroupTimeStamp + "Z)))";
-
-			LOG.info("extendedAllGroupsSearchFilter = " + extendedAllGroupsSearchFilter);
-			for (int ou=0; ou<groupSearchBase.length; ou++) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-					int paged = 0;
-					do {
-						groupSearchResultEnum = ldapContext
-								.search(groupSearchBase[ou], extendedAllGroupsSearchFilter,
-										groupSearchControls);
-						while (groupSearchResultEnum.hasMore()) {
-							final SearchResult groupEntry = groupSearchResultEnum.next();
-							if (groupEntry == null) {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("groupEntry null, skipping sync for the entry");
-								}
-								continue;
-							}
-							counter++;
-							Attributes attributes =   groupEntry.getAttributes();
-							Attribute groupNameAttr = attributes.get(groupNameAttribute);
-							if (groupNameAttr == null) {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
-							String gName = (String) groupNameAttr.get();
-							String transformGroupName = groupNameTransform(gName);
-							Map<String, String> groupAttrMap = new HashMap<>();
-							Attribute groupCloudIdAttr = attributes.get(groupCloudIdAttribute);
-							if (groupCloudIdAttr != null) {
-								addToAttrMap(groupAttrMap, "cloud_id", groupCloudIdAttr, config.getGroupCloudIdAttributeDataType());
-							}
-							for (String otherGroupAttribute : otherGroupAttributes) {
-								if (attributes.get(otherGroupAttribute) != null) {
-									String attrType = config.getOtherGroupAttributeDataType(otherGroupAttribute);
-									addToAttrMap(groupAttrMap, otherGroupAttribute, attributes.get(otherGroupAttribute), attrType);
-								}
-							}
-							groupInfoMap.put(gName, groupAttrMap);
-							// If group based search is enabled, then
-							// update the group name to ranger admin
-							// check for group members and populate userInfo object with user's full name and group mapping
-							if (groupSearchFirstEnabled) {
-								if (LOG.isDebugEnabled()) {
-									LOG.debug("Update Ranger admin with " + transformGroupName);
-								}
-								sink.addOrUpdateGroup(transformGroupName, groupAttrMap);
-							}
-
-							Attribute timeStampAttr  = attributes.get("uSNChanged");
-							if (timeStampAttr != null) {
-								String uSNChangedVal = (String) timeStampAttr.get();
-								long currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
-								if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
-									highestdeltaSyncGroupTime = currentDeltaSyncTime;
-								}
-							} else {
-								timeStampAttr = attributes.get("modifytimestamp");
-								if (timeStampAttr != null) {
-									String timeStampVal = (String) timeStampAttr.get();
-									Date parseDate = dateFormat.parse(timeStampVal);
-									long currentDeltaSyncTime = parseDate.getTime();
-									LOG.info("timeStampVal = " + timeStampVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
-									if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
-										highestdeltaSyncGroupTime = currentDeltaSyncTime;
-										deltaSyncGroupTimeStamp = timeStampVal;
-									}
-								}
-							}
-							Attribute groupMemberAttr = attributes.get(groupMemberAttributeName);
-							int userCount = 0;
-							if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
-								LOG.info("No members available for " + gName);
-								if (groupSearchFirstEnabled) {
-									if (groupNames.contains(gName)) {
-										noOfModifiedGroups++;
-									} else {
-										noOfNewGroups++;
-									}
-									groupNames.add(gName);
-								}
-								continue;
-							}
-
-							NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
-							while (userEnum.hasMore()) {
-								String originalUserFullName = (String) userEnum.next();
-								if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
-									continue;
-								}
-								userCount++;
-								String userName = getShortName(originalUserFullName);
-								originalUserFullName = originalUserFullName.toLowerCase();
-								if (groupSearchFirstEnabled && !userSearchEnabled) {
-									String transformUserName = userNameTransform(userName);
-									try {
-										Map<String, String> userAttrMap = new HashMap<>();
-										sink.addOrUpdateUser(transformUserName, userAttrMap, null);
-									} catch (Throwable t) {
-										LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-										+ ", for user: " + transformUserName);
-									}
-									if (userNameMap.containsKey(originalUserFullName)) {
-										noOfModifiedUsers++;
-									} else {
-										noOfNewUsers++;
-									}
-									userNameMap.put(originalUserFullName, transformUserName);
-								}
-								//System.out.println("Adding " + userNameMap.get(originalUserFullName) + " and fullname = " + originalUserFullName + " to " + gName);
-								if (userNameMap.get(originalUserFullName) != null) {
-									groupUserTable.put(gName, originalUserFullName, userNameMap.get(originalUserFullName));
-								} else {
-									groupUserTable.put(gName, originalUserFullName, originalUserFullName);
-								}
-                                groupNameMap.put(groupEntry.getNameInNamespace().toLowerCase(), gName);
-							}
-
-
-							if (groupNames.contains(gName)) {
-								noOfModifiedGroups++;
-							} else {
-								noOfNewGroups++;
-							}
-							groupNames.add(gName);
-							LOG.info("No. of members in the group " + gName + " = " + userCount);
-						}
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (int i = 0; i < controls.length; i++) {
-								if (controls[i] instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)controls[i];
-									total = prrc.getResultSize();
-									if (total != 0) {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : " + total);
-										}
-									} else {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : unknown");
-										}
-									}
-									cookie = prrc.getCookie();
-								}
-							}
-						} else {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("No controls were sent from the server");
-							}
-						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug(String.format("Fetched paged results round: %s", ++paged));
-							}
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
-						}
-					} while (cookie != null);
-					LOG.info("LdapDeltaUserGroupBuilder.getGroups() completed with group count: "
-							+ counter);
-				} catch (Exception t) {
-					LOG.error("LdapDeltaUserGroupBuilder.getGroups() failed with exception: " + t);
-					LOG.info("LdapDeltaUserGroupBuilder.getGroups() group count: "
-							+ counter);
-				}
-			}
+		extendedAllGroupsSearchFilter = "(&"  + extendedGroupSearchFilter + "(|(uSNChanged>=" + deltaSyncGroupTime + ")(modifyTimestamp>=" + deltaSyncGroupTimeStamp + "Z)))";
 
-		} finally {
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
-			}
-			closeLdapContext();
-		}
+		LOG.info("extendedAllGroupsSearchFilter = " + extendedAllGroupsSearchFilter);
+		groupCount = 0;
+		searcher.search("LdapDeltaUserGroupBuilder.getGroups()", groupSearchBase, extendedAllGroupsSearchFilter, null, groupSearchControls,
+				groupEntry -> processGroupEntry(sink, groupEntry));
+		LOG.info("LdapDeltaUserGroupBuilder.getGroups() completed with group count: "
+				+ groupCount);
 
         if (groupHierarchyLevels > 0) {
 			if (LOG.isDebugEnabled()) {
@@ -957,6 +726,120 @@ private void getGroups(UserGroupSink sink) throws Throwable {
         }
 	}
 
+	private void processGroupEntry(UserGroupSink sink, SearchResult groupEntry) throws Throwable {
+		groupCount++;
+		Attributes attributes =   groupEntry.getAttributes();
+		Attribute groupNameAttr = attributes.get(groupNameAttribute);
+		if (groupNameAttr == null) {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
+		String gName = (String) groupNameAttr.get();
+		String transformGroupName = groupNameTransform(gName);
+		Map<String, String> groupAttrMap = new HashMap<>();
+		Attribute groupCloudIdAttr = attributes.get(groupCloudIdAttribute);
+		if (groupCloudIdAttr != null) {
+			addToAttrMap(groupAttrMap, "cloud_id", groupCloudIdAttr, config.getGroupCloudIdAttributeDataType());
+		}
+		for (String otherGroupAttribute : otherGroupAttributes) {
+			if (attributes.get(otherGroupAttribute) != null) {
+				String attrType = config.getOtherGroupAttributeDataType(otherGroupAttribute);
+				addToAttrMap(groupAttrMap, otherGroupAttribute, attributes.get(otherGroupAttribute), attrType);
+			}
+		}
+		groupInfoMap.put(gName, groupAttrMap);
+		// If group based search is enabled, then
+		// update the group name to ranger admin
+		// check for group members and populate userInfo object with user's full name and group mapping
+		if (groupSearchFirstEnabled) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Update Ranger admin with " + transformGroupName);
+			}
+			sink.addOrUpdateGroup(transformGroupName, groupAttrMap);
+		}
+
+		Attribute timeStampAttr  = attributes.get("uSNChanged");
+		if (timeStampAttr != null) {
+			String uSNChangedVal = (String) timeStampAttr.get();
+			long currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
+			if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
+				highestdeltaSyncGroupTime = currentDeltaSyncTime;
+			}
+		} else {
+			timeStampAttr = attributes.get("modifytimestamp");
+			if (timeStampAttr != null) {
+				String timeStampVal = (String) timeStampAttr.get();
+				Date parseDate = dateFormat.parse(timeStampVal);
+				long currentDeltaSyncTime = parseDate.getTime();
+				LOG.info("timeStampVal = " + timeStampVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
+				if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
+					highestdeltaSyncGroupTime = currentDeltaSyncTime;
+					deltaSyncGroupTimeStamp = timeStampVal;
+				}
+			}
+		}
+		Attribute groupMemberAttr = attributes.get(groupMemberAttributeName);
+		int userCount = 0;
+		if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
+			LOG.info("No members available for " + gName);
+			if (groupSearchFirstEnabled) {
+				if (groupNames.contains(gName)) {
+					noOfModifiedGroups++;
+				} else {
+					noOfNewGroups++;
+				}
+				groupNames.add(gName);
+			}
+			return;
+		}
+
+		NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
+		while (userEnum.hasMore()) {
+			String originalUserFullName = (String) userEnum.next();
+			if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
+				continue;
+			}
+			userCount++;
+			String userName = getShortName(originalUserFullName);
+			originalUserFullName = originalUserFullName.toLowerCase();
+			if (groupSearchFirstEnabled && !userSearchEnabled) {
+				String transformUserName = userNameTransform(userName);
+				try {
+					Map<String, String> userAttrMap = new HashMap<>();
+					sink.addOrUpdateUser(transformUserName, userAttrMap, null);
+				} catch (Throwable t) {
+					LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+					+ ", for user: " + transformUserName);
+				}
+				if (userNameMap.containsKey(originalUserFullName)) {
+					noOfModifiedUsers++;
+				} else {
+					noOfNewUsers++;
+				}
+				userNameMap.put(originalUserFullName, transformUserName);
+			}
+			//System.out.println("Adding " + userNameMap.get(originalUserFullName) + " and fullname = " + originalUserFullName + " to " + gName);
+			if (userNameMap.get(originalUserFullName) != null) {
+				groupUserTable.put(gName, originalUserFullName, userNameMap.get(originalUserFullName));
+			} else {
+				groupUserTable.put(gName, originalUserFullName, originalUserFullName);
+			}
+            groupNameMap.put(groupEntry.getNameInNamespace().toLowerCase(), gName);
+		}
+
+
+		if (groupNames.contains(gName)) {
+			noOfModifiedGroups++;
+		} else {
+			noOfNewGroups++;
+		}
+		groupNames.add(gName);
+		LOG.info("No. of members in the group " + gName + " = " + userCount);
+	}
+
 	private static String getShortName(String longName) {
 		if (StringUtils.isEmpty(longName)) {
 			return null;
@@ -1069,150 +952,76 @@ private void goUpGroupHierarchyLdap(Set<String> groupDNs, int groupHierarchyLeve
 		if (groupHierarchyLevels <= 0 || groupDNs.isEmpty()) {
 			return;
 		}
-		Set<String> nextLevelGroups = new HashSet<String>();
+		final Set<String> nextLevelGroups = new HashSet<String>();
 
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
+		String groupFilter = "(&(objectclass=" + groupObjectClass + ")";
+		if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
+			String customFilter = groupSearchFilter.trim();
+			if (!customFilter.startsWith("(")) {
+				customFilter = "(" + customFilter + ")";
 			}
-			String groupFilter = "(&(objectclass=" + groupObjectClass + ")";
-			if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
-				String customFilter = groupSearchFilter.trim();
-				if (!customFilter.startsWith("(")) {
-					customFilter = "(" + customFilter + ")";
-				}
-				groupFilter += customFilter + "(|";
-			}
-			StringBuilder filter = new StringBuilder();
+			groupFilter += customFilter + "(|";
+		}
+		StringBuilder filter = new StringBuilder();
 
-			for (String groupDN : groupDNs) {
-				filter.append("(").append(groupMemberAttributeName).append("=")
-						.append(groupDN).append(")");
-			}
-			filter.append("))");
-			groupFilter += filter;
+		for (String groupDN : groupDNs) {
+			filter.append("(").append(groupMemberAttributeName).append("=")
+					.append(groupDN).append(")");
+		}
+		filter.append("))");
+		groupFilter += filter;
 
-			LOG.info("extendedAllGroupsSearchFilter = " + groupFilter);
-			for (int ou=0; ou<groupSearchBase.length; ou++) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-					do {
-						groupSearchResultEnum = ldapContext
-								.search(groupSearchBase[ou], groupFilter,
-										groupSearchControls);
-						while (groupSearchResultEnum.hasMore()) {
-							final SearchResult groupEntry = groupSearchResultEnum.next();
-							if (groupEntry == null) {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("groupEntry null, skipping sync for the entry");
-								}
-								continue;
-							}
-							counter++;
-							Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
-							if (groupNameAttr == null) {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
-							nextLevelGroups.add(groupEntry.getNameInNamespace());
-							String gName = (String) groupNameAttr.get();
-
-							Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
-							int userCount = 0;
-							if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
-								LOG.info("No members available for " + gName);
-								continue;
-							}
+		LOG.info("extendedAllGroupsSearchFilter = " + groupFilter);
+		searcher.search("LdapDeltaUserGroupBuilder.goUpGroupHierarchyLdap()", groupSearchBase, groupFilter, null, groupSearchControls,
+				groupEntry -> processParentGroupEntry(nextLevelGroups, groupEntry));
+		goUpGroupHierarchyLdap(nextLevelGroups, groupHierarchyLevels-1);
+	}
 
-							Map<String, String> groupAttrMap = new HashMap<>();
-							for (String otherGroupAttribute : otherGroupAttributes) {
-								Attribute otherGroupAttr = groupEntry.getAttributes().get(otherGroupAttribute);
-								if (otherGroupAttr != null) {
-									groupAttrMap.put(otherGroupAttribute, (String) otherGroupAttr.get());
-								}
-							}
-							groupInfoMap.put(gName, groupAttrMap);
-
-							NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
-							while (userEnum.hasMore()) {
-								String originalUserFullName = (String) userEnum.next();
-								if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
-									continue;
-								}
-								userCount++;
-								originalUserFullName = originalUserFullName.toLowerCase();
-                                if (userNameMap.get(originalUserFullName) != null) {
-                                    groupUserTable.put(gName, originalUserFullName, userNameMap.get(originalUserFullName));
-                                } else {
-                                    groupUserTable.put(gName, originalUserFullName, originalUserFullName);
-                                }
-								groupNameMap.put(groupEntry.getNameInNamespace().toLowerCase(), gName);
+	private void processParentGroupEntry(Set<String> nextLevelGroups, SearchResult groupEntry) throws Throwable {
+		Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
+		if (groupNameAttr == null) {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
+		nextLevelGroups.add(groupEntry.getNameInNamespace());
+		String gName = (String) groupNameAttr.get();
 
-							}
-							LOG.info("No. of members in the group " + gName + " = " + userCount);
-						}
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (int i = 0; i < controls.length; i++) {
-								if (controls[i] instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)controls[i];
-									total = prrc.getResultSize();
-									if (total != 0) {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : " + total);
-										}
-									} else {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : unknown");
-										}
-									}
-									cookie = prrc.getCookie();
-								}
-							}
-						} else {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("No controls were sent from the server");
-							}
-						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
-						}
-					} while (cookie != null);
-					LOG.info("LdapDeltaUserGroupBuilder.goUpGroupHierarchyLdap() completed with group count: "
-							+ counter);
-				} catch (RuntimeException re) {
-					LOG.error("LdapDeltaUserGroupBuilder.goUpGroupHierarchyLdap() failed with runtime exception: ", re);
-					throw re;
-				} catch (Exception t) {
-					LOG.error("LdapDeltaUserGroupBuilder.goUpGroupHierarchyLdap() failed with exception: ", t);
-					LOG.info("LdapDeltaUserGroupBuilder.goUpGroupHierarchyLdap() group count: "
-							+ counter);
-				}
+		Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
+		int userCount = 0;
+		if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
+			LOG.info("No members available for " + gName);
+			return;
+		}
+
+		Map<String, String> groupAttrMap = new HashMap<>();
+		for (String otherGroupAttribute : otherGroupAttributes) {
+			Attribute otherGroupAttr = groupEntry.getAttributes().get(otherGroupAttribute);
+			if (otherGroupAttr != null) {
+				groupAttrMap.put(otherGroupAttribute, (String) otherGroupAttr.get());
 			}
+		}
+		groupInfoMap.put(gName, groupAttrMap);
 
-		} catch (RuntimeException re) {
-			LOG.error("LdapDeltaUserGroupBuilder.goUpGroupHierarchyLdap() failed with exception: ", re);
-			throw re;
-		} finally {
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
+		NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
+		while (userEnum.hasMore()) {
+			String originalUserFullName = (String) userEnum.next();
+			if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
+				continue;
 			}
-			closeLdapContext();
+			userCount++;
+			originalUserFullName = originalUserFullName.toLowerCase();
+            if (userNameMap.get(originalUserFullName) != null) {
+                groupUserTable.put(gName, originalUserFullName, userNameMap.get(originalUserFullName));
+            } else {
+                groupUserTable.put(gName, originalUserFullName, originalUserFullName);
+            }
+			groupNameMap.put(groupEntry.getNameInNamespace().toLowerCase(), gName);
+
 		}
-		goUpGroupHierarchyLdap(nextLevelGroups, groupHierarchyLevels-1);
+		LOG.info("No. of members in the group " + gName + " = " + userCount);
 	}
 
 	private void addToAttrMap(Map<String, String> userAttrMap, String attrName, Attribute attr, String attrType) throws Throwable{
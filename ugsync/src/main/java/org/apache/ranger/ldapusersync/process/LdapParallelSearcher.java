@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.ldapusersync.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+
+import org.apache.log4j.Logger;
+
+/*
+ * Runs a paged LDAP search over each of the given search bases. With parallelism > 1, up to that many bases are
+ * searched concurrently, each over an LDAP context taken from a pool that is kept until close(). Entries are handed
+ * to the handler one at a time, so handlers can update the builder's maps and call the sink without synchronization.
+ */
+public class LdapParallelSearcher {
+	private static final Logger LOG = Logger.getLogger(LdapParallelSearcher.class);
+
+	public interface LdapContextFactory {
+		LdapContext createLdapContext() throws Exception;
+
+		void closeLdapContext(LdapContext ldapContext) throws Exception;
+	}
+
+	public interface SearchResultHandler {
+		void process(SearchResult entry) throws Throwable;
+	}
+
+	private final LdapContextFactory         contextFactory;
+	private final int                        parallelism;
+	private final boolean                    pagedResultsEnabled;
+	private final int                        pagedResultsSize;
+	private final BlockingQueue<LdapContext> idleContexts = new LinkedBlockingQueue<LdapContext>();
+	private final Object                     handlerLock  = new Object();
+
+	public LdapParallelSearcher(LdapContextFactory contextFactory, int parallelism, boolean pagedResultsEnabled, int pagedResultsSize) {
+		this.contextFactory      = contextFactory;
+		this.parallelism         = Math.max(1, parallelism);
+		this.pagedResultsEnabled = pagedResultsEnabled;
+		this.pagedResultsSize    = pagedResultsSize;
+	}
+
+	/*
+	 * Failure of the search over one base is logged, and doesn't stop the search over other bases; failure to create
+	 * an LDAP context is thrown to the caller.
+	 * @return true if the search over every base completed
+	 */
+	public boolean search(final String label, String[] searchBases, final String filter, final Object[] filterArgs, final SearchControls searchControls, final SearchResultHandler handler) throws Throwable {
+		boolean ret = true;
+		int threadCount = Math.min(parallelism, searchBases.length);
+
+		if (threadCount <= 1) {
+			for (String searchBase : searchBases) {
+				ret &= searchBase(label, searchBase, filter, filterArgs, searchControls, handler);
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threadCount, new SearchThreadFactory());
+			try {
+				List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(searchBases.length);
+				for (final String searchBase : searchBases) {
+					results.add(executor.submit(() -> searchBase(label, searchBase, filter, filterArgs, searchControls, handler)));
+				}
+				for (Future<Boolean> result : results) {
+					try {
+						ret &= result.get();
+					} catch (ExecutionException excp) {
+						throw excp.getCause();
+					}
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		return ret;
+	}
+
+	public void close() {
+		LdapContext ldapContext;
+		while ((ldapContext = idleContexts.poll()) != null) {
+			closeContext(ldapContext);
+		}
+	}
+
+	private boolean searchBase(String label, String searchBase, String filter, Object[] filterArgs, SearchControls searchControls, SearchResultHandler handler) throws Exception {
+		int         counter     = 0;
+		LdapContext ldapContext = borrowContext();
+		boolean     isReusable  = false;
+
+		try {
+			byte[] cookie = null;
+			int    paged  = 0;
+
+			// Activate paged results
+			ldapContext.setRequestControls(pagedResultsEnabled ? new Control[] { new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) } : null);
+			do {
+				NamingEnumeration<SearchResult> searchResultEnum = filterArgs != null ? ldapContext.search(searchBase, filter, filterArgs, searchControls)
+				                                                                      : ldapContext.search(searchBase, filter, searchControls);
+				try {
+					while (searchResultEnum.hasMore()) {
+						SearchResult entry = searchResultEnum.next();
+						if (entry == null) {
+							if (LOG.isInfoEnabled()) {
+								LOG.info("entry null, skipping sync for the entry");
+							}
+							continue;
+						}
+						counter++;
+						synchronized (handlerLock) {
+							handler.process(entry);
+						}
+					}
+				} finally {
+					searchResultEnum.close();
+				}
+
+				// Examine the paged results control response
+				cookie = null;
+				Control[] controls = ldapContext.getResponseControls();
+				if (controls != null) {
+					for (Control control : controls) {
+						if (control instanceof PagedResultsResponseControl) {
+							cookie = ((PagedResultsResponseControl) control).getCookie();
+						}
+					}
+				} else {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("No controls were sent from the server");
+					}
+				}
+				// Re-activate paged results
+				if (pagedResultsEnabled) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug(String.format("Fetched paged results round: %s", ++paged));
+					}
+					ldapContext.setRequestControls(new Control[] { new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
+				}
+			} while (cookie != null);
+
+			isReusable = true;
+			LOG.info(label + " completed for search base " + searchBase + " with entry count: " + counter);
+		} catch (Exception excp) {
+			LOG.error(label + " failed for search base " + searchBase + " with exception: ", excp);
+			LOG.info(label + " entry count for search base " + searchBase + ": " + counter);
+		} catch (Throwable t) {
+			if (t instanceof Error) {
+				throw (Error) t;
+			}
+			LOG.error(label + " failed for search base " + searchBase + " with exception: ", t);
+		} finally {
+			releaseContext(ldapContext, isReusable);
+		}
+
+		return isReusable;
+	}
+
+	private LdapContext borrowContext() throws Exception {
+		LdapContext ret = idleContexts.poll();
+		if (ret == null) {
+			ret = contextFactory.createLdapContext();
+		}
+		return ret;
+	}
+
+	private void releaseContext(LdapContext ldapContext, boolean isReusable) {
+		if (isReusable) {
+			idleContexts.offer(ldapContext);
+		} else {
+			// the connection may be broken, or left in the middle of a paged search
+			closeContext(ldapContext);
+		}
+	}
+
+	private void closeContext(LdapContext ldapContext) {
+		try {
+			contextFactory.closeLdapContext(ldapContext);
+		} catch (Throwable t) {
+			LOG.warn("failed to close LDAP context", t);
+		}
+	}
+
+	private static class SearchThreadFactory implements ThreadFactory {
+		private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread ret = new Thread(runnable, "ldap-search-" + THREAD_NUMBER.incrementAndGet());
+			ret.setDaemon(true);
+			return ret;
+		}
+	}
+}
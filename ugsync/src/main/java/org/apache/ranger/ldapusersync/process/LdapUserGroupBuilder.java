@@ -22,6 +22,7 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,7 @@
 import java.util.Properties;
 import java.util.Set;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.naming.Context;
 import javax.naming.InvalidNameException;
@@ -38,11 +40,8 @@
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
-import javax.naming.ldap.Control;
 import javax.naming.ldap.InitialLdapContext;
 import javax.naming.ldap.LdapContext;
-import javax.naming.ldap.PagedResultsControl;
-import javax.naming.ldap.PagedResultsResponseControl;
 import javax.naming.ldap.StartTlsRequest;
 import javax.naming.ldap.StartTlsResponse;
 import javax.naming.ldap.LdapName;
@@ -61,6 +60,8 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 	private static final Logger LOG = Logger.getLogger(LdapUserGroupBuilder.class);
 
 	private static final int PAGE_SIZE = 500;
+	// max no. of group DNs in the member filter of a parent group search
+	private static final int GROUP_HIERARCHY_SEARCH_BATCH_SIZE = 100;
 
 	private String ldapUrl;
 	private String ldapBindDn;
@@ -96,7 +97,11 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
     private int groupHierarchyLevels;
 
 	private LdapContext ldapContext;
-	private StartTlsResponse tls;
+	private Map<LdapContext, StartTlsResponse> tlsResponses = new ConcurrentHashMap<LdapContext, StartTlsResponse>();
+	private int searchParallelism;
+	private LdapParallelSearcher searcher;
+	private int userCount;
+	private int groupCount;
 
 	private boolean userNameCaseConversionFlag;
 	private boolean groupNameCaseConversionFlag;
@@ -107,6 +112,12 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
     //private Set<String> firstGroupDNs;
 	private Set<String> allUsers;
 
+	// nested group resolution: keys are lower-cased group DNs
+	private Map<String, String> groupDNNames;
+	private Map<String, Set<String>> groupParentDNs;
+	private Set<String> resolvedGroupDNs;
+	private boolean allGroupsFetched;
+
 	UgsyncAuditInfo ugsyncAuditInfo;
 	LdapSyncSourceInfo ldapSyncSourceInfo;
 
@@ -156,6 +167,10 @@ public void init() throws Throwable{
 	}
 
 	private void createLdapContext() throws Throwable {
+		ldapContext = newLdapContext();
+	}
+
+	private LdapContext newLdapContext() throws Exception {
 		Properties env = new Properties();
 		env.put(Context.INITIAL_CONTEXT_FACTORY,
 				"com.sun.jndi.ldap.LdapCtxFactory");
@@ -164,23 +179,39 @@ private void createLdapContext() throws Throwable {
 			env.put("java.naming.ldap.factory.socket", "org.apache.ranger.ldapusersync.process.CustomSSLSocketFactory");
 		}
 
-		ldapContext = new InitialLdapContext(env, null);
+		LdapContext ret = new InitialLdapContext(env, null);
 		if (!ldapUrl.startsWith("ldaps")) {
 			if (config.isStartTlsEnabled()) {
-				tls = (StartTlsResponse) ldapContext.extendedOperation(new StartTlsRequest());
+				StartTlsResponse tls = (StartTlsResponse) ret.extendedOperation(new StartTlsRequest());
 				if (config.getSSLTrustStorePath() != null && !config.getSSLTrustStorePath().trim().isEmpty()) {
 					tls.negotiate(CustomSSLSocketFactory.getDefault());
 				} else {
 					tls.negotiate();
 				}
+				tlsResponses.put(ret, tls);
 				LOG.info("Starting TLS session...");
 			}
 		}
 
-		ldapContext.addToEnvironment(Context.SECURITY_PRINCIPAL, ldapBindDn);
-		ldapContext.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
-		ldapContext.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
-		ldapContext.addToEnvironment(Context.REFERRAL, ldapReferral);
+		ret.addToEnvironment(Context.SECURITY_PRINCIPAL, ldapBindDn);
+		ret.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
+		ret.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
+		ret.addToEnvironment(Context.REFERRAL, ldapReferral);
+		return ret;
+	}
+
+	private LdapParallelSearcher newSearcher() {
+		return new LdapParallelSearcher(new LdapParallelSearcher.LdapContextFactory() {
+			@Override
+			public LdapContext createLdapContext() throws Exception {
+				return newLdapContext();
+			}
+
+			@Override
+			public void closeLdapContext(LdapContext ldapContext) throws Exception {
+				LdapUserGroupBuilder.this.closeLdapContext(ldapContext);
+			}
+		}, searchParallelism, pagedResultsEnabled, pagedResultsSize);
 	}
 
 	private void setConfig() throws Throwable {
@@ -229,6 +260,7 @@ private void setConfig() throws Throwable {
 
 		pagedResultsEnabled =   config.isPagedResultsEnabled();
 		pagedResultsSize =   config.getPagedResultsSize();
+		searchParallelism = config.getLdapSearchParallelism();
 
 		groupSearchBase = config.getGroupSearchBase().split(";");
 		groupSearchScope = config.getGroupSearchScope();
@@ -278,6 +310,7 @@ private void setConfig() throws Throwable {
 					+ ",  userGroupNameAttributeSet: " + userGroupNameAttributeSet
 					+ ",  pagedResultsEnabled: " + pagedResultsEnabled
 					+ ",  pagedResultsSize: " + pagedResultsSize
+					+ ",  searchParallelism: " + searchParallelism
 					+ ",  groupSearchEnabled: " + groupSearchEnabled
 					+ ",  groupSearchBase: " + Arrays.toString(groupSearchBase)
 					+ ",  groupSearchScope: " + groupSearchScope
@@ -297,12 +330,18 @@ private void setConfig() throws Throwable {
 	}
 
 	private void closeLdapContext() throws Throwable {
+		if (ldapContext != null) {
+			closeLdapContext(ldapContext);
+			ldapContext = null;
+		}
+	}
+
+	private void closeLdapContext(LdapContext context) throws Exception {
+		StartTlsResponse tls = tlsResponses.remove(context);
 		if (tls != null) {
 			tls.close();
 		}
-		if (ldapContext != null) {
-			ldapContext.close();
-		}
+		context.close();
 	}
 
 	@Override
@@ -313,10 +352,25 @@ public boolean isChanged() {
 
 	@Override
 	public void updateSink(UserGroupSink sink) throws Throwable {
+		// LDAP contexts are pooled for the whole sync cycle
+		searcher = newSearcher();
+		try {
+			updateSinkWithSearcher(sink);
+		} finally {
+			searcher.close();
+			searcher = null;
+		}
+	}
+
+	private void updateSinkWithSearcher(UserGroupSink sink) throws Throwable {
 		LOG.info("LDAPUserGroupBuilder updateSink started");
 		userGroupMap = new HashMap<String, UserInfo>();
 		Set<String> allGroups = new HashSet<String>();
 		allUsers = new HashSet<String>();
+		groupDNNames = new HashMap<String, String>();
+		groupParentDNs = new HashMap<String, Set<String>>();
+		resolvedGroupDNs = new HashSet<String>();
+		allGroupsFetched = false;
 
 		if (!groupSearchFirstEnabled) {
 			LOG.info("Performing user search first");
@@ -340,7 +394,7 @@ public void updateSink(UserGroupSink sink) throws Throwable {
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Going through group hierarchy for nested group evaluation");
 					}
-                    goUpGroupHierarchyLdap(userInfo.getGroupDNs(), groupHierarchyLevels - 1, userInfo);
+                    goUpGroupHierarchy(userInfo);
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Completed group hierarchy computation");
 					}
@@ -391,7 +445,7 @@ public void updateSink(UserGroupSink sink) throws Throwable {
                 String userName = getShortName(userInfo.getUserFullName());
                 if (groupHierarchyLevels > 0) {
                     //System.out.println("Going through group hierarchy for nested group evaluation");
-                    goUpGroupHierarchyLdap(userInfo.getGroupDNs(), groupHierarchyLevels - 1, userInfo);
+                    goUpGroupHierarchy(userInfo);
                     //System.out.println("Completed group hierarchy computation");
                 }
 				List<String> groupList = userInfo.getGroups();
@@ -436,389 +490,250 @@ public void updateSink(UserGroupSink sink) throws Throwable {
 		}
 	}
 
-	private void getUsers(UserGroupSink sink) throws Throwable {
+	private void getUsers(final UserGroupSink sink) throws Throwable {
+		userCount = 0;
+		// When multiple OUs are configured, go through each OU as the user search base to search for users.
+		searcher.search("LDAPUserGroupBuilder.getUsers()", userSearchBase, extendedUserSearchFilter, null, userSearchControls,
+				userEntry -> processUserEntry(sink, userEntry));
+		LOG.info("LDAPUserGroupBuilder.getUsers() completed with user count: "
+				+ userCount);
+	}
+
+	private void processUserEntry(UserGroupSink sink, SearchResult userEntry) throws Throwable {
 		UserInfo userInfo;
-		NamingEnumeration<SearchResult> userSearchResultEnum = null;
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
-			}
 
-			// When multiple OUs are configured, go through each OU as the user search base to search for users.
-			for (String ou : userSearchBase) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-					int paged = 0;
-					do {
-						userSearchResultEnum = ldapContext
-								.search(ou, extendedUserSearchFilter, userSearchControls);
-
-						while (userSearchResultEnum.hasMore()) {
-							// searchResults contains all the user entries
-							final SearchResult userEntry = userSearchResultEnum.next();
-
-							if (userEntry == null)  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("userEntry null, skipping sync for the entry");
-								}
-								continue;
-							}
+		Attributes attributes = userEntry.getAttributes();
+		if (attributes == null)  {
+			if (LOG.isInfoEnabled())  {
+				LOG.info("attributes  missing for entry " + userEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
 
-							Attributes attributes = userEntry.getAttributes();
-							if (attributes == null)  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("attributes  missing for entry " + userEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
+		Attribute userNameAttr  = attributes.get(userNameAttribute);
+		if (userNameAttr == null)  {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(userNameAttribute + " missing for entry " + userEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
 
-							Attribute userNameAttr  = attributes.get(userNameAttribute);
-							if (userNameAttr == null)  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(userNameAttribute + " missing for entry " + userEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
+		String userName = (String) userNameAttr.get();
 
-							String userName = (String) userNameAttr.get();
+		if (userName == null || userName.trim().isEmpty())  {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(userNameAttribute + " empty for entry " + userEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
 
-							if (userName == null || userName.trim().isEmpty())  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(userNameAttribute + " empty for entry " + userEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
+		if (!groupSearchFirstEnabled) {
+			userInfo = new UserInfo(userName, userEntry.getNameInNamespace());
+			Set<String> groups = new HashSet<String>();
+
+			// Get all the groups from the group name attribute of the user only when group search is not enabled.
+			if (!groupSearchEnabled) {
+				for (String useGroupNameAttribute : userGroupNameAttributeSet) {
+					Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
+					if (userGroupfAttribute != null) {
+						NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
+						while (groupEnum.hasMore()) {
+                            String groupDN = (String) groupEnum.next();
+							if (LOG.isDebugEnabled()) {
+								LOG.debug("Adding " + groupDN + " to " + userName);
 							}
-
-							if (!groupSearchFirstEnabled) {
-								userInfo = new UserInfo(userName, userEntry.getNameInNamespace());
-								Set<String> groups = new HashSet<String>();
-
-								// Get all the groups from the group name attribute of the user only when group search is not enabled.
-								if (!groupSearchEnabled) {
-									for (String useGroupNameAttribute : userGroupNameAttributeSet) {
-										Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
-										if (userGroupfAttribute != null) {
-											NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
-											while (groupEnum.hasMore()) {
-                                                String groupDN = (String) groupEnum.next();
-												if (LOG.isDebugEnabled()) {
-													LOG.debug("Adding " + groupDN + " to " + userName);
-												}
-                                                userInfo.addGroupDN(groupDN);
-												String gName = getShortName(groupDN);
-												if (groupNameCaseConversionFlag) {
-													if (groupNameLowerCaseFlag) {
-														gName = gName.toLowerCase();
-													} else {
-														gName = gName.toUpperCase();
-													}
-												}
-												if (groupNameRegExInst != null) {
-													gName = groupNameRegExInst.transform(gName);
-												}
-												groups.add(gName);
-											}
-										}
-									}
-								}
-
-								userInfo.addGroups(groups);
-
-								//populate the userGroupMap with username, userInfo.
-								//userInfo contains details of user that will be later used for
-								//group search to compute group membership as well as to call sink.addOrUpdateUser()
-								if (userGroupMap.containsKey(userName)) {
-									LOG.warn("user object with username " + userName + " already exists and is replaced with the latest user object." );
-								}
-								userGroupMap.put(userName, userInfo);
-								allUsers.add(userName);
-
-								//List<String> groupList = new ArrayList<String>(groups);
-								List<String> groupList = userInfo.getGroups();
-								counter++;
-								if (counter <= 2000) {
-									if (LOG.isInfoEnabled()) {
-										LOG.info("Updating user count: " + counter
-												+ ", userName: " + userName + ", groupList: "
-												+ groupList);
-									}
-									if ( counter == 2000 ) {
-										LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
-									}
+                            userInfo.addGroupDN(groupDN);
+							String gName = getShortName(groupDN);
+							if (groupNameCaseConversionFlag) {
+								if (groupNameLowerCaseFlag) {
+									gName = gName.toLowerCase();
 								} else {
-									if (LOG.isTraceEnabled()) {
-										LOG.trace("Updating user count: " + counter
-												+ ", userName: " + userName + ", groupList: "
-												+ groupList);
-									} else  {
-										if ( counter % 100 == 0) {
-											LOG.info("Synced " + counter + " users till now");
-										}
-									}
-								}
-							} else {
-								// If the user from the search result is present in the usersList,
-								// then update user name in the userInfo map with the value from the search result
-								// and update ranger admin.
-								String userFullName = (userEntry.getNameInNamespace()).toLowerCase();
-								if (LOG.isDebugEnabled()) {
-									LOG.debug("Checking if the user " + userFullName + " is part of the retrieved groups");
-								}
-
-								userInfo = userGroupMap.get(userFullName);
-								if (userInfo == null) {
-									userInfo = userGroupMap.get(userName.toLowerCase());
-								}
-								if (userInfo != null) {
-									counter++;
-									LOG.info("Updating username for " + userFullName + " with " + userName);
-									userInfo.updateUserName(userName);
-									allUsers.add(userName);
-                                    List<String> groupList = userInfo.getGroups();
-                                    if (userNameCaseConversionFlag) {
-                                        if (userNameLowerCaseFlag) {
-                                            userName = userName.toLowerCase();
-                                        }
-                                        else {
-                                            userName = userName.toUpperCase();
-                                        }
-                                    }
-
-                                    if (userNameRegExInst != null) {
-                                        userName = userNameRegExInst.transform(userName);
-                                    }
-
-                                    try {
-                                        sink.addOrUpdateUser(userName, groupList);
-                                    } catch (Throwable t) {
-                                        LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-                                                + ", for user: " + userName
-                                                + ", groups: " + groupList);
-                                    }
-								}
-							}
-
-						}
-
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (Control control : controls) {
-								if (control instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)control;
-									total = prrc.getResultSize();
-									if (total != 0) {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : " + total);
-										}
-									} else {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : unknown");
-										}
-									}
-									cookie = prrc.getCookie();
+									gName = gName.toUpperCase();
 								}
 							}
-						} else {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("No controls were sent from the server");
-							}
-						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug(String.format("Fetched paged results round: %s", ++paged));
+							if (groupNameRegExInst != null) {
+								gName = groupNameRegExInst.transform(gName);
 							}
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
+							groups.add(gName);
 						}
-					} while (cookie != null);
-					LOG.info("LDAPUserGroupBuilder.getUsers() completed with user count: "
-							+ counter);
-				} catch (Throwable t) {
-					LOG.error("LDAPUserGroupBuilder.getUsers() failed with exception: " + t);
-					LOG.info("LDAPUserGroupBuilder.getUsers() user count: "
-							+ counter);
+					}
 				}
 			}
 
-		} finally {
-			if (userSearchResultEnum != null) {
-				userSearchResultEnum.close();
+			userInfo.addGroups(groups);
+
+			//populate the userGroupMap with username, userInfo.
+			//userInfo contains details of user that will be later used for
+			//group search to compute group membership as well as to call sink.addOrUpdateUser()
+			if (userGroupMap.containsKey(userName)) {
+				LOG.warn("user object with username " + userName + " already exists and is replaced with the latest user object." );
 			}
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
+			userGroupMap.put(userName, userInfo);
+			allUsers.add(userName);
+
+			//List<String> groupList = new ArrayList<String>(groups);
+			List<String> groupList = userInfo.getGroups();
+			userCount++;
+			if (userCount <= 2000) {
+				if (LOG.isInfoEnabled()) {
+					LOG.info("Updating user count: " + userCount
+							+ ", userName: " + userName + ", groupList: "
+							+ groupList);
+				}
+				if ( userCount == 2000 ) {
+					LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
+				}
+			} else {
+				if (LOG.isTraceEnabled()) {
+					LOG.trace("Updating user count: " + userCount
+							+ ", userName: " + userName + ", groupList: "
+							+ groupList);
+				} else  {
+					if ( userCount % 100 == 0) {
+						LOG.info("Synced " + userCount + " users till now");
+					}
+				}
+			}
+		} else {
+			// If the user from the search result is present in the usersList,
+			// then update user name in the userInfo map with the value from the search result
+			// and update ranger admin.
+			String userFullName = (userEntry.getNameInNamespace()).toLowerCase();
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Checking if the user " + userFullName + " is part of the retrieved groups");
+			}
+
+			userInfo = userGroupMap.get(userFullName);
+			if (userInfo == null) {
+				userInfo = userGroupMap.get(userName.toLowerCase());
+			}
+			if (userInfo != null) {
+				userCount++;
+				LOG.info("Updating username for " + userFullName + " with " + userName);
+				userInfo.updateUserName(userName);
+				allUsers.add(userName);
+                List<String> groupList = userInfo.getGroups();
+                if (userNameCaseConversionFlag) {
+                    if (userNameLowerCaseFlag) {
+                        userName = userName.toLowerCase();
+                    }
+                    else {
+                        userName = userName.toUpperCase();
+                    }
+                }
+
+                if (userNameRegExInst != null) {
+                    userName = userNameRegExInst.transform(userName);
+                }
+
+                try {
+                    sink.addOrUpdateUser(userName, groupList);
+                } catch (Throwable t) {
+                    LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+                            + ", for user: " + userName
+                            + ", groups: " + groupList);
+                }
 			}
-			closeLdapContext();
 		}
 	}
 
-	private void getGroups(UserGroupSink sink, UserInfo userInfo) throws Throwable {
-        //LOG.debug("getGroups(): for user " + userInfo.getUserName());
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-		try {
-			createLdapContext();
-			int total;
-            // Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
+	private void getGroups(final UserGroupSink sink, final UserInfo userInfo) throws Throwable {
+		if (!groupSearchFirstEnabled) {
+			if (userInfo == null) {
+				// Should never reach this.
+				LOG.error("No user information provided for group search!");
+				return;
 			}
-            for (String ou : groupSearchBase) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-					int paged = 0;
-					do {
-						if (!groupSearchFirstEnabled) {
-							if (userInfo == null) {
-								// Should never reach this.
-								LOG.error("No user information provided for group search!");
-								return;
-							}
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("Searching for groups for user " + userInfo.getUserName() +
-										" using filter " + String.format(extendedGroupSearchFilter, userInfo.getUserFullName(),
-												userInfo.getUserName()));
-							}
-							groupSearchResultEnum = ldapContext
-									.search(ou, extendedGroupSearchFilter,
-											new Object[]{userInfo.getUserFullName(), userInfo.getUserName()},
-											groupSearchControls);
-						} else {
-							// If group based search is enabled, then first retrieve all the groups based on the group configuration.
-							groupSearchResultEnum = ldapContext
-									.search(ou, extendedAllGroupsSearchFilter,
-											groupSearchControls);
-						}
-						while (groupSearchResultEnum.hasMore()) {
-							final SearchResult groupEntry = groupSearchResultEnum.next();
-							if (groupEntry != null) {
-								counter++;
-								Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
-                                //System.out.println("getGroups(): Going through all groups");
-								if (groupNameAttr == null) {
-									if (LOG.isInfoEnabled())  {
-										LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
-												", skipping sync");
-									}
-									continue;
-								}
-                                String groupDN = groupEntry.getNameInNamespace();
-                                //System.out.println("getGroups(): groupDN = " + groupDN);
-                                String gName = (String) groupNameAttr.get();
-								if (groupNameCaseConversionFlag) {
-									if (groupNameLowerCaseFlag) {
-										gName = gName.toLowerCase();
-									} else {
-										gName = gName.toUpperCase();
-									}
-								}
-								if (groupNameRegExInst != null) {
-									gName = groupNameRegExInst.transform(gName);
-								}
-								if (!groupSearchFirstEnabled) {
-									//computedGroups.add(gName);
-									if (LOG.isInfoEnabled())  {
-										LOG.info("computed groups for user: " + userInfo.getUserName() + ", groups: " + gName);
-									}
-                                    userInfo.addGroupDN(groupDN);
-                                    userInfo.addGroup(gName);
-								} else {
-									// If group based search is enabled, then
-									// update the group name to ranger admin
-									// check for group members and populate userInfo object with user's full name and group mapping
-									Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
-									if (LOG.isDebugEnabled()) {
-										LOG.debug("Update Ranger admin with " + gName);
-									}
-									int userCount = 0;
-									if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
-										LOG.info("No members available for " + gName);
-										sink.addOrUpdateGroup(gName, new HashMap<String, String>(), null);
-										continue;
-									}
-									sink.addOrUpdateGroup(gName, new HashMap<String, String>());
-									NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
-									while (userEnum.hasMore()) {
-										String originalUserFullName = (String) userEnum.next();
-										if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
-											continue;
-										}
-										String userFullName = originalUserFullName.toLowerCase();
-										userCount++;
-										if (!userGroupMap.containsKey(userFullName)) {
-											userInfo = new UserInfo(userFullName, originalUserFullName); // Preserving the original full name for later
-											userGroupMap.put(userFullName, userInfo);
-										} else {
-											userInfo = userGroupMap.get(userFullName);
-                                        }
-                                        LOG.info("Adding " + gName + " to user " + userInfo.getUserFullName());
-                                        userInfo.addGroup(gName);
-                                        userInfo.addGroupDN(groupDN);
-									}
-									LOG.info("No. of members in the group " + gName + " = " + userCount);
-								}
-							}
-						}
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (Control control : controls) {
-								if (control instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)control;
-									total = prrc.getResultSize();
-									if (total != 0) {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : " + total);
-										}
-									} else {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : unknown");
-										}
-									}
-									cookie = prrc.getCookie();
-								}
-							}
-						} else {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("No controls were sent from the server");
-							}
-						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug(String.format("Fetched paged results round: %s", ++paged));
-							}
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
-						}
-					} while (cookie != null);
-					LOG.info("LDAPUserGroupBuilder.getGroups() completed with group count: "
-							+ counter);
-				} catch (Throwable t) {
-					LOG.error("LDAPUserGroupBuilder.getGroups() failed with exception: " + t);
-					LOG.info("LDAPUserGroupBuilder.getGroups() group count: "
-							+ counter);
-				}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Searching for groups for user " + userInfo.getUserName() +
+						" using filter " + String.format(extendedGroupSearchFilter, userInfo.getUserFullName(),
+								userInfo.getUserName()));
 			}
+			searcher.search("LDAPUserGroupBuilder.getGroups()", groupSearchBase, extendedGroupSearchFilter,
+					new Object[]{userInfo.getUserFullName(), userInfo.getUserName()}, groupSearchControls,
+					groupEntry -> processGroupEntry(sink, userInfo, groupEntry));
+		} else {
+			groupCount = 0;
+			// If group based search is enabled, then first retrieve all the groups based on the group configuration.
+			boolean fetchedAllGroups = searcher.search("LDAPUserGroupBuilder.getGroups()", groupSearchBase, extendedAllGroupsSearchFilter,
+					null, groupSearchControls, groupEntry -> processGroupEntry(sink, null, groupEntry));
+			LOG.info("LDAPUserGroupBuilder.getGroups() completed with group count: "
+					+ groupCount);
+			// every group and its members are now in groupDNNames and userGroupMap,
+			// so the group hierarchy can be resolved without any further LDAP search
+			allGroupsFetched = fetchedAllGroups;
+		}
+	}
 
-		} finally {
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
+	private void processGroupEntry(UserGroupSink sink, UserInfo userInfo, SearchResult groupEntry) throws Throwable {
+		groupCount++;
+		Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
+        //System.out.println("getGroups(): Going through all groups");
+		if (groupNameAttr == null) {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
+        String groupDN = groupEntry.getNameInNamespace();
+        //System.out.println("getGroups(): groupDN = " + groupDN);
+        String gName = (String) groupNameAttr.get();
+		if (groupNameCaseConversionFlag) {
+			if (groupNameLowerCaseFlag) {
+				gName = gName.toLowerCase();
+			} else {
+				gName = gName.toUpperCase();
 			}
-			closeLdapContext();
+		}
+		if (groupNameRegExInst != null) {
+			gName = groupNameRegExInst.transform(gName);
+		}
+		groupDNNames.put(groupDN.toLowerCase(), gName);
+		if (!groupSearchFirstEnabled) {
+			//computedGroups.add(gName);
+			if (LOG.isInfoEnabled())  {
+				LOG.info("computed groups for user: " + userInfo.getUserName() + ", groups: " + gName);
+			}
+            userInfo.addGroupDN(groupDN);
+            userInfo.addGroup(gName);
+		} else {
+			// If group based search is enabled, then
+			// update the group name to ranger admin
+			// check for group members and populate userInfo object with user's full name and group mapping
+			Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Update Ranger admin with " + gName);
+			}
+			int userCount = 0;
+			if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
+				LOG.info("No members available for " + gName);
+				sink.addOrUpdateGroup(gName, new HashMap<String, String>(), null);
+				return;
+			}
+			sink.addOrUpdateGroup(gName, new HashMap<String, String>());
+			NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
+			while (userEnum.hasMore()) {
+				String originalUserFullName = (String) userEnum.next();
+				if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
+					continue;
+				}
+				String userFullName = originalUserFullName.toLowerCase();
+				userCount++;
+				if (!userGroupMap.containsKey(userFullName)) {
+					userInfo = new UserInfo(userFullName, originalUserFullName); // Preserving the original full name for later
+					userGroupMap.put(userFullName, userInfo);
+				} else {
+					userInfo = userGroupMap.get(userFullName);
+                }
+                LOG.info("Adding " + gName + " to user " + userInfo.getUserFullName());
+                userInfo.addGroup(gName);
+                userInfo.addGroupDN(groupDN);
+			}
+			LOG.info("No. of members in the group " + gName + " = " + userCount);
 		}
 	}
 
@@ -866,139 +781,128 @@ private static String getShortName(String longName) {
 		return shortName;
 	}
 
-	private void goUpGroupHierarchyLdap(Set<String> groupDNs, int groupHierarchyLevels, UserInfo userInfo) throws Throwable {
+	/*
+	 * Adds the groups that the user's groups are nested in, up to groupHierarchyLevels. Parent groups are looked up in
+	 * the group entries fetched by getGroups(); LDAP is searched only for groups whose parents are not known yet, and
+	 * the results are kept for the rest of the sync cycle.
+	 */
+	private void goUpGroupHierarchy(UserInfo userInfo) throws Throwable {
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("goUpGroupHierarchyLdap(): Incoming groups " + groupDNs);
+			LOG.debug("goUpGroupHierarchy(): Incoming groups " + userInfo.getGroupDNs());
 		}
-		if (groupHierarchyLevels <= 0 || groupDNs.isEmpty()) {
-			return;
-		}
-		Set<String> nextLevelGroups = new HashSet<String>();
-
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
-			}
-			String groupFilter = "(&(objectclass=" + groupObjectClass + ")";
-            if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
-                String customFilter = groupSearchFilter.trim();
-                if (!customFilter.startsWith("(")) {
-                    customFilter = "(" + customFilter + ")";
-                }
-                groupFilter += customFilter + "(|";
-            }
-			StringBuilder filter = new StringBuilder();
+		Set<String> visitedGroupDNs = new HashSet<String>();
+		Set<String> currentLevelGroupDNs = new HashSet<String>();
 
-			for (String groupDN : groupDNs) {
-				filter.append("(").append(groupMemberAttributeName).append("=")
-						.append(groupDN).append(")");
+		for (String groupDN : userInfo.getGroupDNs()) {
+			String groupKey = groupDN.toLowerCase();
+			if (visitedGroupDNs.add(groupKey)) {
+				currentLevelGroupDNs.add(groupKey);
 			}
-			filter.append("))");
-            groupFilter += filter;
+		}
 
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("extendedAllGroupsSearchFilter = " + groupFilter);
+		for (int level = 1; level < groupHierarchyLevels && !currentLevelGroupDNs.isEmpty(); level++) {
+			if (!allGroupsFetched) {
+				searchParentGroups(currentLevelGroupDNs);
 			}
-			for (String ou : groupSearchBase) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-					do {
-						groupSearchResultEnum = ldapContext
-									.search(ou, groupFilter,
-											groupSearchControls);
-                        //System.out.println("goUpGroupHierarchyLdap(): Going through the sub groups");
-						while (groupSearchResultEnum.hasMore()) {
-							final SearchResult groupEntry = groupSearchResultEnum.next();
-							if (groupEntry == null) {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("groupEntry null, skipping sync for the entry");
-								}
-								continue;
-							}
-							counter++;
-							Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
-							if (groupNameAttr == null) {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
-                            String groupDN = groupEntry.getNameInNamespace();
-                            //System.out.println("goUpGroupHierarchyLdap(): next Level Group DN = " + groupDN);
-							nextLevelGroups.add(groupDN);
-							String gName = (String) groupNameAttr.get();
-							if (groupNameCaseConversionFlag) {
-								if (groupNameLowerCaseFlag) {
-									gName = gName.toLowerCase();
-								} else {
-									gName = gName.toUpperCase();
-								}
-							}
-							if (groupNameRegExInst != null) {
-								gName = groupNameRegExInst.transform(gName);
-							}
-							userInfo.addGroup(gName);
+			Set<String> nextLevelGroupDNs = new HashSet<String>();
+
+			for (String groupDN : currentLevelGroupDNs) {
+				for (String parentGroupDN : getParentGroupDNs(groupDN)) {
+					String parentGroupKey = parentGroupDN.toLowerCase();
+					if (!visitedGroupDNs.add(parentGroupKey)) {
+						// already added through a shorter path, or a cycle in the group hierarchy
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("goUpGroupHierarchy(): skipping already visited group " + parentGroupDN + " for user " + userInfo.getUserName());
 						}
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (Control control : controls) {
-								if (control instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)control;
-									total = prrc.getResultSize();
-									if (total != 0) {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : " + total);
-										}
-									} else {
-										if (LOG.isDebugEnabled()) {
-											LOG.debug("END-OF-PAGE total : unknown");
-										}
-									}
-									cookie = prrc.getCookie();
-								}
-							}
-						} else {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("No controls were sent from the server");
-							}
-						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(PAGE_SIZE, cookie, Control.CRITICAL) });
-						}
-					} while (cookie != null);
-					LOG.info("LdapUserGroupBuilder.goUpGroupHierarchyLdap() completed with group count: "
-							+ counter);
-				} catch (RuntimeException re) {
-					LOG.error("LdapUserGroupBuilder.goUpGroupHierarchyLdap() failed with runtime exception: ", re);
-					throw re;
-				} catch (Exception t) {
-					LOG.error("LdapUserGroupBuilder.goUpGroupHierarchyLdap() failed with exception: ", t);
-					LOG.info("LdapUserGroupBuilder.goUpGroupHierarchyLdap() group count: "
-							+ counter);
+						continue;
+					}
+					String gName = groupDNNames.get(parentGroupKey);
+					if (gName != null) {
+						userInfo.addGroup(gName);
+					}
+					nextLevelGroupDNs.add(parentGroupKey);
 				}
 			}
+			currentLevelGroupDNs = nextLevelGroupDNs;
+		}
+	}
 
-		} catch (RuntimeException re) {
-			LOG.error("LdapUserGroupBuilder.goUpGroupHierarchyLdap() failed with exception: ", re);
-			throw re;
-		} finally {
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
+	private Set<String> getParentGroupDNs(String groupDN) {
+		Set<String> ret;
+		if (allGroupsFetched) {
+			// getGroups() adds every member of a group, including nested groups, to userGroupMap
+			UserInfo groupInfo = userGroupMap.get(groupDN);
+			ret = groupInfo != null ? groupInfo.getGroupDNs() : null;
+		} else {
+			ret = groupParentDNs.get(groupDN);
+		}
+		return ret != null ? ret : Collections.<String>emptySet();
+	}
+
+	private void searchParentGroups(Set<String> groupDNs) throws Throwable {
+		List<String> unresolvedGroupDNs = new ArrayList<String>();
+		for (String groupDN : groupDNs) {
+			if (resolvedGroupDNs.add(groupDN)) {
+				unresolvedGroupDNs.add(groupDN);
+			}
+		}
+		for (int i = 0; i < unresolvedGroupDNs.size(); i += GROUP_HIERARCHY_SEARCH_BATCH_SIZE) {
+			searchParentGroups(unresolvedGroupDNs.subList(i, Math.min(i + GROUP_HIERARCHY_SEARCH_BATCH_SIZE, unresolvedGroupDNs.size())));
+		}
+	}
+
+	private void searchParentGroups(List<String> groupDNs) throws Throwable {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("searchParentGroups(): searching parent groups of " + groupDNs);
+		}
+		final Set<String> childGroupDNs = new HashSet<String>(groupDNs);
+		StringBuilder filter = new StringBuilder("(&").append(extendedAllGroupsSearchFilter).append("(|");
+		for (int i = 0; i < groupDNs.size(); i++) {
+			filter.append("(").append(groupMemberAttributeName).append("={").append(i).append("})");
+		}
+		filter.append("))");
+
+		searcher.search("LdapUserGroupBuilder.searchParentGroups()", groupSearchBase, filter.toString(), groupDNs.toArray(), groupSearchControls,
+				groupEntry -> processParentGroupEntry(childGroupDNs, groupEntry));
+	}
+
+	private void processParentGroupEntry(Set<String> childGroupDNs, SearchResult groupEntry) throws Throwable {
+		Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
+		Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
+		if (groupNameAttr == null || groupMemberAttr == null) {
+			if (LOG.isInfoEnabled())  {
+				LOG.info(groupNameAttribute + " or " + groupMemberAttributeName + " empty for entry " + groupEntry.getNameInNamespace() +
+						", skipping sync");
+			}
+			return;
+		}
+		String parentGroupKey = groupEntry.getNameInNamespace().toLowerCase();
+		String gName = (String) groupNameAttr.get();
+		if (groupNameCaseConversionFlag) {
+			if (groupNameLowerCaseFlag) {
+				gName = gName.toLowerCase();
+			} else {
+				gName = gName.toUpperCase();
+			}
+		}
+		if (groupNameRegExInst != null) {
+			gName = groupNameRegExInst.transform(gName);
+		}
+		groupDNNames.put(parentGroupKey, gName);
+
+		NamingEnumeration<?> memberEnum = groupMemberAttr.getAll();
+		while (memberEnum.hasMore()) {
+			Object member = memberEnum.next();
+			String memberKey = member != null ? member.toString().trim().toLowerCase() : null;
+			if (memberKey != null && childGroupDNs.contains(memberKey)) {
+				Set<String> parentDNs = groupParentDNs.get(memberKey);
+				if (parentDNs == null) {
+					parentDNs = new HashSet<String>();
+					groupParentDNs.put(memberKey, parentDNs);
+				}
+				parentDNs.add(parentGroupKey);
 			}
-			closeLdapContext();
 		}
-		goUpGroupHierarchyLdap(nextLevelGroups, groupHierarchyLevels - 1, userInfo);
 	}
 
 	private void getRootDN() throws Throwable {
@@ -173,6 +173,9 @@ public class UserGroupSyncConfig  {
 	private static final String LGSYNC_PAGED_RESULTS_SIZE = "ranger.usersync.pagedresultssize";
 	private static final int DEFAULT_LGSYNC_PAGED_RESULTS_SIZE = 500;
 
+	private static final String LGSYNC_SEARCH_PARALLELISM = "ranger.usersync.ldap.search.parallelism";
+	private static final int DEFAULT_LGSYNC_SEARCH_PARALLELISM = 1;
+
 	private static final String LGSYNC_GROUP_SEARCH_ENABLED = "ranger.usersync.group.searchenabled";
 	private static final boolean DEFAULT_LGSYNC_GROUP_SEARCH_ENABLED = false;
 
@@ -739,6 +742,19 @@ public int getPagedResultsSize() {
 		return pagedResultsSize;
 	}
 
+	/* Max no. of user/group search bases searched concurrently, each over its own LDAP connection */
+	public int getLdapSearchParallelism() {
+		int searchParallelism = DEFAULT_LGSYNC_SEARCH_PARALLELISM;
+		String val = prop.getProperty(LGSYNC_SEARCH_PARALLELISM);
+		if(val != null && !val.trim().isEmpty()) {
+			searchParallelism = Integer.parseInt(val.trim());
+		}
+		if (searchParallelism < 1)  {
+			searchParallelism = DEFAULT_LGSYNC_SEARCH_PARALLELISM;
+		}
+		return searchParallelism;
+	}
+
 	public boolean isGroupSearchEnabled() {
 		boolean groupSearchEnabled;
 		String val = prop.getProperty(LGSYNC_GROUP_SEARCH_ENABLED);
@@ -1149,6 +1165,11 @@ public void setGroupHierarchyLevel(int groupHierarchyLevel) {
 		prop.setProperty(LGSYNC_GROUP_HIERARCHY_LEVELS, String.valueOf(groupHierarchyLevel));
 	}
 
+	/* Used only for unit testing */
+	public void setLdapSearchParallelism(int searchParallelism) {
+		prop.setProperty(LGSYNC_SEARCH_PARALLELISM, String.valueOf(searchParallelism));
+	}
+
 	public String getUserSyncMetricsFileName() throws IOException {
 		String val = prop.getProperty(UGSYNC_METRICS_FILEPATH);
 		if (StringUtils.isBlank(val)) {
@@ -22,6 +22,7 @@
 import java.io.File;
 
 import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.apache.ranger.plugin.util.RangerMetricsUtil;
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
 
@@ -48,6 +49,8 @@ public void run() {
 			LOG.info("user sync metrics frequency :  " + sleepTimeBetweenCycleInMillis + " and metrics file : "
 					+ logFileNameWithPath);
 			if (null != logFileNameWithPath) {
+				PerfDataRecorder.initialize(null, true);
+
 				while (!shutdownFlag) {
 					try {
 						if (LOG.isDebugEnabled()) {
@@ -63,6 +66,11 @@ public void run() {
 					} catch (Throwable t) {
 						LOG.error("Failed to write user sync metrics into file. Error details: ", t);
 					}
+					try {
+						writePerfMetrics(logFileNameWithPath);
+					} catch (Throwable t) {
+						LOG.error("Failed to write user sync perf metrics into file. Error details: ", t);
+					}
 				}
 			} else {
 				LOG.info("No file directory found for usersync metrics log ");
@@ -89,4 +97,13 @@ private void writeJVMMetrics(String logFileNameWithPath) throws Throwable {
 			throw t;
 		}
 	}
+
+	private void writePerfMetrics(String logFileNameWithPath) throws Throwable {
+		try {
+			PerfDataRecorder.writePrometheusTextFile(new File(PerfDataRecorder.getPrometheusTextFileName(logFileNameWithPath)));
+		} catch (Throwable t) {
+			LOG.error("UserSyncMetricsProducer.writePerfMetrics() failed to write metrics into file. Error details: ", t);
+			throw t;
+		}
+	}
 }
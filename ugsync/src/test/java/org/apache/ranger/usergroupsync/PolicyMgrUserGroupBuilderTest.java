@@ -26,17 +26,20 @@
 public class PolicyMgrUserGroupBuilderTest extends PolicyMgrUserGroupBuilder {
         private Set<String> allGroups;
         private Set<String> allUsers;
+        private Map<String, Set<String>> userGroups;
 
         @Override
         public void init() throws Throwable {
                 allGroups = new HashSet<>();
                 allUsers = new HashSet<>();
+                userGroups = new HashMap<>();
         }
 
         @Override
         public void addOrUpdateUser(String user, List<String> groups) {
                 allGroups.addAll(groups);
                 allUsers.add(user);
+                userGroups.put(user, new HashSet<>(groups));
                 //System.out.println("Username: " + user + " and associated groups: " + groups);
         }
 
@@ -66,4 +69,8 @@ public Set<String> getAllGroups() {
         public Set<String> getAllUsers() {
                 return allUsers;
         }
+
+        public Set<String> getUserGroups(String user) {
+                return userGroups.get(user);
+        }
 }
\ No newline at end of file
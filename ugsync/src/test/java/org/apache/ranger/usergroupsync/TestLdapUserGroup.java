@@ -22,6 +22,10 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.apache.directory.server.annotations.CreateLdapConnectionPool;
 import org.apache.directory.server.core.annotations.ApplyLdifFiles;
 import org.apache.directory.server.core.annotations.ContextEntry;
@@ -74,6 +78,7 @@
 public class TestLdapUserGroup extends AbstractLdapTestUnit{
 	private UserGroupSyncConfig config;
 	private UserGroupSource ldapBuilder;
+	private int groupHierarchyLevels;
 
 	@Before
 	public void setup() throws Exception {
@@ -89,6 +94,7 @@ public void setup() throws Exception {
 		getService().startup();
 		getLdapServer().start();
 		config = UserGroupSyncConfig.getInstance();	
+		groupHierarchyLevels = config.getGroupHierarchyLevels();
 		ldapBuilder = new LdapUserGroupBuilder();
 	}
 	
@@ -308,6 +314,27 @@ public void testUpdateSinkMultipleOUGroups() throws Throwable {
 		assertEquals(2, sink.getTotalGroups());
 	}
 
+	@Test
+	public void testUpdateSinkMultipleOUGroupsParallelSearch() throws Throwable {
+		config.setUserNameAttribute("sAMAccountName");
+		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com;ou=HadoopUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com;ou=BusinessUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("cn=*");
+		config.setGroupSearchBase("OU=HdpGroups,OU=HadoopUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com;OU=Groups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("cn=*Group10");
+		config.setUserGroupMemberAttributeName("member");
+		config.setUserObjectClass("organizationalPerson");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setGroupSearchFirstEnabled(false);
+		config.setLdapSearchParallelism(3);
+		ldapBuilder.init();
+		PolicyMgrUserGroupBuilderTest sink = new PolicyMgrUserGroupBuilderTest();
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(111, sink.getTotalUsers());
+		assertEquals(2, sink.getTotalGroups());
+	}
+
 	@Test
 	public void testGroupBasedAllUsers() throws Throwable {
 		config.setUserNameAttribute("sAMAccountName");
@@ -588,6 +615,27 @@ public void testMultipleOUInvalidOU() throws Throwable {
 		assertEquals(0, sink.getTotalGroups());
 	}
 	
+	@Test
+	public void testMultipleOUInvalidOUParallelSearch() throws Throwable {
+		config.setUserNameAttribute("sAMAccountName");
+		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com;ou=HadoopUsers1,DC=ranger,DC=qe,DC=hortonworks,DC=com;ou=BusinessUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("cn=*");
+		config.setGroupSearchBase("OU=HdpGroups,OU=HadoopUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com;OU=Groups1,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("cn=*");
+		config.setUserGroupMemberAttributeName("member");
+		config.setUserObjectClass("organizationalPerson");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setGroupSearchFirstEnabled(false);
+		config.setLdapSearchParallelism(3);
+		ldapBuilder.init();
+		PolicyMgrUserGroupBuilderTest sink = new PolicyMgrUserGroupBuilderTest();
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(110, sink.getTotalUsers());
+		assertEquals(0, sink.getTotalGroups());
+	}
+
 	@Test
 	public void testDeltaUpdateSinkTotalGroups() throws Throwable {
 		config.setUserNameAttribute("sAMAccountName");
@@ -632,6 +680,29 @@ public void testDeltaUpdateSinkMultipleOUGroups() throws Throwable {
 		assertEquals(2, sink.getTotalGroups());
 	}
 	
+	@Test
+	public void testDeltaUpdateSinkMultipleOUGroupsParallelSearch() throws Throwable {
+		config.setUserNameAttribute("sAMAccountName");
+		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com;ou=HadoopUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com;ou=BusinessUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("cn=*");
+		config.setGroupSearchBase("OU=HdpGroups,OU=HadoopUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com;OU=Groups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("cn=*Group10");
+		config.setUserGroupMemberAttributeName("member");
+		config.setUserObjectClass("organizationalPerson");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setGroupSearchFirstEnabled(false);
+		config.setDeltaSync(true);
+		config.setLdapSearchParallelism(3);
+		ldapBuilder = config.getUserGroupSource();
+		ldapBuilder.init();
+		LdapPolicyMgrUserGroupBuilderTest sink = new LdapPolicyMgrUserGroupBuilderTest();
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(111, sink.getTotalUsers());
+		assertEquals(2, sink.getTotalGroups());
+	}
+
 	@Test
 	public void testDeltaGroupBasedWithUserFilter() throws Throwable {
 		config.setUserNameAttribute("sAMAccountName");
@@ -701,8 +772,61 @@ public void testDeltaGBWithUserSearchDisabled() throws Throwable {
 		assertEquals(2, sink.getTotalGroups());
 	}
 
+	@Test
+	public void testGroupHierarchyOneLevel() throws Throwable {
+		assertEquals(groupSet("NestedGroup1"), getNestedUserGroups(1, false));
+	}
+
+	@Test
+	public void testGroupHierarchyTwoLevels() throws Throwable {
+		assertEquals(groupSet("NestedGroup1", "NestedGroup2"), getNestedUserGroups(2, false));
+	}
+
+	@Test
+	public void testGroupHierarchyBeyondDepth() throws Throwable {
+		assertEquals(groupSet("NestedGroup1", "NestedGroup2", "NestedGroup3", "NestedGroup4"), getNestedUserGroups(5, false));
+	}
+
+	@Test(timeout = 60000)
+	public void testGroupHierarchyCycle() throws Throwable {
+		// with no level limit, only the visited groups stop the walk at the cycle NestedGroup2 -> NestedGroup3 -> NestedGroup4 -> NestedGroup2
+		assertEquals(groupSet("NestedGroup1", "NestedGroup2", "NestedGroup3", "NestedGroup4"), getNestedUserGroups(Integer.MAX_VALUE, false));
+	}
+
+	@Test(timeout = 60000)
+	public void testGroupHierarchyCycleWithGroupSearchFirst() throws Throwable {
+		// parent groups are looked up in the fetched groups instead of searching LDAP
+		assertEquals(groupSet("NestedGroup1", "NestedGroup2", "NestedGroup3", "NestedGroup4"), getNestedUserGroups(Integer.MAX_VALUE, true));
+	}
+
+	private Set<String> getNestedUserGroups(int groupHierarchyLevels, boolean groupSearchFirstEnabled) throws Throwable {
+		config.setUserNameAttribute("uid");
+		config.setUserSearchBase("OU=NestedUsers,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("");
+		config.setUserObjectClass("posixAccount");
+		config.setGroupSearchBase("OU=NestedGroups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("");
+		config.setUserGroupMemberAttributeName("member");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setGroupSearchFirstEnabled(groupSearchFirstEnabled);
+		config.setUserSearchEnabled(false);
+		config.setGroupHierarchyLevel(groupHierarchyLevels);
+		ldapBuilder.init();
+		PolicyMgrUserGroupBuilderTest sink = new PolicyMgrUserGroupBuilderTest();
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		return sink.getUserGroups("nUser1");
+	}
+
+	private static Set<String> groupSet(String... groups) {
+		return new HashSet<>(Arrays.asList(groups));
+	}
+
 	@After
 	public void shutdown() throws Exception {
+		config.setLdapSearchParallelism(1);
+		config.setGroupHierarchyLevel(groupHierarchyLevels);
 		if (getService().isStarted()) {
 			getService().shutdown();
 		}